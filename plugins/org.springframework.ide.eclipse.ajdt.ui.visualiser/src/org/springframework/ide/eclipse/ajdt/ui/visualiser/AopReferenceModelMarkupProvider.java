@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2008 Spring IDE Developers
+ * Copyright (c) 2007, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,8 +11,13 @@
 package org.springframework.ide.eclipse.ajdt.ui.visualiser;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
@@ -49,8 +54,99 @@ public class AopReferenceModelMarkupProvider extends SimpleMarkupProvider
 	// Cache: IMember -> List(Stripe)
 	private static Hashtable<IMember, List<Stripe>> markupCache = new Hashtable<IMember, List<Stripe>>();
 
-	public static void resetCache() {
+	// Cache: ICompilationUnit -> List(ReferenceStripe); null if not yet computed
+	private static Map<IJavaElement, List<ReferenceStripe>> referenceStripes = null;
+
+	private static SortedSet<String> markupKinds = new TreeSet<String>();
+
+	public static synchronized void resetCache() {
 		markupCache.clear();
+		referenceStripes = null;
+	}
+
+	/**
+	 * Recomputes the stripes of all compilation units from the current
+	 * {@link AopReferenceModel} and only drops the cached markups of members
+	 * whose compilation unit has different stripes than before.
+	 */
+	private static synchronized void updateCache() {
+		Map<IJavaElement, List<ReferenceStripe>> oldReferenceStripes = referenceStripes;
+		initReferenceStripes();
+		if (oldReferenceStripes == null) {
+			markupCache.clear();
+			return;
+		}
+
+		Set<IJavaElement> changedUnits = new HashSet<IJavaElement>();
+		for (Map.Entry<IJavaElement, List<ReferenceStripe>> entry : referenceStripes.entrySet()) {
+			if (!entry.getValue().equals(oldReferenceStripes.get(entry.getKey()))) {
+				changedUnits.add(entry.getKey());
+			}
+		}
+		for (IJavaElement unit : oldReferenceStripes.keySet()) {
+			if (!referenceStripes.containsKey(unit)) {
+				changedUnits.add(unit);
+			}
+		}
+		if (changedUnits.size() > 0) {
+			for (Iterator<IMember> members = markupCache.keySet().iterator(); members.hasNext();) {
+				IMember member = members.next();
+				if (!(member instanceof JDTMember) || changedUnits.contains(((JDTMember) member).getResource())) {
+					members.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Groups the stripes of all AOP references by the compilation unit of the
+	 * advised type and collects the markup kinds in a single pass over the
+	 * references.
+	 */
+	private static void initReferenceStripes() {
+		Map<IJavaElement, List<ReferenceStripe>> stripes = new HashMap<IJavaElement, List<ReferenceStripe>>();
+		SortedSet<String> kinds = new TreeSet<String>();
+		List<IAopReference> references = Activator.getModel().getAllReferences();
+		if (references != null) {
+			for (IAopReference reference : references) {
+				String label = getText(reference);
+				kinds.add(label);
+
+				IType advisedType = null;
+				if (reference.getTarget() instanceof IType) {
+					advisedType = (IType) reference.getTarget();
+				}
+				else {
+					advisedType = reference.getTarget().getDeclaringType();
+				}
+				ICompilationUnit advisedCu = advisedType.getCompilationUnit();
+				if (advisedCu != null) {
+					List<ReferenceStripe> unitStripes = stripes.get(advisedCu);
+					if (unitStripes == null) {
+						unitStripes = new ArrayList<ReferenceStripe>();
+						stripes.put(advisedCu, unitStripes);
+					}
+					unitStripes.add(new ReferenceStripe(label, AopReferenceModelNavigatorUtils.getLineNumber(reference
+							.getTarget()) + 1));
+				}
+			}
+		}
+		referenceStripes = stripes;
+		markupKinds = kinds;
+	}
+
+	private static synchronized List<ReferenceStripe> getReferenceStripes(IJavaElement unit) {
+		if (referenceStripes == null) {
+			initReferenceStripes();
+		}
+		return referenceStripes.get(unit);
+	}
+
+	private static synchronized SortedSet<String> getMarkupKindNames() {
+		if (referenceStripes == null) {
+			initReferenceStripes();
+		}
+		return markupKinds;
 	}
 
 	/**
@@ -65,31 +161,13 @@ public class AopReferenceModelMarkupProvider extends SimpleMarkupProvider
 		}
 
 		List<Stripe> stripeList = new ArrayList<Stripe>();
-		if (ProviderManager.getContentProvider() instanceof JDTContentProvider) {
-			List<IAopReference> references = org.springframework.ide.eclipse.aop.core.Activator
-					.getModel().getAllReferences();
-			if (references != null && references.size() > 0) {
-				for (IAopReference reference : references) {
-					IType advisedType = null;
-					if (reference.getTarget() instanceof IType) {
-						advisedType = (IType) reference.getTarget();
-					}
-					else {
-						advisedType = reference.getTarget().getDeclaringType();
-					}
-					ICompilationUnit advisedCu = advisedType
-							.getCompilationUnit();
-					if (member instanceof JDTMember) {
-						IJavaElement je = ((JDTMember) member).getResource();
-						if (je.equals(advisedCu)) {
-							String label = getText(reference);
-							Stripe stripe = new Stripe(new SimpleMarkupKind(
-									label), AopReferenceModelNavigatorUtils
-									.getLineNumber(reference.getTarget()) + 1);
-							stripeList.add(stripe);
-							addMarkup(member.getFullname(), stripe);
-						}
-					}
+		if (ProviderManager.getContentProvider() instanceof JDTContentProvider && member instanceof JDTMember) {
+			List<ReferenceStripe> unitStripes = getReferenceStripes(((JDTMember) member).getResource());
+			if (unitStripes != null) {
+				for (ReferenceStripe unitStripe : unitStripes) {
+					Stripe stripe = new Stripe(new SimpleMarkupKind(unitStripe.label), unitStripe.offset);
+					stripeList.add(stripe);
+					addMarkup(member.getFullname(), stripe);
 				}
 			}
 		}
@@ -105,18 +183,9 @@ public class AopReferenceModelMarkupProvider extends SimpleMarkupProvider
 	@Override
 	public SortedSet<SimpleMarkupKind> getAllMarkupKinds() {
 		SortedSet<SimpleMarkupKind> kinds = new TreeSet<SimpleMarkupKind>();
-		List<String> advices = new ArrayList<String>();
 		if (ProviderManager.getContentProvider() instanceof JDTContentProvider) {
-			List<IAopReference> references = Activator.getModel()
-					.getAllReferences();
-			if (references != null && references.size() > 0) {
-				for (IAopReference reference : references) {
-					String label = getText(reference);
-					if (!advices.contains(label)) {
-						kinds.add(new SimpleMarkupKind(label));
-						advices.add(label);
-					}
-				}
+			for (String label : getMarkupKindNames()) {
+				kinds.add(new SimpleMarkupKind(label));
 			}
 		}
 		if (kinds.size() > 0) {
@@ -147,7 +216,7 @@ public class AopReferenceModelMarkupProvider extends SimpleMarkupProvider
 		return true;
 	}
 
-	private String getText(IAopReference reference) {
+	private static String getText(IAopReference reference) {
 		ADVICE_TYPE type = reference.getAdviceType();
 		String text = "";
 		if (type == ADVICE_TYPE.AFTER) {
@@ -181,7 +250,7 @@ public class AopReferenceModelMarkupProvider extends SimpleMarkupProvider
 	}
 
 	public void changed() {
-		resetCache();
+		updateCache();
 	}
 
 	/**
@@ -200,4 +269,33 @@ public class AopReferenceModelMarkupProvider extends SimpleMarkupProvider
 		super.deactivate();
 		Activator.getModel().unregisterAopModelChangedListener(this);
 	}
+
+	/**
+	 * The label and line of a stripe contributed by a single AOP reference.
+	 */
+	private static class ReferenceStripe {
+
+		private final String label;
+
+		private final int offset;
+
+		public ReferenceStripe(String label, int offset) {
+			this.label = label;
+			this.offset = offset;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof ReferenceStripe)) {
+				return false;
+			}
+			ReferenceStripe other = (ReferenceStripe) obj;
+			return offset == other.offset && label.equals(other.label);
+		}
+
+		@Override
+		public int hashCode() {
+			return label.hashCode() * 31 + offset;
+		}
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2008 Spring IDE Developers
+ * Copyright (c) 2006, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,7 +10,10 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.aop.ui.decorator;
 
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
@@ -19,7 +22,6 @@ import org.eclipse.jdt.internal.core.SourceType;
 import org.eclipse.jface.viewers.IBaseLabelProvider;
 import org.eclipse.jface.viewers.IDecoration;
 import org.eclipse.jface.viewers.ILightweightLabelDecorator;
-import org.eclipse.jface.viewers.LabelProviderChangedEvent;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.PlatformUI;
 import org.springframework.ide.eclipse.aop.core.Activator;
@@ -37,9 +39,11 @@ import org.springframework.ide.eclipse.aop.ui.navigator.model.BeanMethodReferenc
 import org.springframework.ide.eclipse.aop.ui.navigator.model.BeanReferenceNode;
 import org.springframework.ide.eclipse.aop.ui.navigator.model.IReferenceNode;
 import org.springframework.ide.eclipse.aop.ui.navigator.util.AopReferenceModelImages;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
 import org.springframework.ide.eclipse.beans.core.model.IBean;
 import org.springframework.ide.eclipse.beans.ui.model.BeansModelLabelDecorator;
 import org.springframework.ide.eclipse.core.SpringCoreUtils;
+import org.springframework.ide.eclipse.core.model.IModelElement;
 
 /**
  * {@link ILightweightLabelDecorator} that decorates advised Java elements.
@@ -54,34 +58,62 @@ public class AopReferenceModelImageDecorator extends BeansModelLabelDecorator im
 	public static final String DECORATOR_ID = org.springframework.ide.eclipse.aop.ui.Activator.PLUGIN_ID
 			+ ".decorator.adviceimagedecorator";
 
-	private void internalUpdate() {
+	private void internalUpdate(final Object[] elements) {
 		Display.getDefault().asyncExec(new Runnable() {
 			public void run() {
 
 				IBaseLabelProvider provider = PlatformUI.getWorkbench().getDecoratorManager()
 						.getBaseLabelProvider(BeansModelLabelDecorator.DECORATOR_ID);
 				if (provider != null) {
-					fireLabelProviderChanged(new LabelProviderChangedEvent(provider));
+					fireLabelProviderChanged(createLabelProviderChangedEvent(provider, elements));
 				}
 
-				fireLabelProviderChanged(new LabelProviderChangedEvent(
-						AopReferenceModelImageDecorator.this));
+				fireLabelProviderChanged(createLabelProviderChangedEvent(AopReferenceModelImageDecorator.this,
+						elements));
 			}
 		});
 	}
 
 	private IAopModelChangedListener listener;
 
+	/** Snapshot of the advised elements used for decoration and to compute the labels that need a refresh */
+	private volatile AdvisedElements advisedElements;
+
 	public AopReferenceModelImageDecorator() {
 		super();
+		advisedElements = new AdvisedElements(Activator.getModel().getAllReferences());
 		listener = new IAopModelChangedListener() {
 			public void changed() {
-				internalUpdate();
+				AdvisedElements oldAdvisedElements = getAdvisedElements();
+				AdvisedElements newAdvisedElements = new AdvisedElements(Activator.getModel().getAllReferences());
+				advisedElements = newAdvisedElements;
+
+				Set<Object> elements = newAdvisedElements.getChangedElements(oldAdvisedElements);
+				if (!elements.isEmpty()) {
+					internalUpdate(elements.toArray());
+				}
 			}
 		};
 		Activator.getModel().registerAopModelChangedListener(listener);
 	}
 
+	private AdvisedElements getAdvisedElements() {
+		AdvisedElements elements = advisedElements;
+		if (elements == null) {
+			elements = new AdvisedElements(Activator.getModel().getAllReferences());
+			advisedElements = elements;
+		}
+		return elements;
+	}
+
+	private boolean isAdvised(IJavaElement element) {
+		return element != null && getAdvisedElements().targets.contains(element);
+	}
+
+	private boolean isAdvised(IBean bean) {
+		return bean != null && getAdvisedElements().targetBeanIds.contains(bean.getElementID());
+	}
+
 	public void decorate(Object element, IDecoration decoration) {
 		// add the orange triangle to the icon if this method,
 		// class or aspect is advised
@@ -90,14 +122,14 @@ public class AopReferenceModelImageDecorator extends BeansModelLabelDecorator im
 			IJavaProject jp = je.getJavaProject();
 			// only query the model if the element is in an Spring project
 			if ((jp != null) && SpringCoreUtils.isSpringProject(jp.getProject())) {
-				if (je instanceof IMethod && Activator.getModel().isAdvised(je)) {
+				if (je instanceof IMethod && isAdvised(je)) {
 					decoration.addOverlay(AopReferenceModelImages.DESC_OVR_ADVICE,
 							IDecoration.TOP_LEFT);
 				}
 			}
 		}
 		else if (element instanceof BeanMethodReferenceNode
-				&& Activator.getModel().isAdvised(
+				&& isAdvised(
 						((BeanMethodReferenceNode) element).getJavaElement())) {
 			decoration.addOverlay(AopReferenceModelImages.DESC_OVR_ADVICE, IDecoration.TOP_LEFT);
 		}
@@ -108,11 +140,11 @@ public class AopReferenceModelImageDecorator extends BeansModelLabelDecorator im
 			decoration.addOverlay(AopReferenceModelImages.DESC_OVR_ADVICE, IDecoration.TOP_LEFT);
 		}
 		else if (element instanceof BeanReferenceNode
-				&& Activator.getModel().isAdvised(((BeanReferenceNode) element).getBean())) {
+				&& isAdvised(((BeanReferenceNode) element).getBean())) {
 			decoration.addOverlay(AopReferenceModelImages.DESC_OVR_ADVICE, IDecoration.TOP_LEFT);
 		}
 		else if (element instanceof AdvisedAopSourceMethodNode) {
-			if (Activator.getModel().isAdvised(
+			if (isAdvised(
 					((AdvisedAopSourceMethodNode) element).getReference().getSource()))
 				decoration
 						.addOverlay(AopReferenceModelImages.DESC_OVR_ADVICE, IDecoration.TOP_LEFT);
@@ -151,7 +183,7 @@ public class AopReferenceModelImageDecorator extends BeansModelLabelDecorator im
 		// add overlay to IBeans
 		else if (element instanceof IBean) {
 			IBean bean = (IBean) element;
-			if (Activator.getModel().isAdvised(bean)) {
+			if (isAdvised(bean)) {
 				decoration
 						.addOverlay(AopReferenceModelImages.DESC_OVR_ADVICE, IDecoration.TOP_LEFT);
 			}
@@ -170,4 +202,54 @@ public class AopReferenceModelImageDecorator extends BeansModelLabelDecorator im
 			Activator.getModel().unregisterAopModelChangedListener(listener);
 		}
 	}
+
+	/**
+	 * Immutable snapshot of the advised Java elements and beans of the AOP reference model.
+	 */
+	private static class AdvisedElements {
+
+		private final Set<IJavaElement> targets = new HashSet<IJavaElement>();
+
+		private final Set<String> targetBeanIds = new HashSet<String>();
+
+		public AdvisedElements(List<IAopReference> references) {
+			for (IAopReference reference : references) {
+				if (reference.getTarget() != null) {
+					targets.add(reference.getTarget());
+				}
+				if (reference.getTargetBeanId() != null) {
+					targetBeanIds.add(reference.getTargetBeanId());
+				}
+			}
+		}
+
+		/**
+		 * Returns the Java elements and beans whose advised state differs between this and the given snapshot. The
+		 * reference nodes of the AOP navigator are refreshed by its label provider.
+		 */
+		public Set<Object> getChangedElements(AdvisedElements other) {
+			Set<Object> elements = new LinkedHashSet<Object>();
+			addDifference(targets, other.targets, elements);
+			addDifference(other.targets, targets, elements);
+
+			Set<String> changedBeanIds = new HashSet<String>();
+			addDifference(targetBeanIds, other.targetBeanIds, changedBeanIds);
+			addDifference(other.targetBeanIds, targetBeanIds, changedBeanIds);
+			for (String beanId : changedBeanIds) {
+				IModelElement bean = BeansCorePlugin.getModel().getElement(beanId);
+				if (bean != null) {
+					elements.add(bean);
+				}
+			}
+			return elements;
+		}
+
+		private static <T> void addDifference(Set<? extends T> left, Set<? extends T> right, Set<T> difference) {
+			for (T element : left) {
+				if (!right.contains(element)) {
+					difference.add(element);
+				}
+			}
+		}
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2008 Spring IDE Developers
+ * Copyright (c) 2006, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,8 +11,13 @@
 package org.springframework.ide.eclipse.aop.ui.navigator;
 
 import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.jface.viewers.LabelProviderChangedEvent;
 import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.navigator.ICommonLabelProvider;
+import org.springframework.ide.eclipse.aop.core.Activator;
+import org.springframework.ide.eclipse.aop.core.model.IAopModelChangedListener;
+import org.springframework.ide.eclipse.aop.ui.decorator.AopReferenceModelImageDecorator;
 import org.springframework.ide.eclipse.aop.ui.navigator.model.IReferenceNode;
 import org.springframework.ide.eclipse.aop.ui.navigator.model.IRevealableReferenceNode;
 import org.springframework.ide.eclipse.beans.ui.navigator.BeansNavigatorLabelProvider;
@@ -22,6 +27,11 @@ import org.springframework.ide.eclipse.beans.ui.navigator.BeansNavigatorLabelPro
  * {@link IReferenceNode#getText()} and {@link IReferenceNode#getImage()} of
  * instances of {@link IReferenceNode}. Otherwise calls
  * {@link BeansNavigatorLabelProvider}.
+ * <p>
+ * The {@link AopReferenceModelImageDecorator} only refreshes the labels of the
+ * Java elements and beans whose advised state changed. As the reference nodes
+ * shown by the navigator are decorated as well, this label provider refreshes
+ * all of its labels on every change of the AOP reference model.
  * @author Christian Dupuis
  * @author Torsten Juergeleit
  * @since 2.0
@@ -29,10 +39,32 @@ import org.springframework.ide.eclipse.beans.ui.navigator.BeansNavigatorLabelPro
 public class AopReferenceModelNavigatorLabelProvider extends
 		BeansNavigatorLabelProvider {
 	
+	private IAopModelChangedListener listener;
+
 	public AopReferenceModelNavigatorLabelProvider() {
 		super(true);
+		listener = new IAopModelChangedListener() {
+			public void changed() {
+				Display.getDefault().asyncExec(new Runnable() {
+					public void run() {
+						fireLabelProviderChanged(new LabelProviderChangedEvent(
+								AopReferenceModelNavigatorLabelProvider.this));
+					}
+				});
+			}
+		};
+		Activator.getModel().registerAopModelChangedListener(listener);
 	}
-	
+
+	@Override
+	public void dispose() {
+		if (listener != null) {
+			Activator.getModel().unregisterAopModelChangedListener(listener);
+			listener = null;
+		}
+		super.dispose();
+	}
+
 	@Override
 	public String getDescription(Object element) {
 		if (element instanceof IRevealableReferenceNode) {
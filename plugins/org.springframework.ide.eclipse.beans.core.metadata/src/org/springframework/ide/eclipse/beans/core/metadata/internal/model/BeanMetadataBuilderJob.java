@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 Spring IDE Developers
+ * Copyright (c) 2010, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,12 +10,25 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.core.metadata.internal.model;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
@@ -25,27 +38,49 @@ import org.eclipse.core.runtime.IExtensionPoint;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.ui.progress.IProgressConstants;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.ConstructorArgumentValues.ValueHolder;
 import org.springframework.ide.eclipse.beans.core.BeansCoreImages;
 import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.internal.model.Bean;
 import org.springframework.ide.eclipse.beans.core.internal.model.BeansModel;
 import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelUtils;
 import org.springframework.ide.eclipse.beans.core.metadata.BeansMetadataPlugin;
+import org.springframework.ide.eclipse.beans.core.metadata.model.AbstractAnnotationReadingMetadataProvider;
 import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadata;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadataModel;
 import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadataProvider;
 import org.springframework.ide.eclipse.beans.core.metadata.model.IMethodMetadata;
 import org.springframework.ide.eclipse.beans.core.model.IBean;
 import org.springframework.ide.eclipse.beans.core.model.IBeanProperty;
 import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
 import org.springframework.ide.eclipse.beans.core.model.IBeansProject;
+import org.springframework.ide.eclipse.core.java.Introspector;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
+import org.springframework.ide.eclipse.core.java.annotation.IAnnotationMetadata;
+import org.springframework.ide.eclipse.core.model.IModelSourceLocation;
 import org.springframework.ide.eclipse.core.model.ModelChangeEvent.Type;
 
 /**
  * {@link Job} implementation that handles loading and attaching {@link IBeanMetadata} for {@link IBeansConfig}.
+ * <p>
+ * Beans are processed on a bounded number of worker threads. All annotation reading providers of one job share the
+ * annotation meta data of the bean classes. Beans whose class and bean definition have not changed since their meta
+ * data has last been attached are skipped.
  * @author Christian Dupuis
  * @since 2.0.5
  */
@@ -64,6 +99,11 @@ public class BeanMetadataBuilderJob extends Job {
 	/** Object identifying the job family */
 	private static final Object CONTENT_FAMILY = new Object();
 
+	private static final String THREAD_NAME = "Spring Meta Data Worker";
+
+	/** Number of beans that have been skipped as their meta data was up-to-date */
+	private final AtomicInteger skippedBeans = new AtomicInteger();
+
 	/** Internal cache of the affected {@link IBean}s keyed by the containing {@link IBeansConfig} */
 	private Map<IBeansConfig, Set<IBean>> affectedBeans;
 
@@ -124,29 +164,39 @@ public class BeanMetadataBuilderJob extends Job {
 					}
 				}
 			}
-			monitor.beginTask("Attaching Spring bean meta data", affectedBeans.size());
+			// Do some profiling
+			long start = System.currentTimeMillis();
 
 			// Reading contributed IBeanMetadataProviders from the extension point
 			IBeanMetadataProvider[] providers = getMetadataProviders();
-			Set<IBeansProject> projects = new LinkedHashSet<IBeansProject>();
+			shareAnnotationMetadata(providers);
 
+			Set<IBeansProject> projects = new LinkedHashSet<IBeansProject>();
+			int beanCount = 0;
 			for (Map.Entry<IBeansConfig, Set<IBean>> entry : affectedBeans.entrySet()) {
-
-				// Do some profiling
-				long start = System.currentTimeMillis();
-				IResource resource = entry.getKey().getElementResource();
 				projects.add(BeansModelUtils.getParentOfClass(entry.getKey(), IBeansProject.class));
+				beanCount += entry.getValue().size();
+			}
+			monitor.beginTask("Attaching Spring bean meta data", beanCount);
 
-				monitor.subTask("Attaching Spring bean meta data to file [" + resource.getFullPath().toString() + "]");
-				attachMetadata(entry.getKey(), entry.getValue(), monitor, providers);
-				monitor.worked(1);
-
-				if (BeanMetadataModel.DEBUG) {
-					System.out.println("Attaching meta data [" + resource.getFullPath().toString() + "] took "
-							+ (System.currentTimeMillis() - start) + "ms");
+			if (beanCount > 1 && Runtime.getRuntime().availableProcessors() > 1) {
+				attachMetadataConcurrently(affectedBeans, monitor, providers, beanCount);
+			}
+			else {
+				for (Map.Entry<IBeansConfig, Set<IBean>> entry : affectedBeans.entrySet()) {
+					IResource resource = entry.getKey().getElementResource();
+					monitor.subTask("Attaching Spring bean meta data to file [" + resource.getFullPath().toString()
+							+ "]");
+					attachMetadata(entry.getKey(), entry.getValue(), monitor, providers);
 				}
 			}
 
+			if (BeanMetadataModel.DEBUG) {
+				System.out.println("Attaching meta data to " + beanCount + " beans took "
+						+ (System.currentTimeMillis() - start) + "ms (" + skippedBeans.get()
+						+ " unchanged beans skipped)");
+			}
+
 			// Notify that the model has changed.
 			for (IBeansProject project : projects) {
 				((BeansModel) BeansCorePlugin.getModel()).notifyListeners(project, Type.CHANGED);
@@ -167,7 +217,96 @@ public class BeanMetadataBuilderJob extends Job {
 			IBeanMetadataProvider[] providers) {
 
 		for (IBean bean : beans) {
+			if (progressMonitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
 			attachMetadataToBean(beansConfig, progressMonitor, providers, bean);
+			progressMonitor.worked(1);
+		}
+	}
+
+	/**
+	 * Attaches meta data to the given beans on a bounded number of worker threads.
+	 * @since 3.0.0
+	 */
+	protected void attachMetadataConcurrently(Map<IBeansConfig, Set<IBean>> beansByConfig,
+			final IProgressMonitor monitor, final IBeanMetadataProvider[] providers, int beanCount) {
+		int threadCount = Math.min(Runtime.getRuntime().availableProcessors(), beanCount);
+		final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+		ExecutorService executorService = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, THREAD_NAME);
+				thread.setContextClassLoader(contextClassLoader);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		final IProgressMonitor workerMonitor = new CancelAwareProgressMonitor(monitor);
+		try {
+			CompletionService<IBean> completionService = new ExecutorCompletionService<IBean>(executorService);
+			for (Map.Entry<IBeansConfig, Set<IBean>> entry : beansByConfig.entrySet()) {
+				final IBeansConfig beansConfig = entry.getKey();
+				for (final IBean bean : entry.getValue()) {
+					completionService.submit(new Callable<IBean>() {
+
+						public IBean call() throws Exception {
+							if (!workerMonitor.isCanceled()) {
+								attachMetadataToBean(beansConfig, workerMonitor, providers, bean);
+							}
+							return bean;
+						}
+					});
+				}
+			}
+
+			for (int i = 0; i < beanCount; i++) {
+				try {
+					completionService.take().get();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new OperationCanceledException();
+				}
+				catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					}
+					else if (cause instanceof Error) {
+						throw (Error) cause;
+					}
+					throw new IllegalStateException(cause);
+				}
+				monitor.worked(1);
+				if (monitor.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+			}
+		}
+		finally {
+			workerMonitor.setCanceled(true);
+			executorService.shutdownNow();
+			try {
+				executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Lets all annotation reading providers of this job share one cache of {@link IAnnotationMetadata} so that the
+	 * annotations of each bean class are read only once.
+	 */
+	private void shareAnnotationMetadata(IBeanMetadataProvider[] providers) {
+		ConcurrentMap<IType, IAnnotationMetadata> metadataCache = new ConcurrentHashMap<IType, IAnnotationMetadata>();
+		for (IBeanMetadataProvider provider : providers) {
+			if (provider instanceof AbstractAnnotationReadingMetadataProvider) {
+				((AbstractAnnotationReadingMetadataProvider) provider).setAnnotationMetadataCache(metadataCache);
+			}
 		}
 	}
 
@@ -176,6 +315,14 @@ public class BeanMetadataBuilderJob extends Job {
 	 */
 	private void attachMetadataToBean(final IBeansConfig beansConfig, final IProgressMonitor progressMonitor,
 			IBeanMetadataProvider[] providers, final IBean bean) {
+		IBeanMetadataModel metadataModel = BeansMetadataPlugin.getMetadataModel();
+		Long fingerprint = getFingerprint(bean);
+		if (fingerprint != null && metadataModel instanceof BeanMetadataModel
+				&& ((BeanMetadataModel) metadataModel).isUpToDate(bean, fingerprint)) {
+			skippedBeans.incrementAndGet();
+			return;
+		}
+
 		// Reset meta data attachment before adding
 		BeansMetadataPlugin.getMetadataModel().clearBeanMetadata(bean);
 		BeansMetadataPlugin.getMetadataModel().clearBeanProperties(bean);
@@ -215,6 +362,127 @@ public class BeanMetadataBuilderJob extends Job {
 		if (beanProperties.size() > 0) {
 			BeansMetadataPlugin.getMetadataModel().setBeanProperties(bean, beanProperties);
 		}
+		if (fingerprint != null && metadataModel instanceof BeanMetadataModel && !progressMonitor.isCanceled()) {
+			((BeanMetadataModel) metadataModel).setFingerprint(bean, fingerprint);
+		}
+	}
+
+	/**
+	 * Returns a fingerprint of the inputs of the meta data providers for the given <code>bean</code>: the bean class,
+	 * the extent and the contents of the bean definition and the modification stamps of the bean class, its super
+	 * classes and interfaces. Types from archives outside of the workspace are represented by the path and the time
+	 * stamp of the archive.
+	 * @return the fingerprint or <code>null</code> if the bean class can't be resolved
+	 * @since 3.0.0
+	 */
+	protected Long getFingerprint(IBean bean) {
+		String className = BeansModelUtils.getBeanClass(bean, null);
+		if (className == null) {
+			return null;
+		}
+		IType type = JdtUtils.getJavaType(bean.getElementResource().getProject(), className);
+		if (type == null) {
+			// the class might get created later on
+			return null;
+		}
+
+		long fingerprint = className.hashCode();
+		IModelSourceLocation location = bean.getElementSourceLocation();
+		if (location != null) {
+			fingerprint = 31 * fingerprint + location.getStartLine();
+			fingerprint = 31 * fingerprint + location.getEndLine();
+		}
+		if (bean instanceof Bean) {
+			fingerprint = 31 * fingerprint + getHashCode(((Bean) bean).getBeanDefinition());
+		}
+		try {
+			Set<IType> types = new LinkedHashSet<IType>();
+			for (IType superType = type; superType != null; superType = Introspector.getSuperType(superType)) {
+				types.add(superType);
+			}
+			types.addAll(Introspector.getAllImplementedInterfaces(type));
+			for (IType superType : types) {
+				fingerprint = 31 * fingerprint + superType.getFullyQualifiedName().hashCode();
+				IResource resource = superType.getResource();
+				if (resource != null) {
+					fingerprint = 31 * fingerprint + resource.getModificationStamp();
+				}
+				else {
+					IPackageFragmentRoot root = (IPackageFragmentRoot) superType
+							.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+					if (root != null) {
+						File file = root.getPath().toFile();
+						fingerprint = 31 * fingerprint + root.getPath().hashCode();
+						fingerprint = 31 * fingerprint + file.lastModified();
+					}
+				}
+			}
+		}
+		catch (JavaModelException e) {
+			return null;
+		}
+		return fingerprint;
+	}
+
+	/**
+	 * Returns a hash code of the attributes, property values and constructor arguments of the given bean definition.
+	 * Other than {@link Object#hashCode()} of the definition this does not depend on the identity of the definition
+	 * and its values, which get recreated whenever the config is read.
+	 */
+	private static int getHashCode(BeanDefinition beanDefinition) {
+		if (beanDefinition == null) {
+			return 0;
+		}
+		// the string representation covers the class, the scope and all other attributes of the bean definition
+		int hashCode = beanDefinition.toString().hashCode();
+		for (PropertyValue propertyValue : beanDefinition.getPropertyValues().getPropertyValues()) {
+			hashCode = 31 * hashCode + propertyValue.getName().hashCode();
+			hashCode = 31 * hashCode + getValueHashCode(propertyValue.getValue());
+		}
+		ConstructorArgumentValues constructorArguments = beanDefinition.getConstructorArgumentValues();
+		for (Map.Entry<Integer, ValueHolder> entry : constructorArguments.getIndexedArgumentValues().entrySet()) {
+			hashCode = 31 * hashCode + entry.getKey().intValue();
+			hashCode = 31 * hashCode + getValueHashCode(entry.getValue());
+		}
+		for (ValueHolder valueHolder : constructorArguments.getGenericArgumentValues()) {
+			hashCode = 31 * hashCode + getValueHashCode(valueHolder);
+		}
+		return hashCode;
+	}
+
+	private static int getValueHashCode(Object value) {
+		if (value == null) {
+			return 0;
+		}
+		else if (value instanceof ValueHolder) {
+			ValueHolder valueHolder = (ValueHolder) value;
+			int hashCode = getValueHashCode(valueHolder.getValue());
+			hashCode = 31 * hashCode + getValueHashCode(valueHolder.getType());
+			return 31 * hashCode + getValueHashCode(valueHolder.getName());
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			// the names of inner beans contain object ids
+			return getHashCode(((BeanDefinitionHolder) value).getBeanDefinition());
+		}
+		else if (value instanceof BeanDefinition) {
+			return getHashCode((BeanDefinition) value);
+		}
+		else if (value instanceof Collection) {
+			int hashCode = 1;
+			for (Object element : (Collection<?>) value) {
+				hashCode = 31 * hashCode + getValueHashCode(element);
+			}
+			return hashCode;
+		}
+		else if (value instanceof Map) {
+			int hashCode = 1;
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				hashCode = 31 * hashCode + getValueHashCode(entry.getKey());
+				hashCode = 31 * hashCode + getValueHashCode(entry.getValue());
+			}
+			return hashCode;
+		}
+		return value.toString().hashCode();
 	}
 
 	/**
@@ -246,4 +514,21 @@ public class BeanMetadataBuilderJob extends Job {
 		return providers.toArray(new IBeanMetadataProvider[providers.size()]);
 	}
 
+	/**
+	 * {@link NullProgressMonitor} for worker threads that also reports the cancellation of the job.
+	 */
+	private static class CancelAwareProgressMonitor extends NullProgressMonitor {
+
+		private final IProgressMonitor monitor;
+
+		public CancelAwareProgressMonitor(IProgressMonitor monitor) {
+			this.monitor = monitor;
+		}
+
+		@Override
+		public boolean isCanceled() {
+			return super.isCanceled() || monitor.isCanceled();
+		}
+	}
+
 }
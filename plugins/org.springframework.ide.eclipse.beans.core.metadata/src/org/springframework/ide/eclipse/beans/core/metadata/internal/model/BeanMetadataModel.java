@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 Spring IDE Developers
+ * Copyright (c) 2010, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,7 +10,12 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.core.metadata.internal.model;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -18,16 +23,25 @@ import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.metadata.BeansMetadataPlugin;
 import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadata;
 import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadataModel;
 import org.springframework.ide.eclipse.beans.core.metadata.model.IMethodMetadata;
 import org.springframework.ide.eclipse.beans.core.model.IBean;
 import org.springframework.ide.eclipse.beans.core.model.IBeanProperty;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
 import org.springframework.ide.eclipse.core.SpringCore;
+import org.springframework.ide.eclipse.core.model.IModelChangeListener;
+import org.springframework.ide.eclipse.core.model.IModelElement;
+import org.springframework.ide.eclipse.core.model.ModelChangeEvent;
 
 /**
  * {@link IBeanMetadataModel} implementation that saves and reloads its contents from a backing
  * store.
+ * <p>
+ * The contents are split into one {@link BeanMetadataPartition} per config. The partitions of a
+ * project are loaded when the model is queried for a bean of that project for the first time;
+ * on {@link #stop()} only changed partitions are written back.
  * @author Christian Dupuis
  * @since 2.0.5
  */
@@ -43,15 +57,42 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 
 	private final Lock w = rwl.writeLock();
 
-	private Map<String, BeanMetadataHolder> beanMetadata = new ConcurrentHashMap<String, BeanMetadataHolder>();
+	/** {@link BeanMetadataPartition}s keyed by partition key */
+	private final Map<String, BeanMetadataPartition> partitions = new ConcurrentHashMap<String, BeanMetadataPartition>();
 
-	private Map<String, BeanPropertyDataHolder> beanPropertyData = new ConcurrentHashMap<String, BeanPropertyDataHolder>();
+	/** Keys of the projects whose stored partitions have already been loaded */
+	private final Set<String> loadedProjects = Collections.synchronizedSet(new HashSet<String>());
+
+	private volatile BeanMetadataPersistence persistence;
+
+	/** Fingerprints of the inputs the meta data of beans has last been created from keyed by element id */
+	private final Map<String, Long> beanFingerprints = new ConcurrentHashMap<String, Long>();
+
+	private IModelChangeListener configRemovalListener;
+
+	/**
+	 * Creates a new {@link BeanMetadataModel} that stores its contents in the state location of
+	 * the plug-in once it gets started.
+	 */
+	public BeanMetadataModel() {
+	}
+
+	/**
+	 * Creates a new {@link BeanMetadataModel} that uses the given <code>persistence</code>.
+	 * @since 3.0.0
+	 */
+	public BeanMetadataModel(BeanMetadataPersistence persistence) {
+		this.persistence = persistence;
+	}
 
 	public Set<IBeanMetadata> getBeanMetadata(IBean bean) {
+		String elementId = bean.getElementID();
+		loadPartitions(elementId);
 		try {
 			r.lock();
-			if (beanMetadata.containsKey(bean.getElementID())) {
-				return beanMetadata.get(bean.getElementID()).getBeanMetaData();
+			BeanMetadataPartition partition = partitions.get(BeanMetadataPartition.getPartitionKey(elementId));
+			if (partition != null && partition.getBeanMetadata().containsKey(elementId)) {
+				return partition.getBeanMetadata().get(elementId).getBeanMetaData();
 			}
 			return Collections.emptySet();
 		}
@@ -62,15 +103,19 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 
 	public void setBeanMetadata(IBean bean, Set<IBeanMetadata> bMetaData,
 			Set<IMethodMetadata> methodMetaData) {
+		String elementId = bean.getElementID();
+		loadPartitions(elementId);
 		try {
 			w.lock();
 			BeanMetadataHolder holder = new BeanMetadataHolder();
-			holder.setElemenetId(bean.getElementID());
+			holder.setElemenetId(elementId);
 			holder.setBeanMetaData(bMetaData);
 			holder.setMethodMetaData(methodMetaData);
 			// safe time so we can purge very old entries after a while
 			holder.setLastModified(System.currentTimeMillis());
-			beanMetadata.put(bean.getElementID(), holder);
+			BeanMetadataPartition partition = getOrCreatePartition(elementId);
+			partition.getBeanMetadata().put(elementId, holder);
+			partition.setDirty(true);
 		}
 		finally {
 			w.unlock();
@@ -78,9 +123,15 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 	}
 
 	public void clearBeanMetadata(IBean bean) {
+		String elementId = bean.getElementID();
+		beanFingerprints.remove(elementId);
+		loadPartitions(elementId);
 		try {
 			w.lock();
-			beanMetadata.remove(bean.getElementID());
+			BeanMetadataPartition partition = partitions.get(BeanMetadataPartition.getPartitionKey(elementId));
+			if (partition != null && partition.getBeanMetadata().remove(elementId) != null) {
+				partition.setDirty(true);
+			}
 		}
 		finally {
 			w.unlock();
@@ -88,10 +139,13 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 	}
 
 	public Set<IBeanProperty> getBeanProperties(IBean bean) {
+		String elementId = bean.getElementID();
+		loadPartitions(elementId);
 		try {
 			r.lock();
-			if (beanPropertyData.containsKey(bean.getElementID())) {
-				return beanPropertyData.get(bean.getElementID()).getBeanProperties();
+			BeanMetadataPartition partition = partitions.get(BeanMetadataPartition.getPartitionKey(elementId));
+			if (partition != null && partition.getBeanPropertyData().containsKey(elementId)) {
+				return partition.getBeanPropertyData().get(elementId).getBeanProperties();
 			}
 			return Collections.emptySet();
 		}
@@ -101,14 +155,18 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 	}
 
 	public void setBeanProperties(IBean bean, Set<IBeanProperty> beanProperties) {
+		String elementId = bean.getElementID();
+		loadPartitions(elementId);
 		try {
 			w.lock();
 			BeanPropertyDataHolder holder = new BeanPropertyDataHolder();
-			holder.setElemenetId(bean.getElementID());
+			holder.setElemenetId(elementId);
 			holder.setBeanProperties(beanProperties);
 			// safe time so we can purge very old entries after a while
 			holder.setLastModified(System.currentTimeMillis());
-			beanPropertyData.put(bean.getElementID(), holder);
+			BeanMetadataPartition partition = getOrCreatePartition(elementId);
+			partition.getBeanPropertyData().put(elementId, holder);
+			partition.setDirty(true);
 		}
 		finally {
 			w.unlock();
@@ -116,9 +174,14 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 	}
 
 	public void clearBeanProperties(IBean bean) {
+		String elementId = bean.getElementID();
+		loadPartitions(elementId);
 		try {
 			w.lock();
-			beanPropertyData.remove(bean.getElementID());
+			BeanMetadataPartition partition = partitions.get(BeanMetadataPartition.getPartitionKey(elementId));
+			if (partition != null && partition.getBeanPropertyData().remove(elementId) != null) {
+				partition.setDirty(true);
+			}
 		}
 		finally {
 			w.unlock();
@@ -126,33 +189,173 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 	}
 
 	/**
-	 * Starts and loads the internal model.
+	 * Returns <code>true</code> if the meta data of the given <code>bean</code> has last been
+	 * created from inputs with the given <code>fingerprint</code>. Fingerprints are not persisted.
+	 * @since 3.0.0
+	 */
+	public boolean isUpToDate(IBean bean, long fingerprint) {
+		Long beanFingerprint = beanFingerprints.get(bean.getElementID());
+		return beanFingerprint != null && beanFingerprint.longValue() == fingerprint;
+	}
+
+	/**
+	 * Records the <code>fingerprint</code> of the inputs the meta data of the given
+	 * <code>bean</code> has been created from.
+	 * @since 3.0.0
+	 */
+	public void setFingerprint(IBean bean, long fingerprint) {
+		beanFingerprints.put(bean.getElementID(), Long.valueOf(fingerprint));
+	}
+
+	/**
+	 * Removes the meta data, the properties and the fingerprints of all beans of the given
+	 * <code>config</code>, including nested beans.
+	 * @since 3.0.0
+	 */
+	public void clearConfig(IBeansConfig config) {
+		for (IBean bean : config.getBeans()) {
+			clearBeanMetadata(bean);
+			clearBeanProperties(bean);
+		}
+		String prefix = config.getElementID() + IModelElement.ID_DELIMITER;
+		for (Iterator<String> elementIds = beanFingerprints.keySet().iterator(); elementIds.hasNext();) {
+			if (elementIds.next().startsWith(prefix)) {
+				elementIds.remove();
+			}
+		}
+	}
+
+	/**
+	 * Starts the internal model. Stored partitions are not read until the model is queried for
+	 * the project they belong to; only state written by previous versions gets converted.
 	 */
 	public void start() {
+		if (persistence == null) {
+			File stateLocation = BeansMetadataPlugin.getDefault().getStateLocation().toFile();
+			persistence = new BeanMetadataPersistence(stateLocation);
+		}
+		List<BeanMetadataPartition> migratedPartitions = persistence.migrateLegacyState();
+		if (migratedPartitions.size() > 0) {
+			try {
+				w.lock();
+				for (BeanMetadataPartition partition : migratedPartitions) {
+					if (!partitions.containsKey(partition.getKey())) {
+						partitions.put(partition.getKey(), partition);
+						loadedProjects.add(partition.getProjectKey());
+					}
+				}
+			}
+			finally {
+				w.unlock();
+			}
+			// write the converted state right away as the old files are gone
+			save();
+		}
+		configRemovalListener = new ConfigRemovalListener();
+		BeansCorePlugin.getModel().addChangeListener(configRemovalListener);
+	}
 
-		Map<String, BeanMetadataHolder> storedBeanMetadata = BeanMetadataPersistence.loadMetadata();
-		Map<String, BeanPropertyDataHolder> storedProperties = BeanMetadataPersistence
-				.loadProperties();
+	/**
+	 * Stops and saves the internal model.
+	 */
+	public void stop() {
+		if (configRemovalListener != null) {
+			BeansCorePlugin.getModel().removeChangeListener(configRemovalListener);
+			configRemovalListener = null;
+		}
+		save();
+	}
+
+	/**
+	 * Writes all partitions that have changed since they have been loaded or saved.
+	 * @since 3.0.0
+	 */
+	public void save() {
+		BeanMetadataPersistence persistence = this.persistence;
+		if (persistence == null) {
+			return;
+		}
+		List<BeanMetadataPartition> dirtyPartitions = new ArrayList<BeanMetadataPartition>();
 		try {
-			w.lock();
-			beanMetadata = storedBeanMetadata;
-			beanPropertyData = storedProperties;
+			r.lock();
+			for (BeanMetadataPartition partition : partitions.values()) {
+				if (partition.isDirty()) {
+					dirtyPartitions.add(partition);
+				}
+			}
+		}
+		finally {
+			r.unlock();
 		}
-		catch (Exception e) {
-			beanMetadata = new ConcurrentHashMap<String, BeanMetadataHolder>();
-			beanPropertyData = new ConcurrentHashMap<String, BeanPropertyDataHolder>();
+		for (BeanMetadataPartition partition : dirtyPartitions) {
+			// concurrent changes mark the partition dirty again and get written by the next save
+			partition.setDirty(false);
+			persistence.storePartition(partition);
+		}
+	}
+
+	/**
+	 * Loads the stored partitions of the project the element with the given
+	 * <code>elementId</code> belongs to unless they have been loaded before. Must not be called
+	 * while holding the read lock.
+	 */
+	private void loadPartitions(String elementId) {
+		String projectKey = BeanMetadataPartition.getProjectKey(elementId);
+		BeanMetadataPersistence persistence = this.persistence;
+		if (persistence == null || loadedProjects.contains(projectKey)) {
+			return;
+		}
+		try {
+			w.lock();
+			if (!loadedProjects.add(projectKey)) {
+				return;
+			}
+			for (BeanMetadataPartition partition : persistence.loadPartitions(projectKey)) {
+				BeanMetadataPartition existingPartition = partitions.get(partition.getKey());
+				if (existingPartition == null) {
+					partitions.put(partition.getKey(), partition);
+				}
+				else {
+					// entries set before loading are more recent than the stored ones
+					for (Map.Entry<String, BeanMetadataHolder> entry : partition.getBeanMetadata().entrySet()) {
+						if (!existingPartition.getBeanMetadata().containsKey(entry.getKey())) {
+							existingPartition.getBeanMetadata().put(entry.getKey(), entry.getValue());
+						}
+					}
+					for (Map.Entry<String, BeanPropertyDataHolder> entry : partition.getBeanPropertyData()
+							.entrySet()) {
+						if (!existingPartition.getBeanPropertyData().containsKey(entry.getKey())) {
+							existingPartition.getBeanPropertyData().put(entry.getKey(), entry.getValue());
+						}
+					}
+				}
+			}
 		}
 		finally {
 			w.unlock();
 		}
 	}
 
+	private BeanMetadataPartition getOrCreatePartition(String elementId) {
+		String partitionKey = BeanMetadataPartition.getPartitionKey(elementId);
+		BeanMetadataPartition partition = partitions.get(partitionKey);
+		if (partition == null) {
+			partition = new BeanMetadataPartition(partitionKey);
+			partitions.put(partitionKey, partition);
+		}
+		return partition;
+	}
+
 	/**
-	 * Stops and saves the internal model.
+	 * Clears the state of configs that have been removed from the beans model.
 	 */
-	public void stop() {
-		BeanMetadataPersistence.storeMetadata(beanMetadata);
-		BeanMetadataPersistence.storeProperties(beanPropertyData);
+	private class ConfigRemovalListener implements IModelChangeListener {
+
+		public void elementChanged(ModelChangeEvent event) {
+			if (event.getType() == ModelChangeEvent.Type.REMOVED && event.getElement() instanceof IBeansConfig) {
+				clearConfig((IBeansConfig) event.getElement());
+			}
+		}
 	}
 
 }
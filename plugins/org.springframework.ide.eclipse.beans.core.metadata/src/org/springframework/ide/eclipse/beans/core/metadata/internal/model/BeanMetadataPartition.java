@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.metadata.internal.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.ide.eclipse.beans.core.model.IBean;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.core.model.IModelElement;
+
+/**
+ * The {@link BeanMetadataHolder}s and {@link BeanPropertyDataHolder}s of all {@link IBean}s of one
+ * {@link IBeansConfig}. Partitions are the unit that gets loaded and saved by {@link BeanMetadataPersistence}.
+ * <p>
+ * Partitions are identified by the first three segments of the element ids of their beans, e.g.
+ * <code>1:model|2:project|3:config</code>.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+public class BeanMetadataPartition {
+
+	private final String key;
+
+	private final Map<String, BeanMetadataHolder> beanMetadata = new ConcurrentHashMap<String, BeanMetadataHolder>();
+
+	private final Map<String, BeanPropertyDataHolder> beanPropertyData = new ConcurrentHashMap<String, BeanPropertyDataHolder>();
+
+	private volatile boolean dirty = false;
+
+	public BeanMetadataPartition(String key) {
+		this.key = key;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public String getProjectKey() {
+		return getProjectKey(key);
+	}
+
+	public Map<String, BeanMetadataHolder> getBeanMetadata() {
+		return beanMetadata;
+	}
+
+	public Map<String, BeanPropertyDataHolder> getBeanPropertyData() {
+		return beanPropertyData;
+	}
+
+	public boolean isEmpty() {
+		return beanMetadata.isEmpty() && beanPropertyData.isEmpty();
+	}
+
+	/**
+	 * Returns <code>true</code> if this partition has been changed since it has been loaded or saved.
+	 */
+	public boolean isDirty() {
+		return dirty;
+	}
+
+	public void setDirty(boolean dirty) {
+		this.dirty = dirty;
+	}
+
+	/**
+	 * Returns the key of the partition the element with the given <code>elementId</code> belongs to.
+	 */
+	public static String getPartitionKey(String elementId) {
+		return getPrefix(elementId, 3);
+	}
+
+	/**
+	 * Returns the key of the project the element or partition with the given <code>id</code> belongs to.
+	 */
+	public static String getProjectKey(String id) {
+		return getPrefix(id, 2);
+	}
+
+	/**
+	 * Returns the name of the project with the given <code>projectKey</code>.
+	 */
+	public static String getProjectName(String projectKey) {
+		int delPos = projectKey.lastIndexOf(IModelElement.ID_DELIMITER);
+		int sepPos = projectKey.indexOf(IModelElement.ID_SEPARATOR, delPos + 1);
+		return projectKey.substring(sepPos + 1);
+	}
+
+	private static String getPrefix(String id, int segments) {
+		int pos = -1;
+		for (int i = 0; i < segments; i++) {
+			pos = id.indexOf(IModelElement.ID_DELIMITER, pos + 1);
+			if (pos < 0) {
+				return id;
+			}
+		}
+		return id.substring(0, pos);
+	}
+
+}
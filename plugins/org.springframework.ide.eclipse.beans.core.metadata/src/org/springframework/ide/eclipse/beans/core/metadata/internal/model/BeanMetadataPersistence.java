@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 Spring IDE Developers
+ * Copyright (c) 2010, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,98 +10,309 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.core.metadata.internal.model;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.springframework.beans.PropertyValue;
+import org.springframework.ide.eclipse.beans.core.internal.model.SerializableRuntimeBeanReference;
 import org.springframework.ide.eclipse.beans.core.metadata.BeansMetadataPlugin;
 import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadata;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IMethodMetadata;
 
 /**
- * Stores and loads the {@link IBeanMetadata}s from the persisted file.
+ * Stores and loads {@link BeanMetadataPartition}s to and from the state location.
+ * <p>
+ * Every partition is kept in a file of its own within a folder per project. The files use a versioned binary format;
+ * only the {@link IBeanMetadata}, {@link IMethodMetadata} and source locations contributed by metadata providers are
+ * written with Java serialization, each bean on its own. Beans whose metadata can't be read anymore, e.g. because the
+ * contributing class has changed, are skipped without losing the rest of the partition.
  * @author Christian Dupuis
  * @since 2.0.5
  */
 public class BeanMetadataPersistence {
 
+	private static final int MAGIC = 0x53504d44;
+
+	private static final int VERSION = 1;
+
+	private static final String PARTITION_FILE_EXTENSION = ".dat";
+
+	private static final String PARTITIONS_FOLDER_NAME = "partitions";
+
 	private static final String STATE_FILE_NAME = ".state";
 
 	private static final String METADATA_FOLDER_NAME = "/metadata/";
 
 	private static final String BEANPROPERTIES_FOLDER_NAME = "/properties/";
 
-	public static void storeMetadata(Map<String, BeanMetadataHolder> metaData) {
-		File file = BeansMetadataPlugin.getDefault().getStateLocation().append(METADATA_FOLDER_NAME + STATE_FILE_NAME)
-				.toFile();
-		store(metaData, file);
-	}
+	private final File stateLocation;
 
-	public static void storeProperties(Map<String, BeanPropertyDataHolder> properties) {
-		File file = BeansMetadataPlugin.getDefault().getStateLocation()
-				.append(BEANPROPERTIES_FOLDER_NAME + STATE_FILE_NAME).toFile();
-		store(properties, file);
+	private final File partitionsFolder;
+
+	/**
+	 * Creates a new {@link BeanMetadataPersistence} that keeps its files in the given <code>stateLocation</code>.
+	 */
+	public BeanMetadataPersistence(File stateLocation) {
+		this.stateLocation = stateLocation;
+		this.partitionsFolder = new File(stateLocation, METADATA_FOLDER_NAME + PARTITIONS_FOLDER_NAME);
 	}
 
-	private static void store(Object obj, File file) {
-		ObjectOutputStream out = null;
+	/**
+	 * Writes the given <code>partition</code>; empty partitions are removed.
+	 */
+	public void storePartition(BeanMetadataPartition partition) {
+		File file = getPartitionFile(partition.getKey());
+		if (partition.isEmpty()) {
+			file.delete();
+			return;
+		}
+		if (!file.getParentFile().exists()) {
+			file.getParentFile().mkdirs();
+		}
 
+		DataOutputStream out = null;
+		boolean failed = false;
 		try {
-			if (!file.exists()) {
-				file.getParentFile().mkdirs();
-				file.createNewFile();
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(partition.getKey());
+
+			List<BeanMetadataHolder> metadataHolders = new ArrayList<BeanMetadataHolder>(partition.getBeanMetadata()
+					.values());
+			out.writeInt(metadataHolders.size());
+			for (BeanMetadataHolder holder : metadataHolders) {
+				out.writeUTF(holder.getElemenetId());
+				out.writeLong(holder.getLastModified());
+				writeSerialized(out, holder.getBeanMetaData(), holder.getMethodMetaData());
+			}
+
+			List<BeanPropertyDataHolder> propertyHolders = new ArrayList<BeanPropertyDataHolder>(partition
+					.getBeanPropertyData().values());
+			out.writeInt(propertyHolders.size());
+			for (BeanPropertyDataHolder holder : propertyHolders) {
+				out.writeUTF(holder.getElemenetId());
+				out.writeLong(holder.getLastModified());
+				Set<PropertyValue> propertyValues = holder.getPropertyValues();
+				out.writeInt(propertyValues.size());
+				for (PropertyValue propertyValue : propertyValues) {
+					SerializableRuntimeBeanReference reference = (SerializableRuntimeBeanReference) propertyValue
+							.getValue();
+					out.writeUTF(propertyValue.getName());
+					out.writeUTF(reference.getBeanName());
+					out.writeBoolean(reference.isToParent());
+					writeSerialized(out, reference.getSource());
+				}
 			}
-			out = new ObjectOutputStream(new FileOutputStream(file));
-			out.writeObject(obj);
 		}
 		catch (IOException e) {
-			BeansMetadataPlugin.getDefault().getLog().log(new Status(IStatus.ERROR, BeansMetadataPlugin.PLUGIN_ID,
-					"Exception saving meta data model for class " + obj.getClass(), e));
+			log("Exception saving meta data partition " + partition.getKey(), e);
+			failed = true;
 		}
 		finally {
-			try {
-				if (out != null)
-					out.close();
-			}
-			catch (IOException e) {
+			close(out);
+		}
+		if (failed) {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Removes the stored partition with the given <code>partitionKey</code>.
+	 */
+	public void deletePartition(String partitionKey) {
+		getPartitionFile(partitionKey).delete();
+	}
+
+	/**
+	 * Reads all stored partitions of the project with the given <code>projectKey</code>.
+	 */
+	public List<BeanMetadataPartition> loadPartitions(String projectKey) {
+		List<BeanMetadataPartition> partitions = new ArrayList<BeanMetadataPartition>();
+		File[] files = getProjectFolder(projectKey).listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (file.getName().endsWith(PARTITION_FILE_EXTENSION)) {
+					BeanMetadataPartition partition = loadPartition(file);
+					if (partition != null) {
+						partitions.add(partition);
+					}
+				}
 			}
 		}
+		return partitions;
 	}
 
+	/**
+	 * Converts the state written by previous versions into partitions and removes the old state files.
+	 * @return the converted partitions which are marked as dirty; empty if no old state exists
+	 */
 	@SuppressWarnings("unchecked")
-	public static Map<String, BeanMetadataHolder> loadMetadata() {
-		File f = BeansMetadataPlugin.getDefault().getStateLocation().append(METADATA_FOLDER_NAME + STATE_FILE_NAME)
-				.toFile();
-		Map<String, BeanMetadataHolder> metaData = load(f, Map.class);
-		if (metaData != null) {
-			return metaData;
-		}
-		// create new empty model
-		return new ConcurrentHashMap<String, BeanMetadataHolder>();
+	public List<BeanMetadataPartition> migrateLegacyState() {
+		Map<String, BeanMetadataPartition> partitions = new HashMap<String, BeanMetadataPartition>();
+
+		File metadataFile = new File(stateLocation, METADATA_FOLDER_NAME + STATE_FILE_NAME);
+		Map<String, BeanMetadataHolder> metadata = loadLegacy(metadataFile, Map.class);
+		if (metadata != null) {
+			for (Map.Entry<String, BeanMetadataHolder> entry : metadata.entrySet()) {
+				getOrCreatePartition(partitions, entry.getKey()).getBeanMetadata().put(entry.getKey(),
+						entry.getValue());
+			}
+		}
+		metadataFile.delete();
+
+		File propertiesFile = new File(stateLocation, BEANPROPERTIES_FOLDER_NAME + STATE_FILE_NAME);
+		Map<String, BeanPropertyDataHolder> properties = loadLegacy(propertiesFile, Map.class);
+		if (properties != null) {
+			for (Map.Entry<String, BeanPropertyDataHolder> entry : properties.entrySet()) {
+				getOrCreatePartition(partitions, entry.getKey()).getBeanPropertyData().put(entry.getKey(),
+						entry.getValue());
+			}
+		}
+		propertiesFile.delete();
+
+		return new ArrayList<BeanMetadataPartition>(partitions.values());
 	}
 
 	@SuppressWarnings("unchecked")
-	public static Map<String, BeanPropertyDataHolder> loadProperties() {
-		File f = BeansMetadataPlugin.getDefault().getStateLocation().append(BEANPROPERTIES_FOLDER_NAME + STATE_FILE_NAME)
-				.toFile();
-		Map<String, BeanPropertyDataHolder> metaData = load(f, Map.class);
-		if (metaData != null) {
-			return metaData;
-		}
-		// create new empty model
-		return new ConcurrentHashMap<String, BeanPropertyDataHolder>();
+	private BeanMetadataPartition loadPartition(File file) {
+		DataInputStream in = null;
+		boolean failed = false;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				// unknown format; will be rebuilt by the next build
+				failed = true;
+				return null;
+			}
+			BeanMetadataPartition partition = new BeanMetadataPartition(in.readUTF());
+
+			int metadataCount = in.readInt();
+			for (int i = 0; i < metadataCount; i++) {
+				String elementId = in.readUTF();
+				long lastModified = in.readLong();
+				Object[] values = readSerialized(in, 2);
+				if (values == null) {
+					partition.setDirty(true);
+					continue;
+				}
+				BeanMetadataHolder holder = new BeanMetadataHolder();
+				holder.setElemenetId(elementId);
+				holder.setLastModified(lastModified);
+				holder.setBeanMetaData((Set<IBeanMetadata>) values[0]);
+				holder.setMethodMetaData((Set<IMethodMetadata>) values[1]);
+				partition.getBeanMetadata().put(elementId, holder);
+			}
+
+			int propertyCount = in.readInt();
+			for (int i = 0; i < propertyCount; i++) {
+				String elementId = in.readUTF();
+				long lastModified = in.readLong();
+				int valueCount = in.readInt();
+				Set<PropertyValue> propertyValues = new LinkedHashSet<PropertyValue>();
+				boolean complete = true;
+				for (int j = 0; j < valueCount; j++) {
+					String name = in.readUTF();
+					SerializableRuntimeBeanReference reference = new SerializableRuntimeBeanReference();
+					reference.setBeanName(in.readUTF());
+					reference.setToParent(in.readBoolean());
+					Object[] source = readSerialized(in, 1);
+					if (source == null) {
+						complete = false;
+						continue;
+					}
+					reference.setSource(source[0]);
+					propertyValues.add(new PropertyValue(name, reference));
+				}
+				if (!complete) {
+					partition.setDirty(true);
+					continue;
+				}
+				BeanPropertyDataHolder holder = new BeanPropertyDataHolder();
+				holder.setElemenetId(elementId);
+				holder.setLastModified(lastModified);
+				holder.setPropertyValues(propertyValues);
+				partition.getBeanPropertyData().put(elementId, holder);
+			}
+			return partition;
+		}
+		catch (IOException e) {
+			log("Exception restoring meta data partition from " + file, e);
+			failed = true;
+		}
+		finally {
+			close(in);
+			if (failed) {
+				file.delete();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Writes the given <code>values</code> as length-prefixed block of Java serialization.
+	 */
+	private void writeSerialized(DataOutputStream out, Object... values) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream objectOut = new ObjectOutputStream(bytes);
+		for (Object value : values) {
+			objectOut.writeObject(value);
+		}
+		objectOut.close();
+		out.writeInt(bytes.size());
+		bytes.writeTo(out);
+	}
+
+	/**
+	 * Reads a block of <code>count</code> values written by {@link #writeSerialized}.
+	 * @return the read values or <code>null</code> if the block can't be deserialized anymore
+	 */
+	private Object[] readSerialized(DataInputStream in, int count) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		ObjectInputStream objectIn = null;
+		try {
+			objectIn = new ObjectInputStream(new ByteArrayInputStream(bytes));
+			Object[] values = new Object[count];
+			for (int i = 0; i < count; i++) {
+				values[i] = objectIn.readObject();
+			}
+			return values;
+		}
+		catch (Exception e) {
+			// class evolution of contributed metadata; only drop this bean's metadata
+			if (BeanMetadataModel.DEBUG) {
+				log("Skipping meta data that can't be restored", e);
+			}
+			return null;
+		}
+		finally {
+			close(objectIn);
+		}
 	}
 
 	@SuppressWarnings("unchecked")
-	public static <T> T load(File file, Class<T> clazz) {
+	private static <T> T loadLegacy(File file, Class<T> clazz) {
 		ObjectInputStream in = null;
-
 		try {
 			if (file.exists()) {
 				in = new ObjectInputStream(new FileInputStream(file));
@@ -109,18 +320,61 @@ public class BeanMetadataPersistence {
 			}
 		}
 		catch (Exception e) {
-			BeansMetadataPlugin.getDefault().getLog().log(new Status(IStatus.ERROR, BeansMetadataPlugin.PLUGIN_ID,
-					"Exception restoring meta data model for class " + clazz, e));
+			log("Exception restoring meta data model for class " + clazz, e);
 		}
 		finally {
+			close(in);
+		}
+		return null;
+	}
+
+	private static BeanMetadataPartition getOrCreatePartition(Map<String, BeanMetadataPartition> partitions,
+			String elementId) {
+		String partitionKey = BeanMetadataPartition.getPartitionKey(elementId);
+		BeanMetadataPartition partition = partitions.get(partitionKey);
+		if (partition == null) {
+			partition = new BeanMetadataPartition(partitionKey);
+			partition.setDirty(true);
+			partitions.put(partitionKey, partition);
+		}
+		return partition;
+	}
+
+	private File getProjectFolder(String projectKey) {
+		return new File(partitionsFolder, encode(BeanMetadataPartition.getProjectName(projectKey)));
+	}
+
+	private File getPartitionFile(String partitionKey) {
+		return new File(getProjectFolder(BeanMetadataPartition.getProjectKey(partitionKey)), encode(partitionKey)
+				+ PARTITION_FILE_EXTENSION);
+	}
+
+	/**
+	 * Turns the given <code>name</code> into a file name that is unique for all practical purposes.
+	 */
+	private static String encode(String name) {
+		StringBuilder fileName = new StringBuilder(name.length() + 9);
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			fileName.append(Character.isLetterOrDigit(c) || c == '.' || c == '-' ? c : '_');
+		}
+		fileName.append('_').append(Integer.toHexString(name.hashCode()));
+		return fileName.toString();
+	}
+
+	private static void close(Closeable closeable) {
+		if (closeable != null) {
 			try {
-				if (in != null)
-					in.close();
+				closeable.close();
 			}
 			catch (IOException e) {
 			}
 		}
-		return null;
+	}
+
+	private static void log(String message, Throwable e) {
+		BeansMetadataPlugin.getDefault().getLog().log(
+				new Status(IStatus.ERROR, BeansMetadataPlugin.PLUGIN_ID, message, e));
 	}
 
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 Spring IDE Developers
+ * Copyright (c) 2010, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -73,9 +73,15 @@ public class BeanMetadataProjectBuilder implements IProjectBuilder, IProjectCont
 	public void cleanup(IResource resource, IProgressMonitor monitor) throws CoreException {
 		if (BeansCoreUtils.isBeansConfig(resource) && resource instanceof IFile) {
 			IBeansConfig beansConfig = BeansCorePlugin.getModel().getConfig((IFile) resource);
-			for (IBean bean : beansConfig.getBeans()) {
-				BeansMetadataPlugin.getMetadataModel().clearBeanMetadata(bean);
-				BeansMetadataPlugin.getMetadataModel().clearBeanProperties(bean);
+			IBeanMetadataModel metadataModel = BeansMetadataPlugin.getMetadataModel();
+			if (metadataModel instanceof BeanMetadataModel) {
+				((BeanMetadataModel) metadataModel).clearConfig(beansConfig);
+			}
+			else {
+				for (IBean bean : beansConfig.getBeans()) {
+					metadataModel.clearBeanMetadata(bean);
+					metadataModel.clearBeanProperties(bean);
+				}
 			}
 			// Notify that the model has changed.
 			// ((BeansModel) BeansCorePlugin.getModel()).notifyListeners(beansConfig, Type.CHANGED);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 Spring IDE Developers
+ * Copyright (c) 2010, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -72,6 +72,22 @@ public class BeanPropertyDataHolder implements Serializable {
 		}
 	}
 
+	/**
+	 * Returns the persistable representation of the bean properties.
+	 * @since 3.0.0
+	 */
+	public Set<PropertyValue> getPropertyValues() {
+		return beanProperties;
+	}
+
+	/**
+	 * Sets the persistable representation of the bean properties as returned by {@link #getPropertyValues()}.
+	 * @since 3.0.0
+	 */
+	public void setPropertyValues(Set<PropertyValue> beanProperties) {
+		this.beanProperties = beanProperties;
+	}
+
 	public void setElemenetId(String elemenetId) {
 		this.elemenetId = elemenetId;
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 Spring IDE Developers
+ * Copyright (c) 2010, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -75,7 +75,7 @@ public class DelegatingAnnotationReadingMetadataProvider extends AbstractAnnotat
 	/**
 	 * Returns the contributed {@link IAnnotationBeanMetadataProvider} from the Eclipse extension registry.
 	 */
-	protected IAnnotationBeanMetadataProvider[] getMetadataProviders() {
+	protected synchronized IAnnotationBeanMetadataProvider[] getMetadataProviders() {
 
 		// We can safely cache the providers at least for the lifetime of this instance
 		if (metadataProviders != null) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 Spring IDE Developers
+ * Copyright (c) 2010, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,6 +15,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -53,7 +54,19 @@ public abstract class AbstractAnnotationReadingMetadataProvider extends BeanMeta
 	 * with {@link IType} and not just with FQCN as a class can exist multiple times with the same name in different
 	 * projects.
 	 */
-	private final Map<IType, IAnnotationMetadata> metadataCache = new ConcurrentHashMap<IType, IAnnotationMetadata>();
+	private volatile ConcurrentMap<IType, IAnnotationMetadata> metadataCache = new ConcurrentHashMap<IType, IAnnotationMetadata>();
+
+	/**
+	 * Replaces the internal cache of {@link IAnnotationMetadata} with the given <code>metadataCache</code>. Providers
+	 * that share a cache read the annotations of every bean class only once.
+	 * <p>
+	 * Note: the cache may be accessed concurrently and must not outlive the build it has been created for, as cached
+	 * annotation meta data is not invalidated when classes change.
+	 * @since 3.0.0
+	 */
+	public void setAnnotationMetadataCache(ConcurrentMap<IType, IAnnotationMetadata> metadataCache) {
+		this.metadataCache = metadataCache;
+	}
 
 	@Override
 	public final Set<IBeanMetadata> provideBeanMetadata(IBean bean, IBeansConfig beansConfig,
@@ -92,8 +105,9 @@ public abstract class AbstractAnnotationReadingMetadataProvider extends BeanMeta
 		}
 
 		// Check cache first
-		if (metadataCache.containsKey(orginalType)) {
-			return metadataCache.get(orginalType);
+		IAnnotationMetadata cachedMetadata = metadataCache.get(orginalType);
+		if (cachedMetadata != null) {
+			return cachedMetadata;
 		}
 
 		IAnnotationMetadata visitor = null;
@@ -127,8 +141,11 @@ public abstract class AbstractAnnotationReadingMetadataProvider extends BeanMeta
 
 		// cache here in case exception was thrown we don't want to retry over and over again
 		if (visitor != null) {
-			// make sure to cache with the original type
-			metadataCache.put(orginalType, visitor);
+			// make sure to cache with the original type; keep the first instance if another thread was faster
+			cachedMetadata = metadataCache.putIfAbsent(orginalType, visitor);
+			if (cachedMetadata != null) {
+				return cachedMetadata;
+			}
 		}
 		return visitor;
 	}
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.internal.model;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.model.IBean;
+import org.springframework.ide.eclipse.beans.core.model.IBeanAlias;
+import org.springframework.ide.eclipse.beans.core.model.IBeanProperty;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.tests.BeansCoreTestCase;
+import org.springframework.ide.eclipse.core.PatternUtils;
+import org.springframework.ide.eclipse.core.model.IModel;
+import org.springframework.ide.eclipse.core.model.IModelElement;
+
+/**
+ * Test case to test the {@link BeansModelIndex}.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+public class BeansModelIndexTest extends BeansCoreTestCase {
+
+	private static final int BEAN_COUNT = 10000;
+
+	private IBeansConfig config;
+
+	private BeansModelIndex index;
+
+	@Override
+	protected void setUp() throws Exception {
+		IResource resource = createPredefinedProjectAndGetResource("index", "src/index.xml");
+		config = BeansCorePlugin.getModel().getConfig((IFile) resource);
+		index = ((BeansModel) BeansCorePlugin.getModel()).getIndex();
+	}
+
+	public void testExactBeanNameLookup() throws Exception {
+		Set<IModelElement> elements = find(BeansModelIndex.Type.BEAN_NAME, "ds", true, false);
+		assertEquals(1, elements.size());
+		assertEquals("dataSource", elements.iterator().next().getElementName());
+	}
+
+	public void testPrefixBeanNameLookup() throws Exception {
+		Set<String> names = getElementNames(find(BeansModelIndex.Type.BEAN_NAME, "dataSource*", true, false));
+		assertEquals(3, names.size());
+		assertTrue(names.contains("dataSource"));
+		assertTrue(names.contains("dataSourceHolder"));
+		assertTrue(names.contains("dataSourceList"));
+	}
+
+	public void testCaseInsensitiveBeanNameLookup() throws Exception {
+		assertTrue(find(BeansModelIndex.Type.BEAN_NAME, "DATASOURCE", true, false).isEmpty());
+		Set<IModelElement> elements = find(BeansModelIndex.Type.BEAN_NAME, "DATASOURCE", false, false);
+		assertEquals(1, elements.size());
+		assertEquals("dataSource", elements.iterator().next().getElementName());
+	}
+
+	public void testRegexBeanClassLookup() throws Exception {
+		Set<String> names = getElementNames(find(BeansModelIndex.Type.BEAN_CLASS, "java\\.lang\\.String.*", true,
+				true));
+		assertEquals(2, names.size());
+		assertTrue(names.contains("dataSource"));
+		assertTrue(names.contains("dataSourceHolder"));
+	}
+
+	public void testBeanPropertyAndParentLookup() throws Exception {
+		Set<IModelElement> elements = find(BeansModelIndex.Type.BEAN_PROPERTY, "length", true, false);
+		assertEquals(1, elements.size());
+		assertEquals("dataSourceHolder", elements.iterator().next().getElementName());
+
+		elements = find(BeansModelIndex.Type.BEAN_PARENT, "base", true, false);
+		assertEquals(1, elements.size());
+		assertEquals("dataSourceHolder", elements.iterator().next().getElementName());
+	}
+
+	public void testBeanReferenceLookup() throws Exception {
+		Set<IModelElement> elements = find(BeansModelIndex.Type.BEAN_REFERENCE, "dataSource", true, false);
+		assertEquals(2, elements.size());
+		boolean aliasFound = false;
+		boolean dependsOnFound = false;
+		for (IModelElement element : elements) {
+			aliasFound |= element instanceof IBeanAlias;
+			dependsOnFound |= element instanceof IBean && element.getElementName().equals("dataSourceHolder");
+		}
+		assertTrue(aliasFound);
+		assertTrue(dependsOnFound);
+
+		elements = find(BeansModelIndex.Type.BEAN_REFERENCE, "ds", true, false);
+		assertEquals(1, elements.size());
+		assertTrue(elements.iterator().next() instanceof IBeanProperty);
+
+		elements = find(BeansModelIndex.Type.BEAN_REFERENCE, "primaryDataSource", true, false);
+		assertEquals(1, elements.size());
+	}
+
+	public void testIndexIsDiscardedOnReset() throws Exception {
+		find(BeansModelIndex.Type.BEAN_NAME, "ds", true, false);
+		assertTrue(index.getIndexedConfigs().contains(config));
+		((BeansConfig) config).reload();
+		assertFalse(index.getIndexedConfigs().contains(config));
+	}
+
+	public void testElementLookupById() throws Exception {
+		IModel model = BeansCorePlugin.getModel();
+		for (IBean bean : config.getBeans()) {
+			assertSame(bean, model.getElement(bean.getElementID()));
+		}
+		assertSame(config, model.getElement(config.getElementID()));
+		assertTrue(index.getIndexedElementIds().contains(config.getElementID()));
+
+		// Ids of a reset config have to be resolved against the reloaded config
+		IBean bean = config.getBeans().iterator().next();
+		((BeansConfig) config).reload();
+		assertFalse(index.getIndexedElementIds().contains(config.getElementID()));
+		IModelElement reloadedBean = model.getElement(bean.getElementID());
+		assertNotNull(reloadedBean);
+		assertTrue(config.getBeans().contains(reloadedBean));
+	}
+
+	/**
+	 * Resolves the ids of all beans of a separate config with 10k beans, before and after they have been indexed.
+	 */
+	public void testElementLookupInLargeConfig() throws Exception {
+		StringBuilder content = new StringBuilder();
+		content.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		content.append("<beans xmlns=\"http://www.springframework.org/schema/beans\"\n");
+		content.append("	xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n");
+		content.append("	xsi:schemaLocation=\"http://www.springframework.org/schema/beans ");
+		content.append("http://www.springframework.org/schema/beans/spring-beans.xsd\">\n");
+		for (int i = 0; i < BEAN_COUNT; i++) {
+			content.append("	<bean id=\"bean").append(i).append("\" class=\"java.lang.Object\" />\n");
+		}
+		content.append("</beans>\n");
+
+		IFile file = config.getElementResource().getProject().getFile("src/large.xml");
+		file.create(new ByteArrayInputStream(content.toString().getBytes("UTF-8")), IResource.FORCE, null);
+		BeansProject project = (BeansProject) config.getElementParent();
+		project.addConfig(file, IBeansConfig.Type.MANUAL);
+		try {
+			IBeansConfig largeConfig = project.getConfig(file);
+			Set<IBean> beans = largeConfig.getBeans();
+			assertEquals(BEAN_COUNT, beans.size());
+
+			IModel model = BeansCorePlugin.getModel();
+			for (IBean bean : beans) {
+				assertSame(bean, model.getElement(bean.getElementID()));
+			}
+			assertTrue(index.getIndexedElementIds().contains(largeConfig.getElementID()));
+			for (IBean bean : beans) {
+				assertSame(bean, model.getElement(bean.getElementID()));
+			}
+		}
+		finally {
+			project.removeConfig(file);
+			file.delete(true, null);
+		}
+	}
+
+	private Set<IModelElement> find(BeansModelIndex.Type type, String pattern, boolean isCaseSensitive,
+			boolean isRegexSearch) {
+		return index.findElements(config, type, pattern, isCaseSensitive, isRegexSearch, PatternUtils.createPattern(
+				pattern, isCaseSensitive, isRegexSearch));
+	}
+
+	private Set<String> getElementNames(Set<IModelElement> elements) {
+		Set<String> names = new HashSet<String>();
+		for (IModelElement element : elements) {
+			names.add(element.getElementName());
+		}
+		return names;
+	}
+
+}
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.metadata.internal.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.metadata.BeansMetadataPlugin;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadata;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadataModel;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadataProvider;
+import org.springframework.ide.eclipse.beans.core.metadata.tests.TestBeanMetadata;
+import org.springframework.ide.eclipse.beans.core.model.IBean;
+import org.springframework.ide.eclipse.beans.core.model.IBeanProperty;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.tests.BeansCoreTestCase;
+
+/**
+ * Test case to test that the {@link BeanMetadataBuilderJob} skips beans whose inputs have not changed, rebuilds the
+ * meta data of changed beans and attaches the same meta data concurrently as serially.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+public class BeanMetadataBuilderJobTest extends BeansCoreTestCase {
+
+	private IProject project;
+
+	private IFile configFile;
+
+	private CountingMetadataProvider provider;
+
+	@Override
+	protected void setUp() throws Exception {
+		project = createPredefinedProject("metadata");
+		configFile = project.getFile("src/metadata.xml");
+		provider = new CountingMetadataProvider();
+		waitForMetadataJobs();
+
+		// forget the meta data attached by the build
+		for (IBean bean : getConfig().getBeans()) {
+			getMetadataModel().clearBeanMetadata(bean);
+			getMetadataModel().clearBeanProperties(bean);
+		}
+	}
+
+	public void testUnchangedBeansAreSkipped() throws Exception {
+		runJob();
+		assertEquals(3, provider.beanNames.size());
+
+		provider.beanNames.clear();
+		runJob();
+		assertTrue(provider.beanNames.isEmpty());
+
+		// the meta data attached by the first run is kept
+		for (IBean bean : getConfig().getBeans()) {
+			assertEquals(1, getMetadataModel().getBeanMetadata(bean).size());
+		}
+	}
+
+	public void testChangedBeansAreRebuilt() throws Exception {
+		TestBeanMetadataBuilderJob job = createJob();
+		Map<String, Long> fingerprints = new HashMap<String, Long>();
+		for (IBean bean : getConfig().getBeans()) {
+			fingerprints.put(bean.getElementID(), job.getFingerprint(bean));
+		}
+
+		// change a property value and an attribute without moving any bean definition
+		replace("value=\"accounts\"", "value=\"customers\"");
+		replace("init-method=\"start\"", "init-method=\"stop\"");
+		waitForMetadataJobs();
+
+		// restore the state of the model before the change to not depend on the jobs scheduled by the build
+		for (IBean bean : getConfig().getBeans()) {
+			getMetadataModel().setFingerprint(bean, fingerprints.get(bean.getElementID()));
+		}
+		runJob();
+
+		assertEquals(2, provider.beanNames.size());
+		assertTrue(provider.beanNames.contains("accountRepository"));
+		assertTrue(provider.beanNames.contains("accountService"));
+		assertEquals(fingerprints.get(getConfig().getBean("auditService").getElementID()), createJob().getFingerprint(
+				getConfig().getBean("auditService")));
+	}
+
+	public void testConcurrentAttachmentMatchesSerialAttachment() throws Exception {
+		IBeansConfig config = getConfig();
+		Set<IBean> beans = config.getBeans();
+		IBeanMetadataProvider[] providers = new IBeanMetadataProvider[] { provider };
+
+		createJob().attachMetadata(config, beans, new NullProgressMonitor(), providers);
+		Map<String, String> serialMetadata = getMetadata(beans);
+		assertEquals(3, serialMetadata.size());
+
+		for (IBean bean : beans) {
+			getMetadataModel().clearBeanMetadata(bean);
+			getMetadataModel().clearBeanProperties(bean);
+		}
+		Map<IBeansConfig, Set<IBean>> beansByConfig = Collections.singletonMap(config, beans);
+		createJob().attachMetadataConcurrently(beansByConfig, new NullProgressMonitor(), providers, beans.size());
+
+		assertEquals(serialMetadata, getMetadata(beans));
+		assertEquals(6, provider.beanNames.size());
+	}
+
+	private IBeansConfig getConfig() {
+		return BeansCorePlugin.getModel().getConfig(configFile);
+	}
+
+	private BeanMetadataModel getMetadataModel() {
+		IBeanMetadataModel model = BeansMetadataPlugin.getMetadataModel();
+		assertTrue(model instanceof BeanMetadataModel);
+		return (BeanMetadataModel) model;
+	}
+
+	private TestBeanMetadataBuilderJob createJob() {
+		Map<IBeansConfig, Set<IBean>> affectedBeans = new LinkedHashMap<IBeansConfig, Set<IBean>>();
+		affectedBeans.put(getConfig(), getConfig().getBeans());
+		return new TestBeanMetadataBuilderJob(affectedBeans, provider);
+	}
+
+	private void runJob() {
+		assertTrue(createJob().run(new NullProgressMonitor()).isOK());
+	}
+
+	private Map<String, String> getMetadata(Set<IBean> beans) {
+		Map<String, String> metadata = new TreeMap<String, String>();
+		for (IBean bean : beans) {
+			for (IBeanMetadata beanMetadata : getMetadataModel().getBeanMetadata(bean)) {
+				metadata.put(bean.getElementName(), beanMetadata.getKey() + "=" + beanMetadata.getValueAsText());
+			}
+		}
+		return metadata;
+	}
+
+	private void replace(String text, String replacement) throws Exception {
+		InputStream in = configFile.getContents();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+			out.write(buffer, 0, read);
+		}
+		in.close();
+		String contents = new String(out.toByteArray(), configFile.getCharset());
+		assertTrue(contents.contains(text));
+		configFile.setContents(new ByteArrayInputStream(contents.replace(text, replacement).getBytes(
+				configFile.getCharset())), true, false, null);
+	}
+
+	/**
+	 * Waits for the meta data jobs scheduled by the build.
+	 */
+	private static void waitForMetadataJobs() throws InterruptedException {
+		waitForAutoBuild();
+		for (Job job : Job.getJobManager().find(null)) {
+			if (job instanceof BeanMetadataBuilderJob) {
+				job.join();
+			}
+		}
+	}
+
+	/**
+	 * {@link BeanMetadataBuilderJob} that only uses the given provider and exposes the fingerprint of beans.
+	 */
+	private static class TestBeanMetadataBuilderJob extends BeanMetadataBuilderJob {
+
+		private final IBeanMetadataProvider provider;
+
+		public TestBeanMetadataBuilderJob(Map<IBeansConfig, Set<IBean>> affectedBeans, IBeanMetadataProvider provider) {
+			super(affectedBeans);
+			this.provider = provider;
+		}
+
+		@Override
+		protected IBeanMetadataProvider[] getMetadataProviders() {
+			return new IBeanMetadataProvider[] { provider };
+		}
+
+		@Override
+		protected Long getFingerprint(IBean bean) {
+			return super.getFingerprint(bean);
+		}
+
+		@Override
+		protected void attachMetadata(IBeansConfig beansConfig, Set<IBean> beans, IProgressMonitor progressMonitor,
+				IBeanMetadataProvider[] providers) {
+			super.attachMetadata(beansConfig, beans, progressMonitor, providers);
+		}
+
+		@Override
+		protected void attachMetadataConcurrently(Map<IBeansConfig, Set<IBean>> beansByConfig,
+				IProgressMonitor monitor, IBeanMetadataProvider[] providers, int beanCount) {
+			super.attachMetadataConcurrently(beansByConfig, monitor, providers, beanCount);
+		}
+	}
+
+	/**
+	 * {@link IBeanMetadataProvider} that records the beans it has been asked for and provides their class name.
+	 */
+	private static class CountingMetadataProvider implements IBeanMetadataProvider {
+
+		private final List<String> beanNames = new CopyOnWriteArrayList<String>();
+
+		public Set<IBeanMetadata> provideBeanMetadata(IBean bean, IBeansConfig beansConfig,
+				IProgressMonitor progressMonitor) {
+			beanNames.add(bean.getElementName());
+			return Collections.<IBeanMetadata> singleton(new TestBeanMetadata("class", bean.getClassName()));
+		}
+
+		public Set<IBeanProperty> provideBeanProperties(IBean bean, IBeansConfig beansConfig,
+				IProgressMonitor progressMonitor) {
+			return Collections.emptySet();
+		}
+	}
+
+}
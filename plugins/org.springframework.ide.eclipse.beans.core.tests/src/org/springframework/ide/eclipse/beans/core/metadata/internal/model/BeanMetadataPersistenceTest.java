@@ -0,0 +1,260 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.metadata.internal.model;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.springframework.beans.PropertyValue;
+import org.springframework.ide.eclipse.beans.core.internal.model.SerializableRuntimeBeanReference;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadata;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IMethodMetadata;
+import org.springframework.ide.eclipse.beans.core.metadata.tests.TestBeanMetadata;
+import org.springframework.ide.eclipse.beans.core.model.IBean;
+import org.springframework.ide.eclipse.beans.core.model.IBeanProperty;
+import org.springframework.ide.eclipse.beans.core.model.IBeanReference;
+
+/**
+ * Test case to test the partitioned storage of {@link BeanMetadataPersistence} and the lazy loading of partitions by
+ * {@link BeanMetadataModel}.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+public class BeanMetadataPersistenceTest extends TestCase {
+
+	private static final int PROJECT_COUNT = 20;
+
+	private static final int CONFIG_COUNT = 5;
+
+	private static final int BEAN_COUNT = 10;
+
+	private File directory;
+
+	/** Started models that need to be stopped to remove their listeners from the beans model */
+	private final List<BeanMetadataModel> models = new ArrayList<BeanMetadataModel>();
+
+	@Override
+	protected void setUp() throws Exception {
+		directory = File.createTempFile("beanMetadata", "");
+		directory.delete();
+		directory.mkdirs();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (BeanMetadataModel model : models) {
+			model.stop();
+		}
+		delete(directory);
+	}
+
+	public void testRoundTrip() throws Exception {
+		BeanMetadataModel model = startModel(new BeanMetadataPersistence(directory));
+		IBean bean = createBean(beanId(1, 1, 1));
+		IBean otherBean = createBean(beanId(1, 2, 1));
+		model.setBeanMetadata(bean, Collections.<IBeanMetadata> singleton(new TestBeanMetadata("key", "value")),
+				Collections.<IMethodMetadata> emptySet());
+		model.setBeanMetadata(otherBean, Collections.<IBeanMetadata> singleton(new TestBeanMetadata("other",
+				"value")), Collections.<IMethodMetadata> emptySet());
+		model.setBeanProperties(bean, Collections.singleton(createBeanProperty("service", "serviceBean")));
+		model.stop();
+
+		BeanMetadataModel restoredModel = startModel(new BeanMetadataPersistence(directory));
+		Set<IBeanMetadata> metadata = restoredModel.getBeanMetadata(bean);
+		assertEquals(1, metadata.size());
+		IBeanMetadata restoredMetadata = metadata.iterator().next();
+		assertEquals("key", restoredMetadata.getKey());
+		assertEquals("value", restoredMetadata.getValue());
+		assertEquals("other", restoredModel.getBeanMetadata(otherBean).iterator().next().getKey());
+
+		// One partition per config
+		List<BeanMetadataPartition> partitions = new BeanMetadataPersistence(directory)
+				.loadPartitions(BeanMetadataPartition.getProjectKey(beanId(1, 1, 1)));
+		assertEquals(2, partitions.size());
+		BeanPropertyDataHolder holder = null;
+		for (BeanMetadataPartition partition : partitions) {
+			if (partition.getBeanPropertyData().containsKey(beanId(1, 1, 1))) {
+				holder = partition.getBeanPropertyData().get(beanId(1, 1, 1));
+			}
+		}
+		assertNotNull(holder);
+		PropertyValue propertyValue = holder.getPropertyValues().iterator().next();
+		assertEquals("service", propertyValue.getName());
+		assertEquals("serviceBean", ((SerializableRuntimeBeanReference) propertyValue.getValue()).getBeanName());
+	}
+
+	public void testOnlyDirtyPartitionsAreWritten() throws Exception {
+		BeanMetadataModel model = startModel(new BeanMetadataPersistence(directory));
+		IBean bean = createBean(beanId(1, 1, 1));
+		IBean otherBean = createBean(beanId(1, 2, 1));
+		model.setBeanMetadata(bean, Collections.<IBeanMetadata> singleton(new TestBeanMetadata("key", "value")),
+				Collections.<IMethodMetadata> emptySet());
+		model.setBeanMetadata(otherBean, Collections.<IBeanMetadata> singleton(new TestBeanMetadata("key",
+				"value")), Collections.<IMethodMetadata> emptySet());
+		model.save();
+
+		CountingBeanMetadataPersistence persistence = new CountingBeanMetadataPersistence(directory);
+		BeanMetadataModel restoredModel = startModel(persistence);
+		restoredModel.clearBeanMetadata(otherBean);
+		restoredModel.stop();
+		assertEquals(Collections.singletonList(BeanMetadataPartition.getPartitionKey(beanId(1, 2, 1))),
+				persistence.storedPartitions);
+
+		// the emptied partition has been removed
+		assertEquals(1, persistence.loadPartitions(BeanMetadataPartition.getProjectKey(beanId(1, 1, 1))).size());
+	}
+
+	public void testPartitionsAreLoadedLazilyPerProject() throws Exception {
+		BeanMetadataModel model = startModel(new BeanMetadataPersistence(directory));
+		for (int project = 0; project < PROJECT_COUNT; project++) {
+			for (int config = 0; config < CONFIG_COUNT; config++) {
+				for (int bean = 0; bean < BEAN_COUNT; bean++) {
+					model.setBeanMetadata(createBean(beanId(project, config, bean)), Collections
+							.<IBeanMetadata> singleton(new TestBeanMetadata("key", "value")), Collections
+							.<IMethodMetadata> emptySet());
+				}
+			}
+		}
+		model.stop();
+
+		CountingBeanMetadataPersistence persistence = new CountingBeanMetadataPersistence(directory);
+		BeanMetadataModel restoredModel = new BeanMetadataModel(persistence);
+
+		// Starting the model must not read any stored partition
+		restoredModel.start();
+		assertTrue(persistence.loadedProjects.isEmpty());
+
+		// The first query reads the partitions of the queried project only
+		assertEquals(1, restoredModel.getBeanMetadata(createBean(beanId(3, 0, 0))).size());
+		assertEquals(1, restoredModel.getBeanMetadata(createBean(beanId(3, 4, 9))).size());
+		assertEquals(Collections.singletonList(BeanMetadataPartition.getProjectKey(beanId(3, 0, 0))),
+				persistence.loadedProjects);
+		assertEquals(CONFIG_COUNT, persistence.loadedPartitionCount);
+
+		assertEquals(1, restoredModel.getBeanMetadata(createBean(beanId(7, 2, 5))).size());
+		assertEquals(2, persistence.loadedProjects.size());
+		assertEquals(2 * CONFIG_COUNT, persistence.loadedPartitionCount);
+	}
+
+	public void testLegacyStateIsMigrated() throws Exception {
+		BeanMetadataHolder holder = new BeanMetadataHolder();
+		holder.setElemenetId(beanId(1, 1, 1));
+		holder.setBeanMetaData(Collections.<IBeanMetadata> singleton(new TestBeanMetadata("key", "value")));
+		holder.setMethodMetaData(Collections.<IMethodMetadata> emptySet());
+		Map<String, BeanMetadataHolder> legacyState = new HashMap<String, BeanMetadataHolder>();
+		legacyState.put(holder.getElemenetId(), holder);
+		File legacyFile = new File(directory, "metadata/.state");
+		legacyFile.getParentFile().mkdirs();
+		ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(legacyFile));
+		out.writeObject(legacyState);
+		out.close();
+
+		BeanMetadataModel model = startModel(new BeanMetadataPersistence(directory));
+		assertFalse(legacyFile.exists());
+		assertEquals(1, model.getBeanMetadata(createBean(beanId(1, 1, 1))).size());
+
+		BeanMetadataModel restoredModel = startModel(new BeanMetadataPersistence(directory));
+		assertEquals(1, restoredModel.getBeanMetadata(createBean(beanId(1, 1, 1))).size());
+	}
+
+	private BeanMetadataModel startModel(BeanMetadataPersistence persistence) {
+		BeanMetadataModel model = new BeanMetadataModel(persistence);
+		model.start();
+		models.add(model);
+		return model;
+	}
+
+	private static String beanId(int project, int config, int bean) {
+		return "1:beansmodel|2:project" + project + "|3:src/config" + config + ".xml|8:bean" + bean + ":" + bean;
+	}
+
+	private static IBean createBean(String elementId) {
+		return createProxy(IBean.class, Collections.<String, Object> singletonMap("getElementID", elementId));
+	}
+
+	private static IBeanProperty createBeanProperty(String name, String beanName) {
+		Map<String, Object> values = new HashMap<String, Object>();
+		values.put("getElementName", name);
+		values.put("getValue", createProxy(IBeanReference.class, Collections.<String, Object> singletonMap(
+				"getBeanName", beanName)));
+		return createProxy(IBeanProperty.class, values);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T createProxy(Class<T> type, final Map<String, Object> values) {
+		return (T) Proxy.newProxyInstance(BeanMetadataPersistenceTest.class.getClassLoader(), new Class[] { type },
+				new InvocationHandler() {
+
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						if (method.getName().equals("hashCode")) {
+							return System.identityHashCode(proxy);
+						}
+						else if (method.getName().equals("equals")) {
+							return proxy == args[0];
+						}
+						return values.get(method.getName());
+					}
+				});
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	/**
+	 * {@link BeanMetadataPersistence} that records the loaded projects and stored partitions.
+	 */
+	private static class CountingBeanMetadataPersistence extends BeanMetadataPersistence {
+
+		private final List<String> loadedProjects = new ArrayList<String>();
+
+		private final List<String> storedPartitions = new ArrayList<String>();
+
+		private int loadedPartitionCount = 0;
+
+		public CountingBeanMetadataPersistence(File stateLocation) {
+			super(stateLocation);
+		}
+
+		@Override
+		public List<BeanMetadataPartition> loadPartitions(String projectKey) {
+			List<BeanMetadataPartition> partitions = super.loadPartitions(projectKey);
+			loadedProjects.add(projectKey);
+			loadedPartitionCount += partitions.size();
+			return partitions;
+		}
+
+		@Override
+		public void storePartition(BeanMetadataPartition partition) {
+			storedPartitions.add(partition.getKey());
+			super.storePartition(partition);
+		}
+	}
+
+}
@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.metadata.tests;
+
+import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadata;
+import org.springframework.ide.eclipse.core.model.IModelSourceLocation;
+
+/**
+ * Simple key/value {@link IBeanMetadata} used by tests. This class lives in an exported package so that the metadata
+ * plug-in is able to deserialize instances of it.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+public class TestBeanMetadata implements IBeanMetadata {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String key;
+
+	private final String value;
+
+	public TestBeanMetadata(String key, String value) {
+		this.key = key;
+		this.value = value;
+	}
+
+	public String getHandleIdentifier() {
+		return key;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public Object getValue() {
+		return value;
+	}
+
+	public String getValueAsText() {
+		return value;
+	}
+
+	public IModelSourceLocation getElementSourceLocation() {
+		return null;
+	}
+
+}
@@ -15,13 +15,22 @@ import junit.framework.TestSuite;
 
 import org.springframework.ide.eclipse.beans.core.autowire.AutowiredAnnotationInjectionMetadataProviderTests;
 import org.springframework.ide.eclipse.beans.core.autowire.CommonAnnotationInjectionMetadataProviderTests;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelIndexTest;
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.BeanClassRuleTest;
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.BeanConstructorArgumentRuleTest;
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.BeanInitDestroyMethodRuleTest;
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.BeanPropertyRuleTest;
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.NamespaceElementsRuleTest;
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.RequiredPropertyRuleTest;
+import org.springframework.ide.eclipse.beans.core.metadata.internal.model.BeanMetadataBuilderJobTest;
+import org.springframework.ide.eclipse.beans.core.metadata.internal.model.BeanMetadataPersistenceTest;
+import org.springframework.ide.eclipse.core.internal.model.resources.MarkerSeverityIndexTest;
 import org.springframework.ide.eclipse.core.java.IntrospectorTest;
+import org.springframework.ide.eclipse.core.java.TypeStructureCacheTest;
+import org.springframework.ide.eclipse.core.model.validation.ParallelValidationTest;
+import org.springframework.ide.eclipse.core.model.validation.ValidationUtilsTest;
+import org.springframework.ide.eclipse.core.project.BuildProfileTest;
+import org.springframework.ide.eclipse.core.type.asm.ClassReaderCacheTest;
 
 /**
  * {@link TestSuite} for <code>beans.core</code> plugin.
@@ -42,6 +51,15 @@ public class AllBeansCoreTests {
 		suite.addTest(new TestSuite(IntrospectorTest.class));
 		suite.addTest(new TestSuite(AutowiredAnnotationInjectionMetadataProviderTests.class));
 		suite.addTest(new TestSuite(CommonAnnotationInjectionMetadataProviderTests.class));
+		suite.addTest(new TestSuite(BeansModelIndexTest.class));
+		suite.addTest(new TestSuite(ValidationUtilsTest.class));
+		suite.addTest(new TestSuite(BuildProfileTest.class));
+		suite.addTest(new TestSuite(ClassReaderCacheTest.class));
+		suite.addTest(new TestSuite(BeanMetadataPersistenceTest.class));
+		suite.addTest(new TestSuite(BeanMetadataBuilderJobTest.class));
+		suite.addTest(new TestSuite(MarkerSeverityIndexTest.class));
+		suite.addTest(new TestSuite(ParallelValidationTest.class));
+		suite.addTest(new TestSuite(TypeStructureCacheTest.class));
 		//$JUnit-END$
 		return suite;
 	}
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.internal.model.resources;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.springframework.ide.eclipse.beans.core.tests.BeansCoreTestCase;
+import org.springframework.ide.eclipse.core.MarkerUtils;
+import org.springframework.ide.eclipse.core.SpringCore;
+
+/**
+ * Test case to test that the {@link MarkerSeverityIndex} answers range lookups exactly like a linear scan over all
+ * markers of a file.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+public class MarkerSeverityIndexTest extends BeansCoreTestCase {
+
+	private static final int MARKER_COUNT = 5000;
+
+	private static final int LINE_COUNT = 20000;
+
+	private static final int LOOKUP_COUNT = 2000;
+
+	private final Random random = new Random(4711);
+
+	private MarkerSeverityIndex index;
+
+	private IFile file;
+
+	@Override
+	protected void setUp() throws Exception {
+		IProject project = getWorkspaceRoot().getProject("markers");
+		project.create(null);
+		project.open(null);
+		file = project.getFile("markers.xml");
+		file.create(new ByteArrayInputStream(new byte[0]), true, null);
+
+		index = new MarkerSeverityIndex();
+		index.startup();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		index.shutdown();
+		super.tearDown();
+	}
+
+	public void testRangeLookupsMatchLinearScan() throws Exception {
+		createMarkers(MARKER_COUNT);
+		assertLookupsMatchLinearScan();
+	}
+
+	public void testRangeLookupsMatchLinearScanAfterMarkerChanges() throws Exception {
+		createMarkers(MARKER_COUNT);
+		assertLookupsMatchLinearScan();
+
+		// Remove all errors so that lookups have to fall back to warnings
+		final IMarker[] markers = file.findMarkers(SpringCore.MARKER_ID, true, IResource.DEPTH_ZERO);
+		getWorkspace().run(new IWorkspaceRunnable() {
+
+			public void run(IProgressMonitor monitor) throws CoreException {
+				for (IMarker marker : markers) {
+					if (marker.getAttribute(IMarker.SEVERITY, -1) == IMarker.SEVERITY_ERROR) {
+						marker.delete();
+					}
+				}
+			}
+		}, null);
+		assertLookupsMatchLinearScan();
+
+		createMarkers(MARKER_COUNT / 10);
+		assertLookupsMatchLinearScan();
+
+		file.deleteMarkers(SpringCore.MARKER_ID, true, IResource.DEPTH_ZERO);
+		assertEquals(-1, index.getHighestSeverity(file, -1, -1));
+		assertEquals(-1, index.getHighestSeverity(file, 0, LINE_COUNT));
+	}
+
+	private void createMarkers(final int count) throws CoreException {
+		getWorkspace().run(new IWorkspaceRunnable() {
+
+			public void run(IProgressMonitor monitor) throws CoreException {
+				for (int i = 0; i < count; i++) {
+					IMarker marker = file.createMarker(SpringCore.MARKER_ID);
+					int severity = random.nextInt(10);
+					if (severity == 0) {
+						marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+					}
+					else if (severity < 4) {
+						marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_WARNING);
+					}
+					else {
+						marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_INFO);
+					}
+					// Some markers are not attached to a line
+					if (random.nextInt(20) > 0) {
+						marker.setAttribute(IMarker.LINE_NUMBER, random.nextInt(LINE_COUNT));
+					}
+				}
+			}
+		}, null);
+	}
+
+	private void assertLookupsMatchLinearScan() throws CoreException {
+		List<int[]> ranges = new ArrayList<int[]>();
+		ranges.add(new int[] { -1, -1 });
+		ranges.add(new int[] { 0, LINE_COUNT });
+		ranges.add(new int[] { LINE_COUNT, LINE_COUNT * 2 });
+		ranges.add(new int[] { 10, 5 });
+		for (int i = 0; i < LOOKUP_COUNT; i++) {
+			int startLine = random.nextInt(LINE_COUNT);
+			// Mostly small ranges as used by the decorators of single elements
+			int length = (i % 10 == 0 ? random.nextInt(LINE_COUNT) : random.nextInt(20));
+			ranges.add(new int[] { startLine, startLine + length });
+		}
+
+		IMarker[] markers = file.findMarkers(SpringCore.MARKER_ID, true, IResource.DEPTH_ZERO);
+		for (int[] range : ranges) {
+			assertEquals("Range " + range[0] + "-" + range[1], getHighestSeverityByLinearScan(markers, range[0],
+					range[1]), index.getHighestSeverity(file, range[0], range[1]));
+		}
+	}
+
+	/**
+	 * Computes the highest severity the way {@link MarkerUtils} did before the index was introduced.
+	 */
+	private int getHighestSeverityByLinearScan(IMarker[] markers, int startLine, int endLine) throws CoreException {
+		int severity = -1;
+		for (IMarker marker : markers) {
+			if (startLine == -1 || MarkerUtils.isMarkerInRange(marker, startLine, endLine)) {
+				int sev = marker.getAttribute(IMarker.SEVERITY, -1);
+				if (sev == IMarker.SEVERITY_WARNING) {
+					severity = sev;
+				}
+				else if (sev == IMarker.SEVERITY_ERROR) {
+					return sev;
+				}
+			}
+		}
+		return severity;
+	}
+
+}
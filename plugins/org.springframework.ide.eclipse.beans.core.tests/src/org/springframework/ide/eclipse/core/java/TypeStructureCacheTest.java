@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java;
+
+import java.io.ByteArrayInputStream;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.JavaCore;
+import org.springframework.ide.eclipse.beans.core.tests.BeansCoreTestCase;
+
+/**
+ * Test case to test that the {@link TypeStructureCache} still tells structural from non-structural changes after its
+ * recorded type structures have been saved and restored by a restart.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+public class TypeStructureCacheTest extends BeansCoreTestCase {
+
+	private static final int FLAGS = ITypeStructureCache.FLAG_ANNOTATION | ITypeStructureCache.FLAG_ANNOTATION_VALUE;
+
+	private IProject project;
+
+	private IFile javaFile;
+
+	private IFile classFile;
+
+	private TypeStructureCache cache;
+
+	@Override
+	protected void setUp() throws Exception {
+		project = createPredefinedProject("typestructures");
+		javaFile = project.getFile("src/org/test/typestructures/AnnotatedBean.java");
+		classFile = project.getFile("bin/org/test/typestructures/AnnotatedBean.class");
+		assertTrue(classFile.exists());
+
+		cache = new TypeStructureCache();
+		cache.startup();
+		cache.recordTypeStructures(project, classFile);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		// removes the saved state of the test project
+		cache.clearStateForProject(project);
+		cache.shutdown();
+		super.tearDown();
+	}
+
+	public void testNonStructuralChangeAfterRestart() throws Exception {
+		restart();
+		// only the method body changes
+		compile("@Deprecated\n\tpublic String getName() {\n\t\treturn name != null ? name : \"\";\n\t}");
+		assertTrue(cache.hasRecordedTypeStructures(project));
+		assertFalse(cache.hasStructuralChanges(javaFile, FLAGS));
+	}
+
+	public void testStructuralChangeAfterRestart() throws Exception {
+		restart();
+		compile("@Deprecated\n\tpublic String getName() {\n\t\treturn name;\n\t}\n\n"
+				+ "\tpublic boolean hasName() {\n\t\treturn name != null;\n\t}");
+		assertTrue(cache.hasStructuralChanges(javaFile, FLAGS));
+	}
+
+	public void testAnnotationChangeAfterRestart() throws Exception {
+		restart();
+		compile("public String getName() {\n\t\treturn name;\n\t}");
+		assertTrue(cache.hasStructuralChanges(javaFile, FLAGS));
+	}
+
+	/**
+	 * Saves the recorded type structures and replaces the cache with a new instance as done on a restart.
+	 */
+	private void restart() {
+		cache.shutdown();
+		cache = new TypeStructureCache();
+		cache.startup();
+	}
+
+	/**
+	 * Replaces the <code>getName()</code> method of the test class with the given source, waits for the class to be
+	 * compiled and opens the compilation unit as the cache only checks open ones.
+	 */
+	private void compile(String getNameMethod) throws Exception {
+		String source = "package org.test.typestructures;\n\n@Deprecated\npublic class AnnotatedBean {\n\n"
+				+ "\tprivate String name;\n\n\t" + getNameMethod + "\n\n"
+				+ "\tpublic void setName(String name) {\n\t\tthis.name = name;\n\t}\n\n}\n";
+		javaFile.setContents(new ByteArrayInputStream(source.getBytes()), true, false, null);
+		waitForAutoBuild();
+		ICompilationUnit unit = JavaCore.createCompilationUnitFrom(javaFile);
+		unit.open(null);
+	}
+
+}
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.model.validation;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansProject;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.tests.BeansCoreTestCase;
+import org.springframework.ide.eclipse.core.MarkerUtils;
+import org.springframework.ide.eclipse.core.SpringCore;
+
+/**
+ * Test case to test that validating affected resources on multiple threads creates exactly the same problem markers
+ * as validating them one after the other.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+public class ParallelValidationTest extends BeansCoreTestCase {
+
+	private static final int CONFIG_COUNT = 300;
+
+	private IProject project;
+
+	@Override
+	protected void setUp() throws Exception {
+		project = createPredefinedProject("validation");
+		final IFolder folder = project.getFolder("src/generated");
+		final List<IFile> files = new ArrayList<IFile>();
+		getWorkspace().run(new IWorkspaceRunnable() {
+
+			public void run(IProgressMonitor monitor) throws CoreException {
+				folder.create(true, true, null);
+				for (int i = 0; i < CONFIG_COUNT; i++) {
+					IFile file = folder.getFile("config-" + i + ".xml");
+					file.create(new ByteArrayInputStream(createConfig(i).getBytes()), true, null);
+					files.add(file);
+				}
+			}
+		}, null);
+
+		BeansProject beansProject = (BeansProject) BeansCorePlugin.getModel().getProject(project);
+		for (IFile file : files) {
+			beansProject.addConfig(file, IBeansConfig.Type.MANUAL);
+		}
+		waitForAutoBuild();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		SpringCore.getDefault().getPluginPreferences().setToDefault(SpringCore.USE_PARALLEL_VALIDATION);
+		super.tearDown();
+	}
+
+	public void testParallelValidationIsDisabledByDefault() throws Exception {
+		assertFalse(SpringCore.getDefault().getPluginPreferences().getDefaultBoolean(
+				SpringCore.USE_PARALLEL_VALIDATION));
+	}
+
+	public void testParallelAndSerialValidationCreateSameMarkers() throws Exception {
+		List<String> serialMarkers = validate(false);
+		// Every generated config has at least one problem
+		assertTrue(serialMarkers.size() >= CONFIG_COUNT);
+
+		List<String> parallelMarkers = validate(true);
+		assertEquals(serialMarkers, parallelMarkers);
+
+		// Validate again to make sure results don't depend on thread scheduling
+		assertEquals(serialMarkers, validate(true));
+	}
+
+	/**
+	 * Removes all problem markers, validates the project and returns a sorted description of the resulting markers.
+	 */
+	private List<String> validate(boolean parallel) throws CoreException {
+		SpringCore.getDefault().getPluginPreferences().setValue(SpringCore.USE_PARALLEL_VALIDATION, parallel);
+		project.deleteMarkers(SpringCore.MARKER_ID, true, IResource.DEPTH_INFINITE);
+		project.build(IncrementalProjectBuilder.FULL_BUILD, null);
+		waitForAutoBuild();
+
+		List<String> markers = new ArrayList<String>();
+		for (IMarker marker : project.findMarkers(SpringCore.MARKER_ID, true, IResource.DEPTH_INFINITE)) {
+			markers.add(marker.getResource().getFullPath() + ":" + marker.getAttribute(IMarker.LINE_NUMBER, -1)
+					+ ":" + marker.getAttribute(IMarker.SEVERITY, -1) + ":" + marker.getAttribute(IMarker.MESSAGE, "")
+					+ ":" + marker.getAttribute(MarkerUtils.ELEMENT_ID_KEY, ""));
+		}
+		Collections.sort(markers);
+		return markers;
+	}
+
+	private static String createConfig(int index) {
+		StringBuilder content = new StringBuilder();
+		content.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		content.append("<beans xmlns=\"http://www.springframework.org/schema/beans\"\n");
+		content.append("	xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n");
+		content.append("	xsi:schemaLocation=\"http://www.springframework.org/schema/beans ");
+		content.append("http://www.springframework.org/schema/beans/spring-beans.xsd\">\n");
+		content.append("	<bean id=\"list").append(index).append("\" class=\"java.util.ArrayList\">\n");
+		content.append("		<property name=\"missing").append(index).append("\" value=\"value\" />\n");
+		content.append("	</bean>\n");
+		content.append("	<bean id=\"missing").append(index).append("\" class=\"org.test.Missing").append(index)
+				.append("\" />\n");
+		content.append("	<bean id=\"object").append(index).append("\" class=\"java.lang.Object\" depends-on=\"unknown")
+				.append(index).append("\" />\n");
+		content.append("</beans>\n");
+		return content.toString();
+	}
+
+}
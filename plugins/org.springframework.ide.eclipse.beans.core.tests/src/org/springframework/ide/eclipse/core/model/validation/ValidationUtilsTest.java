@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.model.validation;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IMarkerDelta;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.springframework.ide.eclipse.beans.core.tests.BeansCoreTestCase;
+import org.springframework.ide.eclipse.core.MarkerUtils;
+
+/**
+ * Test case to test the batched marker updates of {@link ValidationUtils}.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+public class ValidationUtilsTest extends BeansCoreTestCase {
+
+	private static final String MARKER_ID = "org.springframework.ide.eclipse.beans.core.tests.testmarker";
+
+	private static final int PROBLEM_COUNT = 50;
+
+	private IResource resource;
+
+	private MarkerDeltaCounter counter;
+
+	@Override
+	protected void setUp() throws Exception {
+		resource = createPredefinedProjectAndGetResource("index", "src/index.xml");
+		counter = new MarkerDeltaCounter();
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(counter, IResourceChangeEvent.POST_CHANGE);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(counter);
+		MarkerUtils.deleteMarkers(resource, MARKER_ID);
+		super.tearDown();
+	}
+
+	public void testProblemMarkersAreCreatedInOneOperation() throws Exception {
+		ValidationUtils.createProblemMarkers(resource, createProblems(null), MARKER_ID);
+		assertEquals(PROBLEM_COUNT, resource.findMarkers(MARKER_ID, false, IResource.DEPTH_ZERO).length);
+		assertEquals(1, counter.events);
+		assertEquals(PROBLEM_COUNT, counter.markerDeltas);
+	}
+
+	public void testUnchangedProblemMarkersAreKept() throws Exception {
+		ValidationUtils.createProblemMarkers(resource, createProblems(null), MARKER_ID);
+		counter.reset();
+
+		// Validating again with the same result must not touch any marker
+		ValidationUtils.updateProblemMarkers(resource, MarkerUtils.findMarkers(resource, MARKER_ID),
+				createProblems(null), MARKER_ID);
+		assertEquals(PROBLEM_COUNT, resource.findMarkers(MARKER_ID, false, IResource.DEPTH_ZERO).length);
+		assertEquals(0, counter.markerDeltas);
+
+		// Changing one problem only replaces a single marker
+		ValidationUtils.updateProblemMarkers(resource, MarkerUtils.findMarkers(resource, MARKER_ID),
+				createProblems("changed"), MARKER_ID);
+		assertEquals(PROBLEM_COUNT, resource.findMarkers(MARKER_ID, false, IResource.DEPTH_ZERO).length);
+		assertEquals(1, counter.events);
+		assertEquals(2, counter.markerDeltas);
+	}
+
+	public void testStaleProblemMarkersAreDeleted() throws Exception {
+		ValidationUtils.createProblemMarkers(resource, createProblems(null), MARKER_ID);
+		counter.reset();
+
+		Set<ValidationProblem> problems = new LinkedHashSet<ValidationProblem>();
+		ValidationUtils.updateProblemMarkers(resource, MarkerUtils.findMarkers(resource, MARKER_ID), problems,
+				MARKER_ID);
+		assertEquals(0, resource.findMarkers(MARKER_ID, false, IResource.DEPTH_ZERO).length);
+		assertEquals(1, counter.events);
+		assertEquals(PROBLEM_COUNT, counter.markerDeltas);
+	}
+
+	private Set<ValidationProblem> createProblems(String lastMessage) {
+		Set<ValidationProblem> problems = new LinkedHashSet<ValidationProblem>();
+		for (int i = 1; i <= PROBLEM_COUNT; i++) {
+			String message = (i == PROBLEM_COUNT && lastMessage != null ? lastMessage : "Problem " + i);
+			problems.add(new ValidationProblem(IMarker.SEVERITY_WARNING, message, resource, i));
+		}
+		return problems;
+	}
+
+	/**
+	 * Counts the marker deltas of the test marker type.
+	 */
+	private static class MarkerDeltaCounter implements IResourceChangeListener {
+
+		private int events = 0;
+
+		private int markerDeltas = 0;
+
+		public void resourceChanged(IResourceChangeEvent event) {
+			IMarkerDelta[] deltas = event.findMarkerDeltas(MARKER_ID, false);
+			if (deltas.length > 0) {
+				events++;
+				markerDeltas += deltas.length;
+			}
+		}
+
+		public void reset() {
+			events = 0;
+			markerDeltas = 0;
+		}
+	}
+
+}
@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.project;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.springframework.ide.eclipse.beans.core.tests.BeansCoreTestCase;
+import org.springframework.ide.eclipse.core.MarkerUtils;
+import org.springframework.ide.eclipse.core.internal.model.validation.SpringValidator;
+import org.springframework.ide.eclipse.core.internal.model.validation.ValidationRuleDefinition;
+import org.springframework.ide.eclipse.core.model.IModelElement;
+import org.springframework.ide.eclipse.core.model.ISpringProject;
+import org.springframework.ide.eclipse.core.model.validation.IValidationContext;
+import org.springframework.ide.eclipse.core.model.validation.IValidationRule;
+
+/**
+ * Test case to test the aggregation of rule timings in {@link BuildProfile}.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+public class BuildProfileTest extends BeansCoreTestCase {
+
+	private static final String MARKER_ID = "org.springframework.ide.eclipse.beans.core.tests.testmarker";
+
+	private static final String FAST_RULE_ID = "test.fastRule";
+
+	private static final String SLOW_RULE_ID = "test.slowRule";
+
+	private static final long FAST_RULE_SLEEP = 10;
+
+	private static final long SLOW_RULE_SLEEP = 50;
+
+	/** Thread.sleep() might wake up slightly early on some platforms */
+	private static final long TOLERANCE = 5;
+
+	private IProject project;
+
+	private BuildProfile profile;
+
+	private SleepingRulesValidator validator;
+
+	@Override
+	protected void setUp() throws Exception {
+		IResource resource = createPredefinedProjectAndGetResource("index", "src/index.xml");
+		project = resource.getProject();
+		profile = new BuildProfile(project, IncrementalProjectBuilder.FULL_BUILD);
+
+		IProjectContributorState state = new DefaultProjectContributorState();
+		state.hold(profile);
+		validator = new SleepingRulesValidator();
+		validator.setMarkerId(MARKER_ID);
+		validator.setValidatorId("test.validator");
+		validator.setProjectContributorState(state);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		MarkerUtils.deleteMarkers(project, MARKER_ID);
+		super.tearDown();
+	}
+
+	public void testRuleTimingsAreAggregatedPerRule() throws Exception {
+		validate();
+		validate();
+		profile.finish();
+
+		List<BuildProfile.Timing> timings = profile.getRuleTimings();
+		assertEquals(2, timings.size());
+
+		// Most expensive rule comes first
+		BuildProfile.Timing slowTiming = timings.get(0);
+		assertEquals(SLOW_RULE_ID, slowTiming.getId());
+		assertEquals(2, slowTiming.getCount());
+		assertTrue(slowTiming.getTotalTimeMillis() >= 2 * (SLOW_RULE_SLEEP - TOLERANCE));
+		assertTrue(slowTiming.getMaxTimeMillis() >= SLOW_RULE_SLEEP - TOLERANCE);
+
+		BuildProfile.Timing fastTiming = timings.get(1);
+		assertEquals(FAST_RULE_ID, fastTiming.getId());
+		assertEquals(2, fastTiming.getCount());
+		assertTrue(fastTiming.getTotalTimeMillis() >= 2 * (FAST_RULE_SLEEP - TOLERANCE));
+		assertTrue(fastTiming.getTotalTime() < slowTiming.getTotalTime());
+
+		assertTrue(profile.getDuration() >= slowTiming.getTotalTime() + fastTiming.getTotalTime());
+	}
+
+	public void testRuleTimingsAreAggregatedPerResource() throws Exception {
+		validate();
+
+		List<BuildProfile.Timing> timings = profile.getResourceTimings();
+		assertEquals(1, timings.size());
+		BuildProfile.Timing timing = timings.get(0);
+		assertEquals(project.getFullPath().toString(), timing.getId());
+		assertEquals(2, timing.getCount());
+		assertTrue(timing.getTotalTimeMillis() >= SLOW_RULE_SLEEP + FAST_RULE_SLEEP - 2 * TOLERANCE);
+	}
+
+	public void testContributorTimingsAndReport() throws Exception {
+		profile.recordContributor("test.builder", 3000000L);
+		profile.recordContributor("test.builder", 2000000L);
+		validate();
+		profile.finish();
+
+		BuildProfile.Timing timing = profile.getContributorTimings().get(0);
+		assertEquals("test.builder", timing.getId());
+		assertEquals(2, timing.getCount());
+		assertEquals(5, timing.getTotalTimeMillis());
+		assertEquals(3, timing.getMaxTimeMillis());
+
+		StringWriter report = new StringWriter();
+		profile.writeReport(new PrintWriter(report), 1);
+		String text = report.toString();
+		assertTrue(text.contains("'index'"));
+		assertTrue(text.contains(SLOW_RULE_ID));
+		assertFalse(text.contains(FAST_RULE_ID));
+		assertTrue(text.contains("... 1 more"));
+	}
+
+	public void testRuleRecorderAddsTimingsOnFlush() throws Exception {
+		BuildProfile.RuleRecorder recorder = profile.createRuleRecorder(project);
+		recorder.record(FAST_RULE_ID, 2000000L);
+		recorder.record(FAST_RULE_ID, 1000000L);
+		recorder.record(SLOW_RULE_ID, 4000000L);
+		assertTrue(profile.getRuleTimings().isEmpty());
+		assertTrue(profile.getResourceTimings().isEmpty());
+
+		recorder.flush();
+		List<BuildProfile.Timing> timings = profile.getRuleTimings();
+		assertEquals(2, timings.size());
+		assertEquals(FAST_RULE_ID, timings.get(1).getId());
+		assertEquals(2, timings.get(1).getCount());
+		assertEquals(3, timings.get(1).getTotalTimeMillis());
+		assertEquals(2, timings.get(1).getMaxTimeMillis());
+
+		BuildProfile.Timing resourceTiming = profile.getResourceTimings().get(0);
+		assertEquals(3, resourceTiming.getCount());
+		assertEquals(7, resourceTiming.getTotalTimeMillis());
+
+		// Flushing again must not add the same timings twice
+		recorder.flush();
+		assertEquals(3, profile.getResourceTimings().get(0).getCount());
+	}
+
+	public void testProfilingIsEnabledByListeners() throws Exception {
+		BuildProfileManager manager = new BuildProfileManager();
+		boolean enabledByOption = manager.isEnabled();
+		IBuildProfileListener listener = new IBuildProfileListener() {
+
+			public void buildProfileFinished(BuildProfile profile) {
+			}
+		};
+		manager.addBuildProfileListener(listener);
+		assertTrue(manager.isEnabled());
+		manager.removeBuildProfileListener(listener);
+		assertEquals(enabledByOption, manager.isEnabled());
+	}
+
+	private void validate() throws Exception {
+		Set<IResource> resources = Collections.<IResource> singleton(project);
+		validator.validate(resources, IncrementalProjectBuilder.FULL_BUILD, new NullProgressMonitor());
+	}
+
+	/**
+	 * Validator that runs the sleeping rules against the {@link ISpringProject}.
+	 */
+	private static class SleepingRulesValidator extends SpringValidator {
+
+		@Override
+		protected Set<ValidationRuleDefinition> getRuleDefinitions(IResource resource) {
+			Set<ValidationRuleDefinition> ruleDefinitions = new LinkedHashSet<ValidationRuleDefinition>();
+			ruleDefinitions.add(new SleepingRuleDefinition(FAST_RULE_ID, FAST_RULE_SLEEP));
+			ruleDefinitions.add(new SleepingRuleDefinition(SLOW_RULE_ID, SLOW_RULE_SLEEP));
+			return ruleDefinitions;
+		}
+	}
+
+	private static class SleepingRuleDefinition extends ValidationRuleDefinition {
+
+		private final SleepingRule rule;
+
+		public SleepingRuleDefinition(String id, long sleep) {
+			super("test.validator", id, id, null);
+			this.rule = new SleepingRule(sleep);
+		}
+
+		@Override
+		public synchronized IValidationRule getRule() {
+			return rule;
+		}
+	}
+
+	/**
+	 * Synthetic rule that sleeps for a fixed time on every invocation.
+	 */
+	private static class SleepingRule implements IValidationRule<IModelElement, IValidationContext> {
+
+		private final long sleep;
+
+		public SleepingRule(long sleep) {
+			this.sleep = sleep;
+		}
+
+		public boolean supports(IModelElement element, IValidationContext context) {
+			return element instanceof ISpringProject;
+		}
+
+		public void validate(IModelElement element, IValidationContext context, IProgressMonitor monitor) {
+			try {
+				Thread.sleep(sleep);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.type.asm;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import junit.framework.TestCase;
+
+import org.objectweb.asm.ClassReader;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.FileCopyUtils;
+
+/**
+ * Test case to test the {@link ClassReaderCache}.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+public class ClassReaderCacheTest extends TestCase {
+
+	private File directory;
+
+	private byte[] classBytes;
+
+	@Override
+	protected void setUp() throws Exception {
+		directory = File.createTempFile("classReaderCache", "");
+		directory.delete();
+		directory.mkdirs();
+		InputStream is = getClass().getResourceAsStream("ClassReaderCacheTest.class");
+		classBytes = FileCopyUtils.copyToByteArray(is);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	public void testClassReaderIsReusedUntilClassFileChanges() throws Exception {
+		ClassReaderCache cache = new ClassReaderCache();
+		Resource resource = createClassFile("Test.class");
+
+		ClassReader classReader = cache.getClassReader(resource);
+		assertNotNull(classReader);
+		assertSame(classReader, cache.getClassReader(resource));
+
+		// Changing the modification stamp invalidates the cached entry
+		resource.getFile().setLastModified(resource.lastModified() + 10000);
+		ClassReader changedClassReader = cache.getClassReader(resource);
+		assertNotSame(classReader, changedClassReader);
+		assertSame(changedClassReader, cache.getClassReader(resource));
+		assertEquals(1, cache.size());
+	}
+
+	public void testCacheIsBounded() throws Exception {
+		ClassReaderCache cache = new ClassReaderCache(32);
+		for (int i = 0; i < 200; i++) {
+			cache.getClassReader(createClassFile("Test" + i + ".class"));
+		}
+		assertTrue(cache.size() <= 32);
+	}
+
+	public void testEviction() throws Exception {
+		ClassReaderCache cache = new ClassReaderCache();
+		Resource resource = createClassFile("Test.class");
+		Resource otherResource = createClassFile("Other.class");
+		cache.getClassReader(resource);
+		cache.getClassReader(otherResource);
+		assertEquals(2, cache.size());
+
+		cache.evict(resource.getURL().toString());
+		assertEquals(1, cache.size());
+
+		cache.evictAll(directory.toURI().toURL().toString());
+		assertEquals(0, cache.size());
+	}
+
+	private Resource createClassFile(String name) throws Exception {
+		File file = new File(directory, name);
+		OutputStream os = new FileOutputStream(file);
+		try {
+			os.write(classBytes);
+		}
+		finally {
+			os.close();
+		}
+		return new FileSystemResource(file);
+	}
+
+}
@@ -0,0 +1,15 @@
+package org.test.metadata;
+
+public class AccountRepository {
+
+	private String name;
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+}
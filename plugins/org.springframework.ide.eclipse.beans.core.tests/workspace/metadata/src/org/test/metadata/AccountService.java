@@ -0,0 +1,17 @@
+package org.test.metadata;
+
+public class AccountService {
+
+	private AccountRepository repository;
+
+	public void setRepository(AccountRepository repository) {
+		this.repository = repository;
+	}
+
+	public void start() {
+	}
+
+	public void stop() {
+	}
+
+}
@@ -0,0 +1,17 @@
+package org.test.typestructures;
+
+@Deprecated
+public class AnnotatedBean {
+
+	private String name;
+
+	@Deprecated
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2011 Spring IDE Developers
+ * Copyright (c) 2004, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -83,6 +83,8 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 
 	private IFacetedProjectListener facetedProjectListener;
 
+	private final BeansModelIndex index = new BeansModelIndex();
+
 	public BeansModel() {
 		super(null, IBeansModel.ELEMENT_NAME);
 		projects = new ConcurrentHashMap<IProject, IBeansProject>();
@@ -93,6 +95,25 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 		return getProjects().toArray(new IModelElement[getProjects().size()]);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Resolved elements are kept in the {@link BeansModelIndex}, so that subsequent lookups don't need to walk the
+	 * model tree.
+	 */
+	@Override
+	public IModelElement getElement(String id) {
+		IModelElement element = index.getElement(id);
+		if (element == null) {
+			long stamp = index.getModificationStamp();
+			element = super.getElement(id);
+			if (element != null) {
+				index.addElement(id, element, stamp);
+			}
+		}
+		return element;
+	}
+
 	@Override
 	public void accept(IModelElementVisitor visitor, IProgressMonitor monitor) {
 		// Ask this model's projects
@@ -171,6 +192,7 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 			w.lock();
 			// Remove all projects
 			projects.clear();
+			index.clear();
 		}
 		finally {
 			w.unlock();
@@ -267,6 +289,14 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 		return null;
 	}
 
+	/**
+	 * Returns the {@link BeansModelIndex} that provides lookups of bean names, classes, properties and references.
+	 * @since 3.0.0
+	 */
+	public BeansModelIndex getIndex() {
+		return index;
+	}
+
 	/**
 	 * Returns a list of all configs from this model which contain a bean with given bean class.
 	 */
@@ -375,6 +405,7 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 		// correctly before updating the project description
 		if (project != null) {
 			project.reset();
+			index.removeProject(project);
 			notifyListeners(project, Type.CHANGED);
 			if (build) {
 				// trigger build of project
@@ -426,6 +457,7 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 					w.unlock();
 				}
 				if (proj != null) {
+					index.removeProject(proj);
 					notifyListeners(proj, Type.CHANGED);
 				}
 			}
@@ -480,6 +512,7 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 				w.unlock();
 			}
 			if (proj != null) {
+				index.removeProject(proj);
 				notifyListeners(proj, Type.REMOVED);
 			}
 		}
@@ -497,6 +530,7 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 				w.unlock();
 			}
 			if (proj != null) {
+				index.removeProject(proj);
 				notifyListeners(proj, Type.REMOVED);
 			}
 		}
@@ -623,6 +657,7 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 					r.unlock();
 				}
 				if (config != null) {
+					index.removeConfig(config);
 					notifyListeners(config, Type.REMOVED);
 				}
 			}
@@ -0,0 +1,439 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.internal.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.LookupOverride;
+import org.springframework.beans.factory.support.MethodOverride;
+import org.springframework.beans.factory.support.ReplaceOverride;
+import org.springframework.ide.eclipse.beans.core.model.IBean;
+import org.springframework.ide.eclipse.beans.core.model.IBeanAlias;
+import org.springframework.ide.eclipse.beans.core.model.IBeanProperty;
+import org.springframework.ide.eclipse.beans.core.model.IBeanReference;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.IBeansList;
+import org.springframework.ide.eclipse.beans.core.model.IBeansMap;
+import org.springframework.ide.eclipse.beans.core.model.IBeansMapEntry;
+import org.springframework.ide.eclipse.beans.core.model.IBeansProject;
+import org.springframework.ide.eclipse.beans.core.model.IBeansSet;
+import org.springframework.ide.eclipse.beans.core.model.IBeansTypedString;
+import org.springframework.ide.eclipse.beans.core.model.IBeansValueHolder;
+import org.springframework.ide.eclipse.core.model.IModelElement;
+import org.springframework.ide.eclipse.core.model.IModelElementVisitor;
+
+/**
+ * Inverted index of the {@link IBeansConfig}s of the {@link BeansModel}.
+ * <p>
+ * For every config the names of its beans and aliases, the bean class names, the bean property names, the parent bean
+ * names and all referenced bean names are mapped to the model elements that carry them. The index of a config is
+ * created on first access and discarded by the {@link BeansModel} whenever the config is read, reset or removed.
+ * <p>
+ * Additionally the model elements resolved by {@link BeansModel#getElement(String)} are mapped by their element ids.
+ * The ids of all elements of a config are added at once and dropped together with the other keys of the config.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+public class BeansModelIndex {
+
+	public static final String PROXY_FACTORY_CLASS_NAME = "org.springframework.aop.framework.ProxyFactoryBean";
+
+	/**
+	 * The different kinds of keys maintained by the index.
+	 */
+	public enum Type {
+
+		/** Bean names and aliases mapped to the {@link IBean} */
+		BEAN_NAME,
+
+		/** Bean class names mapped to the {@link IBean} */
+		BEAN_CLASS,
+
+		/** Property names mapped to the {@link IBean} which defines the property */
+		BEAN_PROPERTY,
+
+		/** Parent bean names mapped to the child {@link IBean} */
+		BEAN_PARENT,
+
+		/** Referenced bean names mapped to the referencing {@link IBean}, {@link IBeanAlias} or {@link IBeansValueHolder} */
+		BEAN_REFERENCE
+	}
+
+	private final Map<IBeansConfig, ConfigIndex> configIndexes = new ConcurrentHashMap<IBeansConfig, ConfigIndex>();
+
+	private final Map<String, IModelElement> elementsById = new ConcurrentHashMap<String, IModelElement>();
+
+	/** Incremented whenever ids are dropped; prevents adding elements that have been resolved before */
+	private final AtomicLong modificationStamp = new AtomicLong();
+
+	/**
+	 * Returns all model elements of the given <code>config</code> that carry a key of the given <code>type</code>
+	 * matching the given pattern.
+	 * <p>
+	 * Case sensitive, non-regex patterns without wildcards are resolved by a single lookup; patterns with a single
+	 * trailing <code>*</code> wildcard by a prefix lookup. All other patterns are matched against the indexed keys only.
+	 * @param config the config to search
+	 * @param type the type of key to match
+	 * @param pattern the search string as entered by the user
+	 * @param isCaseSensitive <code>true</code> if the search is case sensitive
+	 * @param isRegexSearch <code>true</code> if the given <code>pattern</code> is a regular expression
+	 * @param compiledPattern the pattern compiled by {@link org.springframework.ide.eclipse.core.PatternUtils}
+	 */
+	public Set<IModelElement> findElements(IBeansConfig config, Type type, String pattern, boolean isCaseSensitive,
+			boolean isRegexSearch, Pattern compiledPattern) {
+		TreeMap<String, List<IModelElement>> keys = getConfigIndex(config).getKeys(type);
+		Set<IModelElement> elements = new LinkedHashSet<IModelElement>();
+		if (!isRegexSearch && isCaseSensitive && !hasWildcard(pattern, 0, pattern.length())) {
+			List<IModelElement> matches = keys.get(pattern);
+			if (matches != null) {
+				elements.addAll(matches);
+			}
+		}
+		else if (!isRegexSearch && isCaseSensitive && pattern.length() > 1 && pattern.endsWith("*")
+				&& !hasWildcard(pattern, 0, pattern.length() - 1)) {
+			String prefix = pattern.substring(0, pattern.length() - 1);
+			for (List<IModelElement> matches : keys.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+				elements.addAll(matches);
+			}
+		}
+		else {
+			for (Map.Entry<String, List<IModelElement>> entry : keys.entrySet()) {
+				if (compiledPattern.matcher(entry.getKey()).matches()) {
+					elements.addAll(entry.getValue());
+				}
+			}
+		}
+		return elements;
+	}
+
+	/**
+	 * Returns the keys of the given <code>type</code> which the given <code>element</code> carries.
+	 */
+	public static Set<String> getKeys(IModelElement element, Type type) {
+		Set<String> keys = new LinkedHashSet<String>();
+		switch (type) {
+		case BEAN_NAME:
+			if (element instanceof IBean) {
+				IBean bean = (IBean) element;
+				keys.add(bean.getElementName());
+				String[] aliases = bean.getAliases();
+				if (aliases != null) {
+					for (String alias : aliases) {
+						keys.add(alias);
+					}
+				}
+			}
+			break;
+		case BEAN_CLASS:
+			if (element instanceof IBean && ((IBean) element).getClassName() != null) {
+				keys.add(((IBean) element).getClassName());
+			}
+			break;
+		case BEAN_PROPERTY:
+			if (element instanceof IBean) {
+				for (IBeanProperty property : ((IBean) element).getProperties()) {
+					keys.add(property.getElementName());
+				}
+			}
+			break;
+		case BEAN_PARENT:
+			if (element instanceof IBean && ((IBean) element).isChildBean()) {
+				keys.add(((IBean) element).getParentName());
+			}
+			break;
+		case BEAN_REFERENCE:
+			addReferenceKeys(element, keys);
+			break;
+		}
+		return keys;
+	}
+
+	/**
+	 * Returns the model element with the given element id if it has been indexed.
+	 * @since 3.0.0
+	 */
+	public IModelElement getElement(String id) {
+		return elementsById.get(id);
+	}
+
+	/**
+	 * Returns the current modification stamp of the element id index. The stamp has to be obtained before resolving an
+	 * element that is passed to {@link #addElement(String, IModelElement, long)}.
+	 * @since 3.0.0
+	 */
+	public long getModificationStamp() {
+		return modificationStamp.get();
+	}
+
+	/**
+	 * Adds the given resolved <code>element</code> to the element id index. If the element belongs to a config that
+	 * hasn't been indexed yet the ids of all elements of the config are added.
+	 * <p>
+	 * Nothing is added if ids have been dropped since the given <code>stamp</code> has been obtained, as the element
+	 * might then belong to a config that has been reset in the meantime.
+	 * @since 3.0.0
+	 */
+	public void addElement(String id, IModelElement element, long stamp) {
+		IBeansConfig config = getRootConfig(element);
+		if (config != null && !elementsById.containsKey(config.getElementID())) {
+			config.accept(new IModelElementVisitor() {
+
+				public boolean visit(IModelElement configElement, IProgressMonitor monitor) {
+					elementsById.put(configElement.getElementID(), configElement);
+					return true;
+				}
+			}, new NullProgressMonitor());
+		}
+		elementsById.put(id, element);
+
+		if (modificationStamp.get() != stamp) {
+			removeElements(config != null ? config.getElementID() : id);
+		}
+	}
+
+	/**
+	 * Discards the index of the given config.
+	 */
+	public void removeConfig(IBeansConfig config) {
+		configIndexes.remove(config);
+		removeElements(config.getElementID());
+	}
+
+	/**
+	 * Discards the indexes of all configs belonging to the given project.
+	 */
+	public void removeProject(IBeansProject project) {
+		Iterator<IBeansConfig> configs = configIndexes.keySet().iterator();
+		while (configs.hasNext()) {
+			if (project.equals(BeansModelUtils.getProject(configs.next()))) {
+				configs.remove();
+			}
+		}
+		removeElements(project.getElementID());
+	}
+
+	/**
+	 * Discards all indexes.
+	 */
+	public void clear() {
+		configIndexes.clear();
+		modificationStamp.incrementAndGet();
+		elementsById.clear();
+	}
+
+	/**
+	 * Drops the element with the given id and all its descendants from the element id index.
+	 */
+	private void removeElements(String id) {
+		modificationStamp.incrementAndGet();
+		String prefix = id + IModelElement.ID_DELIMITER;
+		Iterator<String> ids = elementsById.keySet().iterator();
+		while (ids.hasNext()) {
+			String elementId = ids.next();
+			if (elementId.equals(id) || elementId.startsWith(prefix)) {
+				ids.remove();
+			}
+		}
+	}
+
+	/**
+	 * Returns the top-level config the given element belongs to; imported configs are covered by their importing
+	 * config.
+	 */
+	private static IBeansConfig getRootConfig(IModelElement element) {
+		IBeansConfig config = null;
+		for (IModelElement current = element; current != null; current = current.getElementParent()) {
+			if (current instanceof IBeansConfig) {
+				config = (IBeansConfig) current;
+			}
+			else if (current instanceof IBeansProject) {
+				break;
+			}
+		}
+		return config;
+	}
+
+	private ConfigIndex getConfigIndex(IBeansConfig config) {
+		ConfigIndex index = configIndexes.get(config);
+		if (index == null) {
+			index = new ConfigIndex(config);
+			configIndexes.put(config, index);
+		}
+		return index;
+	}
+
+	private static boolean hasWildcard(String pattern, int start, int end) {
+		for (int i = start; i < end; i++) {
+			char c = pattern.charAt(i);
+			if (c == '*' || c == '?' || c == '\\') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void addReferenceKeys(IModelElement element, Set<String> keys) {
+		if (element instanceof IBeanAlias) {
+			keys.add(((IBeanAlias) element).getBeanName());
+		}
+		else if (element instanceof IBean) {
+			IBean bean = (IBean) element;
+
+			// Reference to parent bean
+			if (bean.isChildBean()) {
+				keys.add(bean.getParentName());
+			}
+
+			BeanDefinition beanDefinition = ((Bean) element).getBeanDefinition();
+			if (beanDefinition instanceof AbstractBeanDefinition) {
+				AbstractBeanDefinition bd = (AbstractBeanDefinition) beanDefinition;
+
+				// Reference to factory bean
+				if (bd.getFactoryBeanName() != null) {
+					keys.add(bd.getFactoryBeanName());
+				}
+
+				// References to depends-on beans
+				String dependsOnBeanNames[] = bd.getDependsOn();
+				if (dependsOnBeanNames != null) {
+					for (String name : dependsOnBeanNames) {
+						keys.add(name);
+					}
+				}
+
+				// References to method-override beans
+				if (!bd.getMethodOverrides().isEmpty()) {
+					for (Object methodOverride : bd.getMethodOverrides().getOverrides()) {
+						if (methodOverride instanceof LookupOverride) {
+							keys.add(((LookupOverride) methodOverride).getBeanName());
+						}
+						else if (methodOverride instanceof ReplaceOverride) {
+							keys.add(((ReplaceOverride) methodOverride).getMethodReplacerBeanName());
+						}
+					}
+				}
+			}
+		}
+		else if (element instanceof IBeansValueHolder) {
+			addValueReferenceKeys(element, ((IBeansValueHolder) element).getValue(), keys);
+		}
+	}
+
+	private static void addValueReferenceKeys(IModelElement element, Object value, Set<String> keys) {
+		if (value instanceof IBeanReference) {
+			keys.add(((IBeanReference) value).getBeanName());
+		}
+		else if (value instanceof IBeansList) {
+
+			// Reference to bean property's interceptors
+			if (element instanceof IBeanProperty && element.getElementName().equals("interceptorNames")) {
+				String beanClass = BeansModelUtils.getBeanClass((IBean) element.getElementParent(), null);
+				if (PROXY_FACTORY_CLASS_NAME.equals(beanClass)) {
+					for (IModelElement child : ((IBeansList) value).getElementChildren()) {
+						if (child instanceof IBeansTypedString) {
+							keys.add(((IBeansTypedString) child).getString());
+						}
+					}
+				}
+			}
+			else {
+				for (IModelElement child : ((IBeansList) value).getElementChildren()) {
+					addValueReferenceKeys(element, child, keys);
+				}
+			}
+		}
+		else if (value instanceof IBeansSet) {
+			for (IModelElement child : ((IBeansSet) value).getElementChildren()) {
+				addValueReferenceKeys(element, child, keys);
+			}
+		}
+		else if (value instanceof IBeansMap) {
+			for (IModelElement child : ((IBeansMap) value).getElementChildren()) {
+				if (child instanceof IBeansMapEntry) {
+					addValueReferenceKeys(element, ((IBeansMapEntry) child).getKey(), keys);
+					addValueReferenceKeys(element, ((IBeansMapEntry) child).getValue(), keys);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The index of a single {@link IBeansConfig}; populated by visiting the config once.
+	 */
+	private static class ConfigIndex {
+
+		private final Map<Type, TreeMap<String, List<IModelElement>>> keys = new EnumMap<Type, TreeMap<String, List<IModelElement>>>(
+				Type.class);
+
+		public ConfigIndex(IBeansConfig config) {
+			for (Type type : Type.values()) {
+				keys.put(type, new TreeMap<String, List<IModelElement>>());
+			}
+			config.accept(new IModelElementVisitor() {
+
+				public boolean visit(IModelElement element, IProgressMonitor monitor) {
+					for (Type type : Type.values()) {
+						for (String key : BeansModelIndex.getKeys(element, type)) {
+							if (key != null) {
+								addKey(type, key, element);
+							}
+						}
+					}
+					return true;
+				}
+			}, new NullProgressMonitor());
+		}
+
+		public TreeMap<String, List<IModelElement>> getKeys(Type type) {
+			return keys.get(type);
+		}
+
+		private void addKey(Type type, String key, IModelElement element) {
+			SortedMap<String, List<IModelElement>> typeKeys = keys.get(type);
+			List<IModelElement> elements = typeKeys.get(key);
+			if (elements == null) {
+				elements = new ArrayList<IModelElement>(1);
+				typeKeys.put(key, elements);
+			}
+			elements.add(element);
+		}
+	}
+
+	/**
+	 * Returns an unmodifiable view on the configs currently indexed; for testing purposes only.
+	 */
+	Set<IBeansConfig> getIndexedConfigs() {
+		return Collections.unmodifiableSet(configIndexes.keySet());
+	}
+
+	/**
+	 * Returns an unmodifiable view on the element ids currently indexed; for testing purposes only.
+	 */
+	Set<String> getIndexedElementIds() {
+		return Collections.unmodifiableSet(elementsById.keySet());
+	}
+}
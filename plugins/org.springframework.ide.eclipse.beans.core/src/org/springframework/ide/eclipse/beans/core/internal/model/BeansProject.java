@@ -1027,6 +1027,15 @@ public class BeansProject extends AbstractResourceModelElement implements IBeans
 	 */
 	class DefaultBeansConfigEventListener implements IBeansConfigEventListener {
 
+		/**
+		 * Makes sure that the {@link BeansModelIndex} doesn't serve stale data for the given config.
+		 */
+		private void removeFromIndex(IBeansConfig config) {
+			if (getElementParent() instanceof BeansModel) {
+				((BeansModel) getElementParent()).getIndex().removeConfig(config);
+			}
+		}
+
 		/**
 		 * {@inheritDoc}
 		 */
@@ -1065,6 +1074,7 @@ public class BeansProject extends AbstractResourceModelElement implements IBeans
 		 * {@inheritDoc}
 		 */
 		public void onReadEnd(IBeansConfig config) {
+			removeFromIndex(config);
 		}
 
 		/**
@@ -1077,6 +1087,7 @@ public class BeansProject extends AbstractResourceModelElement implements IBeans
 		 * {@inheritDoc}
 		 */
 		public void onReset(IBeansConfig config) {
+			removeFromIndex(config);
 			for (IBeansProject project : BeansCorePlugin.getModel().getProjects()) {
 				for (IBeansConfigSet configSet : project.getConfigSets()) {
 					if (configSet.hasConfig((IFile) config.getElementResource())) {
@@ -10,11 +10,14 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.core.internal.model.validation;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.IncrementalProjectBuilder;
@@ -34,7 +37,10 @@ import org.springframework.ide.eclipse.beans.core.model.IBeansImport;
 import org.springframework.ide.eclipse.beans.core.model.IBeansModelElement;
 import org.springframework.ide.eclipse.beans.core.model.IBeansProject;
 import org.springframework.ide.eclipse.beans.core.model.IImportedBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.validation.AbstractXmlValidationRule;
+import org.springframework.ide.eclipse.beans.core.model.validation.XmlValidationRuleDispatcher;
 import org.springframework.ide.eclipse.core.MarkerUtils;
+import org.springframework.ide.eclipse.core.internal.model.validation.ValidationRuleDefinition;
 import org.springframework.ide.eclipse.core.java.ITypeStructureCache;
 import org.springframework.ide.eclipse.core.java.JdtUtils;
 import org.springframework.ide.eclipse.core.java.TypeStructureState;
@@ -45,7 +51,9 @@ import org.springframework.ide.eclipse.core.model.validation.AbstractValidator;
 import org.springframework.ide.eclipse.core.model.validation.IValidationContext;
 import org.springframework.ide.eclipse.core.model.validation.IValidationElementLifecycleManager;
 import org.springframework.ide.eclipse.core.model.validation.IValidationElementLifecycleManagerExtension;
+import org.springframework.ide.eclipse.core.model.validation.IValidationRule;
 import org.springframework.ide.eclipse.core.model.validation.IValidator;
+import org.springframework.ide.eclipse.core.project.BuildProfile;
 
 /**
  * {@link IValidator} implementation that is responsible for validating the {@link IBeansModelElement}s.
@@ -89,6 +97,11 @@ public class BeansConfigValidator extends AbstractValidator {
 		MarkerUtils.deleteAllMarkers(resource, getMarkerId());
 	}
 
+	@Override
+	protected Set<IMarker> getMarkersToUpdate(IResource resource) throws CoreException {
+		return MarkerUtils.findAllMarkers(resource, getMarkerId());
+	}
+
 	public Set<IResource> getAffectedResources(IResource resource, int kind, int deltaKind) throws CoreException {
 		Set<IResource> resources = new LinkedHashSet<IResource>();
 		if (resource instanceof IFile) {
@@ -256,6 +269,43 @@ public class BeansConfigValidator extends AbstractValidator {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * All enabled {@link AbstractXmlValidationRule}s are replaced by a single rule definition that validates them in a
+	 * single walk over the DOM of a config.
+	 */
+	@Override
+	protected Set<ValidationRuleDefinition> getRuleDefinitions(IResource resource) {
+		Set<ValidationRuleDefinition> ruleDefinitions = super.getRuleDefinitions(resource);
+		if (ruleDefinitions == null) {
+			return null;
+		}
+
+		List<ValidationRuleDefinition> xmlRuleDefinitions = new ArrayList<ValidationRuleDefinition>();
+		for (ValidationRuleDefinition ruleDefinition : ruleDefinitions) {
+			if (ruleDefinition.getRule() instanceof AbstractXmlValidationRule) {
+				xmlRuleDefinitions.add(ruleDefinition);
+			}
+		}
+		if (xmlRuleDefinitions.size() < 2) {
+			return ruleDefinitions;
+		}
+
+		Set<ValidationRuleDefinition> combinedRuleDefinitions = new LinkedHashSet<ValidationRuleDefinition>();
+		XmlValidationRuleDispatcher dispatcher = new XmlValidationRuleDispatcher(xmlRuleDefinitions,
+				getProjectContributorState().get(BuildProfile.class));
+		for (ValidationRuleDefinition ruleDefinition : ruleDefinitions) {
+			if (ruleDefinition == xmlRuleDefinitions.get(0)) {
+				combinedRuleDefinitions.add(new XmlValidationRuleDispatcherDefinition(getValidatorId(), dispatcher));
+			}
+			else if (!xmlRuleDefinitions.contains(ruleDefinition)) {
+				combinedRuleDefinitions.add(ruleDefinition);
+			}
+		}
+		return combinedRuleDefinitions;
+	}
+
 	@Override
 	protected IValidationElementLifecycleManager createValidationElementLifecycleManager() {
 		return new BeanElementLifecycleManager();
@@ -310,4 +360,33 @@ public class BeansConfigValidator extends AbstractValidator {
 		}
 	}
 
+	/**
+	 * {@link ValidationRuleDefinition} of the {@link XmlValidationRuleDispatcher} that validates all enabled XML rules.
+	 * @since 3.0.0
+	 */
+	private static class XmlValidationRuleDispatcherDefinition extends ValidationRuleDefinition {
+
+		private static final String ID = BeansCorePlugin.PLUGIN_ID + ".xmlRules";
+
+		private final XmlValidationRuleDispatcher dispatcher;
+
+		public XmlValidationRuleDispatcherDefinition(String validatorId, XmlValidationRuleDispatcher dispatcher) {
+			super(validatorId, ID, "XML Rules", "Validates the XML content with all enabled XML rules");
+			this.dispatcher = dispatcher;
+		}
+
+		@Override
+		public synchronized IValidationRule getRule() {
+			return dispatcher;
+		}
+
+		/**
+		 * The dispatcher records the time spent in each of its rules.
+		 */
+		@Override
+		public boolean isProfiled() {
+			return false;
+		}
+	}
+
 }
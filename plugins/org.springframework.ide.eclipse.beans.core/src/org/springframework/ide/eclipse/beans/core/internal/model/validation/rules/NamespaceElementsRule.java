@@ -105,6 +105,14 @@ public class NamespaceElementsRule extends AbstractXmlValidationRule {
 				!NamespaceUtils.DEFAULT_NAMESPACE_URI.equals(n.getNamespaceURI());
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected boolean supports(String namespaceUri, String localName) {
+		return !NamespaceUtils.DEFAULT_NAMESPACE_URI.equals(namespaceUri);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
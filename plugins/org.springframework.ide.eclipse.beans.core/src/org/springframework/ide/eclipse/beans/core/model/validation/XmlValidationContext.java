@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2008, 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.model.validation;
+
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.wst.xml.core.internal.provisional.document.IDOMNode;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelUtils;
+import org.springframework.ide.eclipse.beans.core.internal.model.validation.BeansValidationContext;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.namespaces.ToolAnnotationUtils.ToolAnnotationData;
+import org.springframework.ide.eclipse.core.internal.model.validation.ValidationRuleDefinition;
+import org.springframework.ide.eclipse.core.java.IProjectClassLoaderSupport;
+import org.springframework.ide.eclipse.core.model.IModelElement;
+import org.springframework.ide.eclipse.core.model.IResourceModelElement;
+import org.springframework.ide.eclipse.core.model.validation.ValidationProblem;
+import org.springframework.ide.eclipse.core.model.validation.ValidationProblemAttribute;
+import org.springframework.ide.eclipse.core.type.asm.ClassReaderFactory;
+import org.w3c.dom.Node;
+
+/**
+ * Internal validation context implementation that converts {@link Node} object back to
+ * {@link IResourceModelElement} s.
+ * @author Christian Dupuis
+ * @since 2.0.4
+ */
+@SuppressWarnings("restriction")
+class XmlValidationContext implements IXmlValidationContext {
+
+	private final IBeansConfig beansConfig;
+
+	private final BeansValidationContext delegateContext;
+
+	public XmlValidationContext(BeansValidationContext delegateContext, IBeansConfig beansConfig) {
+		this.delegateContext = delegateContext;
+		this.beansConfig = beansConfig;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public ClassReaderFactory getClassReaderFactory() {
+		return delegateContext.getClassReaderFactory();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public BeanDefinitionRegistry getCompleteRegistry() {
+		return delegateContext.getCompleteRegistry();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public BeanDefinitionRegistry getIncompleteRegistry() {
+		return delegateContext.getIncompleteRegistry();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Set<BeanDefinition> getRegisteredBeanDefinition(String beanName, String beanClass) {
+		return delegateContext.getRegisteredBeanDefinition(beanName, beanClass);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public IProject getRootElementProject() {
+		return delegateContext.getRootElementProject();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public IResource getRootElementResource() {
+		return delegateContext.getRootElementResource();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean isBeanRegistered(String beanName, String beanClass) {
+		return delegateContext.isBeanRegistered(beanName, beanClass);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void error(IResourceModelElement element, String problemId, String message,
+			ValidationProblemAttribute... attributes) {
+		delegateContext.error(element, problemId, message, attributes);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void error(Node node, String problemId, String message, ValidationProblemAttribute... attributes) {
+		delegateContext.error(getResourceModelElementFromNode(node), problemId, message, attributes);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public IResourceModelElement getContextElement() {
+		return delegateContext.getContextElement();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Set<ValidationProblem> getProblems() {
+		return delegateContext.getProblems();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public IResourceModelElement getRootElement() {
+		return delegateContext.getRootElement();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void info(IResourceModelElement element, String problemId, String message,
+			ValidationProblemAttribute... attributes) {
+		delegateContext.info(element, problemId, message, attributes);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void info(Node n, String problemId, String message, ValidationProblemAttribute... attributes) {
+		delegateContext.info(getResourceModelElementFromNode(n), problemId, message, attributes);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void setCurrentRuleDefinition(ValidationRuleDefinition ruleDefinition) {
+		delegateContext.setCurrentRuleDefinition(ruleDefinition);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void warning(IResourceModelElement element, String problemId, String message,
+			ValidationProblemAttribute... attributes) {
+		delegateContext.warning(element, problemId, message, attributes);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void warning(Node n, String problemId, String message, ValidationProblemAttribute... attributes) {
+		delegateContext.warning(getResourceModelElementFromNode(n), problemId, message, attributes);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public List<ToolAnnotationData> getToolAnnotation(Node n, String attributeName) {
+		return delegateContext.getToolAnnotation(n, attributeName);
+	}
+
+	private IResourceModelElement getResourceModelElementFromNode(Node n) {
+		if (n instanceof IDOMNode) {
+			IDOMNode domNode = ((IDOMNode) n);
+			int startLine = domNode.getStructuredDocument().getLineOfOffset(domNode.getStartOffset()) + 1;
+			int endLine = domNode.getStructuredDocument().getLineOfOffset(domNode.getStartOffset()) + 1;
+			IModelElement modelElement = BeansModelUtils.getMostSpecificModelElement(startLine, endLine,
+					(IFile) beansConfig.getElementResource(), null);
+			if (modelElement instanceof IResourceModelElement) {
+				return (IResourceModelElement) modelElement;
+			}
+		}
+		return delegateContext.getRootElement();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	public IProjectClassLoaderSupport getProjectClassLoaderSupport() {
+		return delegateContext.getProjectClassLoaderSupport();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void addProblems(ValidationProblem... problems) {
+		delegateContext.addProblems(problems);
+	}
+
+}
+
@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.model.validation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.wst.sse.core.StructuredModelManager;
+import org.eclipse.wst.sse.core.internal.provisional.IStructuredModel;
+import org.eclipse.wst.xml.core.internal.document.DOMModelImpl;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.internal.model.validation.BeansValidationContext;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.IBeansImport;
+import org.springframework.ide.eclipse.beans.core.model.IBeansModelElement;
+import org.springframework.ide.eclipse.beans.core.model.IImportedBeansConfig;
+import org.springframework.ide.eclipse.core.internal.model.validation.ValidationRuleDefinition;
+import org.springframework.ide.eclipse.core.model.IModelElement;
+import org.springframework.ide.eclipse.core.model.validation.IValidationContext;
+import org.springframework.ide.eclipse.core.model.validation.IValidationRule;
+import org.springframework.ide.eclipse.core.project.BuildProfile;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * {@link IValidationRule} that validates the raw XML content of a config with any number of
+ * {@link AbstractXmlValidationRule}s.
+ * <p>
+ * The structured model of a config is acquired once and its DOM is walked a single time. Every node is only handed to
+ * the rules that declared an interest in the namespace URI and local name of the node by
+ * {@link AbstractXmlValidationRule#supports(String, String)}; the interests are resolved once per distinct namespace
+ * URI and local name. The cost of the walk therefore doesn't depend on the number of enabled rules.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+@SuppressWarnings("restriction")
+public class XmlValidationRuleDispatcher implements IValidationRule<IBeansModelElement, IBeansValidationContext> {
+
+	private final List<AbstractXmlValidationRule> rules = new ArrayList<AbstractXmlValidationRule>();
+
+	private final List<ValidationRuleDefinition> ruleDefinitions = new ArrayList<ValidationRuleDefinition>();
+
+	/** The rules interested in nodes keyed by namespace URI and local name */
+	private final Map<String, Map<String, List<Integer>>> interests = new HashMap<String, Map<String, List<Integer>>>();
+
+	private final BuildProfile profile;
+
+	private final long[] ruleTimes;
+
+	/**
+	 * Creates a new {@link XmlValidationRuleDispatcher} that validates with a single <code>rule</code>.
+	 */
+	public XmlValidationRuleDispatcher(AbstractXmlValidationRule rule) {
+		this.rules.add(rule);
+		this.ruleDefinitions.add(null);
+		this.profile = null;
+		this.ruleTimes = new long[1];
+	}
+
+	/**
+	 * Creates a new {@link XmlValidationRuleDispatcher} that validates with the rules of the given
+	 * <code>ruleDefinitions</code>. The current rule definition of the validation context is switched before a node is
+	 * passed to a rule, so that problems get reported against the correct rule.
+	 * @param ruleDefinitions the definitions of {@link AbstractXmlValidationRule}s
+	 * @param profile the {@link BuildProfile} to record the time spent in each rule; can be <code>null</code>
+	 */
+	public XmlValidationRuleDispatcher(List<ValidationRuleDefinition> ruleDefinitions, BuildProfile profile) {
+		for (ValidationRuleDefinition ruleDefinition : ruleDefinitions) {
+			this.rules.add((AbstractXmlValidationRule) ruleDefinition.getRule());
+			this.ruleDefinitions.add(ruleDefinition);
+		}
+		this.profile = profile;
+		this.ruleTimes = new long[rules.size()];
+	}
+
+	/**
+	 * Supports <strong>only</strong> {@link IBeansConfig} elements as this is the model element representing an actual
+	 * file.
+	 */
+	public boolean supports(IModelElement element, IValidationContext context) {
+		return element instanceof IBeansConfig
+				|| (element instanceof IBeansImport && ((IBeansImport) element).getImportedBeansConfigs().size() > 0);
+	}
+
+	/**
+	 * Validates a {@link IBeansConfig} or imported {@link IImportedBeansConfig}s from a {@link IBeansImport}.
+	 */
+	public void validate(IBeansModelElement element, IBeansValidationContext context, IProgressMonitor monitor) {
+		if (element instanceof IBeansConfig) {
+			validateBeansConfig((IBeansConfig) element, context);
+		}
+		else if (element instanceof IBeansImport) {
+			for (IImportedBeansConfig beansConfig : ((IBeansImport) element).getImportedBeansConfigs()) {
+				validateBeansConfig(beansConfig, context);
+			}
+		}
+	}
+
+	/**
+	 * Validates the {@link IBeansConfig} by walking its entire DOM once.
+	 */
+	private void validateBeansConfig(IBeansConfig element, IBeansValidationContext context) {
+
+		// Do not validate external configuration files
+		if (element.isExternal()) {
+			return;
+		}
+
+		if (!(context instanceof BeansValidationContext)) {
+			return;
+		}
+
+		IStructuredModel model = null;
+		try {
+			model = StructuredModelManager.getModelManager().getModelForRead((IFile) element.getElementResource());
+			if (model != null) {
+				Document document = ((DOMModelImpl) model).getDocument();
+				if (document != null && document.getDocumentElement() != null) {
+					IXmlValidationContext xmlContext = new XmlValidationContext((BeansValidationContext) context,
+							element);
+					dispatch(document, xmlContext);
+					visit(document.getDocumentElement(), xmlContext);
+				}
+			}
+		}
+		catch (IOException e) {
+			BeansCorePlugin.log(e);
+		}
+		catch (CoreException e) {
+			BeansCorePlugin.log(e);
+		}
+		finally {
+			if (model != null) {
+				model.releaseFromRead();
+			}
+			recordRuleTimes(element);
+		}
+	}
+
+	private void visit(Node node, IXmlValidationContext context) {
+		NodeList children = node.getChildNodes();
+		int length = children.getLength();
+		for (int i = 0; i < length; i++) {
+			Node child = children.item(i);
+			dispatch(child, context);
+			if (child.getNodeType() == Node.ELEMENT_NODE) {
+				visit(child, context);
+			}
+		}
+	}
+
+	/**
+	 * Passes the given <code>node</code> to every interested rule that supports it.
+	 */
+	private void dispatch(Node node, IXmlValidationContext context) {
+		for (Integer index : getInterestedRules(node)) {
+			AbstractXmlValidationRule rule = rules.get(index);
+			ValidationRuleDefinition ruleDefinition = ruleDefinitions.get(index);
+			long start = (profile != null ? System.nanoTime() : 0);
+			try {
+				if (rule.supports(node)) {
+					if (ruleDefinition != null) {
+						context.setCurrentRuleDefinition(ruleDefinition);
+					}
+					rule.validate(node, context);
+				}
+			}
+			finally {
+				if (profile != null) {
+					ruleTimes[index] += System.nanoTime() - start;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the indexes of the rules interested in nodes with the namespace URI and local name of the given node.
+	 */
+	private List<Integer> getInterestedRules(Node node) {
+		String namespaceUri = node.getNamespaceURI();
+		String localName = (node.getLocalName() != null ? node.getLocalName() : node.getNodeName());
+
+		Map<String, List<Integer>> localNames = interests.get(namespaceUri);
+		if (localNames == null) {
+			localNames = new HashMap<String, List<Integer>>();
+			interests.put(namespaceUri, localNames);
+		}
+		List<Integer> interestedRules = localNames.get(localName);
+		if (interestedRules == null) {
+			interestedRules = new ArrayList<Integer>(rules.size());
+			for (int i = 0; i < rules.size(); i++) {
+				if (rules.get(i).supports(namespaceUri, localName)) {
+					interestedRules.add(i);
+				}
+			}
+			interestedRules = (interestedRules.isEmpty() ? Collections.<Integer> emptyList() : interestedRules);
+			localNames.put(localName, interestedRules);
+		}
+		return interestedRules;
+	}
+
+	private void recordRuleTimes(IBeansConfig element) {
+		if (profile != null) {
+			BuildProfile.RuleRecorder recorder = profile.createRuleRecorder(element.getElementResource());
+			for (int i = 0; i < rules.size(); i++) {
+				if (ruleDefinitions.get(i) != null) {
+					recorder.record(ruleDefinitions.get(i).getId(), ruleTimes[i]);
+				}
+				ruleTimes[i] = 0;
+			}
+			recorder.flush();
+		}
+	}
+
+}
@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.ui.editor.tests;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.springframework.ide.eclipse.beans.ui.editor.util.JavaTypeNameIndexTest;
+
+/**
+ * {@link TestSuite} for the <code>org.springframework.ide.eclipse.beans.ui.editor</code> plugin.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+public class AllBeansEditorTests {
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(AllBeansEditorTests.class.getName());
+		//$JUnit-BEGIN$
+		suite.addTestSuite(JavaTypeNameIndexTest.class);
+		//$JUnit-END$
+		return suite;
+	}
+
+}
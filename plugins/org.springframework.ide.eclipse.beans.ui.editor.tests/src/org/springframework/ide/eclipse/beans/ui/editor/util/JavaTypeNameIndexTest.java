@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.ui.editor.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.springframework.ide.eclipse.beans.ui.editor.util.JavaTypeNameIndex.TypeNameMatch;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestCase;
+
+/**
+ * Test case to test the {@link JavaTypeNameIndex}.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+public class JavaTypeNameIndexTest extends StsTestCase {
+
+	private static final String PACKAGE_NAME = "org.test.typenames";
+
+	private IJavaProject project;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		IProject resource = createPredefinedProject("typenames");
+		project = JavaCore.create(resource);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		JavaTypeNameIndex.dispose();
+		super.tearDown();
+	}
+
+	public void testIndexIsBuiltInBackground() throws Exception {
+		// the first query schedules the index job instead of waiting for the search
+		assertNull(JavaTypeNameIndex.findTypes(project, PACKAGE_NAME + ".BeanF", true, true,
+				JavaTypeNameIndex.DEFAULT_MAX_RESULTS));
+
+		waitForIndexJobs();
+		assertEquals(2, find("BeanF", true, true).size());
+	}
+
+	public void testPrefixMatching() throws Exception {
+		List<String> names = getSimpleNames(find("BeanF", true, true));
+		assertEquals(2, names.size());
+		assertTrue(names.contains("BeanFactory"));
+		assertTrue(names.contains("BeanFactoryHelper"));
+
+		names = getSimpleNames(find("beanf", true, true));
+		assertEquals(2, names.size());
+
+		assertTrue(find("Factory", true, true).isEmpty());
+	}
+
+	public void testCamelCaseMatching() throws Exception {
+		List<TypeNameMatch> matches = find("BFH", true, true);
+		assertEquals(1, matches.size());
+		assertEquals("BeanFactoryHelper", matches.get(0).getSimpleName());
+
+		assertEquals(1, find("BeFaH", true, true).size());
+		assertTrue(find("BFX", true, true).isEmpty());
+	}
+
+	public void testRanking() throws Exception {
+		List<TypeNameMatch> matches = find("BeanFactory", true, true);
+		assertEquals(2, matches.size());
+		assertEquals("BeanFactory", matches.get(0).getSimpleName());
+		assertEquals("BeanFactoryHelper", matches.get(1).getSimpleName());
+		assertTrue(matches.get(0).getRank() > matches.get(1).getRank());
+
+		// Case sensitive prefixes rank before case insensitive ones which rank before camel case matches
+		int prefixRank = find("BeanFactoryH", true, true).get(0).getRank();
+		int ignoreCaseRank = find("beanfactoryh", true, true).get(0).getRank();
+		int camelCaseRank = find("BFH", true, true).get(0).getRank();
+		assertTrue(prefixRank > ignoreCaseRank);
+		assertTrue(ignoreCaseRank > camelCaseRank);
+
+		// Equally ranked matches are ordered by the length of their name and then alphabetically
+		assertEquals(Arrays.asList("BeanHolder", "BeanMarker", "BeanFactory", "BeanFactoryHelper"),
+				getSimpleNames(find("Bean", true, true)));
+	}
+
+	public void testMemberTypes() throws Exception {
+		List<TypeNameMatch> matches = find("BeanHolder.BeanE", true, true);
+		assertEquals(1, matches.size());
+		TypeNameMatch match = matches.get(0);
+		assertTrue(match.isMemberType());
+		assertEquals(PACKAGE_NAME + ".BeanHolder$BeanEntry", match.getFullyQualifiedName('$'));
+		assertTrue(match.getRank() < find("BeanHolder", true, true).get(0).getRank());
+	}
+
+	public void testClassAndInterfaceFilter() throws Exception {
+		List<String> names = getSimpleNames(find("Bean", false, true));
+		assertEquals(2, names.size());
+		assertTrue(names.contains("BeanFactory"));
+		// Annotations are interfaces
+		assertTrue(names.contains("BeanMarker"));
+
+		names = getSimpleNames(find("Bean", true, false));
+		assertEquals(2, names.size());
+		assertTrue(names.contains("BeanFactoryHelper"));
+		assertTrue(names.contains("BeanHolder"));
+	}
+
+	public void testLazyTypeResolution() throws Exception {
+		TypeNameMatch match = find("BeanFactoryHelper", true, true).get(0);
+		IType type = match.resolveType();
+		assertNotNull(type);
+		assertEquals(PACKAGE_NAME + ".BeanFactoryHelper", type.getFullyQualifiedName());
+	}
+
+	public void testIndexIsUpdatedOnJavaElementDelta() throws Exception {
+		assertTrue(find("BeanFactoryL", true, true).isEmpty());
+
+		IPackageFragment fragment = project.findPackageFragment(project.getProject().getFullPath().append(
+				"src/org/test/typenames"));
+		ICompilationUnit unit = fragment.createCompilationUnit("BeanFactoryLocator.java", "package " + PACKAGE_NAME
+				+ ";\n\npublic class BeanFactoryLocator {\n\n\tpublic class BeanFactoryReference {\n\t}\n}\n", true,
+				null);
+		List<String> names = getSimpleNames(find("BeanFactoryL", true, true));
+		assertEquals(1, names.size());
+		assertTrue(names.contains("BeanFactoryLocator"));
+		assertEquals(1, find("BeanFactoryLocator.BeanFactoryR", true, true).size());
+
+		unit.delete(true, null);
+		assertTrue(find("BeanFactoryL", true, true).isEmpty());
+		assertEquals(2, find("BeanF", true, true).size());
+	}
+
+	@Override
+	protected String getBundleName() {
+		return "org.springframework.ide.eclipse.beans.ui.editor.tests";
+	}
+
+	/**
+	 * Queries the index and waits for it to be built if it is not ready yet.
+	 */
+	private List<TypeNameMatch> find(String prefix, boolean classes, boolean interfaces) throws Exception {
+		List<TypeNameMatch> matches = JavaTypeNameIndex.findTypes(project, PACKAGE_NAME + "." + prefix, classes,
+				interfaces, JavaTypeNameIndex.DEFAULT_MAX_RESULTS);
+		if (matches == null) {
+			waitForIndexJobs();
+			matches = JavaTypeNameIndex.findTypes(project, PACKAGE_NAME + "." + prefix, classes, interfaces,
+					JavaTypeNameIndex.DEFAULT_MAX_RESULTS);
+		}
+		assertNotNull(matches);
+		return matches;
+	}
+
+	private static void waitForIndexJobs() throws InterruptedException {
+		Job.getJobManager().join(JavaTypeNameIndex.JOB_FAMILY, null);
+	}
+
+	private List<String> getSimpleNames(List<TypeNameMatch> matches) {
+		List<String> names = new ArrayList<String>();
+		for (TypeNameMatch match : matches) {
+			names.add(match.getSimpleName());
+		}
+		return names;
+	}
+
+}
@@ -0,0 +1,5 @@
+package org.test.typenames;
+
+public class BeanFactoryHelper {
+
+}
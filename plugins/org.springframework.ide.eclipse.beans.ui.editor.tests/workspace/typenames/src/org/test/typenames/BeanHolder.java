@@ -0,0 +1,9 @@
+package org.test.typenames;
+
+public class BeanHolder {
+
+	public static class BeanEntry {
+
+	}
+
+}
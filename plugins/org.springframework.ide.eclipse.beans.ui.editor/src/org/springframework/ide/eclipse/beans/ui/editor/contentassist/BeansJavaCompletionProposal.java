@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2009 Spring IDE Developers
+ * Copyright (c) 2005, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -30,6 +30,7 @@ import org.eclipse.wst.sse.core.internal.util.Debug;
 import org.eclipse.wst.sse.ui.internal.contentassist.IRelevanceCompletionProposal;
 import org.eclipse.wst.sse.ui.internal.contentassist.IRelevanceConstants;
 import org.springframework.ide.eclipse.beans.ui.editor.util.BeansEditorUtils;
+import org.springframework.ide.eclipse.beans.ui.editor.util.JavaTypeNameIndex.TypeNameMatch;
 
 /**
  * An implementation of ICompletionProposal whose values can be read after
@@ -272,6 +273,10 @@ public class BeansJavaCompletionProposal implements ICompletionProposal,
 	}
 
 	public Object getProposedObject() {
+		// Type name matches are only resolved on demand as this requires a lookup on the project's classpath
+		if (proposedObject instanceof TypeNameMatch) {
+			proposedObject = ((TypeNameMatch) proposedObject).resolveType();
+		}
 		return proposedObject;
 	}
 
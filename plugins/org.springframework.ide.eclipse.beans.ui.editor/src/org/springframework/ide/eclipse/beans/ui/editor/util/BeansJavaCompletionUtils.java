@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 Spring IDE Developers
+ * Copyright (c) 2007, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,7 @@ package org.springframework.ide.eclipse.beans.ui.editor.util;
 
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.resources.IFile;
@@ -38,9 +39,11 @@ import org.eclipse.jdt.ui.text.java.CompletionProposalComparator;
 import org.eclipse.jdt.ui.text.java.IJavaCompletionProposal;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
 import org.eclipse.jface.viewers.ILabelProvider;
+import org.eclipse.swt.graphics.Image;
 import org.eclipse.wst.xml.ui.internal.contentassist.ContentAssistRequest;
 import org.springframework.ide.eclipse.beans.ui.editor.contentassist.IContentAssistContext;
 import org.springframework.ide.eclipse.beans.ui.editor.contentassist.IContentAssistProposalRecorder;
+import org.springframework.ide.eclipse.beans.ui.editor.util.JavaTypeNameIndex.TypeNameMatch;
 import org.springframework.ide.eclipse.core.java.JdtUtils;
 
 /**
@@ -102,6 +105,10 @@ public class BeansJavaCompletionUtils {
 			return;
 		}
 
+		if (addIndexedClassValueProposals(context, recorder, prefix, flags)) {
+			return;
+		}
+
 		try {
 			ICompilationUnit unit = createSourceCompilationUnit(context.getFile(), prefix);
 
@@ -149,6 +156,61 @@ public class BeansJavaCompletionUtils {
 		}
 	}
 
+	/**
+	 * Add class and package content assist proposals from the {@link JavaTypeNameIndex} of the file's project.
+	 * @return <code>false</code> if no type name index is available and the proposals need to be calculated by JDT's
+	 * code completion
+	 */
+	private static boolean addIndexedClassValueProposals(IContentAssistContext context,
+			IContentAssistProposalRecorder recorder, String prefix, int flags) {
+		IJavaProject project = JdtUtils.getJavaProject(context.getFile().getProject());
+		if (project == null) {
+			return false;
+		}
+
+		char enclosingChar = (prefix.lastIndexOf('$') > 0 ? '$' : '.');
+		prefix = prefix.replace('$', '.');
+
+		if ((flags & FLAG_PACKAGE) != 0 && enclosingChar != '$') {
+			List<String> packageNames = JavaTypeNameIndex.findPackages(project, prefix,
+					JavaTypeNameIndex.DEFAULT_MAX_RESULTS);
+			if (packageNames == null) {
+				return false;
+			}
+			for (String packageName : packageNames) {
+				recorder.recordProposal(JavaPluginImages.get(JavaPluginImages.IMG_OBJS_PACKAGE), 10, packageName,
+						packageName);
+			}
+		}
+
+		if ((flags & (FLAG_CLASS | FLAG_INTERFACE)) != 0) {
+			List<TypeNameMatch> matches = JavaTypeNameIndex.findTypes(project, prefix, (flags & FLAG_CLASS) != 0,
+					(flags & FLAG_INTERFACE) != 0, JavaTypeNameIndex.DEFAULT_MAX_RESULTS);
+			if (matches == null) {
+				return false;
+			}
+			for (TypeNameMatch match : matches) {
+				recorder.recordProposal(getImage(match), match.getRank(), match.getSimpleName() + " - "
+						+ match.getContainerName('.'), match.getFullyQualifiedName(enclosingChar), match);
+			}
+		}
+		return true;
+	}
+
+	private static Image getImage(TypeNameMatch match) {
+		int modifiers = match.getModifiers();
+		if (Flags.isAnnotation(modifiers)) {
+			return JavaPluginImages.get(JavaPluginImages.IMG_OBJS_ANNOTATION);
+		}
+		else if (Flags.isInterface(modifiers)) {
+			return JavaPluginImages.get(JavaPluginImages.IMG_OBJS_INTERFACE);
+		}
+		else if (Flags.isEnum(modifiers)) {
+			return JavaPluginImages.get(JavaPluginImages.IMG_OBJS_ENUM);
+		}
+		return JavaPluginImages.get(JavaPluginImages.IMG_OBJS_CLASS);
+	}
+
 	/**
 	 * Add class assist proposals that match the given <code>prefix</code> and are part of the sub class hierarchy of
 	 * the given <code>typeName</code>.
@@ -0,0 +1,642 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.ui.editor.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.Flags;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.search.TypeNameRequestor;
+import org.eclipse.jdt.internal.corext.util.TypeFilter;
+
+/**
+ * Per-project index of all type names visible on a {@link IJavaProject}'s classpath.
+ * <p>
+ * The index is initially populated from {@link SearchEngine#searchAllTypeNames} in a background {@link Job} and
+ * afterwards kept up-to-date from Java element deltas: changes to source compilation units are applied incrementally
+ * whereas classpath and archive changes drop the affected indexes so that they get rebuilt on next access. Queries
+ * never wait for the index to be built; they return <code>null</code> until it is ready.
+ * <p>
+ * Queries support prefix and camel case matching on the simple type name as well as qualified prefixes and return the
+ * best ranked <code>k</code> matches only.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+@SuppressWarnings("restriction")
+public class JavaTypeNameIndex {
+
+	/** Default number of proposals returned by the query methods */
+	public static final int DEFAULT_MAX_RESULTS = 100;
+
+	/** Family of the jobs that build the indexes */
+	public static final Object JOB_FAMILY = new Object();
+
+	private static final Map<IJavaProject, ProjectTypeNameIndex> INDEXES = new HashMap<IJavaProject, ProjectTypeNameIndex>();
+
+	private static IElementChangedListener changedListener;
+
+	/**
+	 * Returns the best ranked types that match the given <code>prefix</code> and are visible on the classpath of the
+	 * given project.
+	 * @param project the project to search the type names for
+	 * @param prefix the prefix as entered by the user; might be qualified or a camel case pattern
+	 * @param classes <code>true</code> if classes, enums and annotations should be returned
+	 * @param interfaces <code>true</code> if interfaces should be returned
+	 * @param maxResults the maximum number of matches to return
+	 * @return the ranked matches or <code>null</code> if the index is not ready yet or could not be created
+	 */
+	public static List<TypeNameMatch> findTypes(IJavaProject project, String prefix, boolean classes,
+			boolean interfaces, int maxResults) {
+		ProjectTypeNameIndex index = getIndex(project);
+		if (index == null) {
+			return null;
+		}
+		return index.findTypes(prefix, classes, interfaces, maxResults);
+	}
+
+	/**
+	 * Returns the names of the packages that contain at least one type and start with the given <code>prefix</code>.
+	 * @return the sorted package names or <code>null</code> if the index is not ready yet or could not be created
+	 */
+	public static List<String> findPackages(IJavaProject project, String prefix, int maxResults) {
+		ProjectTypeNameIndex index = getIndex(project);
+		if (index == null) {
+			return null;
+		}
+		return index.findPackages(prefix, maxResults);
+	}
+
+	/**
+	 * Removes all indexes and stops listening to Java element changes.
+	 */
+	public static void dispose() {
+		synchronized (INDEXES) {
+			if (changedListener != null) {
+				JavaCore.removeElementChangedListener(changedListener);
+				changedListener = null;
+			}
+			removeAllIndexes();
+		}
+	}
+
+	private static ProjectTypeNameIndex getIndex(IJavaProject project) {
+		if (project == null || !project.exists()) {
+			return null;
+		}
+		ProjectTypeNameIndex index = null;
+		synchronized (INDEXES) {
+			if (changedListener == null) {
+				changedListener = new TypeNameIndexUpdater();
+				JavaCore.addElementChangedListener(changedListener, ElementChangedEvent.POST_CHANGE);
+			}
+			index = INDEXES.get(project);
+			if (index == null) {
+				index = new ProjectTypeNameIndex(project);
+				INDEXES.put(project, index);
+				index.schedule();
+			}
+		}
+		return (index.isInitialized() ? index : null);
+	}
+
+	private static List<ProjectTypeNameIndex> getIndexes() {
+		synchronized (INDEXES) {
+			return new ArrayList<ProjectTypeNameIndex>(INDEXES.values());
+		}
+	}
+
+	private static void removeIndex(ProjectTypeNameIndex index) {
+		synchronized (INDEXES) {
+			if (INDEXES.get(index.getProject()) == index) {
+				INDEXES.remove(index.getProject());
+			}
+		}
+	}
+
+	private static void removeAllIndexes() {
+		synchronized (INDEXES) {
+			for (ProjectTypeNameIndex index : INDEXES.values()) {
+				index.cancel();
+			}
+			INDEXES.clear();
+		}
+	}
+
+	/**
+	 * A single type name known to the index.
+	 */
+	public static class TypeNameMatch {
+
+		private final int modifiers;
+
+		private final String packageName;
+
+		private final String[] enclosingTypeNames;
+
+		private final String simpleName;
+
+		private final String path;
+
+		private int rank;
+
+		private IJavaProject project;
+
+		TypeNameMatch(int modifiers, String packageName, String[] enclosingTypeNames, String simpleName, String path) {
+			this.modifiers = modifiers;
+			this.packageName = packageName;
+			this.enclosingTypeNames = enclosingTypeNames;
+			this.simpleName = simpleName;
+			this.path = path;
+		}
+
+		public int getModifiers() {
+			return modifiers;
+		}
+
+		public String getPackageName() {
+			return packageName;
+		}
+
+		public String getSimpleName() {
+			return simpleName;
+		}
+
+		public String getPath() {
+			return path;
+		}
+
+		/**
+		 * Returns the rank of this match with respect to the last query; higher is better.
+		 */
+		public int getRank() {
+			return rank;
+		}
+
+		public boolean isInterface() {
+			return Flags.isInterface(modifiers);
+		}
+
+		public boolean isMemberType() {
+			return enclosingTypeNames.length > 0;
+		}
+
+		/**
+		 * Returns the name of the package or enclosing type that contains this type.
+		 */
+		public String getContainerName(char enclosingTypeSeparator) {
+			StringBuilder name = new StringBuilder(packageName);
+			for (int i = 0; i < enclosingTypeNames.length; i++) {
+				if (name.length() > 0) {
+					name.append(i == 0 ? '.' : enclosingTypeSeparator);
+				}
+				name.append(enclosingTypeNames[i]);
+			}
+			return name.toString();
+		}
+
+		public String getFullyQualifiedName(char enclosingTypeSeparator) {
+			String container = getContainerName(enclosingTypeSeparator);
+			if (container.length() == 0) {
+				return simpleName;
+			}
+			return container + (isMemberType() ? enclosingTypeSeparator : '.') + simpleName;
+		}
+
+		/**
+		 * Resolves this match to the {@link IType} using the classpath of the project the query ran against.
+		 * <p>
+		 * Resolving a type is expensive; clients should only call this once the type is actually needed, e.g. when a
+		 * proposal is applied or its documentation is shown.
+		 */
+		public IType resolveType() {
+			if (project == null) {
+				return null;
+			}
+			try {
+				return project.findType(getFullyQualifiedName('.'));
+			}
+			catch (JavaModelException e) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Orders matches by rank, then shorter simple names first and then alphabetically.
+	 */
+	private static final Comparator<TypeNameMatch> RANK_COMPARATOR = new Comparator<TypeNameMatch>() {
+
+		public int compare(TypeNameMatch m1, TypeNameMatch m2) {
+			if (m1.rank != m2.rank) {
+				return m2.rank - m1.rank;
+			}
+			if (m1.simpleName.length() != m2.simpleName.length()) {
+				return m1.simpleName.length() - m2.simpleName.length();
+			}
+			int result = m1.simpleName.compareTo(m2.simpleName);
+			if (result != 0) {
+				return result;
+			}
+			return m1.getContainerName('.').compareTo(m2.getContainerName('.'));
+		}
+	};
+
+	/**
+	 * Orders matches by their lower case simple name, so that prefix lookups can use a binary search.
+	 */
+	private static final Comparator<TypeNameMatch> NAME_COMPARATOR = new Comparator<TypeNameMatch>() {
+
+		public int compare(TypeNameMatch m1, TypeNameMatch m2) {
+			return m1.simpleName.compareToIgnoreCase(m2.simpleName);
+		}
+	};
+
+	private static final int RANK_EXACT = 100;
+
+	private static final int RANK_PREFIX = 80;
+
+	private static final int RANK_PREFIX_IGNORE_CASE = 60;
+
+	private static final int RANK_CAMEL_CASE = 40;
+
+	private static final int RANK_MEMBER_TYPE_PENALTY = 5;
+
+	/**
+	 * The type name index of a single {@link IJavaProject}.
+	 */
+	static class ProjectTypeNameIndex {
+
+		private final IJavaProject project;
+
+		private final Job job;
+
+		private Map<String, List<TypeNameMatch>> matchesByPath;
+
+		/** The compilation units changed while the index is being built */
+		private Set<ICompilationUnit> pendingUnits = new LinkedHashSet<ICompilationUnit>();
+
+		private TypeNameMatch[] sortedMatches;
+
+		ProjectTypeNameIndex(IJavaProject project) {
+			this.project = project;
+			this.job = new Job("Indexing type names of '" + project.getElementName() + "'") {
+
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					return initialize(monitor);
+				}
+
+				@Override
+				public boolean belongsTo(Object family) {
+					return family == JOB_FAMILY;
+				}
+			};
+			this.job.setSystem(true);
+			this.job.setPriority(Job.LONG);
+		}
+
+		IJavaProject getProject() {
+			return project;
+		}
+
+		void schedule() {
+			job.schedule();
+		}
+
+		void cancel() {
+			job.cancel();
+		}
+
+		synchronized boolean isInitialized() {
+			return matchesByPath != null;
+		}
+
+		/**
+		 * Populates the index from the search engine; runs in the index job without holding the lock of the index, so
+		 * that content assist requests are never blocked by the search.
+		 */
+		IStatus initialize(IProgressMonitor monitor) {
+			final Map<String, List<TypeNameMatch>> matches = new HashMap<String, List<TypeNameMatch>>();
+			TypeNameRequestor requestor = new TypeNameRequestor() {
+
+				@Override
+				public void acceptType(int modifiers, char[] packageName, char[] simpleTypeName,
+						char[][] enclosingTypeNames, String path) {
+					addMatch(matches, new TypeNameMatch(modifiers, new String(packageName), toStrings(enclosingTypeNames),
+							new String(simpleTypeName), path));
+				}
+			};
+			try {
+				new SearchEngine().searchAllTypeNames(null, SearchPattern.R_PREFIX_MATCH, null,
+						SearchPattern.R_PREFIX_MATCH, IJavaSearchConstants.TYPE,
+						SearchEngine.createJavaSearchScope(new IJavaElement[] { project }), requestor,
+						IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH, monitor);
+			}
+			catch (JavaModelException e) {
+				// Drop the index to fall back to JDT's code completion; it gets re-created on next access
+				removeIndex(this);
+				return Status.CANCEL_STATUS;
+			}
+			catch (OperationCanceledException e) {
+				removeIndex(this);
+				return Status.CANCEL_STATUS;
+			}
+			finally {
+				monitor.done();
+			}
+			synchronized (this) {
+				matchesByPath = matches;
+				sortedMatches = null;
+				// The search might have missed the changes that happened while it was running
+				for (ICompilationUnit unit : pendingUnits) {
+					update(unit);
+				}
+				pendingUnits = null;
+			}
+			return Status.OK_STATUS;
+		}
+
+		/**
+		 * Replaces the types contributed by the given compilation unit.
+		 */
+		synchronized void update(ICompilationUnit unit) {
+			if (matchesByPath == null) {
+				if (pendingUnits != null) {
+					pendingUnits.add(unit);
+				}
+				return;
+			}
+			String path = unit.getPath().toString();
+			boolean removed = matchesByPath.remove(path) != null;
+			boolean added = false;
+			if (unit.exists() && project.isOnClasspath(unit)) {
+				try {
+					for (IType type : unit.getAllTypes()) {
+						if (type.isAnonymous() || type.isLocal()) {
+							continue;
+						}
+						List<String> enclosingTypeNames = new ArrayList<String>();
+						IType enclosingType = type.getDeclaringType();
+						while (enclosingType != null) {
+							enclosingTypeNames.add(0, enclosingType.getElementName());
+							enclosingType = enclosingType.getDeclaringType();
+						}
+						addMatch(matchesByPath, new TypeNameMatch(type.getFlags(), type.getPackageFragment()
+								.getElementName(), enclosingTypeNames.toArray(new String[enclosingTypeNames.size()]),
+								type.getElementName(), path));
+						added = true;
+					}
+				}
+				catch (JavaModelException e) {
+					// unit is gone; its types have already been removed
+				}
+			}
+			if (removed || added) {
+				sortedMatches = null;
+			}
+		}
+
+		synchronized List<TypeNameMatch> findTypes(String prefix, boolean classes, boolean interfaces,
+				int maxResults) {
+			String qualifier = null;
+			String simplePrefix = prefix;
+			int dot = prefix.lastIndexOf('.');
+			if (dot > -1) {
+				qualifier = prefix.substring(0, dot);
+				simplePrefix = prefix.substring(dot + 1);
+			}
+
+			TypeNameMatch[] candidates = getSortedMatches();
+			int start = 0;
+			int end = candidates.length;
+			if (simplePrefix.length() > 0) {
+				// Camel case patterns always match the first character; so restrict the scan to that range
+				start = lowerBound(candidates, simplePrefix.substring(0, 1));
+				end = lowerBound(candidates, nextPrefix(simplePrefix.substring(0, 1)));
+			}
+
+			PriorityQueue<TypeNameMatch> best = new PriorityQueue<TypeNameMatch>(maxResults + 1, Collections
+					.reverseOrder(RANK_COMPARATOR));
+			for (int i = start; i < end; i++) {
+				TypeNameMatch match = candidates[i];
+				if (match.isInterface() ? !interfaces : !classes) {
+					continue;
+				}
+				if (qualifier != null && !qualifier.equals(match.getContainerName('.'))) {
+					continue;
+				}
+				int rank = rank(simplePrefix, match);
+				if (rank < 0) {
+					continue;
+				}
+				if (TypeFilter.isFiltered(match.getFullyQualifiedName('.'))) {
+					continue;
+				}
+
+				TypeNameMatch ranked = new TypeNameMatch(match.modifiers, match.packageName, match.enclosingTypeNames,
+						match.simpleName, match.path);
+				ranked.rank = rank;
+				ranked.project = project;
+				best.add(ranked);
+				if (best.size() > maxResults) {
+					best.poll();
+				}
+			}
+
+			List<TypeNameMatch> result = new ArrayList<TypeNameMatch>(best);
+			Collections.sort(result, RANK_COMPARATOR);
+			return result;
+		}
+
+		synchronized List<String> findPackages(String prefix, int maxResults) {
+			Set<String> packageNames = new TreeSet<String>();
+			for (List<TypeNameMatch> matches : matchesByPath.values()) {
+				for (TypeNameMatch match : matches) {
+					if (match.packageName.startsWith(prefix)) {
+						packageNames.add(match.packageName);
+					}
+				}
+			}
+			List<String> result = new ArrayList<String>(packageNames);
+			if (result.size() > maxResults) {
+				return result.subList(0, maxResults);
+			}
+			return result;
+		}
+
+		private TypeNameMatch[] getSortedMatches() {
+			if (sortedMatches == null) {
+				List<TypeNameMatch> all = new ArrayList<TypeNameMatch>();
+				for (List<TypeNameMatch> matches : matchesByPath.values()) {
+					all.addAll(matches);
+				}
+				sortedMatches = all.toArray(new TypeNameMatch[all.size()]);
+				Arrays.sort(sortedMatches, NAME_COMPARATOR);
+			}
+			return sortedMatches;
+		}
+
+		private static int rank(String prefix, TypeNameMatch match) {
+			int rank = -1;
+			if (prefix.length() == 0) {
+				rank = RANK_PREFIX;
+			}
+			else if (match.simpleName.equals(prefix)) {
+				rank = RANK_EXACT;
+			}
+			else if (match.simpleName.startsWith(prefix)) {
+				rank = RANK_PREFIX;
+			}
+			else if (match.simpleName.regionMatches(true, 0, prefix, 0, prefix.length())) {
+				rank = RANK_PREFIX_IGNORE_CASE;
+			}
+			else if (SearchPattern.camelCaseMatch(prefix, match.simpleName)) {
+				rank = RANK_CAMEL_CASE;
+			}
+			if (rank > 0 && match.isMemberType()) {
+				rank -= RANK_MEMBER_TYPE_PENALTY;
+			}
+			return rank;
+		}
+
+		private static int lowerBound(TypeNameMatch[] matches, String name) {
+			int low = 0;
+			int high = matches.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (matches[mid].simpleName.compareToIgnoreCase(name) < 0) {
+					low = mid + 1;
+				}
+				else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		private static String nextPrefix(String prefix) {
+			char last = Character.toLowerCase(prefix.charAt(prefix.length() - 1));
+			return prefix.substring(0, prefix.length() - 1) + (char) (last + 1);
+		}
+
+		private static void addMatch(Map<String, List<TypeNameMatch>> matches, TypeNameMatch match) {
+			List<TypeNameMatch> pathMatches = matches.get(match.path);
+			if (pathMatches == null) {
+				pathMatches = new ArrayList<TypeNameMatch>(1);
+				matches.put(match.path, pathMatches);
+			}
+			pathMatches.add(match);
+		}
+
+		private static String[] toStrings(char[][] chars) {
+			String[] strings = new String[chars.length];
+			for (int i = 0; i < chars.length; i++) {
+				strings[i] = new String(chars[i]);
+			}
+			return strings;
+		}
+	}
+
+	/**
+	 * {@link IElementChangedListener} that keeps the indexes in sync with the Java model.
+	 */
+	private static class TypeNameIndexUpdater implements IElementChangedListener {
+
+		private static final int CLASSPATH_FLAGS = IJavaElementDelta.F_CLASSPATH_CHANGED
+				| IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED | IJavaElementDelta.F_ADDED_TO_CLASSPATH
+				| IJavaElementDelta.F_REMOVED_FROM_CLASSPATH | IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED
+				| IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED;
+
+		public void elementChanged(ElementChangedEvent event) {
+			List<ICompilationUnit> changedUnits = new ArrayList<ICompilationUnit>();
+			if (!collectChangedUnits(event.getDelta(), changedUnits)) {
+				removeAllIndexes();
+				return;
+			}
+			if (changedUnits.size() > 0) {
+				for (ProjectTypeNameIndex index : getIndexes()) {
+					for (ICompilationUnit unit : changedUnits) {
+						index.update(unit);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Collects the compilation units whose types might have changed.
+		 * @return <code>false</code> if the delta contains changes that require a full re-index
+		 */
+		private boolean collectChangedUnits(IJavaElementDelta delta, List<ICompilationUnit> changedUnits) {
+			IJavaElement element = delta.getElement();
+			switch (element.getElementType()) {
+			case IJavaElement.JAVA_PROJECT:
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+				if (delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & CLASSPATH_FLAGS) != 0) {
+					return false;
+				}
+				return collectChangedUnitsOfChildren(delta, changedUnits);
+			case IJavaElement.PACKAGE_FRAGMENT:
+				// Removed packages don't necessarily report their removed compilation units
+				if (delta.getKind() == IJavaElementDelta.REMOVED) {
+					return false;
+				}
+				return collectChangedUnitsOfChildren(delta, changedUnits);
+			case IJavaElement.JAVA_MODEL:
+				return collectChangedUnitsOfChildren(delta, changedUnits);
+			case IJavaElement.COMPILATION_UNIT:
+				ICompilationUnit unit = (ICompilationUnit) element;
+				if (!unit.isWorkingCopy()
+						&& (delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & (IJavaElementDelta.F_CHILDREN
+								| IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_PRIMARY_RESOURCE)) != 0)) {
+					changedUnits.add(unit);
+				}
+				return true;
+			default:
+				return true;
+			}
+		}
+
+		private boolean collectChangedUnitsOfChildren(IJavaElementDelta delta, List<ICompilationUnit> changedUnits) {
+			for (IJavaElementDelta child : delta.getAffectedChildren()) {
+				if (!collectChangedUnits(child, changedUnits)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
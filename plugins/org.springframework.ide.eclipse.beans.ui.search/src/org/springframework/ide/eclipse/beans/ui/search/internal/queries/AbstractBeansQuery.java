@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2007 Spring IDE Developers
+ * Copyright (c) 2006, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,9 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.ui.search.internal.queries;
 
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -20,6 +23,12 @@ import org.eclipse.jface.util.Assert;
 import org.eclipse.search.ui.ISearchQuery;
 import org.eclipse.search.ui.ISearchResult;
 import org.eclipse.search.ui.text.Match;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModel;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelIndex;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.IBeansModel;
+import org.springframework.ide.eclipse.beans.core.model.IBeansProject;
 import org.springframework.ide.eclipse.beans.ui.search.BeansSearchPlugin;
 import org.springframework.ide.eclipse.beans.ui.search.internal.BeansSearchMessages;
 import org.springframework.ide.eclipse.beans.ui.search.internal.BeansSearchResult;
@@ -31,6 +40,11 @@ import org.springframework.ide.eclipse.core.model.IModelElementVisitor;
 import org.springframework.ide.eclipse.core.model.ISourceModelElement;
 
 /**
+ * Base class for queries that search the {@link IBeansModel}.
+ * <p>
+ * Scopes consisting of the beans model, beans projects or beans configs are resolved through the model's
+ * {@link BeansModelIndex}; any other scope element is visited and each of its children checked via
+ * {@link #doesMatch(IModelElement, Pattern, IProgressMonitor)}.
  * @author Torsten Juergeleit
  * @author Christian Dupuis
  */
@@ -38,6 +52,8 @@ public abstract class AbstractBeansQuery implements ISearchQuery {
 
 	private BeansSearchScope scope;
 	private String pattern;
+	private boolean isCaseSensitive;
+	private boolean isRegexSearch;
 	private Pattern compiledPattern;
 	private ISearchResult result;
 
@@ -46,6 +62,8 @@ public abstract class AbstractBeansQuery implements ISearchQuery {
 		Assert.isNotNull(scope);
 		this.scope = scope;
 		this.pattern = pattern;
+		this.isCaseSensitive = isCaseSensitive;
+		this.isRegexSearch = isRegexSearch;
 		this.compiledPattern = PatternUtils.createPattern(pattern,
 				isCaseSensitive, isRegexSearch);
 	}
@@ -76,34 +94,36 @@ public abstract class AbstractBeansQuery implements ISearchQuery {
 	public final IStatus run(IProgressMonitor monitor) {
 		final BeansSearchResult result = (BeansSearchResult) getSearchResult();
 		result.removeAll();
+		IBeansModel model = BeansCorePlugin.getModel();
 		for (IModelElement element : scope.getModelElements()) {
 			if (monitor.isCanceled()) {
 				throw new OperationCanceledException();
 			}
-			IModelElementVisitor visitor = new IModelElementVisitor() {
-				public boolean visit(IModelElement element,
-						IProgressMonitor monitor) {
-					if (doesMatch(element, compiledPattern, monitor)) {
-						int startLine;
-						int lines;
-						if (element instanceof ISourceModelElement) {
-							ISourceModelElement sourceElement =
-								(ISourceModelElement) element;
-							startLine = sourceElement.getElementStartLine();
-							lines = sourceElement.getElementEndLine()
-									- startLine + 1;
-						} else {
-							startLine = -1;
-							lines = -1;
-						}
-						Match match = new Match(element, Match.UNIT_LINE,
-								startLine, lines);
-						result.addMatch(match);
+			Set<IBeansConfig> configs = getIndexedConfigs(element);
+			if (configs != null && model instanceof BeansModel) {
+				BeansModelIndex index = ((BeansModel) model).getIndex();
+				for (IBeansConfig config : configs) {
+					if (monitor.isCanceled()) {
+						throw new OperationCanceledException();
+					}
+					for (IModelElement match : index.findElements(config,
+							getIndexType(), pattern, isCaseSensitive,
+							isRegexSearch, compiledPattern)) {
+						addMatch(result, match);
 					}
-					return true;
 				}
-			};
-			element.accept(visitor, monitor);
+			} else {
+				IModelElementVisitor visitor = new IModelElementVisitor() {
+					public boolean visit(IModelElement element,
+							IProgressMonitor monitor) {
+						if (doesMatch(element, compiledPattern, monitor)) {
+							addMatch(result, element);
+						}
+						return true;
+					}
+				};
+				element.accept(visitor, monitor);
+			}
 		}
 		Object[] args = new Object[] { new Integer(result.getMatchCount()) };
 		String message = MessageUtils.format(
@@ -112,10 +132,58 @@ public abstract class AbstractBeansQuery implements ISearchQuery {
 				null);
 	}
 
+	/**
+	 * Returns the configs which are visited when visiting the given scope
+	 * element or <code>null</code> if the element can't be resolved via the
+	 * {@link BeansModelIndex}.
+	 */
+	private Set<IBeansConfig> getIndexedConfigs(IModelElement element) {
+		if (element instanceof IBeansModel) {
+			Set<IBeansConfig> configs = new LinkedHashSet<IBeansConfig>();
+			for (IBeansProject project : ((IBeansModel) element).getProjects()) {
+				configs.addAll(project.getConfigs());
+			}
+			return configs;
+		} else if (element instanceof IBeansProject) {
+			return ((IBeansProject) element).getConfigs();
+		} else if (element instanceof IBeansConfig) {
+			return Collections.singleton((IBeansConfig) element);
+		}
+		return null;
+	}
+
+	private void addMatch(BeansSearchResult result, IModelElement element) {
+		int startLine;
+		int lines;
+		if (element instanceof ISourceModelElement) {
+			ISourceModelElement sourceElement = (ISourceModelElement) element;
+			startLine = sourceElement.getElementStartLine();
+			lines = sourceElement.getElementEndLine() - startLine + 1;
+		} else {
+			startLine = -1;
+			lines = -1;
+		}
+		Match match = new Match(element, Match.UNIT_LINE, startLine, lines);
+		result.addMatch(match);
+	}
+
+	/**
+	 * Returns the type of {@link BeansModelIndex} keys this query is looking
+	 * for.
+	 */
+	protected abstract BeansModelIndex.Type getIndexType();
+
 	/**
 	 * Returns <code>true</code> if given {@link IModelElement} matches
 	 * this query. 
 	 */
-	protected abstract boolean doesMatch(IModelElement element,
-			Pattern pattern, IProgressMonitor monitor);
+	protected boolean doesMatch(IModelElement element, Pattern pattern,
+			IProgressMonitor monitor) {
+		for (String key : BeansModelIndex.getKeys(element, getIndexType())) {
+			if (key != null && pattern.matcher(key).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
 }
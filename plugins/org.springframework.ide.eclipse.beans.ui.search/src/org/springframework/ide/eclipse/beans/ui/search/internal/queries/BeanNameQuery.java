@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2007 Spring IDE Developers
+ * Copyright (c) 2006, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,15 +10,11 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.ui.search.internal.queries;
 
-import java.util.regex.Pattern;
-
-import org.eclipse.core.runtime.IProgressMonitor;
-import org.springframework.ide.eclipse.beans.core.internal.model.Bean;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelIndex;
 import org.springframework.ide.eclipse.beans.core.model.IBean;
 import org.springframework.ide.eclipse.beans.ui.search.internal.BeansSearchMessages;
 import org.springframework.ide.eclipse.beans.ui.search.internal.BeansSearchScope;
 import org.springframework.ide.eclipse.core.MessageUtils;
-import org.springframework.ide.eclipse.core.model.IModelElement;
 
 /**
  * This {@link ISearchQuery} looks for all {@link IBean}s which ID or alias
@@ -41,27 +37,7 @@ public class BeanNameQuery extends AbstractBeansQuery {
 	}
 
 	@Override
-	protected boolean doesMatch(IModelElement element, Pattern pattern,
-			IProgressMonitor monitor) {
-		if (element instanceof IBean) {
-			Bean bean = (Bean) element;
-
-			// Compare bean name first
-			if (pattern.matcher(bean.getElementName()).matches()) {
-				return true;
-			}
-
-			// Now compare aliases
-			String[] aliases = bean.getAliases();
-			if (aliases != null) {
-				for (String alias : aliases) {
-					if (pattern.matcher(alias).matches()) {
-						return true;
-					}
-
-				}
-			}
-		}
-		return false;
+	protected BeansModelIndex.Type getIndexType() {
+		return BeansModelIndex.Type.BEAN_NAME;
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2009 Spring IDE Developers
+ * Copyright (c) 2006, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,15 +10,24 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.ui.model;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.jdt.core.IClassFile;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.viewers.IBaseLabelProvider;
@@ -43,18 +52,23 @@ import org.springframework.ide.eclipse.beans.core.model.IBeansProject;
 import org.springframework.ide.eclipse.beans.ui.BeansUIImages;
 import org.springframework.ide.eclipse.beans.ui.BeansUIPlugin;
 import org.springframework.ide.eclipse.core.MarkerUtils;
+import org.springframework.ide.eclipse.core.SpringCore;
 import org.springframework.ide.eclipse.core.io.ZipEntryStorage;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
 import org.springframework.ide.eclipse.core.model.ILazyInitializedModelElement;
 import org.springframework.ide.eclipse.core.model.IModelChangeListener;
+import org.springframework.ide.eclipse.core.model.IModelElement;
 import org.springframework.ide.eclipse.core.model.IResourceModelElement;
 import org.springframework.ide.eclipse.core.model.ISourceModelElement;
+import org.springframework.ide.eclipse.core.model.ISpringProject;
 import org.springframework.ide.eclipse.core.model.ModelChangeEvent;
 import org.springframework.ide.eclipse.ui.SpringLabelDecorator;
 
 /**
  * This decorator adds an overlay image to all Spring beans config files and their corresponding folders and bean
  * classes (Java source and class files). This decoration is refreshed on every modification to the Spring Beans model.
- * Therefore the decorator adds a {@link IModelChangeListener change listener} to the beans model.
+ * Therefore the decorator adds a {@link IModelChangeListener change listener} to the beans model. Only the labels of
+ * elements affected by a change are refreshed.
  * @author Torsten Juergeleit
  * @author Christian Dupuis
  */
@@ -72,34 +86,169 @@ public class BeansModelLabelDecorator extends SpringLabelDecorator implements IL
 	}
 
 	private void internalUpdate() {
+		internalUpdate(null);
+	}
+
+	/**
+	 * Fires a {@link LabelProviderChangedEvent} for the given <code>elements</code>; if <code>elements</code> is
+	 * <code>null</code> all labels get refreshed.
+	 */
+	private void internalUpdate(final Object[] elements) {
 		Display.getDefault().asyncExec(new Runnable() {
 			public void run() {
 
 				IBaseLabelProvider provider = PlatformUI.getWorkbench().getDecoratorManager().getBaseLabelProvider(
 						SpringLabelDecorator.DECORATOR_ID);
 				if (provider != null) {
-					fireLabelProviderChanged(new LabelProviderChangedEvent(provider));
+					fireLabelProviderChanged(createLabelProviderChangedEvent(provider, elements));
 				}
 
-				fireLabelProviderChanged(new LabelProviderChangedEvent(BeansModelLabelDecorator.this));
+				fireLabelProviderChanged(createLabelProviderChangedEvent(BeansModelLabelDecorator.this, elements));
 			}
 		});
 	}
 
 	private IModelChangeListener listener;
 
+	/** State of the configs as seen by the last label update keyed by the config's element id */
+	private final Map<String, ConfigState> configStates = new HashMap<String, ConfigState>();
+
 	public BeansModelLabelDecorator() {
 		listener = new IModelChangeListener() {
 			public void elementChanged(ModelChangeEvent event) {
 				if ((event.getElement() instanceof IBeansProject || event.getElement() instanceof IBeansConfig)
 						&& event.getType() != ModelChangeEvent.Type.REMOVED) {
-					internalUpdate();
+					Set<Object> elements = getChangedElements(event.getElement());
+					if (!elements.isEmpty()) {
+						internalUpdate(elements.toArray());
+					}
 				}
 			}
 		};
 		BeansCorePlugin.getModel().addChangeListener(listener);
 	}
 
+	/**
+	 * Creates a {@link LabelProviderChangedEvent} that is scoped to the given <code>elements</code>.
+	 * @since 3.0.0
+	 */
+	protected static LabelProviderChangedEvent createLabelProviderChangedEvent(IBaseLabelProvider provider,
+			Object[] elements) {
+		if (elements == null) {
+			return new LabelProviderChangedEvent(provider);
+		}
+		return new LabelProviderChangedEvent(provider, elements);
+	}
+
+	/**
+	 * Returns the elements whose decoration might have changed due to a change of the given beans project or config:
+	 * the changed model elements, their resources and parent folders as well as all Java types that have been added
+	 * to or removed from the set of bean classes.
+	 */
+	private Set<Object> getChangedElements(IModelElement element) {
+		Set<Object> elements = new LinkedHashSet<Object>();
+		synchronized (configStates) {
+			if (element instanceof IBeansProject) {
+				IBeansProject beansProject = (IBeansProject) element;
+				IProject project = beansProject.getProject();
+				elements.add(beansProject);
+				addResource(project, elements);
+				ISpringProject springProject = SpringCore.getModel().getProject(project);
+				if (springProject != null) {
+					elements.add(springProject);
+				}
+
+				Set<String> configIds = new HashSet<String>();
+				for (IBeansConfig config : beansProject.getConfigs()) {
+					configIds.add(config.getElementID());
+					addChangedElements(config, elements);
+				}
+
+				// Configs that have been removed from the project
+				for (Iterator<Map.Entry<String, ConfigState>> entries = configStates.entrySet().iterator(); entries
+						.hasNext();) {
+					Map.Entry<String, ConfigState> entry = entries.next();
+					ConfigState state = entry.getValue();
+					if (project.equals(state.project) && !configIds.contains(entry.getKey())) {
+						entries.remove();
+						addResource(state.resource, elements);
+						for (String className : state.beanClasses) {
+							addJavaType(project, className, elements);
+						}
+					}
+				}
+			}
+			else if (element instanceof IBeansConfig) {
+				addChangedElements((IBeansConfig) element, elements);
+			}
+		}
+		return elements;
+	}
+
+	private void addChangedElements(IBeansConfig config, Set<Object> elements) {
+		elements.add(config);
+		IResource resource = config.getElementResource();
+		addResource(resource, elements);
+		if (resource == null) {
+			return;
+		}
+
+		// Decorated JAR file
+		if (resource instanceof IFile) {
+			IJavaElement javaElement = JavaCore.create((IFile) resource);
+			if (javaElement instanceof IPackageFragmentRoot) {
+				elements.add(javaElement);
+			}
+		}
+
+		// Only diff the bean classes of initialized configs as the Java elements of uninitialized projects are not
+		// decorated anyway
+		if (config instanceof ILazyInitializedModelElement && !((ILazyInitializedModelElement) config).isInitialized()) {
+			return;
+		}
+
+		Set<String> beanClasses = new HashSet<String>(config.getBeanClasses());
+		ConfigState oldState = configStates.put(config.getElementID(), new ConfigState(resource.getProject(),
+				resource, beanClasses));
+		Set<String> changedBeanClasses = new HashSet<String>(beanClasses);
+		if (oldState != null) {
+			changedBeanClasses.removeAll(oldState.beanClasses);
+			for (String className : oldState.beanClasses) {
+				if (!beanClasses.contains(className)) {
+					changedBeanClasses.add(className);
+				}
+			}
+		}
+		for (String className : changedBeanClasses) {
+			addJavaType(resource.getProject(), className, elements);
+		}
+	}
+
+	/**
+	 * Adds the given <code>resource</code> and all its parent folders up to and including the project.
+	 */
+	private void addResource(IResource resource, Set<Object> elements) {
+		while (resource != null && resource.getType() != IResource.ROOT) {
+			elements.add(resource);
+			resource = resource.getParent();
+		}
+	}
+
+	private void addJavaType(IProject project, String className, Set<Object> elements) {
+		IType type = JdtUtils.getJavaType(project, className);
+		if (type != null) {
+			if (type.getCompilationUnit() != null) {
+				elements.add(type.getCompilationUnit());
+				if (type.getCompilationUnit().getResource() != null) {
+					elements.add(type.getCompilationUnit().getResource());
+				}
+			}
+			else if (type.getClassFile() != null) {
+				elements.add(type.getClassFile());
+			}
+		}
+	}
+
 	public void decorate(Object element, IDecoration decoration) {
 		if (element instanceof IFolder) {
 			decorateFolder((IFolder) element, decoration);
@@ -352,4 +501,22 @@ public class BeansModelLabelDecorator extends SpringLabelDecorator implements IL
 	public String decorateText(String text, Object element) {
 		return text;
 	}
+
+	/**
+	 * Bean classes of a config as seen by the last label update.
+	 */
+	private static class ConfigState {
+
+		private final IProject project;
+
+		private final IResource resource;
+
+		private final Set<String> beanClasses;
+
+		public ConfigState(IProject project, IResource resource, Set<String> beanClasses) {
+			this.project = project;
+			this.resource = resource;
+			this.beanClasses = beanClasses;
+		}
+	}
 }
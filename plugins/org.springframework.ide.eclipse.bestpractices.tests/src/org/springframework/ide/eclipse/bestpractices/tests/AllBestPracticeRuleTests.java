@@ -19,6 +19,7 @@ import org.springframework.ide.eclipse.bestpractices.tests.ruletests.TooManyBean
 import org.springframework.ide.eclipse.bestpractices.tests.ruletests.UnnecessaryValueElementRuleTest;
 import org.springframework.ide.eclipse.bestpractices.tests.ruletests.UseBeanInheritanceRuleTest;
 import org.springframework.ide.eclipse.bestpractices.tests.ruletests.UseDedicatedNamespacesRuleTest;
+import org.springframework.ide.eclipse.bestpractices.tests.ruletests.XmlValidationRuleDispatcherTest;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -44,6 +45,7 @@ public class AllBestPracticeRuleTests {
 		suite.addTestSuite(UseBeanInheritanceRuleTest.class);
 		suite.addTestSuite(AvoidDriverManagerDataSourceRuleTest.class);
 		suite.addTestSuite(UseDedicatedNamespacesRuleTest.class);
+		suite.addTestSuite(XmlValidationRuleDispatcherTest.class);
 		//$JUnit-END$
 		return suite;
 	}
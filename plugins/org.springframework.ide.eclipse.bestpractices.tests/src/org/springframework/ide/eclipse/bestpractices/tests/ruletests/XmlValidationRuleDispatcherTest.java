@@ -0,0 +1,146 @@
+/*******************************************************************************
+ *  Copyright (c) 2012 VMware, Inc.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.bestpractices.tests.ruletests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.internal.model.validation.BeansValidationContext;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.validation.AbstractXmlValidationRule;
+import org.springframework.ide.eclipse.beans.core.model.validation.XmlValidationRuleDispatcher;
+import org.springframework.ide.eclipse.bestpractices.tests.AbstractBeansCoreTestCase;
+import org.springframework.ide.eclipse.core.internal.model.validation.ValidationRuleDefinition;
+import org.springframework.ide.eclipse.core.internal.model.validation.ValidationRuleDefinitionFactory;
+import org.springframework.ide.eclipse.core.model.validation.ValidationProblem;
+import org.springframework.ide.eclipse.internal.bestpractices.springiderules.TooManyBeansInFileRule;
+
+/**
+ * Test case for the {@link XmlValidationRuleDispatcher} that checks that validating all best practice XML rules in a
+ * single DOM walk reports the same problems as validating every rule with a DOM walk of its own.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+public class XmlValidationRuleDispatcherTest extends AbstractBeansCoreTestCase {
+
+	private static final String VALIDATOR_ID = "org.springframework.ide.eclipse.bestpractices.beansvalidator";
+
+	public void testTooManyBeans() throws Exception {
+		List<String> problems = assertSameProblems("src/too-many-beans-positive.xml");
+		assertEquals(1, countProblems(problems, TooManyBeansInFileRule.INFO_MESSAGE));
+	}
+
+	public void testNotTooManyBeans() throws Exception {
+		List<String> problems = assertSameProblems("src/too-many-beans-negative.xml");
+		assertEquals(0, countProblems(problems, TooManyBeansInFileRule.INFO_MESSAGE));
+	}
+
+	public void testBeanCountIsKeptPerWalk() throws Exception {
+		IBeansConfig config = getConfig("src/too-many-beans-positive.xml");
+		XmlValidationRuleDispatcher dispatcher = new XmlValidationRuleDispatcher(getXmlRuleDefinitions(), null);
+
+		// the count must start over for every walk of the same file
+		List<String> first = validate(config, dispatcher, null);
+		List<String> second = validate(config, dispatcher, null);
+		assertEquals(first, second);
+		assertEquals(1, countProblems(second, TooManyBeansInFileRule.INFO_MESSAGE));
+	}
+
+	public void testRefElement() throws Exception {
+		assertFalse(assertSameProblems("src/ref-element-positive.xml").isEmpty());
+	}
+
+	public void testValueElement() throws Exception {
+		assertFalse(assertSameProblems("src/value-element-positive.xml").isEmpty());
+	}
+
+	public void testImportElementsAtTop() throws Exception {
+		assertSameProblems("src/import-at-top-positive.xml");
+	}
+
+	/**
+	 * Validates the given config with a single dispatcher for all XML rules and with one dispatcher per rule and
+	 * asserts that both report the same problems.
+	 * @return the problems reported by the single dispatcher
+	 */
+	private List<String> assertSameProblems(String path) throws Exception {
+		IBeansConfig config = getConfig(path);
+		List<ValidationRuleDefinition> ruleDefinitions = getXmlRuleDefinitions();
+
+		List<String> combinedProblems = validate(config, new XmlValidationRuleDispatcher(ruleDefinitions, null), null);
+
+		List<String> separateProblems = new ArrayList<String>();
+		for (ValidationRuleDefinition ruleDefinition : ruleDefinitions) {
+			XmlValidationRuleDispatcher dispatcher = new XmlValidationRuleDispatcher(
+					(AbstractXmlValidationRule) ruleDefinition.getRule());
+			separateProblems.addAll(validate(config, dispatcher, ruleDefinition));
+		}
+		Collections.sort(separateProblems);
+
+		assertEquals(separateProblems, combinedProblems);
+		return combinedProblems;
+	}
+
+	private IBeansConfig getConfig(String path) throws Exception {
+		IFile file = (IFile) createPredefinedProjectAndGetResource("bestpractices", path);
+		IBeansConfig config = BeansCorePlugin.getModel().getConfig(file);
+		assertNotNull(config);
+		return config;
+	}
+
+	private List<ValidationRuleDefinition> getXmlRuleDefinitions() {
+		List<ValidationRuleDefinition> ruleDefinitions = new ArrayList<ValidationRuleDefinition>();
+		Set<ValidationRuleDefinition> allRuleDefinitions = ValidationRuleDefinitionFactory
+				.getRuleDefinitions(VALIDATOR_ID);
+		for (ValidationRuleDefinition ruleDefinition : allRuleDefinitions) {
+			if (ruleDefinition.getRule() instanceof AbstractXmlValidationRule) {
+				ruleDefinitions.add(ruleDefinition);
+			}
+		}
+		assertTrue(ruleDefinitions.size() > 1);
+		return ruleDefinitions;
+	}
+
+	/**
+	 * Validates the given config and returns the sorted descriptions of the reported problems.
+	 */
+	private List<String> validate(IBeansConfig config, XmlValidationRuleDispatcher dispatcher,
+			ValidationRuleDefinition ruleDefinition) {
+		BeansValidationContext context = new BeansValidationContext(config, config);
+		context.setCurrentRuleDefinition(ruleDefinition);
+		dispatcher.validate(config, context, new NullProgressMonitor());
+
+		// ValidationProblem doesn't implement value equality
+		List<String> problems = new ArrayList<String>();
+		for (ValidationProblem problem : context.getProblems()) {
+			problems.add(problem.getResource().getFullPath() + ":" + problem.getLine() + ":" + problem.getRuleId()
+					+ ":" + problem.getErrorId() + ":" + problem.getSeverity() + ":" + problem.getMessage());
+		}
+		Collections.sort(problems);
+		return problems;
+	}
+
+	private int countProblems(List<String> problems, String message) {
+		int count = 0;
+		for (String problem : problems) {
+			if (problem.contains(message)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+}
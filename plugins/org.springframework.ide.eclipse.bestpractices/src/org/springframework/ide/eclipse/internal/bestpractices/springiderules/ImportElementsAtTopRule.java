@@ -32,6 +32,11 @@ public class ImportElementsAtTopRule extends AbstractXmlValidationRule {
 		return node.getNodeName().equals("import");
 	}
 
+	@Override
+	protected boolean supports(String namespaceUri, String localName) {
+		return "import".equals(localName);
+	}
+
 	@Override
 	protected void validate(Node node, IXmlValidationContext context) {
 		Node currNode = node.getPreviousSibling();
@@ -35,6 +35,11 @@ public class RefElementRule extends AbstractXmlValidationRule {
 				&& BeanDefinitionParserDelegate.PROPERTY_ELEMENT.equals(node.getParentNode().getNodeName());
 	}
 
+	@Override
+	protected boolean supports(String namespaceUri, String localName) {
+		return BeanDefinitionParserDelegate.REF_ELEMENT.equals(localName);
+	}
+
 	@Override
 	protected void validate(Node node, IXmlValidationContext context) {
 		context.info(node, ERROR_ID, INFO_MESSAGE);
@@ -10,19 +10,25 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.internal.bestpractices.springiderules;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import org.springframework.ide.eclipse.beans.core.model.IBeansModelElement;
 import org.springframework.ide.eclipse.beans.core.model.validation.AbstractXmlValidationRule;
 import org.springframework.ide.eclipse.beans.core.model.validation.IBeansValidationContext;
 import org.springframework.ide.eclipse.beans.core.model.validation.IXmlValidationContext;
 import org.springframework.ide.eclipse.core.model.validation.IValidationRule;
 import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 /**
  * This rule checks for cases where there are too many bean definitions in a
  * file and recommends that the definitions be decomposed into multiple files.
+ * <p>
+ * The <code>bean</code> elements are counted while the DOM of a config is
+ * walked; the count is kept per document as configs may be validated
+ * concurrently.
  * @author Wesley Coelho
  * @author Christian Dupuis
  * @author Leo Dos Santos
@@ -39,28 +45,37 @@ public class TooManyBeansInFileRule extends AbstractXmlValidationRule implements
 
 	private int maxBeanCount = DEFAULT_MAX_BEAN_COUNT;
 
+	/** The number of beans seen so far keyed by the document being validated */
+	private final Map<Document, int[]> beanCounts = Collections.synchronizedMap(new WeakHashMap<Document, int[]>());
+
 	public void setMaxBeanCount(int maxBeanCount) {
 		this.maxBeanCount = maxBeanCount;
 	}
 
 	@Override
 	protected boolean supports(Node node) {
-		return node instanceof Document;
+		return node instanceof Document
+				|| (node.getNodeType() == Node.ELEMENT_NODE && "bean".equals(node.getNodeName()));
+	}
+
+	@Override
+	protected boolean supports(String namespaceUri, String localName) {
+		return "#document".equals(localName) || "bean".equals(localName);
 	}
 
 	@Override
 	protected void validate(Node node, IXmlValidationContext context) {
 
-		NodeList beansNodeList = ((Document) node).getElementsByTagName("beans");
-		if (beansNodeList.getLength() < 1) {
+		// The document is passed before any of its elements
+		if (node instanceof Document) {
+			beanCounts.put((Document) node, new int[1]);
 			return;
 		}
 
-		Element beansElement = (Element) beansNodeList.item(0);
-		NodeList beanNodeList = beansElement.getElementsByTagName("bean");
-
-		if (beanNodeList.getLength() > maxBeanCount) {
-			context.info(node, ERROR_ID, INFO_MESSAGE);
+		Document document = node.getOwnerDocument();
+		int[] beanCount = beanCounts.get(document);
+		if (beanCount != null && ++beanCount[0] == maxBeanCount + 1) {
+			context.info(document, ERROR_ID, INFO_MESSAGE);
 		}
 	}
 
@@ -47,6 +47,11 @@ public class UnnecessaryValueElementRule extends AbstractXmlValidationRule imple
 				&& node.getParentNode().getNodeName().equals(BeanDefinitionParserDelegate.PROPERTY_ELEMENT);
 	}
 
+	@Override
+	protected boolean supports(String namespaceUri, String localName) {
+		return BeanDefinitionParserDelegate.VALUE_ELEMENT.equals(localName);
+	}
+
 	@Override
 	protected void validate(Node node, IXmlValidationContext context) {
 		if (node.getFirstChild() != null && !(node.getFirstChild() instanceof CDATASection)
@@ -12,8 +12,10 @@ package org.springframework.ide.eclipse.config.core.contentassist;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.wst.xml.core.internal.contentmodel.CMAttributeDeclaration;
 import org.eclipse.wst.xml.core.internal.contentmodel.CMDataType;
@@ -21,9 +23,11 @@ import org.eclipse.wst.xml.core.internal.contentmodel.CMElementDeclaration;
 import org.eclipse.wst.xml.core.internal.contentmodel.modelquery.ModelQuery;
 import org.eclipse.wst.xml.core.internal.contentmodel.modelquery.ModelQueryAction;
 import org.eclipse.wst.xml.core.internal.modelquery.ModelQueryUtil;
+import org.eclipse.wst.xml.core.internal.provisional.document.IDOMDocument;
 import org.eclipse.wst.xml.core.internal.provisional.document.IDOMElement;
 import org.eclipse.wst.xml.ui.internal.contentassist.XMLContentAssistProcessor;
 import org.springframework.ide.eclipse.config.core.ConfigCoreUtils;
+import org.w3c.dom.Node;
 
 
 /**
@@ -33,6 +37,12 @@ import org.springframework.ide.eclipse.config.core.ConfigCoreUtils;
 @SuppressWarnings("restriction")
 public class SpringConfigContentAssistProcessor extends XMLContentAssistProcessor {
 
+	/**
+	 * The rendered documentation keyed by namespace URI, selected schema
+	 * location, parent and element name
+	 */
+	private final Map<String, String> documentation = new HashMap<String, String>();
+
 	public SpringConfigContentAssistProcessor() {
 		super();
 	}
@@ -115,25 +125,55 @@ public class SpringConfigContentAssistProcessor extends XMLContentAssistProcesso
 
 	/**
 	 * Looks up the schema declaration for the given element and returns any
-	 * documentation information.
+	 * documentation information. The documentation is rendered once per
+	 * element and parent name of a namespace and schema location.
 	 * 
 	 * @param element
 	 * @return documentation information for the given element
 	 */
 	public String getDocumentation(IDOMElement element) {
 		if (element != null) {
+			String key = getDocumentationKey(element);
+			String cachedDocumentation = documentation.get(key);
+			if (cachedDocumentation != null) {
+				return cachedDocumentation;
+			}
+
 			CMElementDeclaration elementDecl = getCMElementDeclaration(element);
 			if (elementDecl != null) {
-				String documentation = ConfigCoreUtils.stripTags(getAdditionalInfo(
+				String elementDocumentation = ConfigCoreUtils.stripTags(getAdditionalInfo(
 						getCMElementDeclaration(element.getParentNode()), elementDecl));
-				if (documentation != null) {
-					return documentation;
+				if (elementDocumentation == null) {
+					elementDocumentation = ""; //$NON-NLS-1$
 				}
+				documentation.put(key, elementDocumentation);
+				return elementDocumentation;
 			}
 		}
 		return ""; //$NON-NLS-1$
 	}
 
+	private String getDocumentationKey(IDOMElement element) {
+		String namespaceUri = element.getNamespaceURI();
+		StringBuilder key = new StringBuilder();
+		key.append(namespaceUri).append(' ');
+		if (namespaceUri != null && element.getOwnerDocument() instanceof IDOMDocument) {
+			key.append(ConfigCoreUtils.getSelectedSchemaLocation((IDOMDocument) element.getOwnerDocument(),
+					namespaceUri));
+		}
+		key.append(' ');
+		Node parent = element.getParentNode();
+		if (parent != null) {
+			key.append(parent.getNamespaceURI()).append(':').append(getLocalName(parent));
+		}
+		key.append(' ').append(getLocalName(element));
+		return key.toString();
+	}
+
+	private String getLocalName(Node node) {
+		return (node.getLocalName() != null ? node.getLocalName() : node.getNodeName());
+	}
+
 	public void insertDefaultAttributes(IDOMElement element) {
 		List<CMAttributeDeclaration> decls = getAttributeDeclarations(element);
 		for (CMAttributeDeclaration decl : decls) {
@@ -245,6 +245,9 @@ public abstract class AbstractConfigGraphicalEditor extends GraphicalEditorWithP
 		if (transferTargetListener != null) {
 			getGraphicalViewer().removeDropTargetListener(transferTargetListener);
 		}
+		if (diagram != null) {
+			diagram.dispose();
+		}
 		super.dispose();
 	}
 
@@ -15,8 +15,10 @@ import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.CoreException;
@@ -35,6 +37,7 @@ import org.eclipse.wst.xml.core.internal.provisional.document.IDOMElement;
 import org.springframework.ide.eclipse.beans.ui.editor.util.BeansEditorUtils;
 import org.springframework.ide.eclipse.config.core.contentassist.SpringConfigContentAssistProcessor;
 import org.springframework.ide.eclipse.config.core.extensions.PageAdaptersExtensionPointConstants;
+import org.springframework.ide.eclipse.config.core.schemas.BeansSchemaConstants;
 import org.springframework.ide.eclipse.config.graph.AbstractConfigGraphicalEditor;
 import org.springframework.ide.eclipse.config.graph.ConfigGraphPlugin;
 import org.springframework.ide.eclipse.core.SpringCorePreferences;
@@ -84,11 +87,22 @@ public abstract class AbstractConfigGraphDiagram extends ParallelActivity {
 
 	private Map<String, Node> refNodeRegistry;
 
+	/** The activities of the model registry keyed by the identity of their DOM nodes */
+	private final Map<Node, List<Activity>> activitiesByNode;
+
+	/** The model factories contributed by the page adapters keyed by namespace URI */
+	private final Map<String, List<IModelFactory>> modelFactories;
+
+	private final DiagramChangeTracker changeTracker;
+
 	public AbstractConfigGraphDiagram(AbstractConfigGraphicalEditor editor) {
 		super();
 		this.editor = editor;
 		modelRegistry = new ArrayList<Activity>();
 		refNodeRegistry = new HashMap<String, Node>();
+		activitiesByNode = new IdentityHashMap<Node, List<Activity>>();
+		modelFactories = new HashMap<String, List<IModelFactory>>();
+		changeTracker = new DiagramChangeTracker();
 	}
 
 	@Override
@@ -96,6 +110,14 @@ public abstract class AbstractConfigGraphDiagram extends ParallelActivity {
 		// no-op
 	}
 
+	/**
+	 * Stops listening to changes of the underlying DOM document.
+	 * @since 3.0.0
+	 */
+	public void dispose() {
+		changeTracker.untrack();
+	}
+
 	public Rectangle doReadCoordinates(Activity activity) {
 		String xml = getPreferenceLocation().getString(getGraphCoordsKey(), ""); //$NON-NLS-1$
 		Rectangle savedBounds = null;
@@ -215,6 +237,40 @@ public abstract class AbstractConfigGraphDiagram extends ParallelActivity {
 
 	protected abstract IDiagramModelFactory getModelFactory();
 
+	/**
+	 * Returns the {@link IModelFactory}s contributed by the page adapters of
+	 * the editor for the given namespace URI. The factories are created once
+	 * per namespace URI and reused on subsequent refreshes.
+	 * @param namespaceUri the namespace URI of an element
+	 * @return the model factories for the namespace URI; never
+	 * <code>null</code>
+	 * @since 3.0.0
+	 */
+	public List<IModelFactory> getModelFactories(String namespaceUri) {
+		List<IModelFactory> factories = modelFactories.get(namespaceUri);
+		if (factories == null) {
+			factories = new ArrayList<IModelFactory>();
+			for (IConfigurationElement config : editor.getAdapterDefinitions()) {
+				String uri = config.getAttribute(PageAdaptersExtensionPointConstants.ATTR_NAMESPACE_URI);
+				if (uri.equals(namespaceUri)) {
+					try {
+						Object obj = config
+								.createExecutableExtension(PageAdaptersExtensionPointConstants.ATTR_MODEL_FACTORY);
+						if (obj instanceof IModelFactory) {
+							factories.add((IModelFactory) obj);
+						}
+					}
+					catch (CoreException e) {
+						StatusHandler.log(new Status(IStatus.ERROR, ConfigGraphPlugin.PLUGIN_ID,
+								Messages.AbstractConfigFlowDiagram_ERROR_CREATING_GRAPH, e));
+					}
+				}
+			}
+			modelFactories.put(namespaceUri, factories);
+		}
+		return factories;
+	}
+
 	@Override
 	public List<Activity> getModelRegistry() {
 		return modelRegistry;
@@ -235,22 +291,8 @@ public abstract class AbstractConfigGraphDiagram extends ParallelActivity {
 					getModelFactory().getNestedChildrenFromXml(list, childElem, this);
 				}
 				else {
-					for (IConfigurationElement config : editor.getAdapterDefinitions()) {
-						String uri = config.getAttribute(PageAdaptersExtensionPointConstants.ATTR_NAMESPACE_URI);
-						if (uri.equals(child.getNamespaceURI())) {
-							try {
-								Object obj = config
-										.createExecutableExtension(PageAdaptersExtensionPointConstants.ATTR_MODEL_FACTORY);
-								if (obj instanceof IModelFactory) {
-									IModelFactory factory = (IModelFactory) obj;
-									factory.getNestedChildrenFromXml(list, childElem, this);
-								}
-							}
-							catch (CoreException e) {
-								StatusHandler.log(new Status(IStatus.ERROR, ConfigGraphPlugin.PLUGIN_ID,
-										Messages.AbstractConfigFlowDiagram_ERROR_CREATING_GRAPH, e));
-							}
-						}
+					for (IModelFactory factory : getModelFactories(child.getNamespaceURI())) {
+						factory.getNestedChildrenFromXml(list, childElem, this);
 					}
 				}
 				if (child.hasChildNodes()) {
@@ -326,11 +368,72 @@ public abstract class AbstractConfigGraphDiagram extends ParallelActivity {
 		return false;
 	}
 
+	/**
+	 * Updates the model from the DOM document. Only the mutations recorded
+	 * since the last refresh are applied: nothing is done if the document
+	 * hasn't changed and attribute changes that can't affect the structure
+	 * of the graph only update the activities of the changed elements. Any
+	 * other change rebuilds the model.
+	 */
 	public void refreshModelFromXml() {
+		IDOMDocument document = getDomDocument();
+		if (changeTracker.isTracking(document) && !changeTracker.isStructureChanged()) {
+			if (!changeTracker.hasChanges() || refreshChangedActivities()) {
+				changeTracker.track(document);
+				return;
+			}
+		}
+
 		modelRegistry.clear();
 		updateRefNodeRegistry();
 		updateChildrenFromXml();
 		updateTransitionsFromXml();
+		updateActivitiesByNode();
+		changeTracker.track(document);
+	}
+
+	/**
+	 * Updates the activities of all elements with changed attributes.
+	 * @return <code>false</code> if a changed attribute may affect the
+	 * activities or transitions of the graph and the model has to be rebuilt
+	 */
+	private boolean refreshChangedActivities() {
+		List<Activity> changedActivities = new ArrayList<Activity>();
+		for (Map.Entry<Node, Set<String>> entry : changeTracker.getChangedAttributes().entrySet()) {
+			List<Activity> activities = activitiesByNode.get(entry.getKey());
+			if (activities == null) {
+				return false;
+			}
+			for (String attributeName : entry.getValue()) {
+				if (isReferenceAttribute((IDOMElement) entry.getKey(), attributeName, activities)) {
+					return false;
+				}
+			}
+			changedActivities.addAll(activities);
+		}
+		for (Activity activity : changedActivities) {
+			activity.internalSetName();
+		}
+		return true;
+	}
+
+	/**
+	 * Returns <code>true</code> if the given attribute identifies the element,
+	 * is used to create transitions or refers to another element.
+	 */
+	private boolean isReferenceAttribute(IDOMElement element, String attributeName, List<Activity> activities) {
+		if (BeansSchemaConstants.ATTR_ID.equals(attributeName) || BeansSchemaConstants.ATTR_NAME.equals(attributeName)) {
+			return true;
+		}
+		for (Activity activity : activities) {
+			if (activity.getPrimaryIncomingAttributes().contains(attributeName)
+					|| activity.getSecondaryIncomingAttributes().contains(attributeName)
+					|| activity.getPrimaryOutgoingAttributes().contains(attributeName)
+					|| activity.getSecondaryOutgoingAttributes().contains(attributeName)) {
+				return true;
+			}
+		}
+		return getReferencedNode(element.getAttribute(attributeName)) != null;
 	}
 
 	@Override
@@ -338,6 +441,20 @@ public abstract class AbstractConfigGraphDiagram extends ParallelActivity {
 		// no-op
 	}
 
+	private void updateActivitiesByNode() {
+		activitiesByNode.clear();
+		for (Activity activity : modelRegistry) {
+			if (activity.getInput() != null) {
+				List<Activity> activities = activitiesByNode.get(activity.getInput());
+				if (activities == null) {
+					activities = new ArrayList<Activity>(1);
+					activitiesByNode.put(activity.getInput(), activities);
+				}
+				activities.add(activity);
+			}
+		}
+	}
+
 	private void updateRefNodeRegistry() {
 		refNodeRegistry = BeansEditorUtils.getReferenceableNodes(getDomDocument(), getResourceFile());
 	}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ *  Copyright (c) 2012 VMware, Inc.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.config.graph.model;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.wst.sse.core.internal.provisional.INodeAdapter;
+import org.eclipse.wst.sse.core.internal.provisional.INodeNotifier;
+import org.eclipse.wst.xml.core.internal.provisional.document.IDOMDocument;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * {@link INodeAdapter} that records the DOM mutations reported by the SSE model
+ * of a diagram's document between two refreshes of the diagram model.
+ * <p>
+ * Attribute changes are recorded per element; any other mutation marks the
+ * structure of the document as changed.
+ * @author Leo Dos Santos
+ * @since 3.0.0
+ */
+@SuppressWarnings("restriction")
+class DiagramChangeTracker implements INodeAdapter {
+
+	private IDOMDocument document;
+
+	private final List<INodeNotifier> notifiers = new ArrayList<INodeNotifier>();
+
+	private final Map<Node, Set<String>> changedAttributes = new IdentityHashMap<Node, Set<String>>();
+
+	private boolean structureChanged = true;
+
+	/**
+	 * Returns the names of the changed attributes keyed by their elements.
+	 */
+	public Map<Node, Set<String>> getChangedAttributes() {
+		return changedAttributes;
+	}
+
+	/**
+	 * Returns <code>true</code> if any mutation has been recorded since the
+	 * last call to {@link #track(IDOMDocument)}.
+	 */
+	public boolean hasChanges() {
+		return structureChanged || !changedAttributes.isEmpty();
+	}
+
+	public boolean isAdapterForType(Object type) {
+		return type == this;
+	}
+
+	/**
+	 * Returns <code>true</code> if elements have been added, removed or
+	 * replaced or text content has changed since the last call to
+	 * {@link #track(IDOMDocument)}.
+	 */
+	public boolean isStructureChanged() {
+		return structureChanged;
+	}
+
+	/**
+	 * Returns <code>true</code> if mutations of the given document are
+	 * recorded.
+	 */
+	public boolean isTracking(IDOMDocument document) {
+		return this.document != null && this.document == document;
+	}
+
+	public void notifyChanged(INodeNotifier notifier, int eventType, Object changedFeature, Object oldValue,
+			Object newValue, int pos) {
+		if (eventType == INodeNotifier.CHANGE && changedFeature instanceof Attr && notifier instanceof Node) {
+			Set<String> attributes = changedAttributes.get(notifier);
+			if (attributes == null) {
+				attributes = new HashSet<String>();
+				changedAttributes.put((Node) notifier, attributes);
+			}
+			attributes.add(((Attr) changedFeature).getName());
+		}
+		else {
+			structureChanged = true;
+		}
+	}
+
+	/**
+	 * Starts recording the mutations of the given document, dropping all
+	 * mutations recorded so far. The adapter is re-installed on all elements
+	 * if the structure of the document has changed.
+	 */
+	public void track(IDOMDocument document) {
+		if (structureChanged || this.document != document) {
+			removeAdapters();
+			this.document = document;
+			if (document != null) {
+				addAdapter(document);
+			}
+		}
+		changedAttributes.clear();
+		structureChanged = false;
+	}
+
+	/**
+	 * Stops recording the mutations of the current document.
+	 */
+	public void untrack() {
+		removeAdapters();
+		changedAttributes.clear();
+		structureChanged = true;
+		document = null;
+	}
+
+	private void addAdapter(Node node) {
+		if (node instanceof INodeNotifier) {
+			INodeNotifier notifier = (INodeNotifier) node;
+			if (notifier.getExistingAdapter(this) == null) {
+				notifier.addAdapter(this);
+				notifiers.add(notifier);
+			}
+		}
+		NodeList children = node.getChildNodes();
+		for (int i = 0; i < children.getLength(); i++) {
+			Node child = children.item(i);
+			if (child.getNodeType() == Node.ELEMENT_NODE) {
+				addAdapter(child);
+			}
+		}
+	}
+
+	private void removeAdapters() {
+		for (INodeNotifier notifier : notifiers) {
+			notifier.removeAdapter(this);
+		}
+		notifiers.clear();
+	}
+
+}
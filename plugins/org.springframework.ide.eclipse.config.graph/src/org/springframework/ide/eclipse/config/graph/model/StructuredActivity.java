@@ -11,19 +11,14 @@
 package org.springframework.ide.eclipse.config.graph.model;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IConfigurationElement;
-import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.Status;
 import org.eclipse.wst.xml.core.internal.provisional.document.IDOMDocument;
 import org.eclipse.wst.xml.core.internal.provisional.document.IDOMElement;
 import org.eclipse.wst.xml.core.internal.provisional.document.IDOMModel;
 import org.springframework.ide.eclipse.config.core.ConfigCoreUtils;
-import org.springframework.ide.eclipse.config.core.extensions.PageAdaptersExtensionPointConstants;
-import org.springframework.ide.eclipse.config.graph.ConfigGraphPlugin;
-import org.springsource.ide.eclipse.commons.core.StatusHandler;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
@@ -116,22 +111,8 @@ public abstract class StructuredActivity extends Activity {
 					getDiagram().getModelFactory().getChildrenFromXml(list, childElem, this);
 				}
 				else {
-					for (IConfigurationElement config : getDiagram().getGraphicalEditor().getAdapterDefinitions()) {
-						String uri = config.getAttribute(PageAdaptersExtensionPointConstants.ATTR_NAMESPACE_URI);
-						if (uri.equals(child.getNamespaceURI())) {
-							try {
-								Object obj = config
-										.createExecutableExtension(PageAdaptersExtensionPointConstants.ATTR_MODEL_FACTORY);
-								if (obj instanceof IModelFactory) {
-									IModelFactory factory = (IModelFactory) obj;
-									factory.getChildrenFromXml(list, childElem, this);
-								}
-							}
-							catch (CoreException e) {
-								StatusHandler.log(new Status(IStatus.ERROR, ConfigGraphPlugin.PLUGIN_ID,
-										Messages.AbstractConfigFlowDiagram_ERROR_CREATING_GRAPH, e));
-							}
-						}
+					for (IModelFactory factory : getDiagram().getModelFactories(child.getNamespaceURI())) {
+						factory.getChildrenFromXml(list, childElem, this);
 					}
 				}
 				getDiagram().getModelFactory().getGenericChildrenFromXml(list, childElem, this);
@@ -151,18 +132,17 @@ public abstract class StructuredActivity extends Activity {
 	}
 
 	protected void updateChildrenFromXml() {
+		// Keep the existing instances of activities that still have the same
+		// type and DOM node
+		Map<Activity, Activity> existingChildren = new HashMap<Activity, Activity>();
+		for (Activity child : children) {
+			existingChildren.put(child, child);
+		}
 		List<Activity> list = getChildrenFromXml();
-		List<Activity> workingCopy = new ArrayList<Activity>();
-		workingCopy.addAll(list);
+		List<Activity> workingCopy = new ArrayList<Activity>(list.size());
 		for (Activity activity : list) {
-			for (int i = 0; i < children.size(); i++) {
-				Activity child = children.get(i);
-				if (activity.equals(child)) {
-					int index = list.indexOf(activity);
-					workingCopy.remove(activity);
-					workingCopy.add(index, child);
-				}
-			}
+			Activity child = existingChildren.get(activity);
+			workingCopy.add(child != null ? child : activity);
 		}
 		children = workingCopy;
 		getModelRegistry().addAll(children);
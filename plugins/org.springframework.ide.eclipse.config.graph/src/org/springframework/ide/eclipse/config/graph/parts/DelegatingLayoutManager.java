@@ -63,8 +63,9 @@ public class DelegatingLayoutManager implements LayoutManager {
 	public void layout(IFigure figure) {
 		if (diagram.isManualLayout()) {
 			if (diagram.isFirstManualLayout()) {
+				// the initial bounds are needed right away
 				setLayoutManager(figure, graphLayoutManager);
-				activeLayoutManager.layout(figure);
+				graphLayoutManager.layout(figure, true);
 			}
 			diagram.setBoundsOnFigure(true);
 			setLayoutManager(figure, xyLayoutManager);
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ *  Copyright (c) 2012 VMware, Inc.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.config.graph.parts;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.draw2d.geometry.Insets;
+import org.eclipse.draw2d.graph.CompoundDirectedGraph;
+import org.eclipse.draw2d.graph.Edge;
+import org.eclipse.draw2d.graph.Node;
+import org.eclipse.draw2d.graph.Subgraph;
+import org.eclipse.gef.editparts.AbstractGraphicalEditPart;
+
+/**
+ * Cache of laid out {@link CompoundDirectedGraph}s keyed by the structure of
+ * the graphs.
+ * <p>
+ * The layout of a graph only depends on the sizes and nesting of its nodes and
+ * on its edges. A graph that has already been laid out can therefore be reused
+ * for any graph with the same structure, by mapping the edit parts of the new
+ * graph onto the nodes and edges of the laid out graph. Laid out graphs must
+ * not be modified once they have been added to the cache.
+ * @author Leo Dos Santos
+ * @since 3.0.0
+ */
+public class GraphLayoutCache {
+
+	private static final int DEFAULT_CACHE_SIZE = 8;
+
+	private final Map<String, CompoundDirectedGraph> graphs;
+
+	public GraphLayoutCache() {
+		this(DEFAULT_CACHE_SIZE);
+	}
+
+	public GraphLayoutCache(final int cacheSize) {
+		graphs = new LinkedHashMap<String, CompoundDirectedGraph>(cacheSize, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CompoundDirectedGraph> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	/**
+	 * Returns the laid out graph stored for the given structural key.
+	 * @return the laid out graph or <code>null</code> if no graph with the
+	 * given structure has been laid out yet
+	 */
+	public synchronized CompoundDirectedGraph get(String key) {
+		return graphs.get(key);
+	}
+
+	/**
+	 * Stores the laid out graph for the given structural key.
+	 */
+	public synchronized void put(String key, CompoundDirectedGraph graph) {
+		graphs.put(key, graph);
+	}
+
+	public synchronized void clear() {
+		graphs.clear();
+	}
+
+	/**
+	 * Returns a key that is equal for two graphs if, and only if, they have
+	 * the same direction, the same nodes with the same sizes, paddings and
+	 * nesting and the same edges in the same order.
+	 */
+	public static String getStructuralKey(CompoundDirectedGraph graph) {
+		Map<Node, Integer> indexes = getNodeIndexes(graph);
+		StringBuilder key = new StringBuilder();
+		key.append(graph.getDirection()).append(';');
+		for (int i = 0; i < graph.nodes.size(); i++) {
+			Node node = graph.nodes.getNode(i);
+			key.append(node instanceof Subgraph ? 'S' : 'N');
+			key.append(node.getParent() != null ? indexes.get(node.getParent()) : -1).append(',');
+			key.append(node.width).append(',').append(node.height).append(',');
+			key.append(node.incomingOffset).append(',').append(node.outgoingOffset);
+			appendInsets(key, node.getPadding());
+			if (node instanceof Subgraph) {
+				appendInsets(key, ((Subgraph) node).insets);
+				appendInsets(key, ((Subgraph) node).innerPadding);
+			}
+			key.append(';');
+		}
+		for (int i = 0; i < graph.edges.size(); i++) {
+			Edge edge = graph.edges.getEdge(i);
+			key.append('E').append(indexes.get(edge.source)).append(',').append(indexes.get(edge.target));
+			key.append(',').append(edge.weight).append(';');
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Maps the edit parts of the given graph onto the nodes and edges at the
+	 * same positions in a laid out graph with the same structure.
+	 * @param graph the graph the edit parts have contributed to
+	 * @param partsToNodes the nodes and edges of the graph keyed by their edit
+	 * parts
+	 * @param laidOutGraph a laid out graph with the same structural key
+	 * @return the nodes and edges of the laid out graph keyed by the edit parts
+	 */
+	public static Map<AbstractGraphicalEditPart, Object> mapParts(CompoundDirectedGraph graph,
+			Map<AbstractGraphicalEditPart, Object> partsToNodes, CompoundDirectedGraph laidOutGraph) {
+		Map<Node, Integer> nodeIndexes = getNodeIndexes(graph);
+		Map<Edge, Integer> edgeIndexes = new IdentityHashMap<Edge, Integer>();
+		for (int i = 0; i < graph.edges.size(); i++) {
+			edgeIndexes.put(graph.edges.getEdge(i), i);
+		}
+
+		Map<AbstractGraphicalEditPart, Object> laidOutPartsToNodes = new HashMap<AbstractGraphicalEditPart, Object>();
+		for (Map.Entry<AbstractGraphicalEditPart, Object> entry : partsToNodes.entrySet()) {
+			if (entry.getValue() instanceof Node && nodeIndexes.containsKey(entry.getValue())) {
+				laidOutPartsToNodes.put(entry.getKey(), laidOutGraph.nodes.getNode(nodeIndexes.get(entry.getValue())));
+			}
+			else if (entry.getValue() instanceof Edge && edgeIndexes.containsKey(entry.getValue())) {
+				laidOutPartsToNodes.put(entry.getKey(), laidOutGraph.edges.getEdge(edgeIndexes.get(entry.getValue())));
+			}
+		}
+		return laidOutPartsToNodes;
+	}
+
+	private static void appendInsets(StringBuilder key, Insets insets) {
+		if (insets != null) {
+			key.append('[').append(insets.top).append(',').append(insets.left).append(',').append(insets.bottom)
+					.append(',').append(insets.right).append(']');
+		}
+		else {
+			key.append("[]");
+		}
+	}
+
+	private static Map<Node, Integer> getNodeIndexes(CompoundDirectedGraph graph) {
+		Map<Node, Integer> indexes = new IdentityHashMap<Node, Integer>();
+		for (int i = 0; i < graph.nodes.size(); i++) {
+			indexes.put(graph.nodes.getNode(i), i);
+		}
+		return indexes;
+	}
+
+}
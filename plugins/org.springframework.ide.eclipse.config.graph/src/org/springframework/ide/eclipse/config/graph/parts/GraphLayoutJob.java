@@ -0,0 +1,64 @@
+/*******************************************************************************
+ *  Copyright (c) 2012 VMware, Inc.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.config.graph.parts;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.draw2d.graph.CompoundDirectedGraph;
+import org.eclipse.draw2d.graph.CompoundDirectedGraphLayout;
+
+/**
+ * {@link Job} that lays out a {@link CompoundDirectedGraph} off the UI thread.
+ * <p>
+ * The graph has to be a snapshot that is not accessed by anyone else while the
+ * job is running. The layout itself can't be interrupted; a cancelled job
+ * completes the layout but reports {@link Status#CANCEL_STATUS} so that its
+ * result is discarded.
+ * @author Leo Dos Santos
+ * @since 3.0.0
+ */
+class GraphLayoutJob extends Job {
+
+	private final CompoundDirectedGraph graph;
+
+	private final String key;
+
+	GraphLayoutJob(CompoundDirectedGraph graph, String key) {
+		super(Messages.GraphLayoutJob_JOB_NAME);
+		this.graph = graph;
+		this.key = key;
+		setSystem(true);
+		setPriority(Job.SHORT);
+	}
+
+	public CompoundDirectedGraph getGraph() {
+		return graph;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		if (monitor.isCanceled()) {
+			return Status.CANCEL_STATUS;
+		}
+		new CompoundDirectedGraphLayout().visit(graph);
+		if (monitor.isCanceled()) {
+			return Status.CANCEL_STATUS;
+		}
+		return Status.OK_STATUS;
+	}
+
+}
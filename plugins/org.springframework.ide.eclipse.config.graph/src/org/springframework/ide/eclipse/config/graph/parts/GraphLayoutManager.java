@@ -14,6 +14,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.draw2d.AbstractLayout;
 import org.eclipse.draw2d.IFigure;
 import org.eclipse.draw2d.PositionConstants;
@@ -22,17 +24,28 @@ import org.eclipse.draw2d.geometry.Rectangle;
 import org.eclipse.draw2d.graph.CompoundDirectedGraph;
 import org.eclipse.draw2d.graph.CompoundDirectedGraphLayout;
 import org.eclipse.gef.editparts.AbstractGraphicalEditPart;
-
+import org.eclipse.swt.widgets.Display;
+
 /**
  * @author Leo Dos Santos
  * @author Christian Dupuis
  */
 class GraphLayoutManager extends AbstractLayout {
 
+	/**
+	 * Graphs with at least this number of nodes are laid out in the
+	 * background
+	 */
+	private static final int BACKGROUND_LAYOUT_THRESHOLD = 100;
+
 	private final ActivityDiagramPart diagram;
 
 	private final int direction;
 
+	private final GraphLayoutCache layoutCache = new GraphLayoutCache();
+
+	private GraphLayoutJob layoutJob;
+
 	GraphLayoutManager(ActivityDiagramPart diagram, int direction) {
 		this.diagram = diagram;
 		this.direction = direction;
@@ -51,11 +64,23 @@ class GraphLayoutManager extends AbstractLayout {
 	}
 
 	public void layout(IFigure container) {
+		layout(container, false);
+	}
+
+	/**
+	 * Lays out the diagram. Layouts of graphs with the same structure are
+	 * reused; large graphs are laid out in the background unless
+	 * <code>synchronous</code> is set, leaving the figures at their current
+	 * locations until the layout has been computed.
+	 */
+	void layout(final IFigure container, boolean synchronous) {
 		GraphAnimation.recordInitialState(container);
 		if (GraphAnimation.playbackState(container)) {
 			return;
 		}
 
+		// The graph is a snapshot of the diagram that is not connected to any
+		// figure, so that it can be laid out off the UI thread
 		CompoundDirectedGraph graph = new CompoundDirectedGraph();
 		if (direction == PositionConstants.EAST) {
 			graph.setDirection(direction);
@@ -63,9 +88,66 @@ class GraphLayoutManager extends AbstractLayout {
 		Map<AbstractGraphicalEditPart, Object> partsToNodes = new HashMap<AbstractGraphicalEditPart, Object>();
 		diagram.contributeNodesToGraph(graph, null, partsToNodes);
 		diagram.contributeEdgesToGraph(graph, partsToNodes);
-		new CompoundDirectedGraphLayout().visit(graph);
+
+		String key = GraphLayoutCache.getStructuralKey(graph);
+		CompoundDirectedGraph laidOutGraph = layoutCache.get(key);
+		if (laidOutGraph != null) {
+			cancelLayoutJob();
+			applyGraphResults(laidOutGraph, GraphLayoutCache.mapParts(graph, partsToNodes, laidOutGraph));
+		}
+		else if (synchronous || graph.nodes.size() < BACKGROUND_LAYOUT_THRESHOLD) {
+			cancelLayoutJob();
+			new CompoundDirectedGraphLayout().visit(graph);
+			layoutCache.put(key, graph);
+			applyGraphResults(graph, partsToNodes);
+		}
+		else if (layoutJob == null || !layoutJob.getKey().equals(key)) {
+			cancelLayoutJob();
+			scheduleLayoutJob(container, graph, key);
+		}
+	}
+
+	private void applyGraphResults(CompoundDirectedGraph graph, Map<AbstractGraphicalEditPart, Object> partsToNodes) {
 		diagram.applyGraphResults(graph, partsToNodes);
 		diagram.setBoundsOnModel();
 	}
 
+	private void cancelLayoutJob() {
+		if (layoutJob != null) {
+			layoutJob.cancel();
+			layoutJob = null;
+		}
+	}
+
+	/**
+	 * Lays out the graph in the background. Once done, the laid out graph is
+	 * cached and the container revalidated, which applies the cached layout if
+	 * the structure of the diagram hasn't changed in the meantime.
+	 */
+	private void scheduleLayoutJob(final IFigure container, CompoundDirectedGraph graph, String key) {
+		final GraphLayoutJob job = new GraphLayoutJob(graph, key);
+		job.addJobChangeListener(new JobChangeAdapter() {
+			@Override
+			public void done(IJobChangeEvent event) {
+				if (!event.getResult().isOK()) {
+					return;
+				}
+				Display.getDefault().asyncExec(new Runnable() {
+					public void run() {
+						if (layoutJob != job) {
+							return;
+						}
+						layoutJob = null;
+						layoutCache.put(job.getKey(), job.getGraph());
+						if (diagram.isActive()) {
+							container.revalidate();
+						}
+					}
+				});
+			}
+		});
+		layoutJob = job;
+		job.schedule();
+	}
+
 }
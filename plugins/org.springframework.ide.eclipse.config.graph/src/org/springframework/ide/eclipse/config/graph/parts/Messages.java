@@ -24,6 +24,8 @@ public class Messages extends NLS {
 
 	public static String AbstractConfigPaletteFactory_ERROR_CREATING_PALETTE;
 
+	public static String GraphLayoutJob_JOB_NAME;
+
 	public static String StructuredActivityPart_ERROR_OPENING_VIEW;
 	static {
 		// initialize resource bundle
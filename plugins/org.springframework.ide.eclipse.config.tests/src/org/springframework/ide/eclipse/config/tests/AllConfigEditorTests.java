@@ -13,6 +13,7 @@ package org.springframework.ide.eclipse.config.tests;
 import org.springframework.ide.eclipse.config.tests.core.ConfigCoreUtilsTest;
 import org.springframework.ide.eclipse.config.tests.core.contentassist.SpringConfigContentAssistProcessorTest;
 import org.springframework.ide.eclipse.config.tests.graph.AbstractConfigGraphicalEditorTest;
+import org.springframework.ide.eclipse.config.tests.graph.parts.GraphLayoutCacheTest;
 import org.springframework.ide.eclipse.config.tests.ui.actions.CollapseAndExpandNodeActionTest;
 import org.springframework.ide.eclipse.config.tests.ui.actions.InsertAndDeleteNodeActionTest;
 import org.springframework.ide.eclipse.config.tests.ui.actions.RaiseAndLowerNodeActionTest;
@@ -43,6 +44,7 @@ public class AllConfigEditorTests {
 		TestSuite suite = new TestSuite(AllConfigEditorTests.class.getName());
 		suite.addTestSuite(ConfigCoreUtilsTest.class);
 		suite.addTestSuite(AbstractConfigGraphicalEditorTest.class);
+		suite.addTestSuite(GraphLayoutCacheTest.class);
 		suite.addTestSuite(CollapseAndExpandNodeActionTest.class);
 		suite.addTestSuite(InsertAndDeleteNodeActionTest.class);
 		suite.addTestSuite(RaiseAndLowerNodeActionTest.class);
@@ -115,6 +115,25 @@ public class SpringConfigContentAssistProcessorTest extends AbstractConfigTestCa
 		assertFalse(children.contains(WebFlowConfigSchemaConstants.ELEM_FLOW_BUILDER_SERVICES));
 	}
 
+	public void testDocumentationIsCached() throws Exception {
+		cEditor = openFileInEditor("src/beans-config.xml");
+		assertNotNull("Could not open a configuration editor.", cEditor);
+
+		AbstractConfigFormPage page = cEditor.getFormPage(OverviewFormPage.ID);
+		Thread.sleep(StsTestUtil.WAIT_TIME);
+		cEditor.setActivePage(page.getId());
+		assertNotNull("Could not load overview page.", page.getMasterPart());
+
+		TreeViewer treeViewer = (TreeViewer) page.getMasterPart().getViewer();
+		TreeItem root = treeViewer.getTree().getItem(0);
+		IDOMElement node = (IDOMElement) root.getData();
+		SpringConfigContentAssistProcessor xmlProcessor = page.getXmlProcessor();
+
+		String documentation = xmlProcessor.getDocumentation(node);
+		assertTrue(documentation.length() > 0);
+		assertSame(documentation, xmlProcessor.getDocumentation(node));
+	}
+
 	public void testEmptyFileForBeansChildren() throws Exception {
 		cEditor = openFileInEditor("src/empty-beans.xml");
 		assertNotNull("Could not open a configuration editor.", cEditor);
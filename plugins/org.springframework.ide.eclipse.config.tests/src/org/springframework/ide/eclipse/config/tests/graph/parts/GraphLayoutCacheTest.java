@@ -0,0 +1,184 @@
+/*******************************************************************************
+ *  Copyright (c) 2012 VMware, Inc.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.config.tests.graph.parts;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.geometry.Insets;
+import org.eclipse.draw2d.graph.CompoundDirectedGraph;
+import org.eclipse.draw2d.graph.CompoundDirectedGraphLayout;
+import org.eclipse.draw2d.graph.Edge;
+import org.eclipse.draw2d.graph.Node;
+import org.eclipse.draw2d.graph.Subgraph;
+import org.eclipse.gef.editparts.AbstractGraphicalEditPart;
+import org.springframework.ide.eclipse.config.graph.parts.GraphLayoutCache;
+
+/**
+ * @author Leo Dos Santos
+ * @since 3.0.0
+ */
+public class GraphLayoutCacheTest extends TestCase {
+
+	private static final int SUBGRAPH_COUNT = 10;
+
+	private static final int NODE_COUNT = 500;
+
+	private Map<AbstractGraphicalEditPart, Object> partsToNodes;
+
+	@Override
+	protected void setUp() throws Exception {
+		partsToNodes = new HashMap<AbstractGraphicalEditPart, Object>();
+	}
+
+	public void testStructuralKey() {
+		String key = GraphLayoutCache.getStructuralKey(createGraph(1, 50, 5));
+		assertEquals(key, GraphLayoutCache.getStructuralKey(createGraph(1, 50, 5)));
+		assertFalse(key.equals(GraphLayoutCache.getStructuralKey(createGraph(2, 50, 5))));
+
+		CompoundDirectedGraph graph = createGraph(1, 50, 5);
+		graph.nodes.getNode(graph.nodes.size() - 1).width++;
+		assertFalse(key.equals(GraphLayoutCache.getStructuralKey(graph)));
+
+		graph = createGraph(1, 50, 5);
+		graph.edges.add(new Edge(graph.nodes.getNode(graph.nodes.size() - 2), graph.nodes.getNode(graph.nodes
+				.size() - 1)));
+		assertFalse(key.equals(GraphLayoutCache.getStructuralKey(graph)));
+	}
+
+	public void testCache() {
+		GraphLayoutCache cache = new GraphLayoutCache(2);
+		CompoundDirectedGraph graph = createGraph(1, 10, 1);
+		cache.put("1", graph);
+		cache.put("2", createGraph(2, 10, 1));
+		assertSame(graph, cache.get("1"));
+		cache.put("3", createGraph(3, 10, 1));
+		assertSame(graph, cache.get("1"));
+		assertNull(cache.get("2"));
+		assertNotNull(cache.get("3"));
+	}
+
+	public void testCachedLayoutIsStable() {
+		CompoundDirectedGraph laidOutGraph = createGraph(7, NODE_COUNT, SUBGRAPH_COUNT);
+		new CompoundDirectedGraphLayout().visit(laidOutGraph);
+
+		// The layout of a graph with the same structure
+		partsToNodes.clear();
+		CompoundDirectedGraph graph = createGraph(7, NODE_COUNT, SUBGRAPH_COUNT);
+		Map<AbstractGraphicalEditPart, Object> laidOutPartsToNodes = GraphLayoutCache.mapParts(graph,
+				partsToNodes, laidOutGraph);
+		assertEquals(partsToNodes.size(), laidOutPartsToNodes.size());
+
+		new CompoundDirectedGraphLayout().visit(graph);
+		for (Map.Entry<AbstractGraphicalEditPart, Object> entry : partsToNodes.entrySet()) {
+			if (entry.getValue() instanceof Node) {
+				Node node = (Node) entry.getValue();
+				Node laidOutNode = (Node) laidOutPartsToNodes.get(entry.getKey());
+				assertEquals(node.x, laidOutNode.x);
+				assertEquals(node.y, laidOutNode.y);
+				assertEquals(node.width, laidOutNode.width);
+				assertEquals(node.height, laidOutNode.height);
+			}
+			else {
+				Edge edge = (Edge) entry.getValue();
+				Edge laidOutEdge = (Edge) laidOutPartsToNodes.get(entry.getKey());
+				assertEquals(edge.isFeedback(), laidOutEdge.isFeedback());
+				assertEquals(edge.vNodes == null, laidOutEdge.vNodes == null);
+				if (edge.vNodes != null) {
+					assertEquals(edge.vNodes.size(), laidOutEdge.vNodes.size());
+					for (int i = 0; i < edge.vNodes.size(); i++) {
+						assertEquals(edge.vNodes.getNode(i).x, laidOutEdge.vNodes.getNode(i).x);
+						assertEquals(edge.vNodes.getNode(i).y, laidOutEdge.vNodes.getNode(i).y);
+					}
+				}
+			}
+		}
+	}
+
+	public void testCachedLayoutLatency() {
+		GraphLayoutCache cache = new GraphLayoutCache();
+
+		long start = System.nanoTime();
+		CompoundDirectedGraph graph = createGraph(11, NODE_COUNT, SUBGRAPH_COUNT);
+		String key = GraphLayoutCache.getStructuralKey(graph);
+		new CompoundDirectedGraphLayout().visit(graph);
+		cache.put(key, graph);
+		long layoutTime = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		partsToNodes.clear();
+		CompoundDirectedGraph revalidatedGraph = createGraph(11, NODE_COUNT, SUBGRAPH_COUNT);
+		CompoundDirectedGraph laidOutGraph = cache.get(GraphLayoutCache.getStructuralKey(revalidatedGraph));
+		assertSame(graph, laidOutGraph);
+		GraphLayoutCache.mapParts(revalidatedGraph, partsToNodes, laidOutGraph);
+		long cachedTime = System.nanoTime() - start;
+
+		assertTrue(cachedTime < layoutTime);
+	}
+
+	/**
+	 * Creates a graph with the given number of nodes spread over subgraphs,
+	 * connected by random edges that are derived from the given seed.
+	 */
+	private CompoundDirectedGraph createGraph(long seed, int nodeCount, int subgraphCount) {
+		Random random = new Random(seed);
+		CompoundDirectedGraph graph = new CompoundDirectedGraph();
+		List<Subgraph> subgraphs = new ArrayList<Subgraph>();
+		for (int i = 0; i < subgraphCount; i++) {
+			Subgraph subgraph = new Subgraph(new TestPart());
+			subgraph.insets = new Insets(20, 5, 15, 5);
+			subgraph.innerPadding = new Insets(0, 0, 6, 4);
+			subgraphs.add(subgraph);
+			graph.nodes.add(subgraph);
+			partsToNodes.put((AbstractGraphicalEditPart) subgraph.data, subgraph);
+		}
+		List<Node> nodes = new ArrayList<Node>();
+		for (int i = 0; i < nodeCount; i++) {
+			Subgraph parent = (subgraphCount > 0 && random.nextBoolean() ? subgraphs.get(random
+					.nextInt(subgraphCount)) : null);
+			Node node = new Node(new TestPart(), parent);
+			node.width = 40 + random.nextInt(80);
+			node.height = 30 + random.nextInt(20);
+			nodes.add(node);
+			graph.nodes.add(node);
+			partsToNodes.put((AbstractGraphicalEditPart) node.data, node);
+		}
+		for (int i = 1; i < nodeCount; i++) {
+			Node target = nodes.get(i);
+			int edgeCount = 1 + random.nextInt(2);
+			for (int j = 0; j < edgeCount; j++) {
+				Edge edge = new Edge(new TestPart(), nodes.get(random.nextInt(i)), target);
+				graph.edges.add(edge);
+				partsToNodes.put((AbstractGraphicalEditPart) edge.data, edge);
+			}
+		}
+		return graph;
+	}
+
+	private static class TestPart extends AbstractGraphicalEditPart {
+
+		@Override
+		protected void createEditPolicies() {
+		}
+
+		@Override
+		protected IFigure createFigure() {
+			return null;
+		}
+	}
+
+}
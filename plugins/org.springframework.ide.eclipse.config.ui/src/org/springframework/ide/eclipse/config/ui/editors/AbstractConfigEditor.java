@@ -190,10 +190,14 @@ public abstract class AbstractConfigEditor extends FormEditor implements IBeansX
 
 	private final Set<AbstractConfigPropertySection> propertiesPages;
 
+	/** The pages that have not been updated since the model changed */
+	private final Set<IConfigEditorPage> stalePages;
+
 	private boolean isGraphDemo = false;
 
 	public AbstractConfigEditor() {
 		propertiesPages = new HashSet<AbstractConfigPropertySection>();
+		stalePages = new HashSet<IConfigEditorPage>();
 		xmlProcessor = new SpringConfigContentAssistProcessor();
 		headerMessage = new SpringConfigHeaderMessage(this);
 		contentOutline = new SpringConfigContentOutline(this);
@@ -705,18 +709,29 @@ public abstract class AbstractConfigEditor extends FormEditor implements IBeansX
 		setActivePageFromPreference(index, activePage);
 	}
 
+	/**
+	 * Updates the visible page and properties sections. All other pages are
+	 * updated once they become visible.
+	 */
 	private void notifyModelChanged(boolean updateNamespaces) {
-		for (Object obj : pages) {
+		int activePageIndex = getActivePage();
+		for (int i = 0; i < pages.size(); i++) {
+			Object obj = pages.get(i);
 			if (obj instanceof IConfigEditorPage) {
 				IConfigEditorPage page = (IConfigEditorPage) obj;
-				page.modelUpdated();
+				if (i == activePageIndex) {
+					page.modelUpdated();
+				}
+				else {
+					stalePages.add(page);
+				}
 				if (updateNamespaces) {
 					page.namespacesUpdated();
 				}
 			}
 		}
 		for (AbstractConfigPropertySection propertiesPage : propertiesPages) {
-			propertiesPage.refresh();
+			propertiesPage.modelUpdated();
 		}
 	}
 
@@ -725,6 +740,12 @@ public abstract class AbstractConfigEditor extends FormEditor implements IBeansX
 		super.pageChange(newPageIndex);
 		saveActivePagePreference(newPageIndex);
 		updateContentOutline(newPageIndex);
+		if (newPageIndex >= 0 && newPageIndex < pages.size()) {
+			Object page = pages.get(newPageIndex);
+			if (stalePages.remove(page)) {
+				((IConfigEditorPage) page).modelUpdated();
+			}
+		}
 	}
 
 	public void propertyChange(PropertyChangeEvent event) {
@@ -47,10 +47,30 @@ public abstract class AbstractConfigPropertySection extends AbstractPropertySect
 
 	protected Map<IDOMElement, AbstractConfigSectionPart> partMap;
 
+	private boolean visible;
+
+	private boolean stale;
+
 	public AbstractConfigPropertySection() {
 		partMap = new HashMap<IDOMElement, AbstractConfigSectionPart>();
 	}
 
+	@Override
+	public void aboutToBeHidden() {
+		super.aboutToBeHidden();
+		visible = false;
+	}
+
+	@Override
+	public void aboutToBeShown() {
+		super.aboutToBeShown();
+		visible = true;
+		if (stale) {
+			stale = false;
+			refresh();
+		}
+	}
+
 	@Override
 	public void createControls(Composite parent, TabbedPropertySheetPage aTabbedPropertySheetPage) {
 		super.createControls(parent, aTabbedPropertySheetPage);
@@ -79,6 +99,19 @@ public abstract class AbstractConfigPropertySection extends AbstractPropertySect
 		return input;
 	}
 
+	/**
+	 * Refreshes the section if it is visible; otherwise the section is
+	 * refreshed once it is shown again.
+	 */
+	public void modelUpdated() {
+		if (visible) {
+			refresh();
+		}
+		else {
+			stale = true;
+		}
+	}
+
 	@Override
 	public void refresh() {
 		if (input != null) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2008 Spring IDE Developers
+ * Copyright (c) 2007, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,7 @@ package org.springframework.ide.eclipse.core;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.ResourcesPlugin;
@@ -29,10 +30,18 @@ public final class MarkerUtils {
 
 	public static final String ELEMENT_ID_KEY = "elementId";
 
+	/**
+	 * Returns the highest severity of the Spring problem markers of the given <code>resource</code> that are located in
+	 * between <code>startLine</code> and <code>endLine</code>. For {@link IFile files} the lookup is answered by an
+	 * index of the file's markers.
+	 */
 	public static int getHighestSeverityFromMarkersInRange(IResource resource, int startLine,
 			int endLine) {
 		int severity = -1;
-		if (resource != null) {
+		if (resource instanceof IFile && SpringCore.getMarkerSeverityIndex() != null) {
+			severity = SpringCore.getMarkerSeverityIndex().getHighestSeverity((IFile) resource, startLine, endLine);
+		}
+		else if (resource != null) {
 			for (IMarker marker : getAllMarkersInRange(resource, startLine, endLine)) {
 				int sev = marker.getAttribute(IMarker.SEVERITY, -1);
 				if (sev == IMarker.SEVERITY_WARNING) {
@@ -75,6 +84,55 @@ public final class MarkerUtils {
 		return false;
 	}
 
+	/**
+	 * Returns all {@link IMarker markers} with the given id (including the
+	 * inherited ones) that have been created elsewhere in the workspace but
+	 * originate from the given {@link IResource}; these are the markers that
+	 * {@link #deleteAllMarkers(IResource, String)} removes.
+	 * @since 3.0.0
+	 */
+	public static Set<IMarker> findAllMarkers(IResource resource, String id) {
+		Set<IMarker> foundMarkers = new HashSet<IMarker>();
+		if (resource != null && resource.isAccessible()) {
+			try {
+				String originatingResourceValue = resource.getFullPath().toString();
+				IMarker[] markers = ResourcesPlugin.getWorkspace().getRoot().findMarkers(id, true,
+						IResource.DEPTH_INFINITE);
+				for (IMarker marker : markers) {
+					if (originatingResourceValue.equals(marker
+							.getAttribute(ORIGINATING_RESOURCE_KEY))) {
+						foundMarkers.add(marker);
+					}
+				}
+			}
+			catch (CoreException e) {
+				SpringCore.log(e);
+			}
+		}
+		return foundMarkers;
+	}
+
+	/**
+	 * Returns all {@link IMarker markers} with the given id (including the
+	 * inherited ones) of the given {@link IResource} and it's members; these
+	 * are the markers that {@link #deleteMarkers(IResource, String)} removes.
+	 * @since 3.0.0
+	 */
+	public static Set<IMarker> findMarkers(IResource resource, String id) {
+		Set<IMarker> foundMarkers = new HashSet<IMarker>();
+		if (resource != null && resource.isAccessible()) {
+			try {
+				for (IMarker marker : resource.findMarkers(id, true, IResource.DEPTH_INFINITE)) {
+					foundMarkers.add(marker);
+				}
+			}
+			catch (CoreException e) {
+				SpringCore.log(e);
+			}
+		}
+		return foundMarkers;
+	}
+
 	/**
 	 * Removes all {@link IMarker markers} with the given id (including the
 	 * inherited ones) from given {@link IResource} and it's members that if the
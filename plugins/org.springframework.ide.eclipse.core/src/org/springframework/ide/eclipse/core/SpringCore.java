@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2010 Spring IDE Developers
+ * Copyright (c) 2005, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,9 +22,13 @@ import org.eclipse.core.runtime.Plugin;
 import org.eclipse.core.runtime.Status;
 import org.osgi.framework.BundleContext;
 import org.springframework.ide.eclipse.core.internal.model.SpringModel;
+import org.springframework.ide.eclipse.core.internal.model.resources.MarkerSeverityIndex;
 import org.springframework.ide.eclipse.core.java.ITypeStructureCache;
 import org.springframework.ide.eclipse.core.java.TypeStructureCache;
 import org.springframework.ide.eclipse.core.model.ISpringModel;
+import org.springframework.ide.eclipse.core.project.BuildProfileManager;
+import org.springframework.ide.eclipse.core.type.asm.CachingClassReaderFactory;
+import org.springframework.ide.eclipse.core.type.asm.ClassReaderCache;
 
 /**
  * Central access point for the Spring IDE core plug-in (id <code>"org.springframework.ide.eclipse.core"</code>).
@@ -69,6 +73,9 @@ public class SpringCore extends Plugin {
 	/** Temporally setting to enable or disable the use of XBean's non-locking classloader infrastructure */
 	public static final String USE_NON_LOCKING_CLASSLOADER = PLUGIN_ID + ".useNonLockingClassLoader";
 
+	/** Setting to enable or disable the validation of affected resources on multiple threads */
+	public static final String USE_PARALLEL_VALIDATION = PLUGIN_ID + ".useParallelValidation";
+
 	/** The shared instance */
 	private static SpringCore plugin;
 
@@ -80,6 +87,12 @@ public class SpringCore extends Plugin {
 
 	private static TypeStructureCache typeStructureCache;
 
+	private static MarkerSeverityIndex markerSeverityIndex;
+
+	private static BuildProfileManager buildProfileManager;
+
+	private static ClassReaderCache classReaderCache;
+
 	/**
 	 * Creates the Spring core plug-in.
 	 * <p>
@@ -89,6 +102,9 @@ public class SpringCore extends Plugin {
 		plugin = this;
 		model = new SpringModel();
 		typeStructureCache = new TypeStructureCache();
+		markerSeverityIndex = new MarkerSeverityIndex();
+		buildProfileManager = new BuildProfileManager();
+		classReaderCache = new ClassReaderCache();
 		try {
 			resourceBundle = ResourceBundle.getBundle(RESOURCE_NAME);
 		}
@@ -102,16 +118,24 @@ public class SpringCore extends Plugin {
 		super.start(context);
 		model.startup();
 		typeStructureCache.startup();
+		markerSeverityIndex.startup();
+		typeStructureCache.addTypeStructureChangeListener(classReaderCache);
 		// install default for incremtal compilation
 		plugin.getPluginPreferences().setDefault(USE_CHANGE_DETECTION_IN_JAVA_FILES, true);
 		// non.locking classloader is not enabled by default
 		plugin.getPluginPreferences().setDefault(USE_NON_LOCKING_CLASSLOADER, false);
+		// parallel validation runs third-party rules on multiple threads; therefore it is not enabled by default
+		plugin.getPluginPreferences().setDefault(USE_PARALLEL_VALIDATION, false);
 	}
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
 		model.shutdown();
+		typeStructureCache.removeTypeStructureChangeListener(classReaderCache);
 		typeStructureCache.shutdown();
+		markerSeverityIndex.shutdown();
+		buildProfileManager.clear();
+		classReaderCache.clear();
 		super.stop(context);
 	}
 
@@ -133,6 +157,30 @@ public class SpringCore extends Plugin {
 		return typeStructureCache;
 	}
 
+	/**
+	 * Returns the {@link MarkerSeverityIndex} used by {@link MarkerUtils}.
+	 * @since 3.0.0
+	 */
+	static MarkerSeverityIndex getMarkerSeverityIndex() {
+		return markerSeverityIndex;
+	}
+
+	/**
+	 * Returns the {@link BuildProfileManager} holding the timings of the last Spring build of every project.
+	 * @since 3.0.0
+	 */
+	public static BuildProfileManager getBuildProfileManager() {
+		return buildProfileManager;
+	}
+
+	/**
+	 * Returns the {@link ClassReaderCache} shared by all {@link CachingClassReaderFactory} instances.
+	 * @since 3.0.0
+	 */
+	public static ClassReaderCache getClassReaderCache() {
+		return classReaderCache;
+	}
+
 	/**
 	 * Returns the workspace instance.
 	 */
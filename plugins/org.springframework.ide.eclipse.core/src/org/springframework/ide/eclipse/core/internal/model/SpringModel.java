@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 Spring IDE Developers
+ * Copyright (c) 2007, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -63,6 +63,11 @@ public class SpringModel extends AbstractModel implements ISpringModel {
 	 */
 	protected Map<IProject, ISpringProject> projects;
 
+	/**
+	 * The Spring projects keyed by their element ids
+	 */
+	private final Map<String, ISpringProject> projectsById = new ConcurrentHashMap<String, ISpringProject>();
+
 	private IResourceChangeListener workspaceListener;
 
 	private IElementChangedListener classpathListener;
@@ -72,6 +77,20 @@ public class SpringModel extends AbstractModel implements ISpringModel {
 		projects = new ConcurrentHashMap<IProject, ISpringProject>();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Spring projects are looked up by their element ids directly.
+	 */
+	@Override
+	public IModelElement getElement(String id) {
+		ISpringProject project = projectsById.get(id);
+		if (project != null) {
+			return project;
+		}
+		return super.getElement(id);
+	}
+
 	@Override
 	public IModelElement[] getElementChildren() {
 		try {
@@ -89,9 +108,9 @@ public class SpringModel extends AbstractModel implements ISpringModel {
 			w.lock();
 			// Load all projects
 			projects.clear();
+			projectsById.clear();
 			for (IProject project : SpringCoreUtils.getSpringProjects()) {
-				ISpringProject proj = new SpringProject(this, project);
-				projects.put(project, proj);
+				addProject(new SpringProject(this, project));
 			}
 		}
 		finally {
@@ -121,12 +140,26 @@ public class SpringModel extends AbstractModel implements ISpringModel {
 			w.lock();
 			// Remove all projects
 			projects.clear();
+			projectsById.clear();
 		}
 		finally {
 			w.unlock();
 		}
 	}
 
+	private void addProject(ISpringProject project) {
+		projects.put(project.getProject(), project);
+		projectsById.put(project.getElementID(), project);
+	}
+
+	private ISpringProject removeProject(IProject project) {
+		ISpringProject proj = projects.remove(project);
+		if (proj != null) {
+			projectsById.remove(proj.getElementID());
+		}
+		return proj;
+	}
+
 	public boolean hasProject(IProject project) {
 		try {
 			r.lock();
@@ -214,7 +247,7 @@ public class SpringModel extends AbstractModel implements ISpringModel {
 				ISpringProject proj = new SpringProject(SpringModel.this, project);
 				try {
 					w.lock();
-					projects.put(project, proj);
+					addProject(proj);
 				}
 				finally {
 					w.unlock();
@@ -231,7 +264,7 @@ public class SpringModel extends AbstractModel implements ISpringModel {
 				ISpringProject proj = null;
 				try {
 					w.lock();
-					proj = projects.remove(project);
+					proj = removeProject(project);
 				}
 				finally {
 					w.unlock();
@@ -251,7 +284,7 @@ public class SpringModel extends AbstractModel implements ISpringModel {
 				ISpringProject proj = new SpringProject(SpringModel.this, project);
 				try {
 					w.lock();
-					projects.put(project, proj);
+					addProject(proj);
 				}
 				finally {
 					w.unlock();
@@ -265,7 +298,7 @@ public class SpringModel extends AbstractModel implements ISpringModel {
 				ISpringProject proj = new SpringProject(SpringModel.this, project);
 				try {
 					w.lock();
-					projects.put(project, proj);
+					addProject(proj);
 				}
 				finally {
 					w.unlock();
@@ -278,7 +311,7 @@ public class SpringModel extends AbstractModel implements ISpringModel {
 			ISpringProject proj = null;
 			try {
 				w.lock();
-				proj = projects.remove(project);
+				proj = removeProject(project);
 			}
 			finally {
 				w.unlock();
@@ -292,7 +325,7 @@ public class SpringModel extends AbstractModel implements ISpringModel {
 			ISpringProject proj = null;
 			try {
 				w.lock();
-				proj = projects.remove(project);
+				proj = removeProject(project);
 			}
 			finally {
 				w.unlock();
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.internal.model.resources;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IMarkerDelta;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.springframework.ide.eclipse.core.MarkerUtils;
+import org.springframework.ide.eclipse.core.SpringCore;
+
+/**
+ * Per-file index of the line numbers of Spring problem markers grouped by severity.
+ * <p>
+ * The index answers {@link MarkerUtils#getHighestSeverityFromMarkersInRange(IResource, int, int)} with binary searches
+ * over sorted line arrays instead of scanning all markers of a resource for every decorated element. Entries are
+ * created lazily and discarded once a marker delta for the file is reported.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+public class MarkerSeverityIndex {
+
+	private final Map<IFile, FileMarkerSeverities> severitiesByFile = new ConcurrentHashMap<IFile, FileMarkerSeverities>();
+
+	/** Incremented on every marker change to prevent stale entries from being cached */
+	private final AtomicLong generation = new AtomicLong();
+
+	private IResourceChangeListener changeListener = null;
+
+	public void startup() {
+		changeListener = new MarkerDeltaResourceChangeListener();
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(changeListener, IResourceChangeEvent.POST_CHANGE);
+	}
+
+	public void shutdown() {
+		if (changeListener != null) {
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(changeListener);
+			changeListener = null;
+		}
+		severitiesByFile.clear();
+	}
+
+	/**
+	 * Returns the highest severity of the Spring problem markers of the given <code>file</code> that are located in
+	 * between <code>startLine</code> and <code>endLine</code>. If <code>startLine</code> is <code>-1</code> all markers
+	 * of the file are considered.
+	 * @return {@link IMarker#SEVERITY_ERROR}, {@link IMarker#SEVERITY_WARNING} or <code>-1</code>
+	 */
+	public int getHighestSeverity(IFile file, int startLine, int endLine) {
+		FileMarkerSeverities severities = getSeverities(file);
+		if (severities == null) {
+			return -1;
+		}
+		if (startLine == -1) {
+			return severities.highestSeverity;
+		}
+		if (startLine < 0 || endLine < startLine) {
+			return -1;
+		}
+		if (containsLineInRange(severities.errorLines, startLine, endLine)) {
+			return IMarker.SEVERITY_ERROR;
+		}
+		if (containsLineInRange(severities.warningLines, startLine, endLine)) {
+			return IMarker.SEVERITY_WARNING;
+		}
+		return -1;
+	}
+
+	private FileMarkerSeverities getSeverities(IFile file) {
+		if (!file.isAccessible()) {
+			severitiesByFile.remove(file);
+			return null;
+		}
+		FileMarkerSeverities severities = severitiesByFile.get(file);
+		if (severities == null) {
+			long currentGeneration = generation.get();
+			try {
+				severities = new FileMarkerSeverities(file.findMarkers(SpringCore.MARKER_ID, true,
+						IResource.DEPTH_ZERO));
+			}
+			catch (CoreException e) {
+				return null;
+			}
+			// Only cache if no marker changed while reading the markers
+			if (currentGeneration == generation.get()) {
+				severitiesByFile.put(file, severities);
+			}
+		}
+		return severities;
+	}
+
+	private static boolean containsLineInRange(int[] lines, int startLine, int endLine) {
+		int index = Arrays.binarySearch(lines, startLine);
+		if (index >= 0) {
+			return true;
+		}
+		int insertionPoint = -(index + 1);
+		return insertionPoint < lines.length && lines[insertionPoint] <= endLine;
+	}
+
+	/**
+	 * Sorted line numbers of error and warning markers of a single file.
+	 */
+	private static class FileMarkerSeverities {
+
+		private final int[] errorLines;
+
+		private final int[] warningLines;
+
+		private final int highestSeverity;
+
+		public FileMarkerSeverities(IMarker[] markers) throws CoreException {
+			int[] errors = new int[markers.length];
+			int[] warnings = new int[markers.length];
+			int errorCount = 0;
+			int warningCount = 0;
+			int highest = -1;
+			for (IMarker marker : markers) {
+				int severity = marker.getAttribute(IMarker.SEVERITY, -1);
+				if (severity == IMarker.SEVERITY_ERROR) {
+					highest = IMarker.SEVERITY_ERROR;
+				}
+				else if (severity == IMarker.SEVERITY_WARNING) {
+					highest = Math.max(highest, IMarker.SEVERITY_WARNING);
+				}
+				else {
+					continue;
+				}
+
+				int line = marker.getAttribute(IMarker.LINE_NUMBER, -1);
+				if (line < 0 || !marker.isSubtypeOf(IMarker.TEXT)) {
+					continue;
+				}
+				if (severity == IMarker.SEVERITY_ERROR) {
+					errors[errorCount++] = line;
+				}
+				else {
+					warnings[warningCount++] = line;
+				}
+			}
+			this.errorLines = sort(errors, errorCount);
+			this.warningLines = sort(warnings, warningCount);
+			this.highestSeverity = highest;
+		}
+
+		private static int[] sort(int[] lines, int count) {
+			int[] sortedLines = new int[count];
+			System.arraycopy(lines, 0, sortedLines, 0, count);
+			Arrays.sort(sortedLines);
+			return sortedLines;
+		}
+	}
+
+	/**
+	 * {@link IResourceChangeListener} that discards the index entries of files with changed Spring problem markers.
+	 */
+	private class MarkerDeltaResourceChangeListener implements IResourceChangeListener {
+
+		public void resourceChanged(IResourceChangeEvent event) {
+			IMarkerDelta[] deltas = event.findMarkerDeltas(SpringCore.MARKER_ID, true);
+			if (deltas.length > 0) {
+				generation.incrementAndGet();
+				for (IMarkerDelta delta : deltas) {
+					severitiesByFile.remove(delta.getResource());
+				}
+			}
+		}
+	}
+
+}
@@ -114,7 +114,7 @@ public class ValidationRuleDefinition extends PersistablePreferenceObjectSupport
 		return ENABLEMENT_PREFIX + id;
 	}
 
-	public IValidationRule getRule() {
+	public synchronized IValidationRule getRule() {
 		if (propertyValues.size() > 0 && !rulePropertiesInitialized) {
 			BeanWrapper wrapper = new BeanWrapperImpl(rule);
 			for (Map.Entry<String, String> entry : propertyValues.entrySet()) {
@@ -134,6 +134,15 @@ public class ValidationRuleDefinition extends PersistablePreferenceObjectSupport
 		return validatorId;
 	}
 
+	/**
+	 * Returns <code>true</code> if the validator should record the time spent in the rule of this definition. Rules
+	 * that record the times of the rules they delegate to themselves are not recorded again.
+	 * @since 3.0.0
+	 */
+	public boolean isProfiled() {
+		return true;
+	}
+
 	private void init(IConfigurationElement element) throws CoreException {
 		Object executable = element.createExecutableExtension(CLASS_ATTRIBUTE);
 		if (executable instanceof IValidationRule) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 Spring IDE Developers
+ * Copyright (c) 2007, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -28,10 +28,12 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.SubProgressMonitor;
+import org.springframework.ide.eclipse.core.SpringCore;
 import org.springframework.ide.eclipse.core.SpringCoreUtils;
 import org.springframework.ide.eclipse.core.internal.model.validation.ValidatorDefinition;
 import org.springframework.ide.eclipse.core.internal.model.validation.ValidatorDefinitionFactory;
 import org.springframework.ide.eclipse.core.model.validation.IValidator;
+import org.springframework.ide.eclipse.core.project.BuildProfile;
 import org.springframework.ide.eclipse.core.project.DefaultProjectContributorState;
 import org.springframework.ide.eclipse.core.project.IProjectBuilder;
 import org.springframework.ide.eclipse.core.project.IProjectContributionEventListener;
@@ -54,6 +56,9 @@ import org.springframework.ide.eclipse.core.project.ProjectContributionEventList
  * <p>
  * {@link IProjectBuilder} or {@link IValidator} implementations that want to access the state should implement the
  * {@link IProjectContributorStateAware} interface to a call back with the current state.
+ * <p>
+ * If build profiling is enabled the time spent in every contributor is recorded in a {@link BuildProfile} that is held
+ * by the state.
  * @author Torsten Juergeleit
  * @author Christian Dupuis
  * @since 2.0
@@ -79,6 +84,11 @@ public class SpringProjectContributionManager extends IncrementalProjectBuilder
 
 		// Set up the state object
 		final IProjectContributorState state = prepareState(project, builderDefinitions, validatorDefinitions);
+		final BuildProfile profile = (SpringCore.getBuildProfileManager().isEnabled() ? new BuildProfile(project,
+				kind) : null);
+		if (profile != null) {
+			state.hold(profile);
+		}
 
 		// Fire start event on listeners
 		for (final IProjectContributionEventListener listener : listeners) {
@@ -96,7 +106,7 @@ public class SpringProjectContributionManager extends IncrementalProjectBuilder
 			if (builderDefinition.isEnabled(project)) {
 				Set<IResource> affectedResources = getAffectedResources(builderDefinition.getProjectBuilder(), project,
 						kind, delta);
-				runBuilder(builderDefinition, affectedResources, kind, monitor, listeners);
+				runBuilder(builderDefinition, affectedResources, kind, monitor, listeners, profile);
 			}
 		}
 
@@ -105,7 +115,7 @@ public class SpringProjectContributionManager extends IncrementalProjectBuilder
 			if (validatorDefinition.isEnabled(project)) {
 				Set<IResource> affectedResources = getAffectedResources(validatorDefinition.getValidator(), project,
 						kind, delta);
-				runValidator(validatorDefinition, affectedResources, kind, monitor, listeners);
+				runValidator(validatorDefinition, affectedResources, kind, monitor, listeners, profile);
 			}
 		}
 
@@ -119,6 +129,11 @@ public class SpringProjectContributionManager extends IncrementalProjectBuilder
 			}, monitor);
 		}
 
+		if (profile != null) {
+			profile.finish();
+			SpringCore.getBuildProfileManager().buildFinished(profile);
+		}
+
 		return null;
 	}
 
@@ -177,7 +192,8 @@ public class SpringProjectContributionManager extends IncrementalProjectBuilder
 	 * Runs all given {@link IProjectBuilder} in the order as they are given in the set.
 	 */
 	private void runBuilder(final ProjectBuilderDefinition builderDefinition, final Set<IResource> affectedResources,
-			final int kind, IProgressMonitor monitor, final List<IProjectContributionEventListener> listeners) {
+			final int kind, IProgressMonitor monitor, final List<IProjectContributionEventListener> listeners,
+			BuildProfile profile) {
 		
 		for (final IProjectContributionEventListener listener : listeners) {
 
@@ -192,12 +208,16 @@ public class SpringProjectContributionManager extends IncrementalProjectBuilder
 
 		}
 
+		long start = System.nanoTime();
 		execute(new SafeExecutableWithMonitor() {
 
 			public void execute(IProgressMonitor subMonitor) throws Exception {
 				builderDefinition.getProjectBuilder().build(affectedResources, kind, subMonitor);
 			}
 		}, monitor);
+		if (profile != null) {
+			profile.recordContributor(builderDefinition.getId(), System.nanoTime() - start);
+		}
 
 		for (final IProjectContributionEventListener listener : listeners) {
 			
@@ -217,7 +237,8 @@ public class SpringProjectContributionManager extends IncrementalProjectBuilder
 	 * Runs all given {@link IValidator} in the order as they are given in the set.
 	 */
 	private void runValidator(final ValidatorDefinition validatorDefinition, final Set<IResource> affectedResources,
-			final int kind, IProgressMonitor monitor, List<IProjectContributionEventListener> listeners) {
+			final int kind, IProgressMonitor monitor, List<IProjectContributionEventListener> listeners,
+			BuildProfile profile) {
 
 		for (final IProjectContributionEventListener listener : listeners) {
 
@@ -232,12 +253,16 @@ public class SpringProjectContributionManager extends IncrementalProjectBuilder
 
 		}
 
+		long start = System.nanoTime();
 		execute(new SafeExecutableWithMonitor() {
 
 			public void execute(IProgressMonitor subMonitor) throws Exception {
 				validatorDefinition.getValidator().validate(affectedResources, kind, subMonitor);
 			}
 		}, monitor);
+		if (profile != null) {
+			profile.recordContributor(validatorDefinition.getID(), System.nanoTime() - start);
+		}
 
 		for (final IProjectContributionEventListener listener : listeners) {
 			
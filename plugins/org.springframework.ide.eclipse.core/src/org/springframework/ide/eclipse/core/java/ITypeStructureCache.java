@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2009 Spring IDE Developers
+ * Copyright (c) 2008, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -58,4 +58,18 @@ public interface ITypeStructureCache {
 	 */
 	void clearStateForProject(IProject project);
 
+	/**
+	 * Registers the given <code>listener</code> to get notified about recorded and cleared type structures.
+	 * @param listener the listener to add
+	 * @since 3.0.0
+	 */
+	void addTypeStructureChangeListener(ITypeStructureChangeListener listener);
+
+	/**
+	 * Unregisters the given <code>listener</code>.
+	 * @param listener the listener to remove
+	 * @since 3.0.0
+	 */
+	void removeTypeStructureChangeListener(ITypeStructureChangeListener listener);
+
 }
@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+
+/**
+ * Listener interface to get notified about changes recorded by an {@link ITypeStructureCache}.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ * @see ITypeStructureCache#addTypeStructureChangeListener(ITypeStructureChangeListener)
+ */
+public interface ITypeStructureChangeListener {
+
+	/**
+	 * Notifies that the type structures of the given class file <code>resources</code> have been recorded.
+	 * @param project the project the resources belong to
+	 * @param resources the changed class files
+	 */
+	void typeStructuresRecorded(IProject project, IResource... resources);
+
+	/**
+	 * Notifies that all recorded type structures of the given <code>project</code> have been cleared.
+	 * @param project the cleared project
+	 */
+	void typeStructuresCleared(IProject project);
+
+}
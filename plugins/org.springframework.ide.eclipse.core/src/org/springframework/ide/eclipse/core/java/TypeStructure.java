@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2009 Spring IDE Developers
+ * Copyright (c) 2008, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -76,6 +76,9 @@ class TypeStructure implements IBinaryType {
 
 	IBinaryAnnotation[] annotations;
 
+	// the class file without method bodies and debug information; saved to restore the structure in a later session
+	byte[] structure;
+
 	public TypeStructure(ClassFileReader cfr) {
 
 		this.enclosingTypeName = cfr.getEnclosingTypeName();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2011 Spring IDE Developers
+ * Copyright (c) 2008, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,13 +12,16 @@ package org.springframework.ide.eclipse.core.java;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -27,8 +30,11 @@ import org.eclipse.core.resources.IPathVariableManager;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.ResourcesPlugin;
-import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.ElementChangedEvent;
 import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.ICompilationUnit;
@@ -59,6 +65,10 @@ import org.springframework.ide.eclipse.core.SpringCoreUtils;
  * {@link IResource} which represents a class file has structural changes.
  * <p>
  * For this implementation a change of class and method level annotation is considered a structural change.
+ * <p>
+ * Recorded type structures are saved to the plug-in state location shortly after they change and on shutdown. They
+ * are restored lazily on first use of a project so that the first build after a restart can still detect
+ * non-structural changes.
  * 
  * @author Christian Dupuis
  * @author Martin Lippert
@@ -69,6 +79,11 @@ public class TypeStructureCache implements ITypeStructureCache {
 
 	private static final char[][] EMPTY_CHAR_ARRAY = new char[0][];
 
+	/** Delay in milliseconds before changed type structures get saved; coalesces saves of subsequent builds */
+	private static final long SAVE_DELAY = 5000;
+
+	private static final String STATE_FOLDER_NAME = "typestructures";
+
 	private IElementChangedListener changedListener = null;
 
 	/** {@link TypeStructure} instances keyed by full-qualified class names */
@@ -80,15 +95,38 @@ public class TypeStructureCache implements ITypeStructureCache {
 
 	protected final Lock w = rwl.writeLock();
 
+	private final List<ITypeStructureChangeListener> listeners = new CopyOnWriteArrayList<ITypeStructureChangeListener>();
+
+	/** Projects whose saved type structures have already been restored or have been replaced by recorded ones */
+	private final Set<IProject> loadedProjects = Collections.synchronizedSet(new HashSet<IProject>());
+
+	/** Projects whose type structures have changed since they have been saved */
+	private final Set<IProject> dirtyProjects = Collections.synchronizedSet(new HashSet<IProject>());
+
+	private final Object saveMonitor = new Object();
+
+	private volatile TypeStructurePersistence persistence = null;
+
+	private volatile Job saveJob = null;
+
 	public void startup() {
 		changedListener = new TypeRemovingJavaElementChangeListener();
 		JavaCore.addElementChangedListener(changedListener);
+		persistence = new TypeStructurePersistence(SpringCore.getDefault().getStateLocation()
+				.append(STATE_FOLDER_NAME).toFile());
+		saveJob = new TypeStructureSavingJob();
 	}
 
 	public void shutdown() {
 		JavaCore.removeElementChangedListener(changedListener);
 		changedListener = null;
-		typeStructuresByProject = null;
+		saveJob.cancel();
+		saveDirtyProjects();
+		synchronized (saveMonitor) {
+			saveJob = null;
+			persistence = null;
+			typeStructuresByProject = null;
+		}
 	}
 
 	/**
@@ -98,16 +136,23 @@ public class TypeStructureCache implements ITypeStructureCache {
 		try {
 			w.lock();
 			typeStructuresByProject.remove(project);
+			// don't let a lazy load bring back the cleared state
+			loadedProjects.add(project);
 		}
 		finally {
 			w.unlock();
 		}
+		scheduleSave(project);
+		for (ITypeStructureChangeListener listener : listeners) {
+			listener.typeStructuresCleared(project);
+		}
 	}
 
 	/**
 	 * Checks if {@link TypeStructure} instances exist for a given project.
 	 */
 	public boolean hasRecordedTypeStructures(IProject project) {
+		loadTypeStructures(project);
 		try {
 			r.lock();
 			return typeStructuresByProject.containsKey(project);
@@ -121,6 +166,7 @@ public class TypeStructureCache implements ITypeStructureCache {
 	 * Record {@link TypeStructure} instances of the given <code>resources</code>.
 	 */
 	public void recordTypeStructures(IProject project, IResource... resources) {
+		loadTypeStructures(project);
 		try {
 			w.lock();
 			Map<String, TypeStructure> typeStructures = null;
@@ -134,27 +180,9 @@ public class TypeStructureCache implements ITypeStructureCache {
 
 			for (IResource resource : resources) {
 				if (resource.getFileExtension().equals("class") && resource instanceof IFile) {
-					InputStream input = null;
-					try {
-						input = ((IFile) resource).getContents();
-						ClassFileReader reader = ClassFileReader.read(input, resource.getName());
-						TypeStructure typeStructure = new TypeStructure(reader);
-						typeStructures.put(new String(reader.getName()).replace('/', '.'), typeStructure);
-					}
-					catch (CoreException e) {
-					}
-					catch (ClassFormatException e) {
-					}
-					catch (IOException e) {
-					}
-					finally {
-						if (input != null) {
-							try {
-								input.close();
-							}
-							catch (IOException e) {
-							}
-						}
+					TypeStructure typeStructure = TypeStructurePersistence.readTypeStructure((IFile) resource);
+					if (typeStructure != null) {
+						typeStructures.put(new String(typeStructure.getName()).replace('/', '.'), typeStructure);
 					}
 				}
 			}
@@ -162,15 +190,29 @@ public class TypeStructureCache implements ITypeStructureCache {
 		finally {
 			w.unlock();
 		}
+		scheduleSave(project);
+		for (ITypeStructureChangeListener listener : listeners) {
+			listener.typeStructuresRecorded(project, resources);
+		}
+	}
+
+	public void addTypeStructureChangeListener(ITypeStructureChangeListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeTypeStructureChangeListener(ITypeStructureChangeListener listener) {
+		listeners.remove(listener);
 	}
 
 	/**
 	 * Check if a given {@link IResource} representing a class file has structural changes.
 	 */
 	public boolean hasStructuralChanges(IResource resource, int flags) {
+		// restore saved state before acquiring the read lock as the lock can't be upgraded
+		loadTypeStructures(resource.getProject());
 		try {
 			r.lock();
-			if (!hasRecordedTypeStructures(resource.getProject())) {
+			if (!typeStructuresByProject.containsKey(resource.getProject())) {
 				return true;
 			}
 
@@ -216,7 +258,7 @@ public class TypeStructureCache implements ITypeStructureCache {
 	protected void removeRecordedTyeStructures(IProject project, String className) {
 		try {
 			w.lock();
-			if (!hasRecordedTypeStructures(project)) {
+			if (!typeStructuresByProject.containsKey(project)) {
 				return;
 			}
 
@@ -232,12 +274,82 @@ public class TypeStructureCache implements ITypeStructureCache {
 			for (String recordedClassName : typeStructuresToRemove) {
 				typeStructures.remove(recordedClassName);
 			}
+			if (typeStructuresToRemove.size() > 0) {
+				scheduleSave(project);
+			}
 		}
 		finally {
 			w.unlock();
 		}
 	}
 
+	/**
+	 * Restores the saved {@link TypeStructure}s of the given <code>project</code> once per session. Must not be
+	 * called while holding the read lock.
+	 */
+	private void loadTypeStructures(IProject project) {
+		if (persistence == null || loadedProjects.contains(project)) {
+			return;
+		}
+		try {
+			w.lock();
+			if (!loadedProjects.add(project) || typeStructuresByProject.containsKey(project)) {
+				return;
+			}
+			Map<String, TypeStructure> typeStructures = persistence.load(project);
+			if (typeStructures != null) {
+				typeStructuresByProject.put(project, typeStructures);
+			}
+		}
+		finally {
+			w.unlock();
+		}
+	}
+
+	private void scheduleSave(IProject project) {
+		Job job = saveJob;
+		if (job != null) {
+			dirtyProjects.add(project);
+			job.schedule(SAVE_DELAY);
+		}
+	}
+
+	/**
+	 * Saves the {@link TypeStructure}s of all projects that have changed since they have been saved last.
+	 */
+	private void saveDirtyProjects() {
+		synchronized (saveMonitor) {
+			if (persistence == null) {
+				return;
+			}
+			List<IProject> projects = null;
+			synchronized (dirtyProjects) {
+				projects = new ArrayList<IProject>(dirtyProjects);
+				dirtyProjects.clear();
+			}
+			for (IProject project : projects) {
+				List<TypeStructure> typeStructures = null;
+				try {
+					r.lock();
+					Map<String, TypeStructure> recordedTypeStructures = typeStructuresByProject.get(project);
+					if (recordedTypeStructures != null) {
+						typeStructures = new ArrayList<TypeStructure>(recordedTypeStructures.values());
+					}
+				}
+				finally {
+					r.unlock();
+				}
+
+				if (typeStructures == null || !project.exists()) {
+					persistence.delete(project);
+				}
+				else {
+					persistence.save(project, typeStructures);
+				}
+			}
+		}
+	}
+
 	private static ClassFileReader getClassFileReaderForClassName(String className, IProject project)
 			throws JavaModelException, MalformedURLException {
 		IJavaProject jp = JavaCore.create(project);
@@ -570,6 +682,24 @@ public class TypeStructureCache implements ITypeStructureCache {
 		return (eclipseModifiers == resolvedTypeModifiers);
 	}
 
+	/**
+	 * Background job that saves changed {@link TypeStructure}s.
+	 */
+	private class TypeStructureSavingJob extends Job {
+
+		public TypeStructureSavingJob() {
+			super("Saving type structures");
+			setSystem(true);
+			setPriority(Job.DECORATE);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			saveDirtyProjects();
+			return Status.OK_STATUS;
+		}
+	}
+
 	private class TypeRemovingJavaElementChangeListener implements IElementChangedListener {
 
 		public void elementChanged(ElementChangedEvent event) {
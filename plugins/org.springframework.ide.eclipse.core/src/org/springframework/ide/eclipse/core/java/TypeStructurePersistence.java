@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFormatException;
+import org.objectweb.asm.ClassAdapter;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodAdapter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.commons.EmptyVisitor;
+import org.springframework.ide.eclipse.core.SpringCore;
+
+/**
+ * Saves and restores the {@link TypeStructure}s of a project to and from a file in the state location of the Spring
+ * core plug-in.
+ * <p>
+ * The recorded class file itself is stored without method bodies and debug information. This keeps everything the
+ * {@link TypeStructureCache} compares (modifiers, super types, fields, method signatures and annotations), so that a
+ * class file that has been recompiled since without structural changes isn't reported as changed after a restart.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+@SuppressWarnings("restriction")
+class TypeStructurePersistence {
+
+	private static final int VERSION = 2;
+
+	private static final String FILE_EXTENSION = ".dat";
+
+	private final File directory;
+
+	public TypeStructurePersistence(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Writes the given <code>typeStructures</code> of the given <code>project</code>.
+	 */
+	public void save(IProject project, Collection<TypeStructure> typeStructures) {
+		if (!directory.exists() && !directory.mkdirs()) {
+			return;
+		}
+		File file = getFile(project);
+		DataOutputStream output = null;
+		try {
+			output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			output.writeInt(VERSION);
+			output.writeInt(typeStructures.size());
+			for (TypeStructure typeStructure : typeStructures) {
+				output.writeUTF(new String(typeStructure.fileName));
+				output.writeInt(typeStructure.structure.length);
+				output.write(typeStructure.structure);
+			}
+		}
+		catch (IOException e) {
+			SpringCore.log("Cannot save type structures of project '" + project.getName() + "'", e);
+			file.delete();
+		}
+		finally {
+			if (output != null) {
+				try {
+					output.close();
+				}
+				catch (IOException e) {
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the {@link TypeStructure}s of the given <code>project</code> keyed by full-qualified class names.
+	 * @return the type structures or <code>null</code> if none have been saved for the project
+	 */
+	public Map<String, TypeStructure> load(IProject project) {
+		File file = getFile(project);
+		if (!file.exists()) {
+			return null;
+		}
+		if (!project.isAccessible()) {
+			file.delete();
+			return null;
+		}
+
+		DataInputStream input = null;
+		try {
+			input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			if (input.readInt() != VERSION) {
+				return null;
+			}
+			int size = input.readInt();
+			Map<String, TypeStructure> typeStructures = new ConcurrentHashMap<String, TypeStructure>(size);
+			for (int i = 0; i < size; i++) {
+				String fileName = input.readUTF();
+				byte[] structure = new byte[input.readInt()];
+				input.readFully(structure);
+				TypeStructure typeStructure = new TypeStructure(new ClassFileReader(structure, fileName.toCharArray()));
+				typeStructure.structure = structure;
+				typeStructures.put(new String(typeStructure.getName()).replace('/', '.'), typeStructure);
+			}
+			return typeStructures;
+		}
+		catch (ClassFormatException e) {
+			SpringCore.log("Cannot load type structures of project '" + project.getName() + "'", e);
+			return null;
+		}
+		catch (IOException e) {
+			SpringCore.log("Cannot load type structures of project '" + project.getName() + "'", e);
+			return null;
+		}
+		finally {
+			if (input != null) {
+				try {
+					input.close();
+				}
+				catch (IOException e) {
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes the saved {@link TypeStructure}s of the given <code>project</code>.
+	 */
+	public void delete(IProject project) {
+		getFile(project).delete();
+	}
+
+	/**
+	 * Creates a new {@link TypeStructure} for the given class <code>file</code>.
+	 * @return the type structure or <code>null</code> if the file can't be read
+	 */
+	static TypeStructure readTypeStructure(IFile file) {
+		if (!file.exists()) {
+			return null;
+		}
+		InputStream input = null;
+		try {
+			input = file.getContents();
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = input.read(buffer)) >= 0) {
+				bytes.write(buffer, 0, read);
+			}
+			byte[] classFile = bytes.toByteArray();
+			TypeStructure typeStructure = new TypeStructure(new ClassFileReader(classFile, file.getName().toCharArray()));
+			typeStructure.structure = getStructure(classFile);
+			return typeStructure;
+		}
+		catch (CoreException e) {
+		}
+		catch (ClassFormatException e) {
+		}
+		catch (IOException e) {
+		}
+		finally {
+			if (input != null) {
+				try {
+					input.close();
+				}
+				catch (IOException e) {
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns a copy of the given class file without method bodies and debug information.
+	 */
+	private static byte[] getStructure(byte[] classFile) {
+		ClassWriter writer = new ClassWriter(false);
+		new ClassReader(classFile).accept(new ClassAdapter(writer) {
+
+			@Override
+			public MethodVisitor visitMethod(int access, String name, String desc, String signature,
+					String[] exceptions) {
+				return new MethodAdapter(super.visitMethod(access, name, desc, signature, exceptions)) {
+
+					@Override
+					public void visitCode() {
+						// annotations are visited before the code; drop everything from here on
+						mv = new EmptyVisitor();
+					}
+				};
+			}
+		}, true);
+		return writer.toByteArray();
+	}
+
+	private File getFile(IProject project) {
+		return new File(directory, project.getName() + FILE_EXTENSION);
+	}
+
+}
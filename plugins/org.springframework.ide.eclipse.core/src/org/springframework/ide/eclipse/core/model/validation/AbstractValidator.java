@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 Spring IDE Developers
+ * Copyright (c) 2007, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,21 +10,40 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.core.model.validation;
 
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceRuleFactory;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.MultiRule;
 import org.springframework.ide.eclipse.core.MarkerUtils;
+import org.springframework.ide.eclipse.core.SpringCore;
 import org.springframework.ide.eclipse.core.internal.model.validation.ValidationRuleDefinition;
 import org.springframework.ide.eclipse.core.internal.model.validation.ValidationRuleDefinitionFactory;
 import org.springframework.ide.eclipse.core.model.IModelElement;
 import org.springframework.ide.eclipse.core.model.IModelElementVisitor;
 import org.springframework.ide.eclipse.core.model.IResourceModelElement;
+import org.springframework.ide.eclipse.core.project.BuildProfile;
 import org.springframework.ide.eclipse.core.project.DefaultProjectContributorState;
 import org.springframework.ide.eclipse.core.project.IProjectContributorState;
 import org.springframework.ide.eclipse.core.project.IProjectContributorStateAware;
@@ -49,6 +68,8 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 	/** unique id for this validator */
 	private String validatorId;
 
+	private static final String THREAD_NAME_TEMPLATE = "Spring Validation Worker (%s)";
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -56,6 +77,18 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 		MarkerUtils.deleteMarkers(resource, getMarkerId());
 	}
 
+	/**
+	 * Returns the existing {@link IMarker markers} that will be updated with the results of validating the given
+	 * <code>resource</code>. Markers that are not reported again by the validation will be deleted.
+	 * <p>
+	 * Subclasses overriding {@link #cleanup(IResource, IProgressMonitor)} should override this method to return the
+	 * same set of markers that their cleanup removes.
+	 * @since 3.0.0
+	 */
+	protected Set<IMarker> getMarkersToUpdate(IResource resource) throws CoreException {
+		return MarkerUtils.findMarkers(resource, getMarkerId());
+	}
+
 	public void setMarkerId(String markerId) {
 		this.markerId = markerId;
 	}
@@ -74,14 +107,27 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 
 	/**
 	 * {@inheritDoc}
+	 * <p>
+	 * Affected resources are validated concurrently if enabled by the {@link SpringCore#USE_PARALLEL_VALIDATION}
+	 * preference. The resulting problem markers of all resources are updated in one single workspace operation once
+	 * validation has completed.
+	 * <p>
+	 * The {@link IValidationElementLifecycleManager} of a resource is destroyed as soon as the resource has been
+	 * validated, so only the lifecycle managers of the resources currently being validated are kept.
 	 */
 	public final void validate(Set<IResource> affectedResources, int kind, IProgressMonitor monitor)
 			throws CoreException {
 		SubProgressMonitor subMonitor = new SubProgressMonitor(monitor, affectedResources.size());
+		List<ValidationTask> tasks = new ArrayList<ValidationTask>();
+		List<ValidationTask> pendingTasks = new ArrayList<ValidationTask>();
+		int batchSize = (affectedResources.size() > 1 && isParallelValidationEnabled() ? Runtime.getRuntime()
+				.availableProcessors() * 2 : 1);
 		try {
 			for (IResource resource : affectedResources) {
 				reportProgress("Validating '%s'", subMonitor, resource.getFullPath().toString().substring(1));
-				cleanup(resource, subMonitor);
+
+				// Existing markers are kept until validation is done to only update markers that actually changed
+				Set<IMarker> existingMarkers = getMarkersToUpdate(resource);
 				if (subMonitor.isCanceled()) {
 					throw new OperationCanceledException();
 				}
@@ -92,30 +138,182 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 
 				// Check if resource model element is external to the workspace -> if so, do not validate the resource
 				if (rootElement != null && rootElement.isExternal()) {
-					monitor.worked(1);
+					cleanup(resource, subMonitor);
+					subMonitor.worked(1);
 					break;
 				}
 
 				Set<ValidationRuleDefinition> ruleDefinitions = getRuleDefinitions(resource);
 				if (rootElement != null && ruleDefinitions != null && ruleDefinitions.size() > 0) {
-					Set<ValidationProblem> problems = validate(callback, ruleDefinitions, subMonitor);
-					ValidationUtils.createProblemMarkers(resource, problems, getMarkerId());
+					ValidationTask task = new ValidationTask(resource, callback, ruleDefinitions, existingMarkers);
+					tasks.add(task);
+					pendingTasks.add(task);
+					if (pendingTasks.size() >= batchSize) {
+						validate(pendingTasks, subMonitor);
+						pendingTasks.clear();
+					}
 				}
+				else {
+					cleanup(resource, subMonitor);
 
-				// call close on callback to execute any required resource cleanup in template
-				callback.destory();
+					// call close on callback to execute any required resource cleanup in template
+					callback.destory();
+					subMonitor.worked(1);
+				}
+			}
 
-				subMonitor.worked(1);
-				if (subMonitor.isCanceled()) {
+			validate(pendingTasks, subMonitor);
+			pendingTasks.clear();
+
+			updateProblemMarkers(tasks);
+		}
+		finally {
+			// call close on callbacks of tasks that haven't been validated due to cancellation
+			for (ValidationTask task : pendingTasks) {
+				task.destroy();
+			}
+			subMonitor.done();
+		}
+	}
+
+	/**
+	 * Validates the given tasks and destroys their {@link IValidationElementLifecycleManager}s afterwards. The tasks
+	 * are validated concurrently if there is more than one.
+	 */
+	private void validate(List<ValidationTask> tasks, IProgressMonitor monitor) {
+		try {
+			if (tasks.size() > 1) {
+				validateConcurrently(tasks, monitor);
+			}
+			else {
+				for (ValidationTask task : tasks) {
+					reportProgress("Validating '%s'", monitor, task.resource.getFullPath().toString().substring(1));
+					task.problems = validate(task.callback, task.ruleDefinitions, monitor);
+					monitor.worked(1);
+					if (monitor.isCanceled()) {
+						throw new OperationCanceledException();
+					}
+				}
+			}
+		}
+		finally {
+			// call close on callbacks to execute any required resource cleanup in template
+			for (ValidationTask task : tasks) {
+				task.destroy();
+			}
+		}
+	}
+
+	/**
+	 * Validates the given tasks on a bounded number of worker threads. Problems are stored with the task so that
+	 * markers get updated in the order of the affected resources regardless of the order the tasks complete in.
+	 */
+	private void validateConcurrently(List<ValidationTask> tasks, final IProgressMonitor monitor) {
+		int threadCount = Math.min(Runtime.getRuntime().availableProcessors(), tasks.size());
+		final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+		ExecutorService executorService = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, String.format(THREAD_NAME_TEMPLATE, getValidatorId()));
+				thread.setContextClassLoader(contextClassLoader);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		final IProgressMonitor workerMonitor = new CancelAwareProgressMonitor(monitor);
+		try {
+			CompletionService<ValidationTask> completionService = new ExecutorCompletionService<ValidationTask>(
+					executorService);
+			for (final ValidationTask task : tasks) {
+				completionService.submit(new Callable<ValidationTask>() {
+
+					public ValidationTask call() throws Exception {
+						task.problems = validate(task.callback, task.ruleDefinitions, workerMonitor);
+						return task;
+					}
+				});
+			}
+
+			for (int i = 0; i < tasks.size(); i++) {
+				ValidationTask task = null;
+				try {
+					task = completionService.take().get();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new OperationCanceledException();
+				}
+				catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					}
+					else if (cause instanceof Error) {
+						throw (Error) cause;
+					}
+					throw new IllegalStateException(cause);
+				}
+
+				reportProgress("Validated '%s'", monitor, task.resource.getFullPath().toString().substring(1));
+				monitor.worked(1);
+				if (monitor.isCanceled()) {
 					throw new OperationCanceledException();
 				}
 			}
 		}
 		finally {
-			subMonitor.done();
+			// Stop outstanding workers before the callbacks get destroyed
+			workerMonitor.setCanceled(true);
+			executorService.shutdownNow();
+			try {
+				executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
 		}
 	}
 
+	/**
+	 * Updates the problem markers of all validated resources within one workspace operation.
+	 */
+	private void updateProblemMarkers(final List<ValidationTask> tasks) throws CoreException {
+		if (tasks.isEmpty()) {
+			return;
+		}
+
+		IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		IResourceRuleFactory ruleFactory = workspace.getRuleFactory();
+		ISchedulingRule rule = null;
+		for (ValidationTask task : tasks) {
+			// The rule needs to cover every resource ValidationUtils will touch
+			rule = MultiRule.combine(rule, ruleFactory.markerRule(task.resource));
+			for (IMarker marker : task.existingMarkers) {
+				rule = MultiRule.combine(rule, ruleFactory.markerRule(marker.getResource()));
+			}
+			for (ValidationProblem problem : task.problems) {
+				if (problem.getResource() != null) {
+					rule = MultiRule.combine(rule, ruleFactory.markerRule(problem.getResource()));
+				}
+			}
+		}
+
+		workspace.run(new IWorkspaceRunnable() {
+
+			public void run(IProgressMonitor monitor) throws CoreException {
+				for (ValidationTask task : tasks) {
+					ValidationUtils.updateProblemMarkers(task.resource, task.existingMarkers, task.problems,
+							getMarkerId());
+				}
+			}
+		}, rule, IWorkspace.AVOID_UPDATE, null);
+	}
+
+	private boolean isParallelValidationEnabled() {
+		return SpringCore.getDefault().getPluginPreferences().getBoolean(SpringCore.USE_PARALLEL_VALIDATION);
+	}
+
 	private IValidationElementLifecycleManager initValidationElementCallback(IResource resource, int kind) {
 		IValidationElementLifecycleManager callback = createValidationElementLifecycleManager();
 		if (callback instanceof IValidationElementLifecycleManagerExtension) {
@@ -126,21 +324,31 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 	}
 
 	private Set<ValidationProblem> validate(IValidationElementLifecycleManager callback,
-			Set<ValidationRuleDefinition> ruleDefinitions, SubProgressMonitor subMonitor) {
+			Set<ValidationRuleDefinition> ruleDefinitions, IProgressMonitor monitor) {
 		Set<ValidationProblem> problems = new LinkedHashSet<ValidationProblem>();
-		for (IResourceModelElement contextElement : callback.getContextElements()) {
-			IValidationContext context = createContext(callback.getRootElement(), contextElement);
-			if (context instanceof IProjectContributorStateAware) {
-				((IProjectContributorStateAware) context).setProjectContributorState(contributorState);
-			}
+		BuildProfile profile = getProjectContributorState().get(BuildProfile.class);
+		BuildProfile.RuleRecorder recorder = (profile != null ? profile.createRuleRecorder(callback.getRootElement()
+				.getElementResource()) : null);
+		try {
+			for (IResourceModelElement contextElement : callback.getContextElements()) {
+				IValidationContext context = createContext(callback.getRootElement(), contextElement);
+				if (context instanceof IProjectContributorStateAware) {
+					((IProjectContributorStateAware) context).setProjectContributorState(contributorState);
+				}
 
-			if (context != null) {
-				IModelElementVisitor visitor = new ValidationVisitor(context, ruleDefinitions);
-				callback.getRootElement().accept(visitor, subMonitor);
-				problems.addAll(context.getProblems());
+				if (context != null) {
+					IModelElementVisitor visitor = new ValidationVisitor(context, ruleDefinitions, recorder);
+					callback.getRootElement().accept(visitor, monitor);
+					problems.addAll(context.getProblems());
+				}
+				if (monitor.isCanceled()) {
+					throw new OperationCanceledException();
+				}
 			}
-			if (subMonitor.isCanceled()) {
-				throw new OperationCanceledException();
+		}
+		finally {
+			if (recorder != null) {
+				recorder.flush();
 			}
 		}
 		return problems;
@@ -236,9 +444,21 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 
 		private Set<ValidationRuleDefinition> ruleDefinitions;
 
+		private BuildProfile.RuleRecorder recorder;
+
 		public ValidationVisitor(IValidationContext context, Set<ValidationRuleDefinition> ruleDefinitions) {
+			this(context, ruleDefinitions, null);
+		}
+
+		/**
+		 * Creates a visitor that records the time spent in each rule with the given <code>recorder</code>.
+		 * @since 3.0.0
+		 */
+		public ValidationVisitor(IValidationContext context, Set<ValidationRuleDefinition> ruleDefinitions,
+				BuildProfile.RuleRecorder recorder) {
 			this.ruleDefinitions = ruleDefinitions;
 			this.context = context;
+			this.recorder = recorder;
 		}
 
 		@SuppressWarnings("unchecked")
@@ -255,7 +475,18 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 						IValidationRule rule = ruleDefinition.getRule();
 						if (rule.supports(element, context)) {
 							context.setCurrentRuleDefinition(ruleDefinition);
-							rule.validate(element, context, monitor);
+							if (recorder != null && ruleDefinition.isProfiled()) {
+								long start = System.nanoTime();
+								try {
+									rule.validate(element, context, monitor);
+								}
+								finally {
+									recorder.record(ruleDefinition.getId(), System.nanoTime() - start);
+								}
+							}
+							else {
+								rule.validate(element, context, monitor);
+							}
 						}
 						subMonitor.worked(1);
 					}
@@ -268,4 +499,56 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 			return false;
 		}
 	}
+
+	/**
+	 * The validation of a single affected resource.
+	 */
+	private static class ValidationTask {
+
+		private final IResource resource;
+
+		private IValidationElementLifecycleManager callback;
+
+		private final Set<ValidationRuleDefinition> ruleDefinitions;
+
+		private final Set<IMarker> existingMarkers;
+
+		private volatile Set<ValidationProblem> problems;
+
+		public ValidationTask(IResource resource, IValidationElementLifecycleManager callback,
+				Set<ValidationRuleDefinition> ruleDefinitions, Set<IMarker> existingMarkers) {
+			this.resource = resource;
+			this.callback = callback;
+			this.ruleDefinitions = ruleDefinitions;
+			this.existingMarkers = existingMarkers;
+		}
+
+		/**
+		 * Destroys the {@link IValidationElementLifecycleManager} of this task unless that has already been done.
+		 */
+		public void destroy() {
+			if (callback != null) {
+				callback.destory();
+				callback = null;
+			}
+		}
+	}
+
+	/**
+	 * {@link IProgressMonitor} used by worker threads that only forwards cancellation requests to the given monitor.
+	 * Progress is reported by the calling thread as {@link IProgressMonitor} implementations are not thread-safe.
+	 */
+	private static class CancelAwareProgressMonitor extends NullProgressMonitor {
+
+		private final IProgressMonitor monitor;
+
+		public CancelAwareProgressMonitor(IProgressMonitor monitor) {
+			this.monitor = monitor;
+		}
+
+		@Override
+		public boolean isCanceled() {
+			return super.isCanceled() || monitor.isCanceled();
+		}
+	}
 }
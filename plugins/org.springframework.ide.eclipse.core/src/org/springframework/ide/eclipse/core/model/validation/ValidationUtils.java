@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 Spring IDE Developers
+ * Copyright (c) 2007, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,14 +10,25 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.core.model.validation;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceRuleFactory;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.MultiRule;
 import org.springframework.ide.eclipse.core.MarkerUtils;
 import org.springframework.ide.eclipse.core.SpringCore;
 
@@ -32,16 +43,83 @@ public final class ValidationUtils {
 
 	/**
 	 * Creates the {@link IMarker validation markers} on the specified resource for the given validation problems.
+	 * <p>
+	 * All markers are created within a single workspace operation so that only one resource delta is reported.
 	 */
 	public static void createProblemMarkers(IResource resource, Set<ValidationProblem> problems, String markerId) {
+		Set<IMarker> existingMarkers = Collections.emptySet();
+		updateProblemMarkers(resource, existingMarkers, problems, markerId);
+	}
+
+	/**
+	 * Updates the {@link IMarker validation markers} of the specified resource to reflect the given validation
+	 * problems.
+	 * <p>
+	 * The given <code>existingMarkers</code> are diffed against the problems: markers that still describe a reported
+	 * problem are kept untouched, all others are deleted. Markers are only created for new problems. All changes are
+	 * applied within a single workspace operation so that only one resource delta is reported.
+	 * @since 3.0.0
+	 */
+	public static void updateProblemMarkers(final IResource resource, final Collection<IMarker> existingMarkers,
+			Set<ValidationProblem> problems, final String markerId) {
+
+		// Collect the marker attributes of all problems grouped by the resource the marker gets created on
+		final Map<IResource, Map<MarkerKey, Map<String, Object>>> newMarkers = new LinkedHashMap<IResource, Map<MarkerKey, Map<String, Object>>>();
 		if (problems != null) {
 			for (ValidationProblem problem : problems) {
 				// Don't install problems that are configured to get ignored
 				if (problem.getSeverity() >= 0) {
-					createProblemMarker(resource, problem, markerId);
+
+					// Use resource used during reporting of the problem as this might be
+					// more concise.
+					IResource markerResource = (problem.getResource() != null ? problem.getResource() : resource);
+					if (markerResource != null && markerResource.isAccessible()) {
+						Map<MarkerKey, Map<String, Object>> attributes = newMarkers.get(markerResource);
+						if (attributes == null) {
+							attributes = new LinkedHashMap<MarkerKey, Map<String, Object>>();
+							newMarkers.put(markerResource, attributes);
+						}
+						MarkerKey key = new MarkerKey(problem.getLine(), problem.getMessage());
+						if (!attributes.containsKey(key)) {
+							attributes.put(key, createMarkerAttributes(resource, problem));
+						}
+					}
 				}
 			}
 		}
+
+		if (newMarkers.isEmpty() && (existingMarkers == null || existingMarkers.isEmpty())) {
+			return;
+		}
+
+		IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		IResourceRuleFactory ruleFactory = workspace.getRuleFactory();
+		ISchedulingRule rule = null;
+		for (IResource markerResource : newMarkers.keySet()) {
+			rule = MultiRule.combine(rule, ruleFactory.markerRule(markerResource));
+		}
+		if (existingMarkers != null) {
+			for (IMarker marker : existingMarkers) {
+				rule = MultiRule.combine(rule, ruleFactory.markerRule(marker.getResource()));
+			}
+		}
+
+		try {
+			workspace.run(new IWorkspaceRunnable() {
+
+				public void run(IProgressMonitor monitor) throws CoreException {
+					if (existingMarkers != null) {
+						deleteChangedMarkers(existingMarkers, newMarkers);
+					}
+					for (Map.Entry<IResource, Map<MarkerKey, Map<String, Object>>> entry : newMarkers.entrySet()) {
+						createMarkers(entry.getKey(), entry.getValue(), markerId);
+					}
+				}
+			}, rule, IWorkspace.AVOID_UPDATE, null);
+		}
+		catch (CoreException e) {
+			SpringCore.log(e);
+		}
 	}
 
 	/**
@@ -50,72 +128,126 @@ public final class ValidationUtils {
 	 * Adds the originating resource as marker attribute with the key {@link MarkerUtils#ORIGINATING_RESOURCE_KEY}.
 	 */
 	public static void createProblemMarker(IResource resource, ValidationProblem problem, String markerId) {
+		createProblemMarkers(resource, Collections.singleton(problem), markerId);
+	}
 
-		// Use resource used during reporting of the problem as this might be
-		// more concise.
-		IResource originatingResource = resource;
-		if (problem.getResource() != null) {
-			resource = problem.getResource();
+	/**
+	 * Deletes all given markers that don't match one of the new marker attributes. New marker attributes that match an
+	 * existing marker are removed from <code>newMarkers</code> so that no duplicate gets created.
+	 */
+	private static void deleteChangedMarkers(Collection<IMarker> existingMarkers,
+			Map<IResource, Map<MarkerKey, Map<String, Object>>> newMarkers) throws CoreException {
+		for (IMarker marker : existingMarkers) {
+			if (!marker.exists()) {
+				continue;
+			}
+			Map<MarkerKey, Map<String, Object>> attributes = newMarkers.get(marker.getResource());
+			if (attributes != null) {
+				MarkerKey key = new MarkerKey(marker.getAttribute(IMarker.LINE_NUMBER, -1), marker.getAttribute(
+						IMarker.MESSAGE, ""));
+				Map<String, Object> newAttributes = attributes.get(key);
+				if (newAttributes != null && newAttributes.equals(marker.getAttributes())) {
+					attributes.remove(key);
+					continue;
+				}
+			}
+			marker.delete();
 		}
+	}
 
-		if (resource != null && resource.isAccessible()) {
-			try {
+	/**
+	 * Creates the markers for the given attributes unless an identical marker already exists on the resource.
+	 */
+	private static void createMarkers(IResource resource, Map<MarkerKey, Map<String, Object>> attributes,
+			String markerId) throws CoreException {
+		if (attributes.isEmpty() || !resource.isAccessible()) {
+			return;
+		}
 
-				// First check if specified marker already exists
-				IMarker[] markers = resource.findMarkers(markerId, false, IResource.DEPTH_ZERO);
-				for (IMarker marker : markers) {
-					int line = marker.getAttribute(IMarker.LINE_NUMBER, -1);
-					if (line == problem.getLine()) {
-						String msg = marker.getAttribute(IMarker.MESSAGE, "");
-						if (msg.equals(problem.getMessage())) {
-							return;
-						}
-					}
-				}
+		// First check if specified marker already exists
+		Set<MarkerKey> existingKeys = new HashSet<MarkerKey>();
+		for (IMarker marker : resource.findMarkers(markerId, false, IResource.DEPTH_ZERO)) {
+			existingKeys.add(new MarkerKey(marker.getAttribute(IMarker.LINE_NUMBER, -1), marker.getAttribute(
+					IMarker.MESSAGE, "")));
+		}
 
-				// Create new marker
+		for (Map.Entry<MarkerKey, Map<String, Object>> entry : attributes.entrySet()) {
+			if (!existingKeys.contains(entry.getKey())) {
 				IMarker marker = resource.createMarker(markerId);
-				Map<String, Object> attributes = new HashMap<String, Object>();
-				attributes.put(IMarker.MESSAGE, problem.getMessage());
-				attributes.put(IMarker.SEVERITY, new Integer(problem.getSeverity()));
-
-				// Store the originating resource reference in marker so that
-				// the marker can later on be deleted with a reference from the
-				// initial resource
-				attributes.put(MarkerUtils.ORIGINATING_RESOURCE_KEY, originatingResource.getFullPath().toString());
-				if (problem.getLine() > 0) {
-					attributes.put(IMarker.LINE_NUMBER, new Integer(problem.getLine()));
-				}
-				if (problem.getErrorId() != null) {
-					attributes.put(IValidationProblemMarker.ERROR_ID, problem.getErrorId());
-				}
-				if (problem.getRuleId() != null) {
-					attributes.put(IValidationProblemMarker.RULE_ID, problem.getRuleId());
-				}
+				marker.setAttributes(entry.getValue());
+			}
+		}
+	}
 
-				// Add validation attributes to the list of marker attributes
-				for (ValidationProblemAttribute attribute : problem.getAttributes()) {
-					Object value = attribute.getValue();
-
-					// Marker can only handle value of type String, Integer or Boolean
-					if (value instanceof String || value instanceof Integer || value instanceof Boolean) {
-						attributes.put(attribute.getKey(), value);
-					} else if (value instanceof List<?>) {
-						int counter = 1;
-						for(Object v: (List<?>) value) {
-							if (v instanceof String || value instanceof Integer || value instanceof Boolean) {
-								attributes.put(attribute.getKey() + counter, v);
-								counter++;
-							}
-						}
+	private static Map<String, Object> createMarkerAttributes(IResource originatingResource, ValidationProblem problem) {
+		Map<String, Object> attributes = new HashMap<String, Object>();
+		attributes.put(IMarker.MESSAGE, problem.getMessage());
+		attributes.put(IMarker.SEVERITY, new Integer(problem.getSeverity()));
+
+		// Store the originating resource reference in marker so that
+		// the marker can later on be deleted with a reference from the
+		// initial resource
+		attributes.put(MarkerUtils.ORIGINATING_RESOURCE_KEY, originatingResource.getFullPath().toString());
+		if (problem.getLine() > 0) {
+			attributes.put(IMarker.LINE_NUMBER, new Integer(problem.getLine()));
+		}
+		if (problem.getErrorId() != null) {
+			attributes.put(IValidationProblemMarker.ERROR_ID, problem.getErrorId());
+		}
+		if (problem.getRuleId() != null) {
+			attributes.put(IValidationProblemMarker.RULE_ID, problem.getRuleId());
+		}
+
+		// Add validation attributes to the list of marker attributes
+		for (ValidationProblemAttribute attribute : problem.getAttributes()) {
+			Object value = attribute.getValue();
+
+			// Marker can only handle value of type String, Integer or Boolean
+			if (value instanceof String || value instanceof Integer || value instanceof Boolean) {
+				attributes.put(attribute.getKey(), value);
+			} else if (value instanceof List<?>) {
+				int counter = 1;
+				for(Object v: (List<?>) value) {
+					if (v instanceof String || value instanceof Integer || value instanceof Boolean) {
+						attributes.put(attribute.getKey() + counter, v);
+						counter++;
 					}
 				}
+			}
+		}
+		return attributes;
+	}
+
+	/**
+	 * Identifies a marker on a resource by its line number and message.
+	 */
+	private static class MarkerKey {
+
+		private final int line;
+
+		private final String message;
+
+		public MarkerKey(int line, String message) {
+			this.line = (line > 0 ? line : -1);
+			this.message = (message != null ? message : "");
+		}
 
-				marker.setAttributes(attributes);
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
 			}
-			catch (CoreException e) {
-				SpringCore.log(e);
+			if (!(other instanceof MarkerKey)) {
+				return false;
 			}
+			MarkerKey that = (MarkerKey) other;
+			return line == that.line && message.equals(that.message);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * line + message.hashCode();
 		}
 	}
+
 }
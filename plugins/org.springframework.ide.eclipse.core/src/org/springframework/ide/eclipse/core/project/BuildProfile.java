@@ -0,0 +1,337 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.project;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.springframework.ide.eclipse.core.model.validation.IValidationRule;
+
+/**
+ * Timings recorded during a single Spring build of a project.
+ * <p>
+ * Invocations of {@link IValidationRule validation rules} are aggregated per rule id and per validated resource;
+ * invocations of {@link IProjectBuilder project builders} and validators are aggregated per contributor id. Rule
+ * invocations are collected by a {@link RuleRecorder} per validated resource and merged into the profile once the
+ * resource is done, so that the shared timings are only updated once per resource. Merging is thread-safe as resources
+ * might get validated concurrently.
+ * <p>
+ * The profile of the currently running build is accessible from the {@link IProjectContributorState}.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ * @see BuildProfileManager
+ */
+public class BuildProfile {
+
+	private static final long NANOS_PER_MILLI = 1000000L;
+
+	private final IProject project;
+
+	private final int kind;
+
+	private final long startTime;
+
+	private final long startNanos;
+
+	private volatile long duration = -1;
+
+	private final ConcurrentMap<String, Timing> ruleTimings = new ConcurrentHashMap<String, Timing>();
+
+	private final ConcurrentMap<String, Timing> resourceTimings = new ConcurrentHashMap<String, Timing>();
+
+	private final ConcurrentMap<String, Timing> contributorTimings = new ConcurrentHashMap<String, Timing>();
+
+	public BuildProfile(IProject project, int kind) {
+		this.project = project;
+		this.kind = kind;
+		this.startTime = System.currentTimeMillis();
+		this.startNanos = System.nanoTime();
+	}
+
+	/**
+	 * Creates a new {@link RuleRecorder} that collects the rule invocations on elements of the given
+	 * <code>resource</code>.
+	 * @param resource the validated resource; can be <code>null</code> if rule timings should not be aggregated per
+	 * resource
+	 */
+	public RuleRecorder createRuleRecorder(IResource resource) {
+		return new RuleRecorder(resource != null ? resource.getFullPath().toString() : null);
+	}
+
+	/**
+	 * Records a single invocation of the {@link IProjectBuilder} or validator with the given
+	 * <code>contributorId</code>.
+	 * @param time the time in nanoseconds spent in the contributor
+	 */
+	public void recordContributor(String contributorId, long time) {
+		getTiming(contributorTimings, contributorId).add(time);
+	}
+
+	/**
+	 * Marks the build as finished.
+	 */
+	public void finish() {
+		duration = System.nanoTime() - startNanos;
+	}
+
+	public IProject getProject() {
+		return project;
+	}
+
+	/**
+	 * Returns the kind of build as defined by {@link IncrementalProjectBuilder}.
+	 */
+	public int getKind() {
+		return kind;
+	}
+
+	/**
+	 * Returns the time the build started in milliseconds since the epoch.
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * Returns the duration of the build in nanoseconds or <code>-1</code> if the build is still running.
+	 */
+	public long getDuration() {
+		return duration;
+	}
+
+	/**
+	 * Returns the timings per validation rule id, most expensive first.
+	 */
+	public List<Timing> getRuleTimings() {
+		return sort(ruleTimings);
+	}
+
+	/**
+	 * Returns the validation timings per resource, most expensive first.
+	 */
+	public List<Timing> getResourceTimings() {
+		return sort(resourceTimings);
+	}
+
+	/**
+	 * Returns the timings per project builder and validator id, most expensive first.
+	 */
+	public List<Timing> getContributorTimings() {
+		return sort(contributorTimings);
+	}
+
+	/**
+	 * Writes a plain text report of this profile to the given <code>writer</code>.
+	 * @param limit the maximum number of entries to write per section
+	 */
+	public void writeReport(PrintWriter writer, int limit) {
+		writer.println(String.format("Spring build profile for project '%s' (%s build started at %s, took %d ms)",
+				project.getName(), getKindName(), new Date(startTime), duration / NANOS_PER_MILLI));
+		writeTimings(writer, "Project builders and validators", getContributorTimings(), limit);
+		writeTimings(writer, "Validation rules", getRuleTimings(), limit);
+		writeTimings(writer, "Resources", getResourceTimings(), limit);
+		writer.flush();
+	}
+
+	private String getKindName() {
+		switch (kind) {
+		case IncrementalProjectBuilder.FULL_BUILD:
+			return "full";
+		case IncrementalProjectBuilder.CLEAN_BUILD:
+			return "clean";
+		case IncrementalProjectBuilder.AUTO_BUILD:
+			return "auto";
+		default:
+			return "incremental";
+		}
+	}
+
+	private static void writeTimings(PrintWriter writer, String title, List<Timing> timings, int limit) {
+		writer.println(String.format("  %s:", title));
+		int count = 0;
+		for (Timing timing : timings) {
+			if (count++ == limit) {
+				writer.println(String.format("    ... %d more", timings.size() - limit));
+				break;
+			}
+			writer.println(String.format("    %8d ms %8d calls %8d ms max  %s", timing.getTotalTimeMillis(), timing
+					.getCount(), timing.getMaxTimeMillis(), timing.getId()));
+		}
+	}
+
+	private static Timing getTiming(ConcurrentMap<String, Timing> timings, String id) {
+		Timing timing = timings.get(id);
+		if (timing == null) {
+			timing = new Timing(id);
+			Timing existingTiming = timings.putIfAbsent(id, timing);
+			if (existingTiming != null) {
+				timing = existingTiming;
+			}
+		}
+		return timing;
+	}
+
+	private static List<Timing> sort(ConcurrentMap<String, Timing> timings) {
+		List<Timing> sortedTimings = new ArrayList<Timing>(timings.values());
+		Collections.sort(sortedTimings, new Comparator<Timing>() {
+
+			public int compare(Timing timing1, Timing timing2) {
+				long time1 = timing1.getTotalTime();
+				long time2 = timing2.getTotalTime();
+				return (time1 < time2 ? 1 : (time1 == time2 ? 0 : -1));
+			}
+		});
+		return sortedTimings;
+	}
+
+	/**
+	 * Collects the rule invocations on elements of a single resource. A recorder is not thread-safe and must only be
+	 * used by the thread validating the resource; the collected timings are added to the profile on {@link #flush()}.
+	 */
+	public class RuleRecorder {
+
+		private final String resourceId;
+
+		private final Map<String, LocalTiming> localRuleTimings = new HashMap<String, LocalTiming>();
+
+		private final LocalTiming localResourceTiming = new LocalTiming();
+
+		private RuleRecorder(String resourceId) {
+			this.resourceId = resourceId;
+		}
+
+		/**
+		 * Records a single invocation of the validation rule with the given <code>ruleId</code>.
+		 * @param time the time in nanoseconds spent in the rule
+		 */
+		public void record(String ruleId, long time) {
+			LocalTiming timing = localRuleTimings.get(ruleId);
+			if (timing == null) {
+				timing = new LocalTiming();
+				localRuleTimings.put(ruleId, timing);
+			}
+			timing.add(time);
+			localResourceTiming.add(time);
+		}
+
+		/**
+		 * Adds the timings collected so far to the profile and resets this recorder.
+		 */
+		public void flush() {
+			for (Map.Entry<String, LocalTiming> entry : localRuleTimings.entrySet()) {
+				entry.getValue().addTo(getTiming(ruleTimings, entry.getKey()));
+			}
+			if (resourceId != null && localResourceTiming.count > 0) {
+				localResourceTiming.addTo(getTiming(resourceTimings, resourceId));
+			}
+			localRuleTimings.clear();
+			localResourceTiming.reset();
+		}
+	}
+
+	/**
+	 * Unsynchronized timing used by a {@link RuleRecorder}.
+	 */
+	private static class LocalTiming {
+
+		private int count;
+
+		private long totalTime;
+
+		private long maxTime;
+
+		public void add(long time) {
+			count++;
+			totalTime += time;
+			maxTime = Math.max(maxTime, time);
+		}
+
+		public void addTo(Timing timing) {
+			timing.add(count, totalTime, maxTime);
+		}
+
+		public void reset() {
+			count = 0;
+			totalTime = 0;
+			maxTime = 0;
+		}
+	}
+
+	/**
+	 * Aggregated timing of all invocations recorded for a single id.
+	 */
+	public static class Timing {
+
+		private final String id;
+
+		private int count = 0;
+
+		private long totalTime = 0;
+
+		private long maxTime = 0;
+
+		public Timing(String id) {
+			this.id = id;
+		}
+
+		public synchronized void add(long time) {
+			add(1, time, time);
+		}
+
+		synchronized void add(int count, long totalTime, long maxTime) {
+			this.count += count;
+			this.totalTime += totalTime;
+			this.maxTime = Math.max(this.maxTime, maxTime);
+		}
+
+		public String getId() {
+			return id;
+		}
+
+		public synchronized int getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns the total time of all invocations in nanoseconds.
+		 */
+		public synchronized long getTotalTime() {
+			return totalTime;
+		}
+
+		/**
+		 * Returns the time of the most expensive invocation in nanoseconds.
+		 */
+		public synchronized long getMaxTime() {
+			return maxTime;
+		}
+
+		public long getTotalTimeMillis() {
+			return getTotalTime() / NANOS_PER_MILLI;
+		}
+
+		public long getMaxTimeMillis() {
+			return getMaxTime() / NANOS_PER_MILLI;
+		}
+	}
+
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.project;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.core.resources.IProject;
+import org.springframework.ide.eclipse.core.SpringCore;
+
+/**
+ * Keeps the {@link BuildProfile} of the last Spring build of every project.
+ * <p>
+ * Build profiles are written to the console if the debug option <code>{@value #DEBUG_OPTION}</code> is enabled and
+ * appended to the file given by the system property <code>{@value #REPORT_FILE_PROPERTY}</code>. Both options are
+ * meant to find expensive validation rules in headless builds.
+ * <p>
+ * Builds are only profiled if one of these options is set or if a {@link IBuildProfileListener} is registered, e.g.
+ * by the Spring Build Profile view; otherwise no timings are recorded at all.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ * @see SpringCore#getBuildProfileManager()
+ */
+public class BuildProfileManager {
+
+	public static final String DEBUG_OPTION = SpringCore.PLUGIN_ID + "/project/builder/profile";
+
+	public static final String REPORT_FILE_PROPERTY = SpringCore.PLUGIN_ID + ".buildProfileReportFile";
+
+	/** Maximum number of entries per section written to build profile reports */
+	private static final int REPORT_LIMIT = 25;
+
+	private final Map<IProject, BuildProfile> profiles = new ConcurrentHashMap<IProject, BuildProfile>();
+
+	private final List<IBuildProfileListener> listeners = new CopyOnWriteArrayList<IBuildProfileListener>();
+
+	private final boolean debug;
+
+	private final String reportFile;
+
+	public BuildProfileManager() {
+		this.debug = SpringCore.isDebug(DEBUG_OPTION);
+		this.reportFile = System.getProperty(REPORT_FILE_PROPERTY);
+	}
+
+	/**
+	 * Returns <code>true</code> if Spring builds should be profiled.
+	 */
+	public boolean isEnabled() {
+		return debug || (reportFile != null && reportFile.length() > 0) || !listeners.isEmpty();
+	}
+
+	/**
+	 * Returns the profile of the last finished Spring build of the given <code>project</code> or <code>null</code> if
+	 * no build has been profiled yet.
+	 */
+	public BuildProfile getBuildProfile(IProject project) {
+		return profiles.get(project);
+	}
+
+	/**
+	 * Returns the profiles of the last finished Spring build of all projects.
+	 */
+	public List<BuildProfile> getBuildProfiles() {
+		return new ArrayList<BuildProfile>(profiles.values());
+	}
+
+	/**
+	 * Records the given finished build <code>profile</code> replacing the previous profile of its project.
+	 */
+	public void buildFinished(BuildProfile profile) {
+		profiles.put(profile.getProject(), profile);
+		if (debug) {
+			profile.writeReport(new PrintWriter(System.out), REPORT_LIMIT);
+		}
+		if (reportFile != null && reportFile.length() > 0) {
+			writeReport(profile);
+		}
+		for (IBuildProfileListener listener : listeners) {
+			listener.buildProfileFinished(profile);
+		}
+	}
+
+	/**
+	 * Discards the profiles of all projects.
+	 */
+	public void clear() {
+		profiles.clear();
+	}
+
+	public void addBuildProfileListener(IBuildProfileListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeBuildProfileListener(IBuildProfileListener listener) {
+		listeners.remove(listener);
+	}
+
+	private synchronized void writeReport(BuildProfile profile) {
+		PrintWriter writer = null;
+		try {
+			writer = new PrintWriter(new FileWriter(reportFile, true));
+			profile.writeReport(writer, REPORT_LIMIT);
+		}
+		catch (IOException e) {
+			SpringCore.log(e);
+		}
+		finally {
+			if (writer != null) {
+				writer.close();
+			}
+		}
+	}
+
+}
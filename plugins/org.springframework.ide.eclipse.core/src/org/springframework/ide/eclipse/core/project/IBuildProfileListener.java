@@ -0,0 +1,26 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.project;
+
+/**
+ * Listener interface to get notified about finished {@link BuildProfile build profiles}.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ * @see BuildProfileManager
+ */
+public interface IBuildProfileListener {
+
+	/**
+	 * Notifies that a Spring build of the profile's project has finished. Might be called from any thread.
+	 */
+	void buildProfileFinished(BuildProfile profile);
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007 Spring IDE Developers
+ * Copyright (c) 2007, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,26 +11,25 @@
 package org.springframework.ide.eclipse.core.type.asm;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.objectweb.asm.ClassReader;
 
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.ide.eclipse.core.SpringCore;
 
 /**
  * Caching implementation of the {@link ClassReaderFactory} interface, caching a
  * ClassReader per Spring Resource handle (i.e. per ".class" file).
+ * <p>
+ * All instances share the {@link ClassReaderCache} of the Spring core plug-in
+ * so that class files are only read once across validation and builders.
  * @author Christian Dupuis
  * @author Juergen Hoeller
  * @since 2.0.2
  */
 public class CachingClassReaderFactory extends SimpleClassReaderFactory {
 
-	private final Map<Resource, ClassReader> classReaderCache = 
-		new HashMap<Resource, ClassReader>();
-
 	/**
 	 * Create a new CachingClassReaderFactory for the default class loader.
 	 */
@@ -56,14 +55,11 @@ public class CachingClassReaderFactory extends SimpleClassReaderFactory {
 	}
 
 	public ClassReader getClassReader(Resource resource) throws IOException {
-		synchronized (this.classReaderCache) {
-			ClassReader classReader = this.classReaderCache.get(resource);
-			if (classReader == null) {
-				classReader = super.getClassReader(resource);
-				this.classReaderCache.put(resource, classReader);
-			}
-			return classReader;
+		ClassReaderCache classReaderCache = SpringCore.getClassReaderCache();
+		if (classReaderCache != null) {
+			return classReaderCache.getClassReader(resource);
 		}
+		return super.getClassReader(resource);
 	}
 
 }
@@ -0,0 +1,249 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.type.asm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.objectweb.asm.ClassReader;
+import org.springframework.core.io.Resource;
+import org.springframework.ide.eclipse.core.java.ITypeStructureChangeListener;
+
+/**
+ * Size-bounded cache of ASM {@link ClassReader} instances shared by all {@link CachingClassReaderFactory} instances.
+ * <p>
+ * Entries are keyed by the URL of the class file and validated against its modification stamp; for classes in a jar
+ * the stamp of the jar file is used. Class readers are only softly referenced and the cache is split into
+ * independently locked segments so that concurrent builds don't contend on a single lock. {@link ClassReader}
+ * instances are not modified after creation and can safely be shared.
+ * <p>
+ * As {@link ITypeStructureChangeListener} the cache drops entries of class files that have been recompiled or of
+ * projects that have been cleaned.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ * @see CachingClassReaderFactory
+ */
+public class ClassReaderCache implements ITypeStructureChangeListener {
+
+	private static final int SEGMENT_COUNT = 16;
+
+	private static final int DEFAULT_MAX_SIZE = 4096;
+
+	private final Segment[] segments;
+
+	/**
+	 * Creates a new {@link ClassReaderCache} with the default maximum size.
+	 */
+	public ClassReaderCache() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Creates a new {@link ClassReaderCache} that holds at most <code>maxSize</code> entries.
+	 */
+	public ClassReaderCache(int maxSize) {
+		int maxSegmentSize = Math.max(1, maxSize / SEGMENT_COUNT);
+		segments = new Segment[SEGMENT_COUNT];
+		for (int i = 0; i < SEGMENT_COUNT; i++) {
+			segments[i] = new Segment(maxSegmentSize);
+		}
+	}
+
+	/**
+	 * Returns a {@link ClassReader} for the given class file <code>resource</code>, reading the class file only if
+	 * it has not been read before or has been modified in the meantime.
+	 */
+	public ClassReader getClassReader(Resource resource) throws IOException {
+		String key = null;
+		long stamp = 0;
+		try {
+			key = resource.getURL().toString();
+			stamp = resource.lastModified();
+		}
+		catch (IOException e) {
+			// Resources that can't be resolved to a file are not cached
+			return readClassReader(resource);
+		}
+
+		Segment segment = getSegment(key);
+		ClassReader classReader = segment.get(key, stamp);
+		if (classReader == null) {
+			// Read outside of the segment lock; concurrent reads of the same class are harmless
+			classReader = readClassReader(resource);
+			segment.put(key, stamp, classReader);
+		}
+		return classReader;
+	}
+
+	/**
+	 * Removes the entry of the class file with the given <code>url</code>.
+	 */
+	public void evict(String url) {
+		getSegment(url).remove(url);
+	}
+
+	/**
+	 * Removes all entries of class files with a URL starting with the given <code>urlPrefix</code>.
+	 */
+	public void evictAll(String urlPrefix) {
+		for (Segment segment : segments) {
+			segment.removeAll(urlPrefix);
+		}
+	}
+
+	/**
+	 * Removes all entries from this cache.
+	 */
+	public void clear() {
+		for (Segment segment : segments) {
+			segment.clear();
+		}
+	}
+
+	/**
+	 * Returns the number of entries of this cache. Entries whose {@link ClassReader} got garbage collected are
+	 * included until they are accessed or evicted.
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	public void typeStructuresRecorded(IProject project, IResource... resources) {
+		for (IResource resource : resources) {
+			String url = getUrl(resource);
+			if (url != null) {
+				evict(url);
+			}
+		}
+	}
+
+	public void typeStructuresCleared(IProject project) {
+		String url = getUrl(project);
+		if (url != null) {
+			evictAll(url.endsWith("/") ? url : url + "/");
+		}
+	}
+
+	private Segment getSegment(String key) {
+		int hash = key.hashCode();
+		// Spread the hash bits as the lower bits of URL hashes are not well distributed
+		hash ^= (hash >>> 16);
+		return segments[(hash & 0x7fffffff) % SEGMENT_COUNT];
+	}
+
+	private static String getUrl(IResource resource) {
+		URI uri = resource.getLocationURI();
+		if (uri != null) {
+			try {
+				return uri.toURL().toString();
+			}
+			catch (IOException e) {
+			}
+			catch (IllegalArgumentException e) {
+			}
+		}
+		return null;
+	}
+
+	private static ClassReader readClassReader(Resource resource) throws IOException {
+		InputStream is = resource.getInputStream();
+		try {
+			return new ClassReader(is);
+		}
+		finally {
+			is.close();
+		}
+	}
+
+	/**
+	 * Cache entry softly referencing a {@link ClassReader} read at the given modification stamp.
+	 */
+	private static class CacheEntry {
+
+		private final long stamp;
+
+		private final SoftReference<ClassReader> classReader;
+
+		public CacheEntry(long stamp, ClassReader classReader) {
+			this.stamp = stamp;
+			this.classReader = new SoftReference<ClassReader>(classReader);
+		}
+	}
+
+	/**
+	 * Independently locked, access-ordered part of the cache that evicts its least recently used entry once full.
+	 */
+	private static class Segment {
+
+		private final Map<String, CacheEntry> entries;
+
+		public Segment(final int maxSize) {
+			this.entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+					return size() > maxSize;
+				}
+			};
+		}
+
+		public synchronized ClassReader get(String key, long stamp) {
+			CacheEntry entry = entries.get(key);
+			if (entry == null) {
+				return null;
+			}
+			ClassReader classReader = entry.classReader.get();
+			if (classReader == null || entry.stamp != stamp) {
+				entries.remove(key);
+				return null;
+			}
+			return classReader;
+		}
+
+		public synchronized void put(String key, long stamp, ClassReader classReader) {
+			entries.put(key, new CacheEntry(stamp, classReader));
+		}
+
+		public synchronized void remove(String key) {
+			entries.remove(key);
+		}
+
+		public synchronized void removeAll(String keyPrefix) {
+			for (Iterator<String> keys = entries.keySet().iterator(); keys.hasNext();) {
+				if (keys.next().startsWith(keyPrefix)) {
+					keys.remove();
+				}
+			}
+		}
+
+		public synchronized void clear() {
+			entries.clear();
+		}
+
+		public synchronized int size() {
+			return entries.size();
+		}
+	}
+
+}
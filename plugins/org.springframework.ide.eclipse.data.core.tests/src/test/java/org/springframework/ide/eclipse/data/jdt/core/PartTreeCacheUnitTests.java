@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.data.jdt.core;
+
+import static java.util.Arrays.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.springframework.ide.eclipse.data.jdt.core.PartTreeCache.RepositoryEntry;
+
+/**
+ * Unit tests for {@link PartTreeCache}.
+ *
+ * @author Oliver Gierke
+ * @since 3.0.0
+ */
+public class PartTreeCacheUnitTests {
+
+	@Test
+	public void parsesEachMethodNameOnlyOnce() {
+
+		PartTreeCache cache = new PartTreeCache();
+		RepositoryEntry entry = cache.putEntry("repository", "signature", User.class, 1L);
+
+		assertThat(entry.getProblem("findByFirstname"), is(nullValue()));
+		assertThat(entry.getProblem("findByLastname"), is(notNullValue()));
+		assertThat(entry.getProblem("findByFirstname"), is(nullValue()));
+		assertThat(entry.getProblem("findByLastname"), is(notNullValue()));
+		assertThat(entry.getParseCount(), is(2));
+	}
+
+	@Test
+	public void reparsesRemovedMethods() {
+
+		RepositoryEntry entry = new PartTreeCache().putEntry("repository", "signature", User.class, 1L);
+		entry.getProblem("findByFirstname");
+		entry.getProblem("findByLastname");
+
+		entry.retainMethods(asList("findByFirstname"));
+		entry.getProblem("findByFirstname");
+		assertThat(entry.getParseCount(), is(2));
+
+		entry.getProblem("findByLastname");
+		assertThat(entry.getParseCount(), is(3));
+	}
+
+	@Test
+	public void detectsStaleEntries() {
+
+		PartTreeCache cache = new PartTreeCache();
+		RepositoryEntry entry = cache.putEntry("repository", "signature", User.class, 1L);
+
+		assertThat(cache.getEntry("repository"), is(entry));
+		assertThat(entry.isValid("signature", 1L), is(true));
+		assertThat(entry.isValid("signature", 2L), is(false));
+		assertThat(entry.isValid("otherSignature", 1L), is(false));
+
+		cache.removeEntry("repository");
+		assertThat(cache.getEntry("repository"), is(nullValue()));
+	}
+
+	@Test
+	public void exposesKeysOfStoredRepositories() {
+
+		PartTreeCache cache = new PartTreeCache();
+		cache.putEntry("repository", "signature", User.class, 1L);
+		cache.putEntry("otherRepository", "signature", User.class, 1L);
+
+		assertThat(cache.getRepositoryKeys().size(), is(2));
+		assertThat(cache.getRepositoryKeys().contains("repository"), is(true));
+
+		cache.removeEntry("repository");
+		assertThat(cache.getRepositoryKeys().size(), is(1));
+		assertThat(cache.getRepositoryKeys().contains("otherRepository"), is(true));
+	}
+
+	class User {
+
+		String firstname;
+	}
+}
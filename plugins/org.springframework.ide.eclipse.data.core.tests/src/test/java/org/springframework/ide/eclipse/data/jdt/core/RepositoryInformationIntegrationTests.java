@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.data.jdt.core;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Integration tests for {@link RepositoryInformation} against source types of a Java project in the workspace.
+ *
+ * @author Oliver Gierke
+ */
+public class RepositoryInformationIntegrationTests {
+
+	private IProject project;
+
+	private IPackageFragment repositories;
+
+	@Before
+	public void setUp() throws CoreException {
+
+		project = ResourcesPlugin.getWorkspace().getRoot().getProject("repositories");
+		project.create(null);
+		project.open(null);
+
+		IProjectDescription description = project.getDescription();
+		description.setNatureIds(new String[] { JavaCore.NATURE_ID });
+		project.setDescription(description, null);
+
+		IJavaProject javaProject = JavaCore.create(project);
+		project.getFolder("src").create(true, true, null);
+		javaProject.setRawClasspath(new IClasspathEntry[] {
+				JavaCore.newSourceEntry(project.getFullPath().append("src")),
+				JavaCore.newContainerEntry(new Path("org.eclipse.jdt.launching.JRE_CONTAINER")) },
+				project.getFullPath().append("bin"), null);
+
+		// source copies of the Spring Data types so that the super types have to be resolved from source as well
+		IPackageFragment data = javaProject.getPackageFragmentRoot(project.getFolder("src")).createPackageFragment(
+				"org.springframework.data.repository", true, null);
+		data.createCompilationUnit("Repository.java", "package org.springframework.data.repository;\n\n"
+				+ "public interface Repository<T, ID> {\n}\n", true, null);
+		data.createCompilationUnit("CrudRepository.java", "package org.springframework.data.repository;\n\n"
+				+ "public interface CrudRepository<T, ID> extends Repository<T, ID> {\n}\n", true, null);
+		data.createCompilationUnit("RepositoryDefinition.java", "package org.springframework.data.repository;\n\n"
+				+ "public @interface RepositoryDefinition {\n}\n", true, null);
+
+		repositories = javaProject.getPackageFragmentRoot(project.getFolder("src")).createPackageFragment(
+				"org.test.repositories", true, null);
+		createType("User", "public class User {\n}\n");
+	}
+
+	@After
+	public void tearDown() throws CoreException {
+		project.delete(true, true, null);
+	}
+
+	@Test
+	public void detectsRepositoryExtendingCrudRepository() throws CoreException {
+
+		IType type = createType("UserRepository", "import org.springframework.data.repository.CrudRepository;\n\n"
+				+ "public interface UserRepository extends CrudRepository<User, Long> {\n}\n");
+
+		assertThat(RepositoryInformation.isSpringDataRepository(type), is(true));
+	}
+
+	@Test
+	public void detectsRepositoryExtendingRepository() throws CoreException {
+
+		IType type = createType("UserRepository", "import org.springframework.data.repository.Repository;\n\n"
+				+ "public interface UserRepository extends Repository<User, Long> {\n}\n");
+
+		assertThat(RepositoryInformation.isSpringDataRepository(type), is(true));
+	}
+
+	@Test
+	public void detectsRepositoryExtendingCustomBaseRepository() throws CoreException {
+
+		createType("BaseRepository", "import org.springframework.data.repository.CrudRepository;\n\n"
+				+ "public interface BaseRepository<T> extends CrudRepository<T, Long> {\n}\n");
+		IType type = createType("UserRepository",
+				"public interface UserRepository extends BaseRepository<User> {\n}\n");
+
+		assertThat(RepositoryInformation.isSpringDataRepository(type), is(true));
+	}
+
+	@Test
+	public void detectsAnnotatedRepository() throws CoreException {
+
+		IType type = createType("UserRepository", "import org.springframework.data.repository.RepositoryDefinition;\n\n"
+				+ "@RepositoryDefinition\npublic interface UserRepository {\n}\n");
+
+		assertThat(RepositoryInformation.isSpringDataRepository(type), is(true));
+	}
+
+	@Test
+	public void rejectsOtherInterfaces() throws CoreException {
+
+		IType type = createType("UserService", "import java.io.Serializable;\n\n"
+				+ "public interface UserService extends Serializable {\n}\n");
+
+		assertThat(RepositoryInformation.isSpringDataRepository(type), is(false));
+	}
+
+	private IType createType(String name, String body) throws CoreException {
+		return repositories.createCompilationUnit(name + ".java", "package org.test.repositories;\n\n" + body, true,
+				null).getType(name);
+	}
+}
@@ -96,16 +96,20 @@ public class EntityPropertyCompletionProposals extends JavaCompletionProposalCom
 			return Collections.emptyList();
 		}
 
+		Class<?> domainClass = information.getManagedDomainClass();
+		if (domainClass == null) {
+			return Collections.emptyList();
+		}
+
 		IJavaProject project = javaContext.getProject();
-		IType domainType = project.findType(information.getManagedDomainClass().getName());
+		IType domainType = project.findType(domainClass.getName());
 		List<ICompletionProposal> proposals = new ArrayList<ICompletionProposal>();
 
 		int offset = javaContext.getCoreContext().getOffset();
 		int positionInMethodName = offset - element.getNameRange().getOffset();
 
 		KeywordProvider keywordProvider = information.getKeywordProvider(project);
-		QueryMethodCandidate candidate = new QueryMethodCandidate(element.getElementName(),
-				information.getManagedDomainClass());
+		QueryMethodCandidate candidate = new QueryMethodCandidate(element.getElementName(), domainClass);
 		QueryMethodPart part = candidate.getPartAtPosition(positionInMethodName);
 
 		if (part == null) {
@@ -13,6 +13,7 @@ package org.springframework.ide.eclipse.data.jdt.core;
 import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.compiler.CategorizedProblem;
+import org.springframework.ide.eclipse.core.SpringCore;
 import org.springframework.util.Assert;
 
 /**
@@ -153,8 +154,7 @@ public class InvalidDerivedQueryProblem extends CategorizedProblem {
 	 */
 	@Override
 	public String getMarkerType() {
-		// TODO Auto-generated method stub
-		return null;
+		return SpringCore.MARKER_ID;
 	}
 
 }
@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.data.jdt.core;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.util.Assert;
+
+/**
+ * Cache of the results of parsing the query methods of Spring Data repositories into {@link PartTree}s.
+ * <p>
+ * Results are kept per repository and are only valid for the domain class the repository has been resolved to. An
+ * entry has to be replaced once the declaration of the repository or the structure of its domain type changes.
+ *
+ * @author Oliver Gierke
+ * @since 3.0.0
+ */
+public class PartTreeCache {
+
+	private final ConcurrentMap<String, RepositoryEntry> entries = new ConcurrentHashMap<String, RepositoryEntry>();
+
+	/**
+	 * Returns the {@link RepositoryEntry} stored for the repository with the given key.
+	 *
+	 * @param repositoryKey must not be {@literal null}.
+	 * @return the entry or {@literal null} if none has been stored.
+	 */
+	public RepositoryEntry getEntry(String repositoryKey) {
+		return entries.get(repositoryKey);
+	}
+
+	/**
+	 * Stores a new {@link RepositoryEntry} for the repository with the given key, dropping all results recorded for
+	 * the repository so far.
+	 *
+	 * @param repositoryKey must not be {@literal null}.
+	 * @param signature the declaration of the repository the domain class has been resolved from.
+	 * @param domainClass must not be {@literal null}.
+	 * @param domainTypeStamp the structural stamp of the domain type.
+	 * @return the new entry.
+	 */
+	public RepositoryEntry putEntry(String repositoryKey, String signature, Class<?> domainClass, long domainTypeStamp) {
+		RepositoryEntry entry = new RepositoryEntry(signature, domainClass, domainTypeStamp);
+		entries.put(repositoryKey, entry);
+		return entry;
+	}
+
+	/**
+	 * Removes the results recorded for the repository with the given key.
+	 */
+	public void removeEntry(String repositoryKey) {
+		entries.remove(repositoryKey);
+	}
+
+	/**
+	 * Returns the keys of all repositories results are stored for.
+	 *
+	 * @return an unmodifiable view of the keys.
+	 */
+	public Set<String> getRepositoryKeys() {
+		return Collections.unmodifiableSet(entries.keySet());
+	}
+
+	/**
+	 * Parsing results of the query methods of a single repository.
+	 */
+	public static class RepositoryEntry {
+
+		/** Marker for query methods that could be parsed successfully */
+		private static final String VALID = "";
+
+		private final String signature;
+
+		private final Class<?> domainClass;
+
+		private final long domainTypeStamp;
+
+		private final ConcurrentMap<String, String> problems = new ConcurrentHashMap<String, String>();
+
+		private final AtomicInteger parseCount = new AtomicInteger();
+
+		RepositoryEntry(String signature, Class<?> domainClass, long domainTypeStamp) {
+
+			Assert.notNull(domainClass);
+
+			this.signature = signature;
+			this.domainClass = domainClass;
+			this.domainTypeStamp = domainTypeStamp;
+		}
+
+		public Class<?> getDomainClass() {
+			return domainClass;
+		}
+
+		/**
+		 * Returns whether this entry has been created for the given repository signature and domain type stamp.
+		 */
+		public boolean isValid(String signature, long domainTypeStamp) {
+			return this.domainTypeStamp == domainTypeStamp
+					&& (this.signature == null ? signature == null : this.signature.equals(signature));
+		}
+
+		/**
+		 * Returns the problem of the query method with the given name. The method name is only parsed if it hasn't
+		 * been seen before.
+		 *
+		 * @param methodName must not be {@literal null}.
+		 * @return the message of the problem or {@literal null} if the method is a valid query method.
+		 */
+		public String getProblem(String methodName) {
+
+			String problem = problems.get(methodName);
+
+			if (problem == null) {
+				problem = parse(methodName);
+				problems.putIfAbsent(methodName, problem);
+			}
+
+			return problem == VALID ? null : problem;
+		}
+
+		/**
+		 * Drops the results of all query methods whose names are not contained in the given ones.
+		 */
+		public void retainMethods(Collection<String> methodNames) {
+			problems.keySet().retainAll(methodNames);
+		}
+
+		/**
+		 * Returns the number of method names that have been parsed for this entry.
+		 */
+		int getParseCount() {
+			return parseCount.get();
+		}
+
+		private String parse(String methodName) {
+
+			parseCount.incrementAndGet();
+
+			try {
+				new PartTree(methodName, domainClass);
+				return VALID;
+			} catch (PropertyReferenceException e) {
+				return e.getMessage();
+			}
+		}
+	}
+}
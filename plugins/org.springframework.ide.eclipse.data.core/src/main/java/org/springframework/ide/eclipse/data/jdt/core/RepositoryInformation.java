@@ -10,13 +10,10 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.data.jdt.core;
 
-import java.util.Arrays;
-import java.util.List;
-
-import org.eclipse.jdt.core.IAnnotation;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
 import org.eclipse.jdt.core.JavaModelException;
 import org.springframework.core.GenericTypeResolver;
 import org.springframework.data.repository.Repository;
@@ -63,6 +60,8 @@ public class RepositoryInformation {
 
 	private static final String REPOSITORY_INTERFACE_NAME = "org.springframework.data.repository.Repository";
 
+	private static final String REPOSITORY_DEFINITION_NAME = "org.springframework.data.repository.RepositoryDefinition";
+
 	private final IType type;
 	private final Class<?> repositoryInterface;
 	private final Class<?> repositoryBaseInterface;
@@ -114,18 +113,39 @@ public class RepositoryInformation {
 	}
 
 	public boolean isSpringDataRepository() {
+		return isSpringDataRepository(type);
+	}
+
+	/**
+	 * Returns whether the given {@link IType} is a Spring Data repository, i.e. whether it extends {@link Repository}
+	 * directly or through one of its sub-interfaces or is annotated with {@code @RepositoryDefinition}. Other than
+	 * creating a {@link RepositoryInformation} this does not require the repository interface to be loaded.
+	 * 
+	 * @param type must not be {@literal null}.
+	 * @return
+	 */
+	public static boolean isSpringDataRepository(IType type) {
+
+		Assert.notNull(type);
+
+		if (type.getAnnotation("RepositoryDefinition").exists()
+				|| type.getAnnotation(REPOSITORY_DEFINITION_NAME).exists()) {
+			return true;
+		}
 
 		try {
-			List<String> interfaces = Arrays.asList(type.getSuperInterfaceNames());
-			if (interfaces.contains(REPOSITORY_INTERFACE_NAME)) {
-				return true;
+			// the names of the super interfaces are unresolved for source types
+			ITypeHierarchy hierarchy = type.newSupertypeHierarchy(null);
+			for (IType superInterface : hierarchy.getAllSuperInterfaces(type)) {
+				if (REPOSITORY_INTERFACE_NAME.equals(superInterface.getFullyQualifiedName())) {
+					return true;
+				}
 			}
 		} catch (JavaModelException e) {
 			return false;
 		}
 
-		IAnnotation repoDefinitionAnnotation = type.getAnnotation("RepositoryDefinition");
-		return repoDefinitionAnnotation != null;
+		return false;
 	}
 
 	/**
@@ -151,7 +171,15 @@ public class RepositoryInformation {
 		}
 	}
 
+	/**
+	 * Returns the domain class managed by the repository.
+	 * 
+	 * @return the domain class or {@literal null} if it can't be resolved from the type arguments of
+	 *         {@link Repository}, e.g. for interfaces annotated with {@code @RepositoryDefinition}.
+	 */
 	public Class<?> getManagedDomainClass() {
-		return GenericTypeResolver.resolveTypeArguments(this.repositoryInterface, this.repositoryBaseInterface)[0];
+		Class<?>[] arguments = GenericTypeResolver.resolveTypeArguments(this.repositoryInterface,
+				this.repositoryBaseInterface);
+		return arguments == null ? null : arguments[0];
 	}
 }
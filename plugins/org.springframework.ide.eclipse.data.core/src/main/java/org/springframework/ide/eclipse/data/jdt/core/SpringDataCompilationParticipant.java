@@ -13,25 +13,49 @@ package org.springframework.ide.eclipse.data.jdt.core;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IAnnotation;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
 import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.compiler.CategorizedProblem;
 import org.eclipse.jdt.core.compiler.CompilationParticipant;
 import org.eclipse.jdt.core.compiler.ReconcileContext;
 import org.eclipse.jdt.core.dom.CompilationUnit;
-import org.springframework.data.mapping.PropertyReferenceException;
-import org.springframework.data.repository.query.parser.PartTree;
 import org.springframework.ide.eclipse.core.SpringCore;
 import org.springframework.ide.eclipse.core.SpringCoreUtils;
+import org.springframework.ide.eclipse.core.java.Introspector;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
+import org.springframework.ide.eclipse.data.jdt.core.PartTreeCache.RepositoryEntry;
 
 /**
+ * {@link CompilationParticipant} that reports query methods of Spring Data repositories that can't be derived into a
+ * query.
+ * <p>
+ * The parsing results are kept in a {@link PartTreeCache} so that a reconcile only parses the query methods whose names
+ * have changed. All results of a repository are dropped once its declaration or the compiled class of its domain type
+ * changes, and once the repository has been removed or its project has been closed.
  * 
  * @author Oliver Gierke
+ * @author Christian Dupuis
  */
 public class SpringDataCompilationParticipant extends CompilationParticipant {
 
+	private final PartTreeCache partTreeCache = new PartTreeCache();
+
+	public SpringDataCompilationParticipant() {
+		JavaCore.addElementChangedListener(new RemovedRepositoryListener(), ElementChangedEvent.POST_CHANGE);
+	}
+
 	/* 
 	 * (non-Javadoc)
 	 * @see org.eclipse.jdt.core.compiler.CompilationParticipant#isActive(org.eclipse.jdt.core.IJavaProject)
@@ -58,29 +82,36 @@ public class SpringDataCompilationParticipant extends CompilationParticipant {
 				return;
 			}
 
-			RepositoryInformation information = new RepositoryInformation(type);
+			String repositoryKey = type.getHandleIdentifier();
 
-			if (information.isSpringDataRepository()) {
-				System.out.println("Found Spring Data Repository " + type.getFullyQualifiedName());
-			} else {
+			if (!RepositoryInformation.isSpringDataRepository(type)) {
+				partTreeCache.removeEntry(repositoryKey);
+				return;
+			}
+
+			RepositoryEntry entry = getRepositoryEntry(repositoryKey, type);
+			if (entry == null) {
+				partTreeCache.removeEntry(repositoryKey);
+				super.reconcile(context);
 				return;
 			}
 
-			Class<?> domainClass = information.getManagedDomainClass();
 			List<CategorizedProblem> problems = new ArrayList<CategorizedProblem>();
+			List<String> methodNames = new ArrayList<String>();
 
 			for (IMethod method : type.getMethods()) {
 
 				String methodName = method.getElementName();
+				methodNames.add(methodName);
 
-				try {
-					new PartTree(methodName, domainClass);
-				} catch (PropertyReferenceException e) {
-					problems.add(new InvalidDerivedQueryProblem(method, e.getMessage()));
+				String problem = entry.getProblem(methodName);
+				if (problem != null) {
+					problems.add(new InvalidDerivedQueryProblem(method, problem));
 				}
 			}
 
-			context.putProblems("MARKER", problems.toArray(new CategorizedProblem[problems.size()]));
+			entry.retainMethods(methodNames);
+			context.putProblems(SpringCore.MARKER_ID, problems.toArray(new CategorizedProblem[problems.size()]));
 
 		} catch (JavaModelException e) {
 			SpringCore.log(e);
@@ -88,4 +119,135 @@ public class SpringDataCompilationParticipant extends CompilationParticipant {
 
 		super.reconcile(context);
 	}
+
+	/**
+	 * Returns the cached {@link RepositoryEntry} for the given repository {@link IType}. The domain class of the
+	 * repository is only resolved again if the repository declaration or the domain type has changed.
+	 * 
+	 * @return the entry or {@literal null} if the domain class of the repository can't be resolved.
+	 */
+	private RepositoryEntry getRepositoryEntry(String repositoryKey, IType type) throws JavaModelException {
+
+		String signature = getSignature(type);
+		RepositoryEntry entry = partTreeCache.getEntry(repositoryKey);
+
+		if (entry != null && entry.isValid(signature, getStructuralStamp(type, entry.getDomainClass()))) {
+			return entry;
+		}
+
+		Class<?> domainClass;
+		try {
+			domainClass = new RepositoryInformation(type).getManagedDomainClass();
+		} catch (IllegalArgumentException e) {
+			// repository interface hasn't been compiled yet
+			return null;
+		}
+
+		if (domainClass == null) {
+			return null;
+		}
+
+		return partTreeCache.putEntry(repositoryKey, signature, domainClass, getStructuralStamp(type, domainClass));
+	}
+
+	/**
+	 * Returns the parts of the repository declaration the domain class is resolved from.
+	 */
+	private static String getSignature(IType type) throws JavaModelException {
+
+		StringBuilder signature = new StringBuilder();
+		for (String superInterface : type.getSuperInterfaceTypeSignatures()) {
+			signature.append(superInterface).append(';');
+		}
+
+		IAnnotation annotation = type.getAnnotation("RepositoryDefinition");
+		if (annotation.exists()) {
+			signature.append(annotation.getSource());
+		}
+
+		return signature.toString();
+	}
+
+	/**
+	 * Returns a stamp that changes whenever the compiled class of the given domain class or one of its super classes
+	 * changes. The domain class is loaded from the compiled output, so changes to its source don't matter before it has
+	 * been built.
+	 */
+	private static long getStructuralStamp(IType repositoryType, Class<?> domainClass) {
+
+		IType domainType = JdtUtils.getJavaType(repositoryType.getJavaProject().getProject(), domainClass.getName());
+		long stamp = 0;
+
+		try {
+			for (IType current = domainType; current != null; current = Introspector.getSuperType(current)) {
+				stamp = 31 * stamp + getClassFileStamp(current);
+			}
+		} catch (JavaModelException e) {
+			// fall back to the stamps collected so far
+		}
+
+		return stamp;
+	}
+
+	/**
+	 * Returns the modification stamp of the class file the given type is loaded from.
+	 */
+	private static long getClassFileStamp(IType type) throws JavaModelException {
+
+		if (type.isBinary()) {
+			IResource resource = type.getClassFile().getResource();
+			if (resource != null) {
+				return resource.getModificationStamp();
+			}
+			// class file in an archive outside of the workspace
+			IPackageFragmentRoot root = (IPackageFragmentRoot) type.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+			return root == null ? 0 : root.getPath().toFile().lastModified();
+		}
+
+		IPackageFragmentRoot root = (IPackageFragmentRoot) type.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+		IPath outputLocation = root.getRawClasspathEntry().getOutputLocation();
+		if (outputLocation == null) {
+			outputLocation = type.getJavaProject().getOutputLocation();
+		}
+
+		String classFileName = type.getFullyQualifiedName('$').replace('.', '/') + JdtUtils.CLASS_FILE_EXTENSION;
+		return ResourcesPlugin.getWorkspace().getRoot().getFile(outputLocation.append(classFileName))
+				.getModificationStamp();
+	}
+
+	/**
+	 * Drops the results of repositories that have been removed or whose project has been closed, so that the cache
+	 * doesn't keep their domain classes and thereby the class loaders of their projects.
+	 */
+	private class RemovedRepositoryListener implements IElementChangedListener {
+
+		public void elementChanged(ElementChangedEvent event) {
+
+			if (!hasRemovedElements(event.getDelta())) {
+				return;
+			}
+
+			for (String repositoryKey : partTreeCache.getRepositoryKeys()) {
+				IJavaElement element = JavaCore.create(repositoryKey);
+				if (element == null || !element.exists()) {
+					partTreeCache.removeEntry(repositoryKey);
+				}
+			}
+		}
+
+		private boolean hasRemovedElements(IJavaElementDelta delta) {
+
+			if (delta.getKind() == IJavaElementDelta.REMOVED || (delta.getFlags() & IJavaElementDelta.F_CLOSED) != 0) {
+				return true;
+			}
+
+			for (IJavaElementDelta child : delta.getAffectedChildren()) {
+				if (hasRemovedElements(child)) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+	}
 }
@@ -13,21 +13,31 @@ package org.springframework.ide.eclipse.maven.legacy.internal.core;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceRuleFactory;
+import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.IncrementalProjectBuilder;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.eclipse.core.runtime.jobs.MultiRule;
+import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
 import org.eclipse.jdt.internal.compiler.classfmt.ClassFormatException;
@@ -42,7 +52,10 @@ import org.springframework.ide.eclipse.maven.legacy.MavenCorePlugin;
 /**
  * {@link IProjectBuilder} that overcomes some limitations of the DataNucleus Enhancer.
  * <p>
- * This implementation will check if any of the incremental changes require a re-enhancing.
+ * This implementation will check if any of the incremental changes require a re-enhancing. Only one enhancer job per
+ * project is scheduled at a time; requests that arrive while a job is running are merged into the next one. After
+ * enhancing, only the class files that have been enhanced, or the output folders of the project after a full build, are
+ * refreshed.
  * @author Christian Dupuis
  * @since 2.5.0
  */
@@ -58,6 +71,9 @@ public class DataNucleusEnhancerProjectBuilder implements IProjectBuilder, Initi
 
 	private static boolean IS_DATANUCLEUS_PRESENT = isPresent();
 
+	/** The enhancements of projects that are scheduled or running keyed by project */
+	private static final Map<IProject, ProjectEnhancement> ENHANCEMENTS = new HashMap<IProject, ProjectEnhancement>();
+
 	private static boolean isPresent() {
 		try {
 			Class.forName(ENHANCER_JOB_CLASS_NAME);
@@ -72,49 +88,21 @@ public class DataNucleusEnhancerProjectBuilder implements IProjectBuilder, Initi
 	 * {@inheritDoc}
 	 */
 	public void build(Set<IResource> affectedResources, int kind, IProgressMonitor monitor) throws CoreException {
-		final Set<IJavaProject> javaProjects = new HashSet<IJavaProject>();
+		Map<IJavaProject, Set<IResource>> javaProjects = new HashMap<IJavaProject, Set<IResource>>();
 		for (IResource resource : affectedResources) {
 			IJavaProject javaProject = JdtUtils.getJavaProject(resource);
 			if (javaProject != null) {
-				javaProjects.add(javaProject);
+				Set<IResource> resources = javaProjects.get(javaProject);
+				if (resources == null) {
+					resources = new HashSet<IResource>();
+					javaProjects.put(javaProject, resources);
+				}
+				resources.add(resource);
 			}
 		}
 
-		for (IJavaProject javaProject : javaProjects) {
-			try {
-				// Reflectively load the DataNucleus project builder to prevent compile time dependency
-				Class<?> enhancerJobClass = MavenCorePlugin.getDefault().getBundle().loadClass(ENHANCER_JOB_CLASS_NAME);
-				Job enhancerJob = (Job) enhancerJobClass.getConstructor(IJavaProject.class).newInstance(javaProject);
-				enhancerJob.setPriority(Job.SHORT);
-				enhancerJob.setRule(ResourcesPlugin.getWorkspace().getRuleFactory().buildRule());
-				enhancerJob.addJobChangeListener(new JobChangeAdapter() {
-					
-					public void done(IJobChangeEvent event) {
-						Job refreshJob = new Job("Update Resource Tree after enhance") {
-							
-							@Override
-							protected IStatus run(IProgressMonitor monitor) {
-								for (IJavaProject javaProject : javaProjects) {
-									try {
-										javaProject.getProject().refreshLocal(IResource.DEPTH_INFINITE, monitor);
-									}
-									catch (CoreException e) {
-									}
-								}
-								return Status.OK_STATUS;
-							}
-						};;
-						refreshJob.setPriority(Job.SHORT);
-						refreshJob.setRule(ResourcesPlugin.getWorkspace().getRuleFactory().buildRule());
-						refreshJob.setSystem(true);
-						refreshJob.schedule();
-					}
-					
-				});
-				enhancerJob.schedule();
-			}
-			catch (Exception e) {
-			}
+		for (Map.Entry<IJavaProject, Set<IResource>> javaProject : javaProjects.entrySet()) {
+			enhance(javaProject.getKey(), javaProject.getValue());
 		}
 	}
 
@@ -190,4 +178,168 @@ public class DataNucleusEnhancerProjectBuilder implements IProjectBuilder, Initi
 		}
 	}
 
+	/**
+	 * Schedules the enhancement of the given project, unless an enhancement that has not yet started is already
+	 * scheduled; the given resources are then added to the resources to refresh after that enhancement. If an enhancement
+	 * is currently running another enhancement is scheduled once it is done.
+	 */
+	private static void enhance(IJavaProject javaProject, Set<IResource> resources) {
+		synchronized (ENHANCEMENTS) {
+			ProjectEnhancement enhancement = ENHANCEMENTS.get(javaProject.getProject());
+			if (enhancement == null) {
+				enhancement = new ProjectEnhancement(javaProject);
+				ENHANCEMENTS.put(javaProject.getProject(), enhancement);
+			}
+			if (enhancement.running) {
+				enhancement.pendingResources.addAll(resources);
+			}
+			else {
+				enhancement.scheduledResources.addAll(resources);
+				if (!enhancement.scheduled) {
+					enhancement.scheduled = scheduleEnhancerJob(enhancement);
+					if (!enhancement.scheduled) {
+						ENHANCEMENTS.remove(javaProject.getProject());
+					}
+				}
+			}
+		}
+	}
+
+	private static boolean scheduleEnhancerJob(final ProjectEnhancement enhancement) {
+		try {
+			// Reflectively load the DataNucleus project builder to prevent compile time dependency
+			Class<?> enhancerJobClass = MavenCorePlugin.getDefault().getBundle().loadClass(ENHANCER_JOB_CLASS_NAME);
+			Job enhancerJob = (Job) enhancerJobClass.getConstructor(IJavaProject.class).newInstance(
+					enhancement.javaProject);
+			enhancerJob.setPriority(Job.SHORT);
+			enhancerJob.setRule(enhancement.javaProject.getProject());
+			enhancerJob.addJobChangeListener(new JobChangeAdapter() {
+
+				@Override
+				public void running(IJobChangeEvent event) {
+					synchronized (ENHANCEMENTS) {
+						enhancement.running = true;
+					}
+				}
+
+				@Override
+				public void done(IJobChangeEvent event) {
+					Set<IResource> enhancedResources;
+					synchronized (ENHANCEMENTS) {
+						enhancedResources = enhancement.scheduledResources;
+						enhancement.scheduledResources = enhancement.pendingResources;
+						enhancement.pendingResources = new HashSet<IResource>();
+						enhancement.running = false;
+						enhancement.scheduled = !enhancement.scheduledResources.isEmpty()
+								&& scheduleEnhancerJob(enhancement);
+						if (!enhancement.scheduled) {
+							ENHANCEMENTS.remove(enhancement.javaProject.getProject());
+						}
+					}
+					scheduleRefreshJob(enhancement.javaProject, enhancedResources);
+				}
+
+			});
+			enhancerJob.schedule();
+			return true;
+		}
+		catch (Exception e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Schedules the refresh of the given enhanced resources. Enhanced class files are refreshed individually; for an
+	 * enhanced project all its output folders are refreshed.
+	 */
+	private static void scheduleRefreshJob(IJavaProject javaProject, Set<IResource> enhancedResources) {
+		final Set<IResource> resources = new HashSet<IResource>();
+		for (IResource resource : enhancedResources) {
+			if (resource instanceof IProject) {
+				resources.addAll(getOutputFolders(javaProject));
+			}
+			else {
+				resources.add(resource);
+			}
+		}
+		if (resources.isEmpty()) {
+			return;
+		}
+
+		ISchedulingRule rule = null;
+		IResourceRuleFactory ruleFactory = ResourcesPlugin.getWorkspace().getRuleFactory();
+		for (IResource resource : resources) {
+			rule = MultiRule.combine(rule, ruleFactory.refreshRule(resource));
+		}
+
+		Job refreshJob = new Job("Update Resource Tree after enhance") {
+
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				for (IResource resource : resources) {
+					try {
+						resource.refreshLocal((resource instanceof IFile ? IResource.DEPTH_ZERO
+								: IResource.DEPTH_INFINITE), monitor);
+					}
+					catch (CoreException e) {
+					}
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		refreshJob.setPriority(Job.SHORT);
+		refreshJob.setRule(rule);
+		refreshJob.setSystem(true);
+		refreshJob.schedule();
+	}
+
+	/**
+	 * Returns the default output folder and the output folders of all source entries of the given project.
+	 */
+	private static Set<IResource> getOutputFolders(IJavaProject javaProject) {
+		Set<IResource> outputFolders = new HashSet<IResource>();
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		try {
+			Set<IPath> outputLocations = new HashSet<IPath>();
+			outputLocations.add(javaProject.getOutputLocation());
+			for (IClasspathEntry entry : javaProject.getRawClasspath()) {
+				if (entry.getEntryKind() == IClasspathEntry.CPE_SOURCE && entry.getOutputLocation() != null) {
+					outputLocations.add(entry.getOutputLocation());
+				}
+			}
+			for (IPath outputLocation : outputLocations) {
+				IResource outputFolder = root.findMember(outputLocation);
+				if (outputFolder != null) {
+					outputFolders.add(outputFolder);
+				}
+			}
+		}
+		catch (JavaModelException e) {
+			outputFolders.add(javaProject.getProject());
+		}
+		return outputFolders;
+	}
+
+	/**
+	 * The state of the enhancement of a single project.
+	 */
+	private static class ProjectEnhancement {
+
+		private final IJavaProject javaProject;
+
+		/** The resources to refresh once the scheduled enhancer job is done */
+		private Set<IResource> scheduledResources = new HashSet<IResource>();
+
+		/** The resources that have changed while the enhancer job was running */
+		private Set<IResource> pendingResources = new HashSet<IResource>();
+
+		private boolean scheduled;
+
+		private boolean running;
+
+		public ProjectEnhancement(IJavaProject javaProject) {
+			this.javaProject = javaProject;
+		}
+	}
+
 }
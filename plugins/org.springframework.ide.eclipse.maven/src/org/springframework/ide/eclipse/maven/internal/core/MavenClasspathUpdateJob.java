@@ -10,26 +10,28 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.maven.internal.core;
 
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
-import org.eclipse.core.resources.WorkspaceJob;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
-import org.eclipse.core.runtime.jobs.IJobChangeEvent;
-import org.eclipse.core.runtime.jobs.IJobChangeListener;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.core.runtime.jobs.Job;
-import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.eclipse.core.runtime.jobs.MultiRule;
 import org.eclipse.debug.core.DebugEvent;
 import org.eclipse.debug.core.DebugPlugin;
 import org.eclipse.debug.core.IDebugEventSetListener;
@@ -51,54 +53,85 @@ import org.springframework.ide.eclipse.maven.MavenCorePlugin;
 
 
 /**
+ * {@link Job} that updates the Maven dependencies of all projects that have been scheduled since it last ran.
+ * <p>
+ * There is only a single instance of this job; projects scheduled while the job is waiting are added to its batch, and
+ * projects scheduled while it is running are picked up by its next run. The Maven processes of a batch run in parallel
+ * and the job only locks the projects of its batch instead of the whole workspace.
  * @author Christian Dupuis
  */
 @SuppressWarnings("restriction")
-public class MavenClasspathUpdateJob extends WorkspaceJob {
+public class MavenClasspathUpdateJob extends Job {
 
-	/** Internal cache of scheduled and <b>unfinished</b> update jobs */
-	private static final Queue<IJavaProject> SCHEDULED_PROJECTS = new ConcurrentLinkedQueue<IJavaProject>();
+	/** The projects waiting for an update of their class path container */
+	private static final Set<IJavaProject> PENDING_PROJECTS = new LinkedHashSet<IJavaProject>();
 
-	/** The {@link IJavaProject} this jobs should refresh the class path container for */
-	private final IJavaProject javaProject;
+	private static MavenClasspathUpdateJob instance;
 
 	/**
 	 * Private constructor to create an instance
-	 * @param javaProject the {@link IJavaProject} the class path container should be updated for
-	 * @param types the change types happened to the manifest
-	 */
-	private MavenClasspathUpdateJob(IJavaProject javaProject) {
-		super("Updating Maven dependencies for project '" + javaProject.getElementName() + "'");
-		this.javaProject = javaProject;
-	}
-
-	/**
-	 * Returns the internal {@link IJavaProject}
 	 */
-	public IJavaProject getJavaProject() {
-		return javaProject;
+	private MavenClasspathUpdateJob() {
+		super("Updating Maven dependencies");
+		setPriority(Job.BUILD);
 	}
 
 	/**
-	 * Runs the job in the context of the workspace. Simply delegates refreshing of the class path container to
-	 * {@link ClasspathUtils#updateClasspathContainer(IJavaProject, IProgressMonitor)}.
+	 * Runs the job for all pending projects. The Maven processes are launched in a single workspace operation that
+	 * holds the rules of the pending projects only.
 	 */
 	@Override
-	public IStatus runInWorkspace(IProgressMonitor monitor) throws CoreException {
-		if (!javaProject.getProject().isOpen() || monitor.isCanceled()) {
+	protected IStatus run(IProgressMonitor monitor) {
+		final Map<IContainer, IProject> basedirs = new LinkedHashMap<IContainer, IProject>();
+		synchronized (PENDING_PROJECTS) {
+			for (IJavaProject javaProject : PENDING_PROJECTS) {
+				if (javaProject.getProject().isOpen()) {
+					IContainer basedir = findPomXmlBasedir(javaProject.getProject());
+					if (basedir != null && !basedirs.containsKey(basedir)) {
+						basedirs.put(basedir, javaProject.getProject());
+					}
+				}
+			}
+			PENDING_PROJECTS.clear();
+		}
+		if (basedirs.isEmpty() || monitor.isCanceled()) {
 			return Status.CANCEL_STATUS;
 		}
+
+		ISchedulingRule rule = null;
+		for (IProject project : basedirs.values()) {
+			rule = MultiRule.combine(rule, project);
+		}
+
 		try {
-			IContainer basedir = findPomXmlBasedir(javaProject.getProject());
-			if (basedir == null) {
-				return Status.CANCEL_STATUS;
-			}
-			ILaunchConfiguration configuration = createLaunchConfiguration(basedir, "eclipse:clean eclipse:eclipse");
-			if (configuration != null) {
-				ILaunch launch = configuration.launch(ILaunchManager.RUN_MODE, new SubProgressMonitor(monitor, 75));
-				DebugPlugin.getDefault().addDebugEventListener(
-						new MavenProcessListener(launch.getProcesses()[0], javaProject.getProject()));
-			}
+			ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+
+				public void run(IProgressMonitor monitor) throws CoreException {
+					monitor.beginTask(getName(), basedirs.size() * 75);
+					for (Map.Entry<IContainer, IProject> basedir : basedirs.entrySet()) {
+						if (monitor.isCanceled()) {
+							break;
+						}
+						ILaunchConfiguration configuration = createLaunchConfiguration(basedir.getKey(),
+								"eclipse:clean eclipse:eclipse");
+						if (configuration != null) {
+							ILaunch launch = configuration.launch(ILaunchManager.RUN_MODE, new SubProgressMonitor(
+									monitor, 75));
+							IProcess[] processes = launch.getProcesses();
+							if (processes.length > 0) {
+								MavenProcessListener processListener = new MavenProcessListener(processes[0],
+										basedir.getValue());
+								DebugPlugin.getDefault().addDebugEventListener(processListener);
+								// the process might have terminated before the listener was added
+								if (processes[0].isTerminated()) {
+									processListener.processTerminated();
+								}
+							}
+						}
+					}
+					monitor.done();
+				}
+			}, rule, IWorkspace.AVOID_UPDATE, monitor);
 		}
 		catch (Exception e) {
 			return Status.CANCEL_STATUS;
@@ -186,13 +219,15 @@ public class MavenClasspathUpdateJob extends WorkspaceJob {
 	}
 
 	/**
-	 * Helper method to schedule a new {@link MavenClasspathUpdateJob}.
+	 * Helper method to add a project to the batch of the {@link MavenClasspathUpdateJob}.
 	 * @param javaProject the {@link IJavaProject} the class path container should be updated for
-	 * @param types the change types of the manifest
 	 */
 	public static void scheduleClasspathContainerUpdateJob(IJavaProject javaProject) {
-		if (javaProject != null && !SCHEDULED_PROJECTS.contains(javaProject)) {
-			newClasspathContainerUpdateJob(javaProject);
+		if (javaProject != null) {
+			synchronized (PENDING_PROJECTS) {
+				PENDING_PROJECTS.add(javaProject);
+			}
+			getInstance().schedule();
 		}
 	}
 
@@ -200,42 +235,21 @@ public class MavenClasspathUpdateJob extends WorkspaceJob {
 		scheduleClasspathContainerUpdateJob(JavaCore.create(oroject));
 	}
 
-	/**
-	 * Creates a new instance of {@link MavenClasspathUpdateJob} and configures required properties and schedules it to
-	 * the workbench.
-	 */
-	private static MavenClasspathUpdateJob newClasspathContainerUpdateJob(IJavaProject javaProject) {
-		MavenClasspathUpdateJob job = new MavenClasspathUpdateJob(javaProject);
-		job.setRule(ResourcesPlugin.getWorkspace().getRuleFactory().buildRule());
-		job.setPriority(Job.BUILD);
-		job.addJobChangeListener(new DuplicateJobListener());
-		job.schedule();
-		return job;
-	}
-
-	/**
-	 * Internal {@link IJobChangeListener} to detect duplicates in the scheduled list of {@link MavenClasspathUpdateJob
-	 * Jobs}.
-	 */
-	private static class DuplicateJobListener extends JobChangeAdapter implements IJobChangeListener {
-
-		@Override
-		public void done(IJobChangeEvent event) {
-			SCHEDULED_PROJECTS.remove(((MavenClasspathUpdateJob) event.getJob()).getJavaProject());
-		}
-
-		@Override
-		public void scheduled(IJobChangeEvent event) {
-			SCHEDULED_PROJECTS.add(((MavenClasspathUpdateJob) event.getJob()).getJavaProject());
+	private static synchronized MavenClasspathUpdateJob getInstance() {
+		if (instance == null) {
+			instance = new MavenClasspathUpdateJob();
 		}
+		return instance;
 	}
 
-	private class MavenProcessListener implements IDebugEventSetListener {
+	private static class MavenProcessListener implements IDebugEventSetListener {
 
 		private final IProject project;
 
 		private final IProcess newProcess;
 
+		private boolean terminated = false;
+
 		public MavenProcessListener(IProcess process, IProject project) {
 			this.project = project;
 			this.newProcess = process;
@@ -247,29 +261,43 @@ public class MavenClasspathUpdateJob extends WorkspaceJob {
 				for (int i = 0; i < size; i++) {
 					if (newProcess != null && newProcess.equals(events[i].getSource())
 							&& events[i].getKind() == DebugEvent.TERMINATE) {
+						processTerminated();
+					}
+				}
+			}
+		}
 
-						DebugPlugin.getDefault().removeDebugEventListener(this);
+		/**
+		 * Removes this listener and refreshes the project. Only the first call has an effect, as the termination can
+		 * be reported by a debug event as well as by the check after the listener has been added.
+		 */
+		public void processTerminated() {
+			synchronized (this) {
+				if (terminated) {
+					return;
+				}
+				terminated = true;
+			}
 
-						Job job = new Job("refresh project") {
+			DebugPlugin.getDefault().removeDebugEventListener(this);
 
-							@Override
-							protected IStatus run(IProgressMonitor monitor) {
-								try {
-									project.refreshLocal(IResource.DEPTH_INFINITE, monitor);
-								}
-								catch (CoreException e) {
-								}
-								return Status.OK_STATUS;
-							}
+			Job job = new Job("refresh project") {
 
-						};
-						job.setSystem(true);
-						job.setRule(ResourcesPlugin.getWorkspace().getRuleFactory().buildRule());
-						job.setPriority(Job.INTERACTIVE);
-						job.schedule();
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					try {
+						project.refreshLocal(IResource.DEPTH_INFINITE, monitor);
+					}
+					catch (CoreException e) {
 					}
+					return Status.OK_STATUS;
 				}
-			}
+
+			};
+			job.setSystem(true);
+			job.setRule(ResourcesPlugin.getWorkspace().getRuleFactory().refreshRule(project));
+			job.setPriority(Job.INTERACTIVE);
+			job.schedule();
 		}
 	}
 
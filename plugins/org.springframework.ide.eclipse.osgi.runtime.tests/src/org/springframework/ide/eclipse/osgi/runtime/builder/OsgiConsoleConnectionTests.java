@@ -0,0 +1,220 @@
+/*******************************************************************************
+ *  Copyright (c) 2012 VMware, Inc.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.osgi.runtime.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link OsgiConsoleConnection} against a fake console that records
+ * the commands it receives per connection.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+public class OsgiConsoleConnectionTests {
+
+	private static final long TIMEOUT = 5000;
+
+	private FakeConsole console;
+
+	private OsgiConsoleConnection connection;
+
+	@Before
+	public void setUp() throws IOException {
+		console = new FakeConsole();
+		connection = new OsgiConsoleConnection(InetAddress.getByName("127.0.0.1"), console.getPort());
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		connection.close();
+		console.shutdown();
+	}
+
+	@Test
+	public void sendsAllCommandsOverSingleConnection() throws Exception {
+		connection.execute("refresh 1");
+		connection.execute("update 2");
+		connection.execute("start 3");
+
+		console.waitForCommands(0, 3);
+		assertEquals(1, console.getConnectionCount());
+		assertEquals(Arrays.asList("refresh 1", "update 2", "start 3"), console.getCommands(0));
+		assertTrue(connection.isConnected());
+	}
+
+	@Test
+	public void reconnectsAfterConsoleClosedConnection() throws Exception {
+		connection.execute("refresh 1");
+		console.waitForCommands(0, 1);
+
+		console.closeConnections();
+		connection.execute("refresh 2");
+
+		console.waitForCommands(1, 1);
+		assertEquals(2, console.getConnectionCount());
+		assertEquals(Arrays.asList("refresh 1"), console.getCommands(0));
+		assertEquals(Arrays.asList("refresh 2"), console.getCommands(1));
+	}
+
+	@Test
+	public void disconnectsOnClose() throws Exception {
+		connection.execute("refresh 1");
+		console.waitForCommands(0, 1);
+
+		connection.close();
+		assertFalse(connection.isConnected());
+
+		console.waitForEndOfStream(0);
+		assertEquals(Arrays.asList("refresh 1", "disconnect", "y"), console.getCommands(0));
+	}
+
+	/**
+	 * Console that accepts any number of connections and records the lines
+	 * received on each of them. Every line is answered with a prompt.
+	 */
+	private static class FakeConsole implements Runnable {
+
+		private final ServerSocket serverSocket;
+
+		private final List<Socket> sockets = new ArrayList<Socket>();
+
+		private final List<List<String>> commands = new ArrayList<List<String>>();
+
+		private final List<Boolean> endOfStream = new ArrayList<Boolean>();
+
+		public FakeConsole() throws IOException {
+			serverSocket = new ServerSocket(0, 10, InetAddress.getByName("127.0.0.1"));
+			Thread acceptor = new Thread(this, "Fake OSGi console");
+			acceptor.setDaemon(true);
+			acceptor.start();
+		}
+
+		public int getPort() {
+			return serverSocket.getLocalPort();
+		}
+
+		public void run() {
+			try {
+				while (true) {
+					final Socket socket = serverSocket.accept();
+					final int index;
+					synchronized (this) {
+						index = sockets.size();
+						sockets.add(socket);
+						commands.add(new ArrayList<String>());
+						endOfStream.add(Boolean.FALSE);
+					}
+					Thread reader = new Thread("Fake OSGi console connection " + index) {
+
+						@Override
+						public void run() {
+							read(socket, index);
+						}
+					};
+					reader.setDaemon(true);
+					reader.start();
+				}
+			}
+			catch (IOException e) {
+				// server socket has been closed
+			}
+		}
+
+		private void read(Socket socket, int index) {
+			try {
+				BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+				OutputStream out = socket.getOutputStream();
+				String line;
+				while ((line = in.readLine()) != null) {
+					synchronized (this) {
+						commands.get(index).add(line);
+						notifyAll();
+					}
+					out.write("osgi> ".getBytes());
+					out.flush();
+				}
+			}
+			catch (IOException e) {
+				// connection has been closed
+			}
+			finally {
+				synchronized (this) {
+					endOfStream.set(index, Boolean.TRUE);
+					notifyAll();
+				}
+				try {
+					socket.close();
+				}
+				catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+
+		public synchronized int getConnectionCount() {
+			return sockets.size();
+		}
+
+		public synchronized List<String> getCommands(int connection) {
+			return new ArrayList<String>(commands.get(connection));
+		}
+
+		/**
+		 * Closes all open connections as a terminated framework would do.
+		 */
+		public synchronized void closeConnections() throws IOException {
+			for (Socket socket : sockets) {
+				socket.close();
+			}
+		}
+
+		public synchronized void waitForCommands(int connection, int count) throws InterruptedException {
+			long end = System.currentTimeMillis() + TIMEOUT;
+			while ((commands.size() <= connection || commands.get(connection).size() < count)
+					&& System.currentTimeMillis() < end) {
+				wait(TIMEOUT);
+			}
+			assertTrue(commands.size() > connection);
+			assertEquals(count, commands.get(connection).size());
+		}
+
+		public synchronized void waitForEndOfStream(int connection) throws InterruptedException {
+			long end = System.currentTimeMillis() + TIMEOUT;
+			while (!endOfStream.get(connection) && System.currentTimeMillis() < end) {
+				wait(TIMEOUT);
+			}
+			assertTrue(endOfStream.get(connection));
+		}
+
+		public void shutdown() throws IOException {
+			serverSocket.close();
+			closeConnections();
+		}
+	}
+
+}
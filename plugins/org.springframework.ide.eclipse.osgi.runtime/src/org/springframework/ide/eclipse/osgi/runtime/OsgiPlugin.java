@@ -12,6 +12,7 @@ package org.springframework.ide.eclipse.osgi.runtime;
 
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
+import org.springframework.ide.eclipse.osgi.runtime.builder.OsgiConsoleConnection;
 
 /**
  * Bundle Activator for the osgi redeploy plugin.
@@ -47,6 +48,7 @@ public class OsgiPlugin extends AbstractUIPlugin {
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		OsgiConsoleConnection.closeAll();
 		plugin = null;
 		super.stop(context);
 	}
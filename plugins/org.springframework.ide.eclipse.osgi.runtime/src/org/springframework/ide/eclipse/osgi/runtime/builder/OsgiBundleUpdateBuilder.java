@@ -13,6 +13,7 @@ package org.springframework.ide.eclipse.osgi.runtime.builder;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -57,16 +58,17 @@ public class OsgiBundleUpdateBuilder implements IProjectBuilder {
 
 		Map<IProject, Set<IResource>> projects = groupResourcesByProject(affectedResources);
 
-		// For each IProject the PDE model and schedule the update job
+		// For each IProject the PDE model and collect the bundles to update
+		Set<String> symbolicNames = new LinkedHashSet<String>();
 		for (Map.Entry<IProject, Set<IResource>> project : projects.entrySet()) {
 			IPluginModelBase model = PDECore.getDefault().getModelManager()
 					.findModel(project.getKey());
 			BundleDescription description = model.getBundleDescription();
-			String symbolicName = description.getSymbolicName();
-
-			// Schedule the job
-			OsgiUpdateJob.schedule(symbolicName, Command.REFRESH);
+			symbolicNames.add(description.getSymbolicName());
 		}
+
+		// Schedule the job once for all bundles
+		OsgiUpdateJob.schedule(symbolicNames, Command.REFRESH);
 	}
 
 	/**
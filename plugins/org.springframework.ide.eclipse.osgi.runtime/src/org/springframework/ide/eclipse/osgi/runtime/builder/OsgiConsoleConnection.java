@@ -0,0 +1,205 @@
+/*******************************************************************************
+ *  Copyright (c) 2012 VMware, Inc.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.osgi.runtime.builder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Long-lived connection to the console of an OSGi Framework that has been
+ * launched with a console port.
+ * <p>
+ * The connection is opened lazily on the first command and kept open for all
+ * subsequent commands, so that a command costs a single round trip. Before a
+ * command is sent, the output the console has written since the last command is
+ * discarded; if the console has closed the connection in the meantime, e.g.
+ * because the launch has been terminated, the end of the stream is detected
+ * there and the command is transparently sent over a new connection.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+public class OsgiConsoleConnection {
+
+	private static final String YES_COMMAND = "y";
+
+	private static final String DISCONNECT_COMMAND = "disconnect";
+
+	/** Time in milliseconds to wait for more console output before a command is sent */
+	private static final int READ_TIMEOUT = 1;
+
+	/** Time in milliseconds to wait for the console to close the connection after a disconnect */
+	private static final int CLOSE_TIMEOUT = 500;
+
+	/** The open connections keyed by console port */
+	private static final Map<Integer, OsgiConsoleConnection> CONNECTIONS = new HashMap<Integer, OsgiConsoleConnection>();
+
+	private final InetAddress address;
+
+	private final int port;
+
+	private Socket socket;
+
+	private PrintWriter out;
+
+	private InputStream in;
+
+	private final byte[] buffer = new byte[1024];
+
+	OsgiConsoleConnection(InetAddress address, int port) {
+		this.address = address;
+		this.port = port;
+	}
+
+	/**
+	 * Returns the shared connection to the console listening on the given port
+	 * of the local host.
+	 */
+	public static synchronized OsgiConsoleConnection getConnection(int port) throws IOException {
+		OsgiConsoleConnection connection = CONNECTIONS.get(port);
+		if (connection == null) {
+			connection = new OsgiConsoleConnection(InetAddress.getLocalHost(), port);
+			CONNECTIONS.put(port, connection);
+		}
+		return connection;
+	}
+
+	/**
+	 * Disconnects from all consoles.
+	 */
+	public static void closeAll() {
+		List<OsgiConsoleConnection> connections;
+		synchronized (OsgiConsoleConnection.class) {
+			connections = new ArrayList<OsgiConsoleConnection>(CONNECTIONS.values());
+			CONNECTIONS.clear();
+		}
+		for (OsgiConsoleConnection connection : connections) {
+			connection.close();
+		}
+	}
+
+	/**
+	 * Sends the given command to the console. If the connection turns out to
+	 * be broken the command is retried once on a new connection.
+	 * @throws IOException if no connection to the console can be established
+	 */
+	public synchronized void execute(String command) throws IOException {
+		try {
+			send(command);
+		}
+		catch (IOException e) {
+			disconnect(socket);
+			send(command);
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if a connection to the console is currently
+	 * open. A connection closed by the console is only noticed when the next
+	 * command is sent.
+	 */
+	public synchronized boolean isConnected() {
+		return socket != null && !socket.isClosed();
+	}
+
+	/**
+	 * Disconnects from the console.
+	 */
+	public synchronized void close() {
+		if (isConnected()) {
+			out.println(DISCONNECT_COMMAND);
+			out.println(YES_COMMAND);
+			out.flush();
+			try {
+				// closing a socket with unread output resets the connection and
+				// might drop the commands before the console has read them
+				socket.shutdownOutput();
+				socket.setSoTimeout(CLOSE_TIMEOUT);
+				discardOutput();
+			}
+			catch (IOException e) {
+				// connection is broken anyway
+			}
+		}
+		disconnect(socket);
+	}
+
+	private void send(String command) throws IOException {
+		if (isConnected() && !discardOutput()) {
+			disconnect(socket);
+		}
+		if (!isConnected()) {
+			connect();
+		}
+		out.println(command);
+		out.flush();
+		if (out.checkError()) {
+			throw new IOException("Connection to OSGi console at port " + port + " is broken");
+		}
+	}
+
+	/**
+	 * Discards the output the console has written so far. Writing to a
+	 * connection that has been closed by the console doesn't fail right away,
+	 * therefore the end of the stream has to be detected before a command is
+	 * sent.
+	 * @return <code>false</code> if the console has closed the connection
+	 */
+	private boolean discardOutput() throws IOException {
+		try {
+			while (in.read(buffer) >= 0) {
+				// discard the console output
+			}
+			return false;
+		}
+		catch (SocketTimeoutException e) {
+			// no more output available
+			return true;
+		}
+	}
+
+	private void connect() throws IOException {
+		Socket socket = new Socket(address, port);
+		socket.setSoTimeout(READ_TIMEOUT);
+		this.socket = socket;
+		this.out = new PrintWriter(socket.getOutputStream(), true);
+		this.in = socket.getInputStream();
+	}
+
+	/**
+	 * Closes the given socket and forgets about it if it is still the current
+	 * connection.
+	 */
+	private void disconnect(Socket socket) {
+		if (socket == null) {
+			return;
+		}
+		try {
+			socket.close();
+		}
+		catch (IOException e) {
+			// ignore
+		}
+		if (this.socket == socket) {
+			this.socket = null;
+			this.out = null;
+			this.in = null;
+		}
+	}
+
+}
@@ -10,12 +10,13 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.osgi.runtime.builder;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.net.InetAddress;
-import java.net.Socket;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -33,33 +34,37 @@ import org.springframework.ide.eclipse.osgi.runtime.builder.OsgiBundleUpdateBuil
 
 /**
  * Eclipse {@link Job} implementation that is scheduled to do an update or
- * refresh of the given bundle identified by its symbolic name.
+ * refresh of bundles identified by their symbolic names.
+ * <p>
+ * There is only a single instance of this job. Bundles that are scheduled
+ * while the job is pending are coalesced into a single command per
+ * {@link Command} that covers all their symbolic names; the commands are sent
+ * over the shared {@link OsgiConsoleConnection} of the configured console port.
  * @author Christian Dupuis
  * @author Leo Dos Santos
  * @since 1.0
  */
 class OsgiUpdateJob extends Job {
 
-	private static final String YES_COMMAND = "y";
-
-	private static final String DISCONNECT_COMMAND = "disconnect";
+	/** Delay to coalesce the bundles of consecutive builds into one command */
+	private static final long SCHEDULE_DELAY = 200;
 
 	public static final Object MODEL_CONTENT_FAMILY = new Object();
 
-	private String symbolicName;
+	private static OsgiUpdateJob instance;
 
-	private Command command;
+	/** The symbolic names of the bundles waiting for a command */
+	private final Map<Command, Set<String>> pendingCommands = new EnumMap<Command, Set<String>>(Command.class);
 
 	/**
 	 * Private Constructor.
-	 * @param symbolicName the bundle identifier to update
-	 * @param command the command to execute; either refresh or update
-	 * @see #schedule(String, Command)
+	 * @see #schedule(Collection, Command)
 	 */
-	private OsgiUpdateJob(String symbolicName, Command command) {
-		super("Refreshing bundle with symbolic name '" + symbolicName + "'");
-		this.symbolicName = symbolicName;
-		this.command = command;
+	private OsgiUpdateJob() {
+		super("Refreshing bundles");
+		setRule(ResourcesPlugin.getWorkspace().getRoot());
+		setPriority(BUILD);
+		setProperty(IProgressConstants.ICON_PROPERTY, OsgiUiImages.DESC_OBJS_OSGI);
 	}
 
 	/*
@@ -68,67 +73,42 @@ class OsgiUpdateJob extends Job {
 	 */
 	@Override
 	protected IStatus run(IProgressMonitor monitor) {
-
-		// First make sure that only one Job at a time is scheduled that is
-		// responsible for updating the same bundle
-		synchronized (getClass()) {
-			if (monitor.isCanceled()) {
-				return Status.CANCEL_STATUS;
-			}
-			Job[] buildJobs = Job.getJobManager().find(MODEL_CONTENT_FAMILY);
-			for (int i = 0; i < buildJobs.length; i++) {
-				Job curr = buildJobs[i];
-				if (curr != this && curr instanceof OsgiUpdateJob) {
-					OsgiUpdateJob job = (OsgiUpdateJob) curr;
-					if (job.isCoveredBy(this)) {
-						curr.cancel();
-					}
-				}
-			}
+		Map<Command, Set<String>> commands;
+		synchronized (pendingCommands) {
+			commands = new EnumMap<Command, Set<String>>(pendingCommands);
+			pendingCommands.clear();
+		}
+		if (commands.isEmpty()) {
+			return Status.OK_STATUS;
 		}
 
 		// Get the port from the preferences store
 		int port = getPort();
 
 		monitor.beginTask("Connecting to OSGi runtime running at port " + port,
-				1);
-
-		// Open socket to console and emit command
-		BufferedReader in = null;
-		PrintWriter out = null;
+				commands.size());
 		try {
-			Socket socket = new Socket(InetAddress.getLocalHost(), port);
-			out = new PrintWriter(socket.getOutputStream(), true);
-			in = new BufferedReader(new InputStreamReader(socket
-					.getInputStream()));
-			emitCommnad(out, command.toString().toLowerCase() + " " + symbolicName);
-			emitCommnad(out, DISCONNECT_COMMAND);
-			emitCommnad(out, YES_COMMAND);
+			OsgiConsoleConnection connection = OsgiConsoleConnection.getConnection(port);
+			for (Map.Entry<Command, Set<String>> command : commands.entrySet()) {
+				connection.execute(getCommandLine(command.getKey(), command.getValue()));
+				monitor.worked(1);
+			}
 		}
-		catch (Exception e) {
-			// ignore all exceptions here
+		catch (IOException e) {
+			// ignore; the OSGi runtime is not running
 		}
 		finally {
-			if (out != null) {
-				out.close();
-			}
-			if (in != null)
-				try {
-					{
-						in.close();
-					}
-
-				}
-				catch (IOException e) {
-				}
+			monitor.done();
 		}
 		return Status.OK_STATUS;
 	}
-	
-	private void emitCommnad(PrintWriter writer, String command) throws Exception {
-		writer.println(command);
-		writer.flush();
-		Thread.sleep(500);
+
+	private String getCommandLine(Command command, Set<String> symbolicNames) {
+		StringBuilder commandLine = new StringBuilder(command.toString().toLowerCase());
+		for (String symbolicName : symbolicNames) {
+			commandLine.append(' ').append(symbolicName);
+		}
+		return commandLine.toString();
 	}
 
 	/**
@@ -142,11 +122,6 @@ class OsgiUpdateJob extends Job {
 				OsgiPlugin.DEFAULT_PORT));
 	}
 
-	public boolean isCoveredBy(OsgiUpdateJob other) {
-		return other.symbolicName.equals(symbolicName)
-				&& other.command.equals(command);
-	}
-
 	public boolean belongsTo(Object family) {
 		return MODEL_CONTENT_FAMILY == family;
 	}
@@ -157,12 +132,36 @@ class OsgiUpdateJob extends Job {
 	 * @param command the command to execute; either refresh or update
 	 */
 	public static void schedule(String symbolicName, Command command) {
-		OsgiUpdateJob job = new OsgiUpdateJob(symbolicName, command);
-		job.setRule(ResourcesPlugin.getWorkspace().getRoot());
-		job.setPriority(BUILD);
-		job.setProperty(IProgressConstants.ICON_PROPERTY,
-				OsgiUiImages.DESC_OBJS_OSGI);
-		job.schedule();
+		schedule(Collections.singleton(symbolicName), command);
+	}
+
+	/**
+	 * Schedules a update or refresh job for the given bundles. Bundles that
+	 * are already waiting for the same command are not added again.
+	 * @param symbolicNames the bundle identifiers to update
+	 * @param command the command to execute; either refresh or update
+	 */
+	public static void schedule(Collection<String> symbolicNames, Command command) {
+		if (symbolicNames.isEmpty()) {
+			return;
+		}
+		OsgiUpdateJob job = getInstance();
+		synchronized (job.pendingCommands) {
+			Set<String> pendingSymbolicNames = job.pendingCommands.get(command);
+			if (pendingSymbolicNames == null) {
+				pendingSymbolicNames = new LinkedHashSet<String>();
+				job.pendingCommands.put(command, pendingSymbolicNames);
+			}
+			pendingSymbolicNames.addAll(symbolicNames);
+		}
+		job.schedule(SCHEDULE_DELAY);
+	}
+
+	private static synchronized OsgiUpdateJob getInstance() {
+		if (instance == null) {
+			instance = new OsgiUpdateJob();
+		}
+		return instance;
 	}
 
 }
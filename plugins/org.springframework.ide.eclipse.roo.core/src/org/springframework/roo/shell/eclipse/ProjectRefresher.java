@@ -13,18 +13,34 @@ package org.springframework.roo.shell.eclipse;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceRuleFactory;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.MultiRule;
 import org.springframework.ide.eclipse.core.SpringCoreUtils;
 
 /**
  * Command implementation that refreshes a project resource tree.
+ * <p>
+ * Changed files reported by Roo are collected for a short period of time and then refreshed in one batch. Only the
+ * affected resources are refreshed at the minimal depth needed to pick up the change.
  * @author Christian Dupuis
  * @since 2.1.0
  */
@@ -33,10 +49,18 @@ public class ProjectRefresher {
 	// private static final String TEST_FOLDER_PATH_SEGMENT = File.separator +
 	// "test" + File.separator;
 
+	/** Time in ms to wait for further changes before a batch of changes is refreshed */
+	private static final long REFRESH_DELAY = 300L;
+
 	private final IProject project;
 
 	private String projectDirectoryPath;
 
+	/** Project relative paths to refresh mapped to the required refresh depth */
+	private final Map<IPath, Integer> pendingPaths = new HashMap<IPath, Integer>();
+
+	private final Job refreshJob;
+
 	public ProjectRefresher(IProject project) {
 		this.project = project;
 		if (project != null) {
@@ -49,37 +73,172 @@ public class ProjectRefresher {
 				}
 			}
 		}
+		this.refreshJob = new RefreshJob();
 	}
 
 	public void refresh(final File file, final Boolean isNewFile) {
-		Job job = new Job("refresh project") {
+		if (projectDirectoryPath != null && file != null) {
+			try {
+				String path = file.getCanonicalPath();
 
-			@Override
-			protected IStatus run(IProgressMonitor monitor) {
+				if (projectDirectoryPath.equals(path) || file.getName().endsWith(".log")
+						|| file.getName().endsWith(".roo")) {
+					return;
+				}
 
-				if (projectDirectoryPath != null && file != null) {
-					try {
-						String path = file.getCanonicalPath();
+				IPath projectRelativePath = null;
+				if (path.startsWith(projectDirectoryPath + File.separator)) {
+					projectRelativePath = Path.fromOSString(path.substring(projectDirectoryPath.length() + 1));
+				}
+				else {
+					// Not below the project directory; fall back to refresh the entire project
+					projectRelativePath = Path.EMPTY;
+				}
 
-						if (projectDirectoryPath.equals(path) || file.getName().endsWith(".log")
-								|| file.getName().endsWith(".roo")) {
-							return Status.OK_STATUS;
-						}
-						project.refreshLocal(IResource.DEPTH_INFINITE, monitor);
-					}
-					catch (Exception e) {
-						// We ignore this here
-					}
+				synchronized (pendingPaths) {
+					pendingPaths.put(projectRelativePath, Boolean.TRUE.equals(isNewFile) ? IResource.DEPTH_ONE
+							: IResource.DEPTH_ZERO);
+				}
+				refreshJob.schedule(REFRESH_DELAY);
+			}
+			catch (Exception e) {
+				// We ignore this here
+			}
+		}
+	}
+
+	/**
+	 * Drains the pending paths and computes the resources and depths to refresh. Paths that are covered by the
+	 * refresh of one of their ancestors are dropped.
+	 */
+	private Map<IResource, Integer> getResourcesToRefresh() {
+		Map<IPath, Integer> paths = new HashMap<IPath, Integer>();
+		synchronized (pendingPaths) {
+			paths.putAll(pendingPaths);
+			pendingPaths.clear();
+		}
+
+		// Resolve each path to the resource that needs to be refreshed; use a sorted map to make sure that parents
+		// are processed before their children
+		TreeMap<String, Integer> depthsByPath = new TreeMap<String, Integer>();
+		Map<String, IResource> resourcesByPath = new HashMap<String, IResource>();
+		for (Map.Entry<IPath, Integer> entry : paths.entrySet()) {
+			IResource resource = project.findMember(entry.getKey());
+			int depth = entry.getValue();
+			if (resource == null) {
+				// New file or folder; refresh the closest existing ancestor including all its new children
+				IPath parentPath = entry.getKey().removeLastSegments(1);
+				resource = project.findMember(parentPath);
+				depth = IResource.DEPTH_ONE;
+				while (resource == null && parentPath.segmentCount() > 0) {
+					parentPath = parentPath.removeLastSegments(1);
+					resource = project.findMember(parentPath);
+					depth = IResource.DEPTH_INFINITE;
+				}
+				if (resource == null) {
+					resource = project;
+					depth = IResource.DEPTH_INFINITE;
 				}
+			}
+			else if (resource.getType() == IResource.FILE) {
+				depth = IResource.DEPTH_ZERO;
+			}
+			else if (entry.getKey().isEmpty()) {
+				depth = IResource.DEPTH_INFINITE;
+			}
+			else {
+				depth = Math.max(depth, IResource.DEPTH_ONE);
+			}
+
+			String key = toKey(resource.getProjectRelativePath());
+			Integer existingDepth = depthsByPath.get(key);
+			if (existingDepth == null || existingDepth < depth) {
+				depthsByPath.put(key, depth);
+				resourcesByPath.put(key, resource);
+			}
+		}
+
+		Map<IResource, Integer> resources = new HashMap<IResource, Integer>();
+		List<String> infiniteRoots = new ArrayList<String>();
+		for (Map.Entry<String, Integer> entry : depthsByPath.entrySet()) {
+			String path = entry.getKey();
+			if (isCovered(path, infiniteRoots, depthsByPath)) {
+				continue;
+			}
+			resources.put(resourcesByPath.get(path), entry.getValue());
+			if (entry.getValue() == IResource.DEPTH_INFINITE) {
+				infiniteRoots.add(path);
+			}
+		}
+		return resources;
+	}
+
+	private boolean isCovered(String path, List<String> infiniteRoots, Map<String, Integer> depthsByPath) {
+		for (String root : infiniteRoots) {
+			if (path.startsWith(root)) {
+				return true;
+			}
+		}
+		// A direct child is covered by a DEPTH_ONE refresh of its parent if it doesn't need to be refreshed deeper
+		if (depthsByPath.get(path) == IResource.DEPTH_ZERO) {
+			String parent = toKey(new Path(path).removeLastSegments(1));
+			Integer parentDepth = depthsByPath.get(parent);
+			return parentDepth != null && parentDepth >= IResource.DEPTH_ONE;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns a key for the given project relative path that is a string prefix of the keys of all its descendants.
+	 */
+	private String toKey(IPath path) {
+		return (path.isEmpty() ? "" : path.removeTrailingSeparator().toString() + IPath.SEPARATOR);
+	}
+
+	/**
+	 * {@link Job} that refreshes all pending resources in one workspace operation guarded by a single scheduling rule.
+	 */
+	private class RefreshJob extends Job {
+
+		public RefreshJob() {
+			super("refresh project");
+			setSystem(true);
+			setPriority(Job.INTERACTIVE);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			final Map<IResource, Integer> resources = getResourcesToRefresh();
+			if (resources.isEmpty() || !project.isAccessible()) {
 				return Status.OK_STATUS;
 			}
 
-		};
-		job.setSystem(true);
-		job.setRule(ResourcesPlugin.getWorkspace().getRuleFactory().buildRule());
-		job.setPriority(Job.INTERACTIVE);
-		job.schedule();
+			IWorkspace workspace = ResourcesPlugin.getWorkspace();
+			IResourceRuleFactory ruleFactory = workspace.getRuleFactory();
+			List<ISchedulingRule> rules = new ArrayList<ISchedulingRule>();
+			for (IResource resource : resources.keySet()) {
+				rules.add(ruleFactory.refreshRule(resource));
+			}
+			ISchedulingRule rule = MultiRule.combine(rules.toArray(new ISchedulingRule[rules.size()]));
+
+			try {
+				workspace.run(new IWorkspaceRunnable() {
 
+					public void run(IProgressMonitor monitor) throws CoreException {
+						for (Map.Entry<IResource, Integer> entry : resources.entrySet()) {
+							if (monitor.isCanceled()) {
+								return;
+							}
+							entry.getKey().refreshLocal(entry.getValue(), monitor);
+						}
+					}
+				}, rule, IWorkspace.AVOID_UPDATE, monitor);
+			}
+			catch (Exception e) {
+				// We ignore this here
+			}
+			return Status.OK_STATUS;
+		}
 	}
 
 	// private boolean shouldOpenFile(File file) {
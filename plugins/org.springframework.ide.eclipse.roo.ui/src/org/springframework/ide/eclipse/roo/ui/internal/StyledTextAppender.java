@@ -11,6 +11,8 @@
 package org.springframework.ide.eclipse.roo.ui.internal;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -29,6 +31,9 @@ import org.springframework.util.StringUtils;
 /**
  * Appender implementation that appends text to a given {@link StyledText}
  * widget.
+ * <p>
+ * Messages are buffered and rendered in periodic batches; the widget's content
+ * is capped to avoid unbounded growth over long sessions.
  * @author Christian Dupuis
  * @author Steffen Pingel
  * @author Leo Dos Santos
@@ -55,11 +60,35 @@ public class StyledTextAppender {
 
 	private boolean hasPresentation = false;
 
+	/** Delay in ms used to coalesce messages into a single update of the widget */
+	private static final int FLUSH_DELAY = 50;
+
+	/** Maximum number of characters kept in the widget before old output is discarded */
+	private static final int MAX_CHAR_COUNT = 1000000;
+
+	/** Number of characters the widget is trimmed to once {@link #MAX_CHAR_COUNT} is exceeded */
+	private static final int TRIMMED_CHAR_COUNT = 800000;
+
+	private final List<PendingMessage> pendingMessages = new ArrayList<PendingMessage>();
+
+	private boolean flushScheduled = false;
+
+	private final Runnable flushRunnable = new Runnable() {
+
+		public void run() {
+			flush();
+		}
+	};
+
 	public StyledTextAppender(final StyledText text) {
 		this.text = text;
 	}
 
 	public boolean hasPrompt() {
+		// Make sure that pending messages are presented before checking for the prompt
+		if (Display.getCurrent() != null) {
+			flush();
+		}
 		synchronized (LOCK) {
 			String msg = text.getText();
 			return msg.endsWith(ROO_PROMPT) || msg.endsWith(ROO_PROMPT + NL);
@@ -95,126 +124,211 @@ public class StyledTextAppender {
 		}
 	}
 
+	/**
+	 * Queues the given <code>message</code> for presentation. Messages are collected and rendered in batches on the
+	 * UI thread to avoid flooding the display with single updates.
+	 */
 	public void append(final String message, final Integer level) {
-		Display.getDefault().asyncExec(new Runnable() {
+		if (message == null) {
+			return;
+		}
+		synchronized (pendingMessages) {
+			pendingMessages.add(new PendingMessage(message, level));
+			if (flushScheduled) {
+				return;
+			}
+			flushScheduled = true;
+		}
+		final Display display = Display.getDefault();
+		display.asyncExec(new Runnable() {
 
 			public void run() {
-				synchronized (LOCK) {
-
-					if (text.isDisposed() || message == null) {
-						return;
-					}
-
-					// Set initial font and colours and add listener to
-					// registries - only needs to be done once
-					if (!hasPresentation) {
-						initializePresentation();
-					}
-
-					// Clear out the text buffer before first Roo message will
-					// be presented
-					if (!messageReceived) {
-						messageReceived = true;
-						text.setText("");
-					}
-
-					boolean isPrompt = message.endsWith(ROO_PROMPT + NL);
-
-					// Check that we that don't display messages that have just
-					// been displayed
-					if (lastMessage.equals(message) && !isPrompt) {
-						return;
-					}
-
-					String trimmedMessage = message;
-					if (isPrompt) {
-						trimmedMessage = message.substring(0, message.length() - NL.length());
-						// If we previously had a prompt as well add a line
-						// break to move to next line
-						if (lastMessage.equals(message)) {
-							trimmedMessage = NL + trimmedMessage;
-						}
-					}
-
-					// Remove leading line break
-					if (trimmedMessage.startsWith(NL) && !lastMessage.endsWith(ROO_PROMPT + NL)) {
-						trimmedMessage = trimmedMessage.substring(1);
-					}
-
-					// Keep track of last message
-					lastMessage = message;
-
-					text.setRedraw(false);
-					int startIndex = text.getCharCount();
-					text.append(trimmedMessage);
-					int endIndex = text.getCharCount();
-
-					// Install hyperlink if message has the appropriate
-					// structure
-					Matcher matcher = getHyperlinkPattern().matcher(StringUtils.replace(trimmedMessage, NL, "").replace('\\',
-							'/'));
-					if (matcher.matches()) {
-						String prefix = matcher.group(1);
-						String file = matcher.group(2);
-						String appendix = matcher.group(5);
-
-						StyleRange style = new StyleRange();
-						style.start = startIndex;
-						style.length = prefix.length();
-						style.foreground = RooUiColors.getColor(level);
-						text.setStyleRange(style);
-
-						StyleRange link = new StyleRange();
-						link.start = startIndex + prefix.length();
-						link.length = file.length();
-						link.underlineColor = null;
-						link.underlineStyle = SWT_UNDERLINE_LINK;
-						link.underline = true;
-						setData(link, file);
-						text.setStyleRange(link);
-						
-						if (appendix != null && appendix.length() > 0) {
-							StyleRange ending = new StyleRange();
-							ending.start = startIndex + prefix.length() + file.length();
-							ending.length = appendix.length();
-							ending.foreground = RooUiColors.getColor(level);
-							text.setStyleRange(style);
-						}
-					}
-					else {
-						// Get a different shell coloring for the roo shell
-						// prompt and path
-						if (!isPrompt && trimmedMessage.length() > 0) {
-							StyleRange style = new StyleRange();
-							style.start = startIndex;
-							style.length = endIndex - startIndex;
-							style.foreground = RooUiColors.getColor(level);
-							text.setStyleRange(style);
-						}
-						else {
-							int length = trimmedMessage.length() - ROO_PROMPT.length();
-							if (length > 0) {
-								StyleRange style = new StyleRange();
-								style.start = startIndex;
-								style.length = length;
-								style.foreground = RooUiColors.getColor(Level.WARNING.intValue());
-								text.setStyleRange(style);
-							}
-							StyleRange style = new StyleRange();
-							style.start = startIndex + length;
-							style.length = endIndex - (startIndex + length);
-							style.foreground = RooUiColors.getPromptColor();
-							text.setStyleRange(style);
-						}
-					}
-					text.setRedraw(true);
-					text.setTopIndex(text.getLineCount() - 1);
+				if (!display.isDisposed()) {
+					display.timerExec(FLUSH_DELAY, flushRunnable);
 				}
 			}
-
 		});
 	}
-	
+
+	/**
+	 * Renders all pending messages with a single text append and applies the collected styles in bulk. Needs to be
+	 * called from the UI thread.
+	 */
+	private void flush() {
+		List<PendingMessage> messages;
+		synchronized (pendingMessages) {
+			messages = new ArrayList<PendingMessage>(pendingMessages);
+			pendingMessages.clear();
+			flushScheduled = false;
+		}
+
+		synchronized (LOCK) {
+
+			if (text.isDisposed() || messages.isEmpty()) {
+				return;
+			}
+
+			// Set initial font and colours and add listener to
+			// registries - only needs to be done once
+			if (!hasPresentation) {
+				initializePresentation();
+			}
+
+			// Clear out the text buffer before first Roo message will
+			// be presented
+			if (!messageReceived) {
+				messageReceived = true;
+				text.setText("");
+			}
+
+			int batchStartIndex = text.getCharCount();
+			StringBuilder batch = new StringBuilder();
+			List<StyleRange> styles = new ArrayList<StyleRange>();
+			for (PendingMessage pendingMessage : messages) {
+				render(pendingMessage.message, pendingMessage.level, batchStartIndex, batch, styles);
+			}
+
+			if (batch.length() == 0) {
+				return;
+			}
+
+			text.setRedraw(false);
+			try {
+				text.append(batch.toString());
+				if (!styles.isEmpty()) {
+					text.replaceStyleRanges(batchStartIndex, batch.length(), styles.toArray(new StyleRange[styles
+							.size()]));
+				}
+				trim();
+			}
+			finally {
+				text.setRedraw(true);
+			}
+			text.setTopIndex(text.getLineCount() - 1);
+		}
+	}
+
+	/**
+	 * Appends the presentation of a single message to the given <code>batch</code> and collects its style ranges.
+	 */
+	private void render(String message, Integer level, int batchStartIndex, StringBuilder batch,
+			List<StyleRange> styles) {
+		boolean isPrompt = message.endsWith(ROO_PROMPT + NL);
+
+		// Check that we that don't display messages that have just
+		// been displayed
+		if (lastMessage.equals(message) && !isPrompt) {
+			return;
+		}
+
+		String trimmedMessage = message;
+		if (isPrompt) {
+			trimmedMessage = message.substring(0, message.length() - NL.length());
+			// If we previously had a prompt as well add a line
+			// break to move to next line
+			if (lastMessage.equals(message)) {
+				trimmedMessage = NL + trimmedMessage;
+			}
+		}
+
+		// Remove leading line break
+		if (trimmedMessage.startsWith(NL) && !lastMessage.endsWith(ROO_PROMPT + NL)) {
+			trimmedMessage = trimmedMessage.substring(1);
+		}
+
+		// Keep track of last message
+		lastMessage = message;
+
+		int startIndex = batchStartIndex + batch.length();
+		batch.append(trimmedMessage);
+		int endIndex = batchStartIndex + batch.length();
+
+		// Install hyperlink if message has the appropriate
+		// structure
+		Matcher matcher = getHyperlinkPattern().matcher(StringUtils.replace(trimmedMessage, NL, "").replace('\\',
+				'/'));
+		if (matcher.matches()) {
+			String prefix = matcher.group(1);
+			String file = matcher.group(2);
+			String appendix = matcher.group(5);
+
+			StyleRange style = new StyleRange();
+			style.start = startIndex;
+			style.length = prefix.length();
+			style.foreground = RooUiColors.getColor(level);
+			addStyleRange(styles, style);
+
+			StyleRange link = new StyleRange();
+			link.start = startIndex + prefix.length();
+			link.length = file.length();
+			link.underlineColor = null;
+			link.underlineStyle = SWT_UNDERLINE_LINK;
+			link.underline = true;
+			setData(link, file);
+			addStyleRange(styles, link);
+
+			if (appendix != null && appendix.length() > 0) {
+				StyleRange ending = new StyleRange();
+				ending.start = startIndex + prefix.length() + file.length();
+				ending.length = appendix.length();
+				ending.foreground = RooUiColors.getColor(level);
+				addStyleRange(styles, ending);
+			}
+		}
+		else {
+			// Get a different shell coloring for the roo shell
+			// prompt and path
+			if (!isPrompt && trimmedMessage.length() > 0) {
+				StyleRange style = new StyleRange();
+				style.start = startIndex;
+				style.length = endIndex - startIndex;
+				style.foreground = RooUiColors.getColor(level);
+				addStyleRange(styles, style);
+			}
+			else {
+				int length = trimmedMessage.length() - ROO_PROMPT.length();
+				if (length > 0) {
+					StyleRange style = new StyleRange();
+					style.start = startIndex;
+					style.length = length;
+					style.foreground = RooUiColors.getColor(Level.WARNING.intValue());
+					addStyleRange(styles, style);
+				}
+				else {
+					length = 0;
+				}
+				StyleRange style = new StyleRange();
+				style.start = startIndex + length;
+				style.length = endIndex - (startIndex + length);
+				style.foreground = RooUiColors.getPromptColor();
+				addStyleRange(styles, style);
+			}
+		}
+	}
+
+	/**
+	 * Adds the given <code>style</code> if it is not empty. Ranges are created in text order and therefore don't
+	 * overlap as required by {@link StyledText#replaceStyleRanges(int, int, StyleRange[])}.
+	 */
+	private void addStyleRange(List<StyleRange> styles, StyleRange style) {
+		if (style.length > 0) {
+			styles.add(style);
+		}
+	}
+
+	/**
+	 * Discards the oldest lines once the widget holds more than {@link #MAX_CHAR_COUNT} characters.
+	 */
+	private void trim() {
+		int charCount = text.getCharCount();
+		if (charCount > MAX_CHAR_COUNT) {
+			int line = text.getLineAtOffset(charCount - TRIMMED_CHAR_COUNT);
+			if (line + 1 < text.getLineCount()) {
+				text.replaceTextRange(0, text.getOffsetAtLine(line + 1), "");
+			}
+		}
+	}
+
 	public Pattern getHyperlinkPattern() {
 		return FILE_PATTERN;
 	}
@@ -248,6 +362,21 @@ public class StyledTextAppender {
 		}
 	}
 
+	/**
+	 * Message waiting to be rendered.
+	 */
+	private static class PendingMessage {
+
+		private final String message;
+
+		private final Integer level;
+
+		public PendingMessage(String message, Integer level) {
+			this.message = message;
+			this.level = level;
+		}
+	}
+
 	private IPropertyChangeListener PRESENTATION_LISTENER = new IPropertyChangeListener() {
 
 		public void propertyChange(PropertyChangeEvent event) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2010 Spring IDE Developers
+ * Copyright (c) 2006, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -51,6 +51,15 @@ public final class SpringUIMessages extends NLS {
 
 	public static String PropertiesPage_title;
 
+	public static String BuildProfileView_nameColumn;
+	public static String BuildProfileView_totalColumn;
+	public static String BuildProfileView_callsColumn;
+	public static String BuildProfileView_maxColumn;
+	public static String BuildProfileView_contributors;
+	public static String BuildProfileView_rules;
+	public static String BuildProfileView_resources;
+	public static String BuildProfileView_clearAction;
+
 	static {
 		NLS.initializeMessages(BUNDLE_NAME, SpringUIMessages.class);
 	}
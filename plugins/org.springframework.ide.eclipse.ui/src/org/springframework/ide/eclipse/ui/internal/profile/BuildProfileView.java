@@ -0,0 +1,357 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.ui.internal.profile;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IToolBarManager;
+import org.eclipse.jface.viewers.DoubleClickEvent;
+import org.eclipse.jface.viewers.IDoubleClickListener;
+import org.eclipse.jface.viewers.IElementComparer;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.jface.viewers.ITableLabelProvider;
+import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Tree;
+import org.eclipse.swt.widgets.TreeColumn;
+import org.eclipse.ui.ISharedImages;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.dialogs.PreferencesUtil;
+import org.eclipse.ui.part.ViewPart;
+import org.springframework.ide.eclipse.core.SpringCore;
+import org.springframework.ide.eclipse.core.project.BuildProfile;
+import org.springframework.ide.eclipse.core.project.BuildProfileManager;
+import org.springframework.ide.eclipse.core.project.IBuildProfileListener;
+import org.springframework.ide.eclipse.ui.SpringUIImages;
+import org.springframework.ide.eclipse.ui.SpringUIMessages;
+
+/**
+ * View that shows the {@link BuildProfile} of the last Spring build of every project. Timings are listed per project
+ * builder and validator, per validation rule and per resource with the most expensive entries first.
+ * <p>
+ * Spring builds are profiled while the view is open.
+ * <p>
+ * Double-clicking an entry opens the Spring properties of the profiled project to disable expensive rules.
+ * <p>
+ * Every build creates a new {@link BuildProfile}; nodes are therefore compared by the profiled project and the name of
+ * the section or timing to keep the expansion and selection when the view is refreshed.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+public class BuildProfileView extends ViewPart implements IBuildProfileListener {
+
+	public static final String VIEW_ID = "org.springframework.ide.eclipse.ui.views.buildProfile";
+
+	private static final String PROJECT_PROPERTY_PAGE_ID = "org.springframework.ide.eclipse.ui.projectPropertyPage";
+
+	private TreeViewer viewer;
+
+	@Override
+	public void createPartControl(Composite parent) {
+		viewer = new TreeViewer(parent, SWT.SINGLE | SWT.FULL_SELECTION | SWT.H_SCROLL | SWT.V_SCROLL);
+		Tree tree = viewer.getTree();
+		tree.setHeaderVisible(true);
+		tree.setLinesVisible(true);
+		createColumn(tree, SpringUIMessages.BuildProfileView_nameColumn, SWT.LEFT, 400);
+		createColumn(tree, SpringUIMessages.BuildProfileView_totalColumn, SWT.RIGHT, 90);
+		createColumn(tree, SpringUIMessages.BuildProfileView_callsColumn, SWT.RIGHT, 70);
+		createColumn(tree, SpringUIMessages.BuildProfileView_maxColumn, SWT.RIGHT, 90);
+
+		viewer.setComparer(new BuildProfileComparer());
+		viewer.setContentProvider(new BuildProfileContentProvider());
+		viewer.setLabelProvider(new BuildProfileLabelProvider());
+		viewer.addDoubleClickListener(new IDoubleClickListener() {
+
+			public void doubleClick(DoubleClickEvent event) {
+				Object element = ((IStructuredSelection) event.getSelection()).getFirstElement();
+				BuildProfile profile = getBuildProfile(element);
+				if (profile != null && profile.getProject().isAccessible()) {
+					PreferencesUtil.createPropertyDialogOn(getSite().getShell(), profile.getProject(),
+							PROJECT_PROPERTY_PAGE_ID, null, null).open();
+				}
+			}
+		});
+		viewer.setInput(SpringCore.getBuildProfileManager());
+
+		contributeToActionBars();
+		getSite().setSelectionProvider(viewer);
+		SpringCore.getBuildProfileManager().addBuildProfileListener(this);
+	}
+
+	@Override
+	public void dispose() {
+		SpringCore.getBuildProfileManager().removeBuildProfileListener(this);
+		super.dispose();
+	}
+
+	@Override
+	public void setFocus() {
+		viewer.getControl().setFocus();
+	}
+
+	public void buildProfileFinished(BuildProfile profile) {
+		if (viewer == null || viewer.getControl().isDisposed()) {
+			return;
+		}
+		viewer.getControl().getDisplay().asyncExec(new Runnable() {
+
+			public void run() {
+				if (!viewer.getControl().isDisposed()) {
+					viewer.refresh();
+				}
+			}
+		});
+	}
+
+	private void createColumn(Tree tree, String text, int style, int width) {
+		TreeColumn column = new TreeColumn(tree, style);
+		column.setText(text);
+		column.setWidth(width);
+	}
+
+	private void contributeToActionBars() {
+		IToolBarManager manager = getViewSite().getActionBars().getToolBarManager();
+		Action clearAction = new Action(SpringUIMessages.BuildProfileView_clearAction) {
+
+			@Override
+			public void run() {
+				SpringCore.getBuildProfileManager().clear();
+				viewer.refresh();
+			}
+		};
+		clearAction.setToolTipText(SpringUIMessages.BuildProfileView_clearAction);
+		clearAction.setImageDescriptor(PlatformUI.getWorkbench().getSharedImages().getImageDescriptor(
+				ISharedImages.IMG_ELCL_REMOVEALL));
+		manager.add(clearAction);
+	}
+
+	private BuildProfile getBuildProfile(Object element) {
+		if (element instanceof BuildProfile) {
+			return (BuildProfile) element;
+		}
+		else if (element instanceof TimingSection) {
+			return ((TimingSection) element).profile;
+		}
+		else if (element instanceof TimingEntry) {
+			return ((TimingEntry) element).section.profile;
+		}
+		return null;
+	}
+
+	/**
+	 * Group of timings of one kind within a {@link BuildProfile}.
+	 */
+	private static class TimingSection {
+
+		private final BuildProfile profile;
+
+		private final String name;
+
+		private final List<BuildProfile.Timing> timings;
+
+		public TimingSection(BuildProfile profile, String name, List<BuildProfile.Timing> timings) {
+			this.profile = profile;
+			this.name = name;
+			this.timings = timings;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof TimingSection)) {
+				return false;
+			}
+			TimingSection that = (TimingSection) other;
+			return this.profile.getProject().equals(that.profile.getProject()) && this.name.equals(that.name);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * profile.getProject().hashCode() + name.hashCode();
+		}
+	}
+
+	/**
+	 * Wraps a {@link BuildProfile.Timing} to be able to navigate to the profiled project.
+	 */
+	private static class TimingEntry {
+
+		private final TimingSection section;
+
+		private final BuildProfile.Timing timing;
+
+		public TimingEntry(TimingSection section, BuildProfile.Timing timing) {
+			this.section = section;
+			this.timing = timing;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof TimingEntry)) {
+				return false;
+			}
+			TimingEntry that = (TimingEntry) other;
+			return this.section.equals(that.section) && this.timing.getId().equals(that.timing.getId());
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * section.hashCode() + timing.getId().hashCode();
+		}
+	}
+
+	/**
+	 * Compares {@link BuildProfile}s by their project as every build replaces the profile of a project.
+	 */
+	private static class BuildProfileComparer implements IElementComparer {
+
+		public boolean equals(Object a, Object b) {
+			if (a instanceof BuildProfile && b instanceof BuildProfile) {
+				return ((BuildProfile) a).getProject().equals(((BuildProfile) b).getProject());
+			}
+			return a.equals(b);
+		}
+
+		public int hashCode(Object element) {
+			if (element instanceof BuildProfile) {
+				return ((BuildProfile) element).getProject().hashCode();
+			}
+			return element.hashCode();
+		}
+	}
+
+	private static class BuildProfileContentProvider implements ITreeContentProvider {
+
+		public Object[] getElements(Object inputElement) {
+			if (inputElement instanceof BuildProfileManager) {
+				List<BuildProfile> profiles = ((BuildProfileManager) inputElement).getBuildProfiles();
+				Collections.sort(profiles, new Comparator<BuildProfile>() {
+
+					public int compare(BuildProfile profile1, BuildProfile profile2) {
+						return profile1.getProject().getName().compareTo(profile2.getProject().getName());
+					}
+				});
+				return profiles.toArray();
+			}
+			return new Object[0];
+		}
+
+		public Object[] getChildren(Object parentElement) {
+			if (parentElement instanceof BuildProfile) {
+				BuildProfile profile = (BuildProfile) parentElement;
+				return new Object[] {
+						new TimingSection(profile, SpringUIMessages.BuildProfileView_contributors, profile
+								.getContributorTimings()),
+						new TimingSection(profile, SpringUIMessages.BuildProfileView_rules, profile.getRuleTimings()),
+						new TimingSection(profile, SpringUIMessages.BuildProfileView_resources, profile
+								.getResourceTimings()) };
+			}
+			else if (parentElement instanceof TimingSection) {
+				TimingSection section = (TimingSection) parentElement;
+				Object[] entries = new Object[section.timings.size()];
+				for (int i = 0; i < entries.length; i++) {
+					entries[i] = new TimingEntry(section, section.timings.get(i));
+				}
+				return entries;
+			}
+			return new Object[0];
+		}
+
+		public Object getParent(Object element) {
+			if (element instanceof TimingSection) {
+				return ((TimingSection) element).profile;
+			}
+			else if (element instanceof TimingEntry) {
+				return ((TimingEntry) element).section;
+			}
+			return null;
+		}
+
+		public boolean hasChildren(Object element) {
+			if (element instanceof BuildProfile) {
+				return true;
+			}
+			else if (element instanceof TimingSection) {
+				return !((TimingSection) element).timings.isEmpty();
+			}
+			return false;
+		}
+
+		public void dispose() {
+		}
+
+		public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+		}
+	}
+
+	private static class BuildProfileLabelProvider extends LabelProvider implements ITableLabelProvider {
+
+		private static final long NANOS_PER_MILLI = 1000000L;
+
+		public Image getColumnImage(Object element, int columnIndex) {
+			if (columnIndex != 0) {
+				return null;
+			}
+			if (element instanceof BuildProfile) {
+				return SpringUIImages.getImage(SpringUIImages.IMG_OBJS_PROJECT);
+			}
+			else if (element instanceof TimingEntry) {
+				return SpringUIImages.getImage(SpringUIImages.IMG_OBJS_RULE);
+			}
+			return null;
+		}
+
+		public String getColumnText(Object element, int columnIndex) {
+			if (element instanceof BuildProfile) {
+				BuildProfile profile = (BuildProfile) element;
+				switch (columnIndex) {
+				case 0:
+					return profile.getProject().getName();
+				case 1:
+					return String.valueOf(profile.getDuration() / NANOS_PER_MILLI);
+				default:
+					return "";
+				}
+			}
+			else if (element instanceof TimingSection) {
+				return (columnIndex == 0 ? ((TimingSection) element).name : "");
+			}
+			else if (element instanceof TimingEntry) {
+				BuildProfile.Timing timing = ((TimingEntry) element).timing;
+				switch (columnIndex) {
+				case 0:
+					return timing.getId();
+				case 1:
+					return String.valueOf(timing.getTotalTimeMillis());
+				case 2:
+					return String.valueOf(timing.getCount());
+				case 3:
+					return String.valueOf(timing.getMaxTimeMillis());
+				}
+			}
+			return "";
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2008 Spring IDE Developers
+ * Copyright (c) 2007, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,8 +11,10 @@
 package org.springframework.ide.eclipse.webflow.core.internal.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -24,7 +26,10 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.ui.IPersistableElement;
 import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
 import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelUtils;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfigSet;
 import org.springframework.ide.eclipse.beans.core.model.IBeansModel;
+import org.springframework.ide.eclipse.beans.core.model.IBeansProject;
 import org.springframework.ide.eclipse.core.model.IModelElement;
 import org.springframework.ide.eclipse.core.model.IModelElementVisitor;
 import org.springframework.ide.eclipse.webflow.core.model.IWebflowConfig;
@@ -45,6 +50,12 @@ public class WebflowConfig extends AbstractModelElement implements
 
 	private Set<String> beansConfigs = new HashSet<String>();
 
+	/** The linked beans configs resolved from the beans model */
+	private volatile Set<IModelElement> resolvedBeansConfigs;
+
+	/** The classes of the beans of the linked beans configs keyed by bean name and alias */
+	private volatile Map<String, String> beanClasses;
+
 	private IFile resource;
 
 	private String name;
@@ -60,25 +71,90 @@ public class WebflowConfig extends AbstractModelElement implements
 	}
 
 	public java.util.Set<IModelElement> getBeansConfigs() {
-		IBeansModel model = BeansCorePlugin.getModel();
+		Set<IModelElement> configs = resolvedBeansConfigs;
+		if (configs == null) {
+			IBeansModel model = BeansCorePlugin.getModel();
 
-		Set<IModelElement> configs = new HashSet<IModelElement>();
-		try {
-			r.lock();
-			if (beansConfigs != null) {
-				for (String configName : this.beansConfigs) {
-					IModelElement config = model.getElement(configName);
-					if (config != null) {
-						configs.add(config);
+			configs = new HashSet<IModelElement>();
+			try {
+				r.lock();
+				if (beansConfigs != null) {
+					for (String configName : this.beansConfigs) {
+						IModelElement config = model.getElement(configName);
+						if (config != null) {
+							configs.add(config);
+						}
 					}
+
 				}
+			}
+			finally {
+				r.unlock();
+			}
+			configs = Collections.unmodifiableSet(configs);
+			resolvedBeansConfigs = configs;
+		}
+		return new HashSet<IModelElement>(configs);
+	}
+
+	/**
+	 * Returns the classes of the beans of the linked beans configs keyed by bean name and alias. The map is built on
+	 * first access and kept until the linked beans configs change.
+	 * @see WebflowModelUtils#getBeanClasses(IWebflowConfig)
+	 */
+	public Map<String, String> getBeanClasses() {
+		Map<String, String> classes = beanClasses;
+		if (classes == null) {
+			classes = Collections.unmodifiableMap(WebflowModelUtils.createBeanClasses(getBeansConfigs()));
+			beanClasses = classes;
+		}
+		return classes;
+	}
+
+	/**
+	 * Drops the resolved beans configs and bean classes if the given element of the beans model affects them.
+	 * @param element the changed element of the beans model
+	 */
+	public void beansModelChanged(IModelElement element) {
+		if (element instanceof IBeansConfig) {
+			if (isLinkedTo((IBeansConfig) element)) {
+				resetBeansConfigs();
+			}
+		}
+		else if (element instanceof IBeansProject) {
+			if (((IBeansProject) element).getProject().equals(project.getProject())) {
+				resetBeansConfigs();
+			}
+		}
+		else {
+			resetBeansConfigs();
+		}
+	}
 
+	private boolean isLinkedTo(IBeansConfig config) {
+		try {
+			r.lock();
+			if (beansConfigs != null && beansConfigs.contains(config.getElementID())) {
+				return true;
 			}
 		}
 		finally {
 			r.unlock();
 		}
-		return configs;
+		Set<IModelElement> configs = resolvedBeansConfigs;
+		if (configs != null) {
+			for (IModelElement element : configs) {
+				if (element instanceof IBeansConfigSet && ((IBeansConfigSet) element).getConfigs().contains(config)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void resetBeansConfigs() {
+		resolvedBeansConfigs = null;
+		beanClasses = null;
 	}
 
 	public IFile getResource() {
@@ -98,6 +174,7 @@ public class WebflowConfig extends AbstractModelElement implements
 					}
 				}
 			}
+			resetBeansConfigs();
 		}
 		finally {
 			w.unlock();
@@ -121,6 +198,7 @@ public class WebflowConfig extends AbstractModelElement implements
 		try {
 			w.lock();
 			this.beansConfigs = beansConfigs;
+			resetBeansConfigs();
 		}
 		finally {
 			w.unlock();
@@ -131,6 +209,7 @@ public class WebflowConfig extends AbstractModelElement implements
 		try {
 			w.lock();
 			this.beansConfigs.add(id);
+			resetBeansConfigs();
 		}
 		finally {
 			w.unlock();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2011 Spring IDE Developers
+ * Copyright (c) 2007, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -32,10 +32,13 @@ import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
 import org.springframework.ide.eclipse.core.SpringCoreUtils;
 import org.springframework.ide.eclipse.core.internal.model.resources.SpringResourceChangeListener;
+import org.springframework.ide.eclipse.core.model.IModelChangeListener;
 import org.springframework.ide.eclipse.core.model.IModelElement;
 import org.springframework.ide.eclipse.core.model.IModelElementVisitor;
+import org.springframework.ide.eclipse.core.model.ModelChangeEvent;
 import org.springframework.ide.eclipse.webflow.core.internal.model.resources.WebflowResourceChangeListener;
 import org.springframework.ide.eclipse.webflow.core.internal.model.update.WebflowModelUpdater;
 import org.springframework.ide.eclipse.webflow.core.model.IWebflowConfig;
@@ -61,6 +64,8 @@ public class WebflowModel extends AbstractModelElement implements IWebflowModel,
 
 	private IResourceChangeListener workspaceListener;
 
+	private IModelChangeListener beansModelListener;
+
 	public boolean hasProject(IProject project) {
 		try {
 			r.lock();
@@ -123,6 +128,10 @@ public class WebflowModel extends AbstractModelElement implements IWebflowModel,
 		// Add a ResourceChangeListener to the Eclipse Workspace
 		workspaceListener = new WebflowResourceChangeListener(new WebflowResourceChangeEvents());
 		workspace.addResourceChangeListener(workspaceListener, SpringResourceChangeListener.LISTENER_FLAGS);
+
+		// Drop the cached beans of configs whose linked beans configs change
+		beansModelListener = new BeansModelChangeListener();
+		BeansCorePlugin.getModel().addChangeListener(beansModelListener);
 	}
 
 	/*
@@ -143,6 +152,11 @@ public class WebflowModel extends AbstractModelElement implements IWebflowModel,
 		workspace.removeResourceChangeListener(workspaceListener);
 		workspaceListener = null;
 
+		if (beansModelListener != null) {
+			BeansCorePlugin.getModel().removeChangeListener(beansModelListener);
+			beansModelListener = null;
+		}
+
 		// Remove all projects
 		projects.clear();
 	}
@@ -231,6 +245,19 @@ public class WebflowModel extends AbstractModelElement implements IWebflowModel,
 		}
 	}
 
+	private class BeansModelChangeListener implements IModelChangeListener {
+
+		public void elementChanged(ModelChangeEvent event) {
+			for (IWebflowProject project : getProjects()) {
+				for (IWebflowConfig config : project.getConfigs()) {
+					if (config instanceof WebflowConfig) {
+						((WebflowConfig) config).beansModelChanged(event.getElement());
+					}
+				}
+			}
+		}
+	}
+
 	public void removeProject(IProject project) {
 		initialize();
 		fireModelChangedEvent(null);
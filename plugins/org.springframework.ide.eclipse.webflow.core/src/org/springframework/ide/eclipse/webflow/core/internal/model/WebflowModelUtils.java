@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007 Spring IDE Developers
+ * Copyright (c) 2007, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,8 +11,10 @@
 package org.springframework.ide.eclipse.webflow.core.internal.model;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.core.resources.IFile;
@@ -27,6 +29,9 @@ import org.eclipse.wst.xml.core.internal.provisional.document.IDOMDocument;
 import org.eclipse.wst.xml.core.internal.provisional.document.IDOMNode;
 import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelUtils;
 import org.springframework.ide.eclipse.beans.core.model.IBean;
+import org.springframework.ide.eclipse.beans.core.model.IBeanAlias;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfigSet;
 import org.springframework.ide.eclipse.beans.ui.editor.util.BeansEditorUtils;
 import org.springframework.ide.eclipse.core.java.FlagsMethodFilter;
 import org.springframework.ide.eclipse.core.java.IMethodFilter;
@@ -70,16 +75,8 @@ public class WebflowModelUtils {
 	}
 	
 	public static IType getActionType(IWebflowConfig config, IDOMNode node) {
-		Set<IBean> beans = getBeans(config);
-		String className = null;
-		for (IBean bean : beans) {
-			if (bean.getElementName().equals(
-					BeansEditorUtils.getAttribute(node, "bean"))) {
-				className = BeansModelUtils.getBeanClass(bean, null);
-				break;
-			}
-		}
-
+		String className = getBeanClasses(config).get(
+				BeansEditorUtils.getAttribute(node, "bean"));
 		return JdtUtils.getJavaType(config.getProject().getProject(), className);
 	}
 
@@ -110,6 +107,58 @@ public class WebflowModelUtils {
 		return beans;
 	}
 
+	/**
+	 * Returns the classes of all beans of the beans configs linked to the
+	 * given config keyed by bean name and alias. The class is
+	 * <code>null</code> for beans whose class can't be determined.
+	 */
+	public static Map<String, String> getBeanClasses(IWebflowConfig config) {
+		if (config instanceof WebflowConfig) {
+			return ((WebflowConfig) config).getBeanClasses();
+		}
+		return createBeanClasses(config.getBeansConfigs());
+	}
+
+	static Map<String, String> createBeanClasses(Set<IModelElement> beansConfigs) {
+		Map<String, String> beanClasses = new HashMap<String, String>();
+		Set<IBeanAlias> configAliases = new HashSet<IBeanAlias>();
+		if (beansConfigs != null) {
+			for (IModelElement bc : beansConfigs) {
+				for (IBean bean : BeansModelUtils.getBeans(bc, null)) {
+					String className = BeansModelUtils.getBeanClass(bean, null);
+					addBeanClass(beanClasses, bean.getElementName(), className);
+					if (bean.getAliases() != null) {
+						for (String alias : bean.getAliases()) {
+							addBeanClass(beanClasses, alias, className);
+						}
+					}
+				}
+				if (bc instanceof IBeansConfig) {
+					configAliases.addAll(((IBeansConfig) bc).getAliases());
+				}
+				else if (bc instanceof IBeansConfigSet) {
+					configAliases.addAll(((IBeansConfigSet) bc).getAliases());
+				}
+			}
+		}
+
+		// Aliases only resolve to beans that exist
+		for (IBeanAlias alias : configAliases) {
+			if (beanClasses.containsKey(alias.getBeanName())) {
+				addBeanClass(beanClasses, alias.getElementName(), beanClasses
+						.get(alias.getBeanName()));
+			}
+		}
+		return beanClasses;
+	}
+
+	private static void addBeanClass(Map<String, String> beanClasses,
+			String beanName, String className) {
+		if (beanName != null && !beanClasses.containsKey(beanName)) {
+			beanClasses.put(beanName, className);
+		}
+	}
+
 	public static List<IFile> getFiles(IProject project) {
 		IWebflowProject webflowProject = Activator.getModel().getProject(
 				project);
@@ -162,13 +211,7 @@ public class WebflowModelUtils {
 
 	public static boolean isReferencedBeanFound(IWebflowConfig config,
 			String beanName) {
-		Set<IModelElement> beansConfigs = config.getBeansConfigs();
-		for (IModelElement beansConfig : beansConfigs) {
-			if (BeansModelUtils.getBean(beanName, beansConfig) != null) {
-				return true;
-			}
-		}
-		return false;
+		return beanName != null && getBeanClasses(config).containsKey(beanName);
 	}
 
 	public static IWebflowState getWebflowState(IWebflowModelElement element,
@@ -218,18 +261,19 @@ public class WebflowModelUtils {
 
 	public static boolean isStateIdUnique(IState state) {
 		IWebflowState webflowState = getWebflowState(state, false);
-		List<IState> foundStates = new ArrayList<IState>();
 		if (webflowState != null) {
-			List<IState> states = new ArrayList<IState>();
-			states.addAll(webflowState.getStates());
-			states.addAll(webflowState.getInlineFlowStates());
-			for (IState s : states) {
-				if (s.getId().equals(state.getId())) {
-					foundStates.add(s);
-				}
-			}
+			return isStateIdUnique(state, new WebflowStateIndex(webflowState));
 		}
-		return foundStates.size() == 1;
+		return false;
+	}
+
+	/**
+	 * Checks if the id of the given <code>state</code> is unique using the given {@link WebflowStateIndex} of the
+	 * state's {@link IWebflowState}.
+	 * @since 3.0.0
+	 */
+	public static boolean isStateIdUnique(IState state, WebflowStateIndex index) {
+		return index.getStateCount(state.getId()) == 1;
 	}
 
 	public static Set<String> getWebflowConfigNames(IWebflowProject project) {
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.webflow.core.internal.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.ide.eclipse.webflow.core.model.IState;
+import org.springframework.ide.eclipse.webflow.core.model.IWebflowState;
+
+/**
+ * Snapshot index of the {@link IState}s of a single {@link IWebflowState} keyed by state id.
+ * <p>
+ * The index is not updated if the underlying {@link IWebflowState} changes; callers are expected to create a new
+ * index in that case.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+public class WebflowStateIndex {
+
+	private final Map<String, IState> statesById = new HashMap<String, IState>();
+
+	private final Map<String, Integer> stateCountsById = new HashMap<String, Integer>();
+
+	public WebflowStateIndex(IWebflowState webflowState) {
+		if (webflowState.getStates() != null) {
+			for (IState state : webflowState.getStates()) {
+				// Keep the first state with a given id to be consistent with WebflowModelXmlUtils.getStateById
+				if (!statesById.containsKey(state.getId())) {
+					statesById.put(state.getId(), state);
+				}
+				increment(state.getId());
+			}
+		}
+		if (webflowState.getInlineFlowStates() != null) {
+			for (IState state : webflowState.getInlineFlowStates()) {
+				increment(state.getId());
+			}
+		}
+	}
+
+	/**
+	 * Returns the first top-level {@link IState} with the given <code>id</code> or <code>null</code>.
+	 */
+	public IState getStateById(String id) {
+		return statesById.get(id);
+	}
+
+	/**
+	 * Returns the number of top-level and inline flow states that share the given <code>id</code>.
+	 */
+	public int getStateCount(String id) {
+		Integer count = stateCountsById.get(id);
+		return (count != null ? count.intValue() : 0);
+	}
+
+	private void increment(String id) {
+		stateCountsById.put(id, Integer.valueOf(getStateCount(id) + 1));
+	}
+
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.webflow.core.internal.model.validation;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.wst.sse.core.StructuredModelManager;
+import org.eclipse.wst.sse.core.internal.provisional.IStructuredModel;
+import org.eclipse.wst.xml.core.internal.document.DOMModelImpl;
+import org.eclipse.wst.xml.core.internal.provisional.document.IDOMDocument;
+import org.eclipse.wst.xml.core.internal.provisional.document.IDOMNode;
+import org.springframework.ide.eclipse.webflow.core.internal.model.WebflowState;
+import org.springframework.ide.eclipse.webflow.core.internal.model.WebflowStateIndex;
+import org.springframework.ide.eclipse.webflow.core.model.IWebflowConfig;
+import org.springframework.ide.eclipse.webflow.core.model.IWebflowState;
+import org.w3c.dom.Node;
+
+/**
+ * Cache of parsed {@link IWebflowState}s and their {@link WebflowStateIndex}es that lives for the duration of a single
+ * build.
+ * <p>
+ * Flows are keyed by their {@link IFile} and re-parsed if the file's modification stamp changed since they have been
+ * cached. An instance of this class is registered with the build's project contributor state by
+ * {@link WebflowStateCacheProjectContributionEventListener}.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+@SuppressWarnings("restriction")
+public class WebflowStateCache {
+
+	private final Map<IFile, CachedWebflowState> webflowStates = new ConcurrentHashMap<IFile, CachedWebflowState>();
+
+	private final Map<IWebflowState, WebflowStateIndex> indexes = Collections
+			.synchronizedMap(new IdentityHashMap<IWebflowState, WebflowStateIndex>());
+
+	/**
+	 * Returns the parsed {@link IWebflowState} of the given <code>config</code> or <code>null</code> if the flow
+	 * can't be read.
+	 */
+	public IWebflowState getWebflowState(IWebflowConfig config) {
+		CachedWebflowState cachedState = getCachedWebflowState(config);
+		return (cachedState != null ? cachedState.webflowState : null);
+	}
+
+	/**
+	 * Returns the value of the <code>parent</code> attribute of the given <code>config</code>'s root element or
+	 * <code>null</code> if the flow doesn't inherit from another flow.
+	 */
+	public String getParentFlowIds(IWebflowConfig config) {
+		CachedWebflowState cachedState = getCachedWebflowState(config);
+		return (cachedState != null ? cachedState.parentFlowIds : null);
+	}
+
+	/**
+	 * Returns the {@link WebflowStateIndex} for the given <code>webflowState</code>.
+	 */
+	public WebflowStateIndex getIndex(IWebflowState webflowState) {
+		synchronized (indexes) {
+			WebflowStateIndex index = indexes.get(webflowState);
+			if (index == null) {
+				index = new WebflowStateIndex(webflowState);
+				indexes.put(webflowState, index);
+			}
+			return index;
+		}
+	}
+
+	private CachedWebflowState getCachedWebflowState(IWebflowConfig config) {
+		if (config == null || !(config.getElementResource() instanceof IFile)) {
+			return null;
+		}
+		IFile file = (IFile) config.getElementResource();
+		CachedWebflowState cachedState = webflowStates.get(file);
+		if (cachedState == null || cachedState.modificationStamp != file.getModificationStamp()) {
+			cachedState = readWebflowState(config, file);
+			if (cachedState != null) {
+				webflowStates.put(file, cachedState);
+			}
+			else {
+				webflowStates.remove(file);
+			}
+		}
+		return cachedState;
+	}
+
+	private CachedWebflowState readWebflowState(IWebflowConfig config, IFile file) {
+		long modificationStamp = file.getModificationStamp();
+		IStructuredModel model = null;
+		try {
+			model = StructuredModelManager.getModelManager().getExistingModelForRead(file);
+			if (model == null) {
+				model = StructuredModelManager.getModelManager().getModelForRead(file);
+			}
+			if (model != null) {
+				IDOMDocument document = ((DOMModelImpl) model).getDocument();
+				IWebflowState webflowState = new WebflowState(config);
+				webflowState.init((IDOMNode) document.getDocumentElement(), null);
+
+				String parentFlowIds = null;
+				Node parentNode = document.getDocumentElement().getAttributes().getNamedItem("parent");
+				if (parentNode != null) {
+					parentFlowIds = parentNode.getNodeValue();
+				}
+				return new CachedWebflowState(modificationStamp, webflowState, parentFlowIds);
+			}
+		}
+		catch (Exception e) {
+		}
+		finally {
+			if (model != null) {
+				model.releaseFromRead();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Internal cache entry.
+	 */
+	private static class CachedWebflowState {
+
+		private final long modificationStamp;
+
+		private final IWebflowState webflowState;
+
+		private final String parentFlowIds;
+
+		public CachedWebflowState(long modificationStamp, IWebflowState webflowState, String parentFlowIds) {
+			this.modificationStamp = modificationStamp;
+			this.webflowState = webflowState;
+			this.parentFlowIds = parentFlowIds;
+		}
+	}
+
+}
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.webflow.core.internal.model.validation;
+
+import java.util.List;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceDelta;
+import org.springframework.ide.eclipse.core.internal.model.validation.ValidatorDefinition;
+import org.springframework.ide.eclipse.core.project.IProjectContributionEventListener;
+import org.springframework.ide.eclipse.core.project.IProjectContributorState;
+import org.springframework.ide.eclipse.core.project.ProjectBuilderDefinition;
+import org.springframework.ide.eclipse.core.project.ProjectContributionEventListenerAdapter;
+
+/**
+ * {@link IProjectContributionEventListener} implementation that registers a fresh {@link WebflowStateCache} for every
+ * build so that parent flows are parsed only once per build.
+ * @author Christian Dupuis
+ * @since 3.0.0
+ */
+public class WebflowStateCacheProjectContributionEventListener extends ProjectContributionEventListenerAdapter {
+
+	/**
+	 * Register an instance of {@link WebflowStateCache} with the given <code>state</code> instance.
+	 */
+	@Override
+	public void start(int kind, IResourceDelta delta, List<ProjectBuilderDefinition> builderDefinitions,
+			List<ValidatorDefinition> validatorDefinitions, IProjectContributorState state, IProject project) {
+		state.hold(new WebflowStateCache());
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 Spring IDE Developers
+ * Copyright (c) 2007, 2012 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,17 +10,19 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.webflow.core.internal.model.validation;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.eclipse.core.resources.IFile;
 import org.eclipse.wst.sse.core.StructuredModelManager;
 import org.eclipse.wst.sse.core.internal.provisional.IStructuredModel;
 import org.eclipse.wst.xml.core.internal.document.DOMModelImpl;
 import org.eclipse.wst.xml.core.internal.provisional.document.IDOMAttr;
 import org.eclipse.wst.xml.core.internal.provisional.document.IDOMDocument;
-import org.eclipse.wst.xml.core.internal.provisional.document.IDOMNode;
 import org.springframework.ide.eclipse.core.model.validation.AbstractValidationContext;
 import org.springframework.ide.eclipse.webflow.core.Activator;
-import org.springframework.ide.eclipse.webflow.core.internal.model.WebflowModelXmlUtils;
-import org.springframework.ide.eclipse.webflow.core.internal.model.WebflowState;
+import org.springframework.ide.eclipse.webflow.core.internal.model.WebflowModelUtils;
+import org.springframework.ide.eclipse.webflow.core.internal.model.WebflowStateIndex;
 import org.springframework.ide.eclipse.webflow.core.model.IState;
 import org.springframework.ide.eclipse.webflow.core.model.IWebflowConfig;
 import org.springframework.ide.eclipse.webflow.core.model.IWebflowProject;
@@ -40,6 +42,8 @@ public class WebflowValidationContext extends AbstractValidationContext {
 
 	private boolean isVersion1 = true;
 
+	private WebflowStateCache localStateCache;
+
 	public WebflowValidationContext(IWebflowState state, IWebflowConfig webflowConfig) {
 		super(state, null);
 		this.webflowConfig = webflowConfig;
@@ -85,117 +89,84 @@ public class WebflowValidationContext extends AbstractValidationContext {
 
 	public IState getStateFromParentState(String stateId) {
 		if (!isVersion1() && stateId != null && stateId.contains("#")) {
-			IStructuredModel model = null;
-			IState state = null;
 			int i = stateId.lastIndexOf('#');
 			String parentFlowId = stateId.substring(0, i);
 			String parentStateId = stateId.substring(i + 1);
 
-			IWebflowProject project = Activator.getModel().getProject(
-					getRootElement().getElementResource().getProject());
-			IWebflowConfig parentConfig = project.getConfig(parentFlowId);
-			try {
-				model = StructuredModelManager.getModelManager().getExistingModelForRead(
-						parentConfig.getElementResource());
-				if (model == null) {
-					model = StructuredModelManager.getModelManager().getModelForRead(
-							(IFile) parentConfig.getElementResource());
-				}
-				if (model != null) {
-					IDOMDocument document = ((DOMModelImpl) model).getDocument();
-					IWebflowState parentState = new WebflowState(parentConfig);
-					parentState.init((IDOMNode) document.getDocumentElement(), null);
-
-					state = WebflowModelXmlUtils.getStateById(parentState, parentStateId);
-				}
-			}
-			catch (Exception e) {
-			}
-			finally {
-				if (model != null) {
-					model.releaseFromRead();
-				}
-				model = null;
-			}
-
-			if (state != null) {
-				return state;
+			IWebflowState parentState = getStateCache().getWebflowState(getConfig(parentFlowId));
+			if (parentState != null) {
+				return getStateCache().getIndex(parentState).getStateById(parentStateId);
 			}
-
 		}
 		return null;
 	}
 
 	public IState getStateFromParentFlow(String stateId, IWebflowConfig config) {
 		if (!isVersion1()) {
-			IStructuredModel model = null;
-			String parent = null;
-			try {
-				model = StructuredModelManager.getModelManager().getExistingModelForRead(config.getElementResource());
-				if (model == null) {
-					model = StructuredModelManager.getModelManager().getModelForRead(
-							(IFile) config.getElementResource());
+			return getStateFromParentFlow(stateId, config, new HashSet<IWebflowConfig>());
+		}
+		return null;
+	}
 
-				}
-				if (model != null) {
-					IDOMDocument document = ((DOMModelImpl) model).getDocument();
-					NamedNodeMap attributes = document.getDocumentElement().getAttributes();
-					if (attributes.getNamedItem("parent") != null) {
-						IDOMAttr schemaLocationNode = (IDOMAttr) attributes.getNamedItem("parent");
-						parent = schemaLocationNode.getValue();
-					}
-				}
-			}
-			catch (Exception e) {
-			}
-			finally {
-				if (model != null) {
-					model.releaseFromRead();
-				}
-				model = null;
-			}
+	/**
+	 * Checks if the id of the given <code>state</code> is unique within its flow using the {@link WebflowStateIndex}
+	 * that is shared for the current build.
+	 * @since 3.0.0
+	 */
+	public boolean isStateIdUnique(IState state) {
+		IWebflowState webflowState = WebflowModelUtils.getWebflowState(state, false);
+		if (webflowState != null) {
+			return WebflowModelUtils.isStateIdUnique(state, getStateCache().getIndex(webflowState));
+		}
+		return false;
+	}
 
-			if (parent != null) {
-				for (Object p : StringUtils.commaDelimitedListToSet(parent)) {
-					IState state = null;
-
-					IWebflowProject project = Activator.getModel().getProject(
-							getRootElement().getElementResource().getProject());
-					IWebflowConfig parentConfig = project.getConfig((String) p);
-					try {
-						model = StructuredModelManager.getModelManager().getExistingModelForRead(
-								parentConfig.getElementResource());
-						if (model == null) {
-							model = StructuredModelManager.getModelManager().getModelForRead(
-									(IFile) parentConfig.getElementResource());
-						}
-						if (model != null) {
-							IDOMDocument document = ((DOMModelImpl) model).getDocument();
-							IWebflowState parentState = new WebflowState(parentConfig);
-							parentState.init((IDOMNode) document.getDocumentElement(), null);
-
-							state = WebflowModelXmlUtils.getStateById(parentState, stateId);
-						}
-					}
-					catch (Exception e) {
-					}
-					finally {
-						if (model != null) {
-							model.releaseFromRead();
-						}
-						model = null;
-					}
+	private IState getStateFromParentFlow(String stateId, IWebflowConfig config, Set<IWebflowConfig> visitedConfigs) {
+		// Guard against cyclic flow inheritance
+		if (config == null || !visitedConfigs.add(config)) {
+			return null;
+		}
 
+		String parent = getStateCache().getParentFlowIds(config);
+		if (parent != null) {
+			for (String parentFlowId : StringUtils.commaDelimitedListToSet(parent)) {
+				IWebflowConfig parentConfig = getConfig(parentFlowId.trim());
+				IWebflowState parentState = getStateCache().getWebflowState(parentConfig);
+				if (parentState != null) {
+					IState state = getStateCache().getIndex(parentState).getStateById(stateId);
 					if (state != null) {
 						return state;
 					}
-					else {
-						return getStateFromParentFlow(stateId, parentConfig);
-					}
+				}
+				IState state = getStateFromParentFlow(stateId, parentConfig, visitedConfigs);
+				if (state != null) {
+					return state;
 				}
 			}
 		}
 		return null;
 	}
 
+	private IWebflowConfig getConfig(String flowId) {
+		IWebflowProject project = Activator.getModel().getProject(getRootElement().getElementResource().getProject());
+		return (project != null ? project.getConfig(flowId) : null);
+	}
+
+	/**
+	 * Returns the {@link WebflowStateCache} registered for the current build or a context local one if this context
+	 * is used outside of a build.
+	 */
+	private WebflowStateCache getStateCache() {
+		if (getProjectContributorState() != null) {
+			WebflowStateCache cache = getProjectContributorState().get(WebflowStateCache.class);
+			if (cache != null) {
+				return cache;
+			}
+		}
+		if (localStateCache == null) {
+			localStateCache = new WebflowStateCache();
+		}
+		return localStateCache;
+	}
+
 }